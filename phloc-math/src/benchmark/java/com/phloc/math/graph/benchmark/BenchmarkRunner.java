@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks of this package with the GC profiler enabled, so that
+ * the allocation rate is reported together with the timing. All JMH command
+ * line options (e.g. <code>-p nodeCount=1000</code> or a benchmark regex) may
+ * be passed as arguments.<br>
+ * Usage:
+ * <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="..."</code>
+ * 
+ * @author Philip Helger
+ */
+public final class BenchmarkRunner
+{
+  private BenchmarkRunner ()
+  {}
+
+  public static void main (final String [] aArgs) throws CommandLineOptionException, RunnerException
+  {
+    final CommandLineOptions aCmdLine = new CommandLineOptions (aArgs);
+    final OptionsBuilder aOptions = new OptionsBuilder ();
+    if (aCmdLine.getIncludes ().isEmpty ())
+      aOptions.include (BenchmarkRunner.class.getPackage ().getName () + ".*Benchmark");
+    aOptions.parent (aCmdLine).addProfiler (GCProfiler.class);
+    new Runner (aOptions.build ()).run ();
+  }
+}
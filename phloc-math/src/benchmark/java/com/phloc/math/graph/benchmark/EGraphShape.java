@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.benchmark;
+
+/**
+ * The shape of the graphs created by {@link GraphGenerator}.
+ * 
+ * @author Philip Helger
+ */
+public enum EGraphShape
+{
+  /**
+   * Each node is connected to a fixed number of uniformly chosen previous
+   * nodes, so that all nodes have a similar degree.
+   */
+  RANDOM,
+  /**
+   * Barabási-Albert preferential attachment: each node is connected to a fixed
+   * number of previous nodes chosen proportionally to their degree, resulting
+   * in a few hubs with a very high degree.
+   */
+  SCALE_FREE;
+}
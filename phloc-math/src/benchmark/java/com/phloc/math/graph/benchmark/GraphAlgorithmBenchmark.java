@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.algo.Boruvka;
+import com.phloc.math.graph.algo.CentralityResult;
+import com.phloc.math.graph.algo.Dijkstra;
+import com.phloc.math.graph.algo.Kruskal;
+import com.phloc.math.graph.algo.PageRank;
+import com.phloc.math.graph.algo.Prim;
+import com.phloc.math.graph.algo.ParallelBFS;
+import com.phloc.math.graph.algo.StronglyConnectedComponents;
+import com.phloc.math.graph.iterate.DirectedGraphIteratorBackward;
+import com.phloc.math.graph.iterate.DirectedGraphIteratorForward;
+import com.phloc.math.graph.iterate.GraphIterator;
+import com.phloc.math.graph.iterate.GraphIteratorBreadthFirst;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Measures the graph algorithms on pre-built graphs. The undirected graphs are
+ * connected and the directed graphs are acyclic with all nodes reachable from
+ * the first node (see {@link GraphGenerator}), so that all algorithms process
+ * the complete graph.
+ * 
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class GraphAlgorithmBenchmark
+{
+  @Param ({ "1000", "10000", "100000" })
+  public int nodeCount;
+
+  @Param ({ "4" })
+  public int relationsPerNode;
+
+  @Param ({ "RANDOM", "SCALE_FREE" })
+  public EGraphShape shape;
+
+  private SimpleGraph m_aGraph;
+  private SimpleDirectedGraph m_aDirectedGraph;
+  private String m_sFirstNodeID;
+  private String m_sLastNodeID;
+
+  @Setup
+  public void setup ()
+  {
+    final GraphGenerator aGenerator = new GraphGenerator (shape, nodeCount, relationsPerNode, 4711);
+    m_aGraph = aGenerator.createGraph (new SimpleGraphObjectFastFactory (), true);
+    m_aDirectedGraph = aGenerator.createDirectedGraph (new SimpleDirectedGraphObjectFastFactory (), true);
+    m_sFirstNodeID = GraphGenerator.getNodeID (0);
+    m_sLastNodeID = GraphGenerator.getNodeID (nodeCount - 1);
+  }
+
+  @Benchmark
+  public boolean graphContainsCycles ()
+  {
+    return m_aGraph.containsCycles ();
+  }
+
+  @Benchmark
+  public boolean directedGraphContainsCycles ()
+  {
+    return m_aDirectedGraph.containsCycles ();
+  }
+
+  @Benchmark
+  public void graphIterator (final Blackhole aBlackhole)
+  {
+    for (final IGraphNode aNode : new GraphIterator (m_aGraph.getNodeOfID (m_sFirstNodeID)))
+      aBlackhole.consume (aNode);
+  }
+
+  @Benchmark
+  public void graphIteratorBreadthFirst (final Blackhole aBlackhole)
+  {
+    for (final IGraphNode aNode : new GraphIteratorBreadthFirst (m_aGraph.getNodeOfID (m_sFirstNodeID)))
+      aBlackhole.consume (aNode);
+  }
+
+  @Benchmark
+  public void directedGraphIteratorForward (final Blackhole aBlackhole)
+  {
+    for (final IDirectedGraphNode aNode : new DirectedGraphIteratorForward (m_aDirectedGraph.getNodeOfID (m_sFirstNodeID)))
+      aBlackhole.consume (aNode);
+  }
+
+  @Benchmark
+  public void directedGraphIteratorBackward (final Blackhole aBlackhole)
+  {
+    for (final IDirectedGraphNode aNode : new DirectedGraphIteratorBackward (m_aDirectedGraph.getNodeOfID (m_sLastNodeID)))
+      aBlackhole.consume (aNode);
+  }
+
+  @Benchmark
+  public ParallelBFS.Result <IDirectedGraphNode> parallelBFSDirected ()
+  {
+    return ParallelBFS.applyBFS (m_aDirectedGraph, m_sFirstNodeID);
+  }
+
+  @Benchmark
+  public StronglyConnectedComponents.Result stronglyConnectedComponents ()
+  {
+    return StronglyConnectedComponents.applySCC (m_aDirectedGraph);
+  }
+
+  @Benchmark
+  public Dijkstra.Result <IGraphNode> dijkstra ()
+  {
+    return Dijkstra.applyDijkstra (m_aGraph, m_sFirstNodeID, m_sLastNodeID, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Dijkstra.Result <IDirectedGraphNode> dijkstraDirected ()
+  {
+    return Dijkstra.applyDijkstra (m_aDirectedGraph, m_sFirstNodeID, m_sLastNodeID, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Dijkstra.Result <IGraphNode> bidirectionalDijkstra ()
+  {
+    return Dijkstra.applyBidirectionalDijkstra (m_aGraph, m_sFirstNodeID, m_sLastNodeID, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Kruskal.Result kruskal ()
+  {
+    return Kruskal.applyKruskal (m_aGraph, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Kruskal.RelationsResult kruskalRelations ()
+  {
+    return Kruskal.applyKruskalRelations (m_aGraph, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Kruskal.RelationsResult primRelations ()
+  {
+    return Prim.applyPrimRelations (m_aGraph, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public Kruskal.RelationsResult boruvkaRelations ()
+  {
+    return Boruvka.applyBoruvkaRelations (m_aGraph, GraphGenerator.ATTR_WEIGHT);
+  }
+
+  @Benchmark
+  public CentralityResult <IDirectedGraphNode> pageRankDirected ()
+  {
+    return PageRank.applyPageRank (m_aDirectedGraph);
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.phloc.math.graph.IDirectedGraphObjectFactory;
+import com.phloc.math.graph.IGraphObjectFactory;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphBuilder;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFactory;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFactory;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Measures the construction of {@link SimpleGraph} and
+ * {@link SimpleDirectedGraph} objects with the different object factories.
+ * The relations are generated once per trial, so that only the creation of the
+ * nodes and relations is measured.
+ * 
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class GraphBuildBenchmark
+{
+  @Param ({ "1000", "10000", "100000" })
+  public int nodeCount;
+
+  @Param ({ "4" })
+  public int relationsPerNode;
+
+  @Param ({ "RANDOM", "SCALE_FREE" })
+  public EGraphShape shape;
+
+  /** <code>true</code> for the *FastFactory variants */
+  @Param ({ "false", "true" })
+  public boolean fastFactory;
+
+  private GraphGenerator m_aGenerator;
+  private IGraphObjectFactory m_aFactory;
+  private IDirectedGraphObjectFactory m_aDirectedFactory;
+
+  @Setup
+  public void setup ()
+  {
+    m_aGenerator = new GraphGenerator (shape, nodeCount, relationsPerNode, 4711);
+    m_aFactory = fastFactory ? new SimpleGraphObjectFastFactory () : new SimpleGraphObjectFactory ();
+    m_aDirectedFactory = fastFactory ? new SimpleDirectedGraphObjectFastFactory ()
+                                     : new SimpleDirectedGraphObjectFactory ();
+  }
+
+  @Benchmark
+  public SimpleGraph buildGraph ()
+  {
+    return m_aGenerator.createGraph (m_aFactory, false);
+  }
+
+  @Benchmark
+  public SimpleGraph buildGraphWithWeights ()
+  {
+    return m_aGenerator.createGraph (m_aFactory, true);
+  }
+
+  @Benchmark
+  public SimpleDirectedGraph buildDirectedGraph ()
+  {
+    return m_aGenerator.createDirectedGraph (m_aDirectedFactory, false);
+  }
+
+  @Benchmark
+  public SimpleDirectedGraph buildDirectedGraphWithWeights ()
+  {
+    return m_aGenerator.createDirectedGraph (m_aDirectedFactory, true);
+  }
+
+  @Benchmark
+  public SimpleDirectedGraph buildDirectedGraphWithBuilder ()
+  {
+    final SimpleDirectedGraphBuilder aBuilder = new SimpleDirectedGraphBuilder (m_aDirectedFactory);
+    m_aGenerator.fillBuilder (aBuilder, true);
+    return aBuilder.build ();
+  }
+}
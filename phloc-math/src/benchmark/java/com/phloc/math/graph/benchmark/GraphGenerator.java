@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.benchmark;
+
+import java.util.Random;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphObjectFactory;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphObjectFactory;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.simple.AbstractSimpleGraphBuilder;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+
+/**
+ * Creates reproducible random graphs for the benchmarks. The relations are
+ * created as plain <code>int</code> pairs first, so that the construction of
+ * the graph objects can be measured separately.<br>
+ * Node 0 is the root: every other node <code>i</code> is connected to at least
+ * one node <code>j &lt; i</code> and all relations point from the lower to
+ * the higher node index. Therefore undirected graphs are connected, and
+ * directed graphs are acyclic and all nodes are reachable from node 0.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class GraphGenerator
+{
+  /** The name of the relation attribute containing the weight */
+  public static final String ATTR_WEIGHT = "weight";
+  /** The maximum relation weight (inclusive) */
+  public static final int MAX_WEIGHT = 100;
+
+  private final int m_nNodeCount;
+  private final int [] m_aFrom;
+  private final int [] m_aTo;
+  private final int [] m_aWeights;
+
+  /**
+   * Constructor
+   * 
+   * @param eShape
+   *        The shape of the graph. May not be <code>null</code>.
+   * @param nNodeCount
+   *        The number of nodes. Must be &gt; 0.
+   * @param nRelationsPerNode
+   *        The number of relations each node creates to previous nodes. Must be
+   *        &gt; 0.
+   * @param nSeed
+   *        The random seed to use.
+   */
+  public GraphGenerator (@Nonnull final EGraphShape eShape,
+                         @Nonnegative final int nNodeCount,
+                         @Nonnegative final int nRelationsPerNode,
+                         final long nSeed)
+  {
+    if (eShape == null)
+      throw new NullPointerException ("shape");
+    if (nNodeCount <= 0)
+      throw new IllegalArgumentException ("NodeCount must be > 0: " + nNodeCount);
+    if (nRelationsPerNode <= 0)
+      throw new IllegalArgumentException ("RelationsPerNode must be > 0: " + nRelationsPerNode);
+
+    final Random aRandom = new Random (nSeed);
+    int nMaxRelations = 0;
+    for (int i = 1; i < nNodeCount; ++i)
+      nMaxRelations += Math.min (i, nRelationsPerNode);
+    final int [] aFrom = new int [nMaxRelations];
+    final int [] aTo = new int [nMaxRelations];
+
+    // For preferential attachment: each node occurs once per relation end
+    final int [] aEnds = eShape == EGraphShape.SCALE_FREE ? new int [2 * nMaxRelations] : null;
+    int nEndCount = 0;
+    final int [] aChosen = new int [nRelationsPerNode];
+
+    int nRelationCount = 0;
+    for (int i = 1; i < nNodeCount; ++i)
+    {
+      final int nTargets = Math.min (i, nRelationsPerNode);
+      int nChosen = 0;
+      while (nChosen < nTargets)
+      {
+        final int nCandidate = aEnds == null || nEndCount == 0 ? aRandom.nextInt (i)
+                                                               : aEnds[aRandom.nextInt (nEndCount)];
+        if (!_contains (aChosen, nChosen, nCandidate))
+          aChosen[nChosen++] = nCandidate;
+      }
+      for (int k = 0; k < nChosen; ++k)
+      {
+        aFrom[nRelationCount] = aChosen[k];
+        aTo[nRelationCount] = i;
+        ++nRelationCount;
+        if (aEnds != null)
+        {
+          aEnds[nEndCount++] = aChosen[k];
+          aEnds[nEndCount++] = i;
+        }
+      }
+    }
+
+    final int [] aWeights = new int [nRelationCount];
+    for (int i = 0; i < nRelationCount; ++i)
+      aWeights[i] = 1 + aRandom.nextInt (MAX_WEIGHT);
+
+    m_nNodeCount = nNodeCount;
+    m_aFrom = aFrom;
+    m_aTo = aTo;
+    m_aWeights = aWeights;
+  }
+
+  private static boolean _contains (@Nonnull final int [] aArray, final int nLength, final int nValue)
+  {
+    for (int i = 0; i < nLength; ++i)
+      if (aArray[i] == nValue)
+        return true;
+    return false;
+  }
+
+  @Nonnull
+  public static String getNodeID (final int nNodeIndex)
+  {
+    return Integer.toString (nNodeIndex);
+  }
+
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_nNodeCount;
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_aFrom.length;
+  }
+
+  /**
+   * Create a new undirected graph.
+   * 
+   * @param aFactory
+   *        The object factory to use. May be <code>null</code> to use the
+   *        default factory.
+   * @param bWithWeights
+   *        <code>true</code> to set the {@link #ATTR_WEIGHT} attribute on each
+   *        relation.
+   * @return The new graph. Never <code>null</code>.
+   */
+  @Nonnull
+  public SimpleGraph createGraph (@Nullable final IGraphObjectFactory aFactory, final boolean bWithWeights)
+  {
+    final SimpleGraph ret = aFactory == null ? new SimpleGraph () : new SimpleGraph (aFactory);
+    final IGraphNode [] aNodes = new IGraphNode [m_nNodeCount];
+    for (int i = 0; i < m_nNodeCount; ++i)
+      aNodes[i] = ret.createNode (getNodeID (i));
+    for (int i = 0; i < m_aFrom.length; ++i)
+    {
+      final IGraphRelation aRelation = ret.createRelation (aNodes[m_aFrom[i]], aNodes[m_aTo[i]]);
+      if (bWithWeights)
+        aRelation.setAttribute (ATTR_WEIGHT, m_aWeights[i]);
+    }
+    return ret;
+  }
+
+  /**
+   * Create a new directed graph.
+   * 
+   * @param aFactory
+   *        The object factory to use. May be <code>null</code> to use the
+   *        default factory.
+   * @param bWithWeights
+   *        <code>true</code> to set the {@link #ATTR_WEIGHT} attribute on each
+   *        relation.
+   * @return The new graph. Never <code>null</code>.
+   */
+  @Nonnull
+  public SimpleDirectedGraph createDirectedGraph (@Nullable final IDirectedGraphObjectFactory aFactory,
+                                                  final boolean bWithWeights)
+  {
+    final SimpleDirectedGraph ret = aFactory == null ? new SimpleDirectedGraph () : new SimpleDirectedGraph (aFactory);
+    final IDirectedGraphNode [] aNodes = new IDirectedGraphNode [m_nNodeCount];
+    for (int i = 0; i < m_nNodeCount; ++i)
+      aNodes[i] = ret.createNode (getNodeID (i));
+    for (int i = 0; i < m_aFrom.length; ++i)
+    {
+      final IDirectedGraphRelation aRelation = ret.createRelation (aNodes[m_aFrom[i]], aNodes[m_aTo[i]]);
+      if (bWithWeights)
+        aRelation.setAttribute (ATTR_WEIGHT, m_aWeights[i]);
+    }
+    return ret;
+  }
+
+  /**
+   * Add all nodes and relations to the passed builder. The weights are stored
+   * in the {@link #ATTR_WEIGHT} attribute.
+   * 
+   * @param aBuilder
+   *        The builder to fill. May not be <code>null</code>.
+   * @param bWithWeights
+   *        <code>true</code> to add a weight to each relation.
+   */
+  public void fillBuilder (@Nonnull final AbstractSimpleGraphBuilder <?, ?, ?, ?> aBuilder, final boolean bWithWeights)
+  {
+    aBuilder.setWeightAttributeName (ATTR_WEIGHT);
+    for (int i = 0; i < m_nNodeCount; ++i)
+      aBuilder.addNode (getNodeID (i));
+    for (int i = 0; i < m_aFrom.length; ++i)
+      if (bWithWeights)
+        aBuilder.addRelation (getNodeID (m_aFrom[i]), getNodeID (m_aTo[i]), m_aWeights[i]);
+      else
+        aBuilder.addRelation (getNodeID (m_aFrom[i]), getNodeID (m_aTo[i]));
+  }
+}
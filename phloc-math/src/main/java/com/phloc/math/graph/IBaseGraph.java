@@ -48,6 +48,47 @@ public interface IBaseGraph <N extends IBaseGraphNode <N, R>, R extends IBaseGra
    */
   boolean isChangingConnectedObjectsAllowed ();
 
+  /**
+   * Enable or disable incremental cycle detection. If enabled, the
+   * information required by {@link #containsCycles()} is updated each time a
+   * relation is added, so that alternately adding relations and checking for
+   * cycles does not require a full traversal of the graph each time. Removing
+   * nodes or relations still requires a full recalculation upon the next call
+   * to {@link #containsCycles()}.
+   * 
+   * @param bIncremental
+   *        <code>true</code> to enable incremental cycle detection.
+   */
+  void setIncrementalCycleDetection (boolean bIncremental);
+
+  /**
+   * @return <code>true</code> if incremental cycle detection is enabled. The
+   *         default value is <code>false</code>.
+   * @see #setIncrementalCycleDetection(boolean)
+   */
+  boolean isIncrementalCycleDetection ();
+
+  /**
+   * Register a listener that is notified about all subsequent modifications
+   * of this graph.
+   * 
+   * @param aListener
+   *        The listener to be added. May not be <code>null</code>.
+   * @return {@link EChange#UNCHANGED} if the listener is already registered.
+   */
+  @Nonnull
+  EChange addChangeListener (@Nonnull IGraphChangeListener <N, R> aListener);
+
+  /**
+   * Unregister a previously registered change listener.
+   * 
+   * @param aListener
+   *        The listener to be removed. May be <code>null</code>.
+   * @return {@link EChange#UNCHANGED} if the listener was not registered.
+   */
+  @Nonnull
+  EChange removeChangeListener (@Nullable IGraphChangeListener <N, R> aListener);
+
   /**
    * Add an existing node to this graph.
    * 
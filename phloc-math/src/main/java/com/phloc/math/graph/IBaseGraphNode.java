@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 
 import com.phloc.commons.annotations.MustImplementEqualsAndHashcode;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.state.EChange;
 
 /**
@@ -89,6 +90,17 @@ public interface IBaseGraphNode <N extends IBaseGraphNode <N, R>, R extends IBas
   @ReturnsMutableCopy
   Set <String> getAllRelationIDs ();
 
+  /**
+   * Invoke the passed callback for all incoming and outgoing relations of this
+   * node, without creating a copy of the relations. The relations of this node
+   * may not be modified from within the callback.
+   * 
+   * @param aCallback
+   *        The callback to be invoked for each relation. May not be
+   *        <code>null</code>.
+   */
+  void forEachRelation (@Nonnull INonThrowingRunnableWithParameter <R> aCallback);
+
   /**
    * @return A container with all nodes directly connected to this node's
    *         relations. Never <code>null</code>.
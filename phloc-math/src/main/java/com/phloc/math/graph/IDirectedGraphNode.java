@@ -17,6 +17,7 @@
  */
 package com.phloc.math.graph;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -25,7 +26,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.phloc.commons.annotations.MustImplementEqualsAndHashcode;
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.state.EChange;
 
 /**
@@ -72,6 +75,25 @@ public interface IDirectedGraphNode extends IBaseGraphNode <IDirectedGraphNode,
   @ReturnsMutableCopy
   List <IDirectedGraphRelation> getAllIncomingRelations ();
 
+  /**
+   * @return A read-only view on all incoming relations, without creating a
+   *         copy. The view may not be used after this node was modified.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  Collection <IDirectedGraphRelation> getIncomingRelationsView ();
+
+  /**
+   * Invoke the passed callback for all incoming relations, without creating a
+   * copy of the relations.
+   * 
+   * @param aCallback
+   *        The callback to be invoked for each incoming relation. May not be
+   *        <code>null</code>.
+   */
+  void forEachIncomingRelation (@Nonnull INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback);
+
   /**
    * Remove the passed relation from the set of incoming relations.
    * 
@@ -158,6 +180,25 @@ public interface IDirectedGraphNode extends IBaseGraphNode <IDirectedGraphNode,
   @ReturnsMutableCopy
   List <IDirectedGraphRelation> getAllOutgoingRelations ();
 
+  /**
+   * @return A read-only view on all outgoing relations, without creating a
+   *         copy. The view may not be used after this node was modified.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  Collection <IDirectedGraphRelation> getOutgoingRelationsView ();
+
+  /**
+   * Invoke the passed callback for all outgoing relations, without creating a
+   * copy of the relations.
+   * 
+   * @param aCallback
+   *        The callback to be invoked for each outgoing relation. May not be
+   *        <code>null</code>.
+   */
+  void forEachOutgoingRelation (@Nonnull INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback);
+
   /**
    * Remove the passed relation from the set of outgoing relations.
    * 
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.annotations.Nonempty;
+
+/**
+ * Callback interface that is notified about all modifications of a graph. It
+ * can be registered via
+ * {@link IBaseGraph#addChangeListener(IGraphChangeListener)} and may e.g. be
+ * used to keep derived data like indices or caches in sync with the graph.
+ * All methods are invoked synchronously after the modification was performed.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ * @param <R>
+ *        Relation class
+ */
+public interface IGraphChangeListener <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>>
+{
+  /**
+   * Called after a node was added to the graph.
+   * 
+   * @param aNode
+   *        The added node. Never <code>null</code>.
+   */
+  void onNodeAdded (@Nonnull N aNode);
+
+  /**
+   * Called after a node was removed from the graph.
+   * 
+   * @param aNode
+   *        The removed node. Never <code>null</code>.
+   */
+  void onNodeRemoved (@Nonnull N aNode);
+
+  /**
+   * Called after a relation was added to the graph.
+   * 
+   * @param aRelation
+   *        The added relation. Never <code>null</code>.
+   */
+  void onRelationAdded (@Nonnull R aRelation);
+
+  /**
+   * Called after a relation was removed from the graph.
+   * 
+   * @param aRelation
+   *        The removed relation. Never <code>null</code>.
+   */
+  void onRelationRemoved (@Nonnull R aRelation);
+
+  /**
+   * Called after an attribute of the graph itself or of one of its nodes or
+   * relations was set or removed.
+   * 
+   * @param aObject
+   *        The graph, node or relation whose attribute changed. Never
+   *        <code>null</code>.
+   * @param sAttrName
+   *        The name of the changed attribute. Neither <code>null</code> nor
+   *        empty.
+   */
+  void onAttributeChanged (@Nonnull IBaseGraphObject aObject, @Nonnull @Nonempty String sAttrName);
+}
@@ -17,10 +17,13 @@
  */
 package com.phloc.math.graph;
 
+import java.util.Collection;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.phloc.commons.annotations.MustImplementEqualsAndHashcode;
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.state.EChange;
 
 /**
@@ -50,4 +53,13 @@ public interface IGraphNode extends IBaseGraphNode <IGraphNode, IGraphRelation>
    */
   @Nonnull
   EChange removeRelation (@Nullable IGraphRelation aRelation);
+
+  /**
+   * @return A read-only view on all relations of this node, without creating a
+   *         copy. The view may not be used after this node was modified.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  Collection <IGraphRelation> getRelationsView ();
 }
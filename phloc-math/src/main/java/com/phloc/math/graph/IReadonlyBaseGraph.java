@@ -17,6 +17,7 @@
  */
 package com.phloc.math.graph;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +25,9 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.math.matrix.Matrix;
 
 /**
@@ -34,6 +37,17 @@ import com.phloc.math.matrix.Matrix;
  */
 public interface IReadonlyBaseGraph <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> extends IBaseGraphObject
 {
+  /**
+   * @return The modification stamp of this graph. It is increased upon each
+   *         modification of the graph, including attribute changes of the
+   *         graph, its nodes and its relations. Derived data (e.g. an
+   *         {@link com.phloc.math.graph.compact.IndexedGraph}) that was
+   *         created for a certain stamp is outdated if the stamp changed.
+   *         Immutable graphs always return the same value. Always &ge; 0.
+   */
+  @Nonnegative
+  long getModificationStamp ();
+
   /**
    * @return The number of nodes currently in the graph. Always &ge; 0.
    */
@@ -66,6 +80,34 @@ public interface IReadonlyBaseGraph <N extends IBaseGraphNode <N, R>, R extends
   @ReturnsMutableCopy
   Set <String> getAllNodeIDs ();
 
+  /**
+   * @return A read-only live view on all nodes of this graph, in arbitrary
+   *         order. Changes to this graph are directly reflected in the view.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsImmutableObject
+  Collection <N> getNodesView ();
+
+  /**
+   * Invoke the passed callback for all nodes of this graph, without creating a
+   * copy of the nodes. Nodes may not be added or removed from within the
+   * callback.
+   * 
+   * @param aCallback
+   *        The callback to be invoked for each node. May not be
+   *        <code>null</code>.
+   */
+  void forEachNode (@Nonnull INonThrowingRunnableWithParameter <N> aCallback);
+
+  /**
+   * @return The number of relations in this graph. This is the same as
+   *         <code>getAllRelations().size()</code> without creating the map.
+   *         Always &ge; 0.
+   */
+  @Nonnegative
+  int getRelationCount ();
+
   /**
    * @return A non-<code>null</code> collection of the relations in this graph,
    *         in arbitrary order!
@@ -82,6 +124,17 @@ public interface IReadonlyBaseGraph <N extends IBaseGraphNode <N, R>, R extends
   @ReturnsMutableCopy
   Set <String> getAllRelationIDs ();
 
+  /**
+   * Invoke the passed callback exactly once for every relation of this graph,
+   * without creating a copy of the relations. Relations may not be added or
+   * removed from within the callback.
+   * 
+   * @param aCallback
+   *        The callback to be invoked for each relation. May not be
+   *        <code>null</code>.
+   */
+  void forEachRelation (@Nonnull INonThrowingRunnableWithParameter <R> aCallback);
+
   /**
    * Check if this graph contains cycles. An example for a cycle is e.g. if
    * <code>NodeA</code> has an outgoing relation to <code>NodeB</code>,
@@ -108,7 +161,10 @@ public interface IReadonlyBaseGraph <N extends IBaseGraphNode <N, R>, R extends
   /**
    * @return A new incidence matrix (Symmetric matrix where 1/-1 is set if a
    *         relation is present, 0 if no relation is present; Number of rows
-   *         and columns is equal to the number of nodes).
+   *         and columns is equal to the number of nodes). The dense matrix
+   *         requires O(n&sup2;) memory - for large graphs use
+   *         {@link com.phloc.math.graph.compact.IndexedGraph#createIncidenceMatrix()}
+   *         instead.
    * @throws IllegalArgumentException
    *         If this graph contains no node
    */
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Find the shortest path between 2 graph nodes, using the A* algorithm. This
+ * is a variant of {@link Dijkstra} that settles the nodes in the order of
+ * their distance from the start node plus the estimated remaining distance to
+ * the end node as provided by an {@link IAStarHeuristic}. With a good
+ * heuristic considerably less nodes need to be settled; with a heuristic
+ * always returning 0 the algorithm is identical to Dijkstra's.<br>
+ * The heuristic is evaluated at most once per node. If the heuristic is only
+ * admissible but not consistent, nodes are reopened when a shorter path to
+ * them is found, so that the result is still the shortest path.
+ * 
+ * @author Philip Helger
+ */
+public final class AStar
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (AStar.class);
+
+  /** Distance of all nodes that were not (yet) reached */
+  private static final double UNREACHED = Double.POSITIVE_INFINITY;
+
+  private AStar ()
+  {}
+
+  /**
+   * Find the shortest path between two nodes.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        The ID of the end node. Must be contained in the graph.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @param aHeuristic
+   *        The admissible heuristic to estimate the remaining distance to the
+   *        end node. May not be <code>null</code>.
+   * @return The shortest path and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if a relation has no or a negative cost,
+   *         if the heuristic returns a negative value or if the end node
+   *         cannot be reached from the start node.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyAStar (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                       @Nonnull @Nonempty final String sFromID,
+                                                                                                                       @Nonnull @Nonempty final String sToID,
+                                                                                                                       @Nonnull @Nonempty final String sRelationCostAttr,
+                                                                                                                       @Nonnull final IAStarHeuristic <N> aHeuristic)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return applyAStar (aIndex,
+                       RelationWeights.createFromAttribute (aIndex, sRelationCostAttr),
+                       sFromID,
+                       sToID,
+                       aHeuristic);
+  }
+
+  /**
+   * Find the shortest path between two nodes using pre-resolved relation
+   * costs.
+   * 
+   * @param aIndex
+   *        The indexed graph to search. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        The ID of the end node. Must be contained in the graph.
+   * @param aHeuristic
+   *        The admissible heuristic to estimate the remaining distance to the
+   *        end node. May not be <code>null</code>.
+   * @return The shortest path and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if the costs don't match the indexed
+   *         graph or contain negative values, if the heuristic returns a
+   *         negative value or if the end node cannot be reached from the start
+   *         node.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyAStar (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                       @Nonnull final RelationWeights aCosts,
+                                                                                                                       @Nonnull @Nonempty final String sFromID,
+                                                                                                                       @Nonnull @Nonempty final String sToID,
+                                                                                                                       @Nonnull final IAStarHeuristic <N> aHeuristic)
+  {
+    Dijkstra.checkCosts (aIndex, aCosts);
+    if (aHeuristic == null)
+      throw new NullPointerException ("heuristic");
+    final int nStartIndex = aIndex.getNodeIndex (sFromID);
+    if (nStartIndex < 0)
+      throw new IllegalArgumentException ("From ID: " + sFromID);
+    final int nEndIndex = aIndex.getNodeIndex (sToID);
+    if (nEndIndex < 0)
+      throw new IllegalArgumentException ("To ID: " + sToID);
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    final N aEndNode = aIndex.getNodeOfIndex (nEndIndex);
+    // Cache the estimations, as they may be expensive
+    final double [] aEstimates = new double [nNodeCount];
+    Arrays.fill (aEstimates, Double.NaN);
+    final double [] aTentative = new double [nNodeCount];
+    Arrays.fill (aTentative, UNREACHED);
+    final int [] aPredecessors = new int [nNodeCount];
+    Arrays.fill (aPredecessors, CGlobal.ILLEGAL_UINT);
+    int nSettledCount = 0;
+
+    final IndexedMinHeap aHeap = new IndexedMinHeap (nNodeCount);
+    aTentative[nStartIndex] = 0;
+    aHeap.add (nStartIndex, 0);
+    boolean bFound = false;
+    while (!aHeap.isEmpty ())
+    {
+      final int nNode = aHeap.remove ();
+      if (nNode == nEndIndex)
+      {
+        bFound = true;
+        break;
+      }
+      ++nSettledCount;
+
+      // Relax all relations leaving the current node
+      final double dDistance = aTentative[nNode];
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+      {
+        final int nToNode = aIndex.getOutgoingNodeIndex (nOfs);
+        final double dNewDistance = dDistance + aCosts.getWeight (aIndex.getOutgoingRelationIndex (nOfs));
+        if (dNewDistance < aTentative[nToNode])
+        {
+          aTentative[nToNode] = dNewDistance;
+          aPredecessors[nToNode] = nNode;
+
+          double dEstimate = aEstimates[nToNode];
+          if (Double.isNaN (dEstimate))
+          {
+            dEstimate = aHeuristic.getEstimatedDistance (aIndex.getNodeOfIndex (nToNode), aEndNode);
+            if (!(dEstimate >= 0))
+              throw new IllegalArgumentException ("The heuristic returned the invalid estimation " +
+                                                  dEstimate +
+                                                  " for node '" +
+                                                  aIndex.getNodeOfIndex (nToNode).getID () +
+                                                  "'");
+            aEstimates[nToNode] = dEstimate;
+          }
+
+          // Settled nodes are reopened if the heuristic is not consistent
+          if (aHeap.contains (nToNode))
+            aHeap.decreasePriority (nToNode, dNewDistance + dEstimate);
+          else
+            aHeap.add (nToNode, dNewDistance + dEstimate);
+        }
+      }
+    }
+
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("A* from '" + sFromID + "' to '" + sToID + "' settled " + nSettledCount + " of " + nNodeCount + " nodes");
+
+    if (!bFound)
+      throw new IllegalArgumentException ("No path from '" + sFromID + "' to '" + sToID + "'");
+    return new Dijkstra.Result <N> (Dijkstra.getPath (aIndex, aPredecessors, nEndIndex), aTentative[nEndIndex]);
+  }
+}
@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Determine the shortest distances between all pairs of nodes. Two
+ * algorithms are provided, both running on a {@link ForkJoinPool}:
+ * <ul>
+ * <li>{@link #applyFloydWarshall(IndexedGraph, RelationWeights, boolean, ForkJoinPool)}
+ * runs in O(N<sup>3</sup>) independent of the number of relations. The
+ * distance matrix is processed in square blocks, so that the data of each
+ * step fits into the CPU caches. This is the better choice for dense graphs.</li>
+ * <li>{@link #applyDijkstra(IndexedGraph, RelationWeights, boolean, ForkJoinPool)}
+ * runs Dijkstra's algorithm once per start node in O(N (N + R) log N). The
+ * start nodes are processed in parallel. This is the better choice for sparse
+ * graphs.</li>
+ * </ul>
+ * {@link #applyAllPairs(IndexedGraph, RelationWeights, boolean, ForkJoinPool)}
+ * selects the algorithm based on the density of the graph.
+ * 
+ * @author Philip Helger
+ */
+public final class AllPairsShortestPaths
+{
+  /** The edge length of the blocks processed by Floyd-Warshall */
+  public static final int BLOCK_SIZE = 64;
+  /**
+   * The minimum ratio of the number of directed relations to the square of the
+   * node count, to use Floyd-Warshall instead of Dijkstra
+   */
+  public static final double DENSE_GRAPH_THRESHOLD = 0.1;
+
+  /** The number of start nodes processed by a single Dijkstra task */
+  private static final int DIJKSTRA_SOURCES_PER_TASK = 8;
+  private static final double UNREACHED = Double.POSITIVE_INFINITY;
+  private static final Logger s_aLogger = LoggerFactory.getLogger (AllPairsShortestPaths.class);
+
+  private AllPairsShortestPaths ()
+  {}
+
+  @Nonnegative
+  private static int _getMatrixSize (@Nonnull final IndexedGraph <?, ?> aIndex)
+  {
+    final long nSize = (long) aIndex.getNodeCount () * aIndex.getNodeCount ();
+    if (nSize > Integer.MAX_VALUE)
+      throw new IllegalArgumentException ("The graph has too many nodes for a distance matrix: " +
+                                          aIndex.getNodeCount ());
+    return (int) nSize;
+  }
+
+  @Nonnull
+  private static ForkJoinPool _getPool (@Nullable final ForkJoinPool aPool)
+  {
+    return aPool != null ? aPool : ForkJoinPool.commonPool ();
+  }
+
+  /**
+   * Determine the shortest distances and paths between all nodes, using the
+   * common {@link ForkJoinPool}.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @return The distance matrix including the predecessors. Never
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no or a negative cost
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> DistanceMatrix <N> applyAllPairs (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                         @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return applyAllPairs (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr), true, null);
+  }
+
+  /**
+   * Determine the shortest distances between all nodes, using Floyd-Warshall
+   * for dense graphs and Dijkstra for sparse graphs.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param bWithPredecessors
+   *        <code>true</code> to also determine the predecessors, so that the
+   *        paths can be reconstructed.
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to use
+   *        {@link ForkJoinPool#commonPool()}.
+   * @return The distance matrix. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph or contain negative
+   *         values
+   * @see #DENSE_GRAPH_THRESHOLD
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> DistanceMatrix <N> applyAllPairs (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                         @Nonnull final RelationWeights aCosts,
+                                                                                                                         final boolean bWithPredecessors,
+                                                                                                                         @Nullable final ForkJoinPool aPool)
+  {
+    Dijkstra.checkCosts (aIndex, aCosts);
+    final double dNodeCount = aIndex.getNodeCount ();
+    final double dDirectedRelationCount = aIndex.isDirected () ? aIndex.getRelationCount ()
+                                                               : 2.0 * aIndex.getRelationCount ();
+    if (dDirectedRelationCount >= dNodeCount * dNodeCount * DENSE_GRAPH_THRESHOLD)
+      return applyFloydWarshall (aIndex, aCosts, bWithPredecessors, aPool);
+    return applyDijkstra (aIndex, aCosts, bWithPredecessors, aPool);
+  }
+
+  /**
+   * Relax all paths from the nodes of the row block via the nodes of the
+   * intermediate block to the nodes of the column block.
+   */
+  private static void _updateBlock (@Nonnegative final int nNodeCount,
+                                    @Nonnull final double [] aDistances,
+                                    @Nullable final int [] aPredecessors,
+                                    @Nonnegative final int nRowBlock,
+                                    @Nonnegative final int nColBlock,
+                                    @Nonnegative final int nViaBlock)
+  {
+    final int nRowEnd = Math.min ((nRowBlock + 1) * BLOCK_SIZE, nNodeCount);
+    final int nColStart = nColBlock * BLOCK_SIZE;
+    final int nColEnd = Math.min (nColStart + BLOCK_SIZE, nNodeCount);
+    final int nViaEnd = Math.min ((nViaBlock + 1) * BLOCK_SIZE, nNodeCount);
+    for (int nVia = nViaBlock * BLOCK_SIZE; nVia < nViaEnd; ++nVia)
+    {
+      final int nViaOfs = nVia * nNodeCount;
+      for (int nRow = nRowBlock * BLOCK_SIZE; nRow < nRowEnd; ++nRow)
+      {
+        final int nRowOfs = nRow * nNodeCount;
+        final double dToVia = aDistances[nRowOfs + nVia];
+        if (dToVia == UNREACHED)
+          continue;
+        for (int nCol = nColStart; nCol < nColEnd; ++nCol)
+        {
+          final double dNewDistance = dToVia + aDistances[nViaOfs + nCol];
+          if (dNewDistance < aDistances[nRowOfs + nCol])
+          {
+            aDistances[nRowOfs + nCol] = dNewDistance;
+            if (aPredecessors != null)
+              aPredecessors[nRowOfs + nCol] = aPredecessors[nViaOfs + nCol];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Determine the shortest distances between all nodes using the blocked
+   * Floyd-Warshall algorithm. For each block of intermediate nodes, first the
+   * diagonal block is updated, afterwards all blocks in the same row and
+   * column in parallel and finally all remaining blocks in parallel.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param bWithPredecessors
+   *        <code>true</code> to also determine the predecessors, so that the
+   *        paths can be reconstructed.
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to use
+   *        {@link ForkJoinPool#commonPool()}.
+   * @return The distance matrix. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph or contain negative
+   *         values
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> DistanceMatrix <N> applyFloydWarshall (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                              @Nonnull final RelationWeights aCosts,
+                                                                                                                              final boolean bWithPredecessors,
+                                                                                                                              @Nullable final ForkJoinPool aPool)
+  {
+    Dijkstra.checkCosts (aIndex, aCosts);
+    final ForkJoinPool aRealPool = _getPool (aPool);
+    final int nNodeCount = aIndex.getNodeCount ();
+    final int nMatrixSize = _getMatrixSize (aIndex);
+    final double [] aDistances = new double [nMatrixSize];
+    Arrays.fill (aDistances, UNREACHED);
+    final int [] aPredecessors = bWithPredecessors ? new int [nMatrixSize] : null;
+    if (aPredecessors != null)
+      Arrays.fill (aPredecessors, CGlobal.ILLEGAL_UINT);
+
+    // Initialize with the direct relations
+    for (int nNode = 0; nNode < nNodeCount; ++nNode)
+    {
+      final int nRowOfs = nNode * nNodeCount;
+      aDistances[nRowOfs + nNode] = 0;
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+      {
+        final int nToNode = aIndex.getOutgoingNodeIndex (nOfs);
+        final double dCost = aCosts.getWeight (aIndex.getOutgoingRelationIndex (nOfs));
+        if (dCost < aDistances[nRowOfs + nToNode])
+        {
+          aDistances[nRowOfs + nToNode] = dCost;
+          if (aPredecessors != null)
+            aPredecessors[nRowOfs + nToNode] = nNode;
+        }
+      }
+    }
+
+    final int nBlockCount = (nNodeCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    for (int nBlock = 0; nBlock < nBlockCount; ++nBlock)
+    {
+      final int nViaBlock = nBlock;
+      _updateBlock (nNodeCount, aDistances, aPredecessors, nViaBlock, nViaBlock, nViaBlock);
+
+      // Blocks in the same row and column as the diagonal block
+      RangeSumTask.sum (aRealPool, nBlockCount, 1, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          for (int nOther = nStart; nOther < nEnd; ++nOther)
+            if (nOther != nViaBlock)
+            {
+              _updateBlock (nNodeCount, aDistances, aPredecessors, nViaBlock, nOther, nViaBlock);
+              _updateBlock (nNodeCount, aDistances, aPredecessors, nOther, nViaBlock, nViaBlock);
+            }
+          return 0;
+        }
+      });
+
+      // All remaining blocks, one task per block row
+      RangeSumTask.sum (aRealPool, nBlockCount, 1, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          for (int nRowBlock = nStart; nRowBlock < nEnd; ++nRowBlock)
+            if (nRowBlock != nViaBlock)
+              for (int nColBlock = 0; nColBlock < nBlockCount; ++nColBlock)
+                if (nColBlock != nViaBlock)
+                  _updateBlock (nNodeCount, aDistances, aPredecessors, nRowBlock, nColBlock, nViaBlock);
+          return 0;
+        }
+      });
+
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Floyd-Warshall finished block " + (nBlock + 1) + " of " + nBlockCount);
+    }
+    return new DistanceMatrix <N> (aIndex, aDistances, aPredecessors);
+  }
+
+  /**
+   * Determine the shortest distances between all nodes by running Dijkstra's
+   * algorithm for each start node. Each task reuses its heap for multiple
+   * start nodes and writes directly into the rows of the result.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param bWithPredecessors
+   *        <code>true</code> to also determine the predecessors, so that the
+   *        paths can be reconstructed.
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to use
+   *        {@link ForkJoinPool#commonPool()}.
+   * @return The distance matrix. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph or contain negative
+   *         values
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> DistanceMatrix <N> applyDijkstra (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                         @Nonnull final RelationWeights aCosts,
+                                                                                                                         final boolean bWithPredecessors,
+                                                                                                                         @Nullable final ForkJoinPool aPool)
+  {
+    Dijkstra.checkCosts (aIndex, aCosts);
+    final int nNodeCount = aIndex.getNodeCount ();
+    final int nMatrixSize = _getMatrixSize (aIndex);
+    final double [] aDistances = new double [nMatrixSize];
+    Arrays.fill (aDistances, UNREACHED);
+    final int [] aPredecessors = bWithPredecessors ? new int [nMatrixSize] : null;
+    if (aPredecessors != null)
+      Arrays.fill (aPredecessors, CGlobal.ILLEGAL_UINT);
+
+    final double dReachedPairs = RangeSumTask.sum (_getPool (aPool),
+                                                   nNodeCount,
+                                                   DIJKSTRA_SOURCES_PER_TASK,
+                                                   new RangeSumTask.IRangeOperation ()
+                                                   {
+                                                     public double apply (final int nStart, final int nEnd)
+                                                     {
+                                                       final IndexedMinHeap aHeap = new IndexedMinHeap (nNodeCount);
+                                                       final boolean [] aSettled = new boolean [nNodeCount];
+                                                       int nReached = 0;
+                                                       for (int nStartNode = nStart; nStartNode < nEnd; ++nStartNode)
+                                                       {
+                                                         Arrays.fill (aSettled, false);
+                                                         nReached += _applySingleSource (aIndex,
+                                                                                         aCosts,
+                                                                                         nStartNode,
+                                                                                         aHeap,
+                                                                                         aSettled,
+                                                                                         aDistances,
+                                                                                         aPredecessors);
+                                                       }
+                                                       return nReached;
+                                                     }
+                                                   });
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("All pairs Dijkstra on " + nNodeCount + " nodes reached " + (long) dReachedPairs + " pairs");
+    return new DistanceMatrix <N> (aIndex, aDistances, aPredecessors);
+  }
+
+  /**
+   * Run Dijkstra's algorithm from a single start node. The row of the start
+   * node in the distance matrix is used as tentative distance array.
+   * 
+   * @return The number of reached nodes
+   */
+  @Nonnegative
+  private static int _applySingleSource (@Nonnull final IndexedGraph <?, ?> aIndex,
+                                         @Nonnull final RelationWeights aCosts,
+                                         @Nonnegative final int nStartNode,
+                                         @Nonnull final IndexedMinHeap aHeap,
+                                         @Nonnull final boolean [] aSettled,
+                                         @Nonnull final double [] aDistances,
+                                         @Nullable final int [] aPredecessors)
+  {
+    final int nRowOfs = nStartNode * aIndex.getNodeCount ();
+    int ret = 0;
+    aDistances[nRowOfs + nStartNode] = 0;
+    aHeap.add (nStartNode, 0);
+    while (!aHeap.isEmpty ())
+    {
+      final int nNode = aHeap.remove ();
+      aSettled[nNode] = true;
+      ++ret;
+      final double dDistance = aDistances[nRowOfs + nNode];
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+      {
+        final int nToNode = aIndex.getOutgoingNodeIndex (nOfs);
+        if (aSettled[nToNode])
+          continue;
+        final double dNewDistance = dDistance + aCosts.getWeight (aIndex.getOutgoingRelationIndex (nOfs));
+        final double dOldDistance = aDistances[nRowOfs + nToNode];
+        if (dNewDistance < dOldDistance)
+        {
+          if (dOldDistance == UNREACHED)
+            aHeap.add (nToNode, dNewDistance);
+          else
+            aHeap.decreasePriority (nToNode, dNewDistance);
+          aDistances[nRowOfs + nToNode] = dNewDistance;
+          if (aPredecessors != null)
+            aPredecessors[nRowOfs + nToNode] = nNode;
+        }
+      }
+    }
+    return ret;
+  }
+}
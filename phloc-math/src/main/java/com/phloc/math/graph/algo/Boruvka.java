@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Find the minimum spanning tree of a graph, using Bor&#367;vka's algorithm.
+ * Each phase determines the cheapest relation leaving each component and adds
+ * all of them at once, so that the number of components at least halves per
+ * phase, resulting in a runtime of O(R log N). The search for the cheapest
+ * relations is done per node in parallel on a {@link ForkJoinPool}, which makes
+ * this the better choice for very large sparse graphs. Relations with the same
+ * cost are ordered by their index, so that no cycles can be introduced. For
+ * graphs with multiple components a minimum spanning forest is created, as
+ * with {@link Kruskal}.
+ * 
+ * @author Philip Helger
+ */
+public final class Boruvka
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (Boruvka.class);
+
+  private Boruvka ()
+  {}
+
+  private static boolean _isCheaper (@Nonnull final RelationWeights aCosts, final int nRel, final int nOtherRel)
+  {
+    if (nOtherRel < 0)
+      return true;
+    final double dCost = aCosts.getWeight (nRel);
+    final double dOtherCost = aCosts.getWeight (nOtherRel);
+    return dCost < dOtherCost || (dCost == dOtherCost && nRel < nOtherRel);
+  }
+
+  /**
+   * Determine the relations of the minimum spanning tree without creating a
+   * new graph, using the common {@link ForkJoinPool}.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric cost
+   */
+  @Nonnull
+  public static Kruskal.RelationsResult applyBoruvkaRelations (@Nonnull final IReadonlyGraph aGraph,
+                                                               @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    return applyBoruvkaRelations (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr), null);
+  }
+
+  /**
+   * Determine the relations of the minimum spanning tree using pre-resolved
+   * relation costs without creating a new graph.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The cost of each relation of the indexed graph. May not be
+   *        <code>null</code>.
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to use
+   *        {@link ForkJoinPool#commonPool()}.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph
+   */
+  @Nonnull
+  public static Kruskal.RelationsResult applyBoruvkaRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                               @Nonnull final RelationWeights aCosts,
+                                                               @Nullable final ForkJoinPool aPool)
+  {
+    Prim.checkCosts (aIndex, aCosts);
+    final ForkJoinPool aRealPool = aPool != null ? aPool : ForkJoinPool.commonPool ();
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting Boruvka on " + nNodeCount + " nodes");
+
+    final DisjointSet aComponents = new DisjointSet (nNodeCount);
+    // The component of each node - read only while searching in parallel
+    final int [] aNodeComponents = new int [nNodeCount];
+    // The cheapest relation leaving each node respectively component
+    final int [] aNodeBest = new int [nNodeCount];
+    final int [] aComponentBest = new int [nNodeCount];
+    final List <IGraphRelation> aRelations = new ArrayList <IGraphRelation> ();
+    double dTotalWeight = 0;
+    int nPhase = 0;
+    boolean bChanged = true;
+    while (bChanged)
+    {
+      ++nPhase;
+      for (int i = 0; i < nNodeCount; ++i)
+        aNodeComponents[i] = aComponents.find (i);
+
+      RangeSumTask.sum (aRealPool, nNodeCount, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          for (int nNode = nStart; nNode < nEnd; ++nNode)
+          {
+            final int nComponent = aNodeComponents[nNode];
+            int nBest = CGlobal.ILLEGAL_UINT;
+            for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+              if (aNodeComponents[aIndex.getOutgoingNodeIndex (nOfs)] != nComponent)
+              {
+                final int nRel = aIndex.getOutgoingRelationIndex (nOfs);
+                if (_isCheaper (aCosts, nRel, nBest))
+                  nBest = nRel;
+              }
+            aNodeBest[nNode] = nBest;
+          }
+          return 0;
+        }
+      });
+
+      // Reduce to the cheapest relation per component
+      Arrays.fill (aComponentBest, CGlobal.ILLEGAL_UINT);
+      for (int nNode = 0; nNode < nNodeCount; ++nNode)
+      {
+        final int nRel = aNodeBest[nNode];
+        if (nRel >= 0 && _isCheaper (aCosts, nRel, aComponentBest[aNodeComponents[nNode]]))
+          aComponentBest[aNodeComponents[nNode]] = nRel;
+      }
+
+      // Add the relations - two components may have selected the same one
+      bChanged = false;
+      for (int nComponent = 0; nComponent < nNodeCount; ++nComponent)
+      {
+        final int nRel = aComponentBest[nComponent];
+        if (nRel >= 0 && aComponents.union (aIndex.getRelationFromIndex (nRel), aIndex.getRelationToIndex (nRel)))
+        {
+          aRelations.add (aIndex.getRelationOfIndex (nRel));
+          dTotalWeight += aCosts.getWeight (nRel);
+          bChanged = true;
+        }
+      }
+
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Phase " + nPhase + " selected " + aRelations.size () + " relations in total");
+    }
+
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Having a total weight of " + dTotalWeight);
+
+    return new Kruskal.RelationsResult (aIndex.getGraph (), aRelations, dTotalWeight);
+  }
+
+  /**
+   * Determine the minimum spanning tree and create a new graph containing it.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The new graph containing the minimum spanning tree together with
+   *         its total weight. Never <code>null</code>.
+   * @see #applyBoruvkaRelations(IReadonlyGraph, String)
+   */
+  @Nonnull
+  public static Kruskal.Result applyBoruvka (@Nonnull final IReadonlyGraph aGraph,
+                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final Kruskal.RelationsResult aResult = applyBoruvkaRelations (aGraph, sRelationCostAttr);
+    return new Kruskal.Result (aResult.createGraph (), aResult.getTotalWeightAsDouble ());
+  }
+}
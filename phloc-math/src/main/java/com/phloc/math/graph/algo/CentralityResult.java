@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.compact.IndexedGraph;
+
+/**
+ * The result of a node centrality computation like {@link PageRank} or
+ * {@link EigenvectorCentrality}: a score per node of an {@link IndexedGraph}.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ */
+@Immutable
+public final class CentralityResult <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
+{
+  private final IndexedGraph <N, ?> m_aIndex;
+  private final double [] m_aScores;
+  private final int m_nIterationCount;
+  private final boolean m_bConverged;
+
+  CentralityResult (@Nonnull final IndexedGraph <N, ?> aIndex,
+                    @Nonnull final double [] aScores,
+                    @Nonnegative final int nIterationCount,
+                    final boolean bConverged)
+  {
+    m_aIndex = aIndex;
+    m_aScores = aScores;
+    m_nIterationCount = nIterationCount;
+    m_bConverged = bConverged;
+  }
+
+  /**
+   * @return The indexed graph the computation ran on. Never <code>null</code>.
+   */
+  @Nonnull
+  public IndexedGraph <N, ?> getIndex ()
+  {
+    return m_aIndex;
+  }
+
+  /**
+   * @return The number of performed iterations.
+   */
+  @Nonnegative
+  public int getIterationCount ()
+  {
+    return m_nIterationCount;
+  }
+
+  /**
+   * @return <code>true</code> if the tolerance was reached,
+   *         <code>false</code> if the computation stopped because the maximum
+   *         number of iterations was reached.
+   */
+  public boolean isConverged ()
+  {
+    return m_bConverged;
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index in the indexed graph.
+   * @return The score of the node.
+   */
+  public double getScoreOfIndex (@Nonnegative final int nNodeIndex)
+  {
+    return m_aScores[nNodeIndex];
+  }
+
+  /**
+   * @param sNodeID
+   *        The ID of the node to query. May be <code>null</code>.
+   * @return The score of the node or {@link Double#NaN} if no such node is
+   *         contained.
+   */
+  public double getScore (@Nullable final String sNodeID)
+  {
+    final int nIndex = m_aIndex.getNodeIndex (sNodeID);
+    return nIndex < 0 ? Double.NaN : m_aScores[nIndex];
+  }
+
+  /**
+   * @return A copy of all scores, indexed by node index.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] getAllScores ()
+  {
+    return m_aScores.clone ();
+  }
+
+  /**
+   * @return The node with the highest score or <code>null</code> if the graph
+   *         has no nodes.
+   */
+  @Nullable
+  public N getHighestScoringNode ()
+  {
+    int nBest = -1;
+    for (int i = 0; i < m_aScores.length; ++i)
+      if (nBest < 0 || m_aScores[i] > m_aScores[nBest])
+        nBest = i;
+    return nBest < 0 ? null : m_aIndex.getNodeOfIndex (nBest);
+  }
+
+  /**
+   * Write the score of each node into the passed node attribute. This
+   * modifies the nodes of the source graph!
+   * 
+   * @param sAttrName
+   *        The name of the attribute to set. May neither be <code>null</code>
+   *        nor empty.
+   */
+  public void setAsAttribute (@Nonnull @Nonempty final String sAttrName)
+  {
+    for (int i = 0; i < m_aScores.length; ++i)
+      m_aIndex.getNodeOfIndex (i).setAttribute (sAttrName, m_aScores[i]);
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getAsString ()
+  {
+    return "Computed " +
+           m_aScores.length +
+           " scores in " +
+           m_nIterationCount +
+           " iterations" +
+           (m_bConverged ? "" : " (not converged)");
+  }
+}
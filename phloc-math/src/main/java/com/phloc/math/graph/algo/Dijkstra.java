@@ -18,9 +18,10 @@
 package com.phloc.math.graph.algo;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnegative;
@@ -31,20 +32,29 @@ import javax.annotation.concurrent.Immutable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.phloc.commons.CGlobal;
 import com.phloc.commons.GlobalDebug;
 import com.phloc.commons.IHasStringRepresentation;
 import com.phloc.commons.annotations.Nonempty;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
 import com.phloc.commons.collections.ContainerHelper;
-import com.phloc.commons.lang.GenericReflection;
-import com.phloc.math.graph.IBaseGraph;
 import com.phloc.math.graph.IBaseGraphNode;
 import com.phloc.math.graph.IBaseGraphRelation;
-import com.phloc.math.graph.IDirectedGraphNode;
-import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
 
 /**
- * Find the shortest path between 2 graph nodes, using Dijsktra's algorithm
+ * Find the shortest path between 2 graph nodes, using Dijsktra's algorithm.
+ * The graph is converted to an {@link IndexedGraph} and the nodes to visit are
+ * managed in an indexed binary heap, so that only the relations of the
+ * currently settled node need to be relaxed. This results in a runtime of
+ * O((N + R) log N).<br>
+ * The relation costs are resolved once into a {@link RelationWeights} array
+ * before the search starts. The costs may be arbitrary non-negative
+ * <code>double</code> values. To run multiple searches on the same graph, the
+ * {@link IndexedGraph} and the {@link RelationWeights} can be created once and
+ * passed to the respective methods.
  * 
  * @author Philip Helger
  */
@@ -52,160 +62,214 @@ public final class Dijkstra
 {
   private static final Logger s_aLogger = LoggerFactory.getLogger (Dijkstra.class);
 
-  private static final class WorkElement <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
-  {
-    private final N m_aFromNode;
-    private final int m_nDistance;
-    private final N m_aToNode;
+  /** Distance of all nodes that were not (yet) reached */
+  private static final double UNREACHED = Double.POSITIVE_INFINITY;
 
-    /**
-     * Special constructor for the initial state
-     * 
-     * @param nDistance
-     *        Distance to use
-     * @param aToNode
-     *        to-node to use
-     */
-    public WorkElement (@Nonnegative final int nDistance, @Nonnull final N aToNode)
-    {
-      this (null, nDistance, aToNode);
-    }
+  @Immutable
+  public static final class Result <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
+  {
+    private final List <N> m_aResultNodes;
+    private final double m_dResultDistance;
 
-    public WorkElement (@Nullable final N aFromNode, @Nonnegative final int nDistance, @Nonnull final N aToNode)
+    public Result (@Nonnull @Nonempty final List <N> aResultNodes, @Nonnegative final double dResultDistance)
     {
-      if (nDistance < 0)
-        throw new IllegalArgumentException ("Distance may not be negative: " + nDistance);
-      if (aToNode == null)
-        throw new NullPointerException ("toNode");
-      m_aFromNode = aFromNode;
-      m_nDistance = nDistance;
-      m_aToNode = aToNode;
+      if (ContainerHelper.isEmpty (aResultNodes))
+        throw new IllegalArgumentException ("resultNodes");
+      if (!(dResultDistance >= 0))
+        throw new IllegalArgumentException ("Distance negative: " + dResultDistance);
+      m_aResultNodes = aResultNodes;
+      m_dResultDistance = dResultDistance;
     }
 
-    @Nullable
-    public N getFromNode ()
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <N> getAllResultNodes ()
     {
-      return m_aFromNode;
+      return ContainerHelper.newList (m_aResultNodes);
     }
 
-    @Nullable
-    public String getFromNodeID ()
+    @Nonnull
+    public int getResultNodeCount ()
     {
-      return m_aFromNode == null ? null : m_aFromNode.getID ();
+      return m_aResultNodes.size ();
     }
 
+    /**
+     * @return The total distance as an <code>int</code>.
+     * @throws IllegalStateException
+     *         If the distance is not an <code>int</code> value
+     * @see #getResultDistanceAsDouble()
+     */
     @Nonnegative
-    public int getDistance ()
-    {
-      return m_nDistance;
-    }
-
-    @Nonnull
-    public N getToNode ()
+    public int getResultDistance ()
     {
-      return m_aToNode;
+      return _getAsInt (m_dResultDistance);
     }
 
-    @Nonnull
-    public String getToNodeID ()
+    /**
+     * @return The total distance. Always &ge; 0.
+     */
+    @Nonnegative
+    public double getResultDistanceAsDouble ()
     {
-      return m_aToNode.getID ();
+      return m_dResultDistance;
     }
 
     @Nonnull
     @Nonempty
     public String getAsString ()
     {
-      return "{" +
-             (m_aFromNode == null ? "" : "'" + m_aFromNode.getID () + "',") +
-             (m_nDistance == Integer.MAX_VALUE ? "Inf" : Integer.toString (m_nDistance)) +
-             ",'" +
-             m_aToNode.getID () +
-             "'}";
+      final StringBuilder aSB = new StringBuilder ();
+      aSB.append ("Distance ").append (m_dResultDistance).append (" for route {");
+      int nIndex = 0;
+      for (final N aNode : m_aResultNodes)
+      {
+        if (nIndex++ > 0)
+          aSB.append (',');
+        aSB.append ('\'').append (aNode.getID ()).append ('\'');
+      }
+      return aSB.append ('}').toString ();
     }
   }
 
-  private static final class WorkRow <N extends IBaseGraphNode <N, ?>>
+  /**
+   * The single-source shortest path tree, as created by
+   * {@link Dijkstra#applyDijkstraAll(IndexedGraph, RelationWeights, String)}
+   * and
+   * {@link Dijkstra#applyDijkstra(IndexedGraph, RelationWeights, String, Collection)}
+   * . Only nodes for which the shortest distance was finally determined are
+   * considered "reached".
+   * 
+   * @param <N>
+   *        Node class
+   */
+  @Immutable
+  public static final class ResultTree <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
   {
-    private final Map <String, WorkElement <N>> m_aElements;
-
-    public WorkRow (@Nonnegative final int nElements)
+    private final IndexedGraph <N, ?> m_aIndex;
+    private final int m_nStartNodeIndex;
+    private final double [] m_aDistances;
+    private final int [] m_aPredecessors;
+    private final int [] m_aReachedOrder;
+
+    ResultTree (@Nonnull final IndexedGraph <N, ?> aIndex,
+                @Nonnegative final int nStartNodeIndex,
+                @Nonnull final double [] aDistances,
+                @Nonnull final int [] aPredecessors,
+                @Nonnull final int [] aReachedOrder)
     {
-      if (nElements <= 0)
-        throw new IllegalArgumentException ("Elements must be positive: " + nElements);
-      m_aElements = new LinkedHashMap <String, WorkElement <N>> (nElements);
+      m_aIndex = aIndex;
+      m_nStartNodeIndex = nStartNodeIndex;
+      m_aDistances = aDistances;
+      m_aPredecessors = aPredecessors;
+      m_aReachedOrder = aReachedOrder;
     }
 
-    public void add (@Nonnull final WorkElement <N> aElement)
+    private int _getReachedIndex (@Nullable final String sNodeID)
     {
-      if (aElement == null)
-        throw new NullPointerException ("element");
-
-      m_aElements.put (aElement.getToNodeID (), aElement);
+      final int nIndex = m_aIndex.getNodeIndex (sNodeID);
+      return nIndex >= 0 && m_aDistances[nIndex] != UNREACHED ? nIndex : CGlobal.ILLEGAL_UINT;
     }
 
-    @Nullable
-    public WorkElement <N> getElement (@Nullable final String sNodeID)
+    /**
+     * @return The start node. Never <code>null</code>.
+     */
+    @Nonnull
+    public N getStartNode ()
     {
-      return m_aElements.get (sNodeID);
+      return m_aIndex.getNodeOfIndex (m_nStartNodeIndex);
     }
 
     /**
-     * @return The element with the smallest distance!
+     * @return The number of reached nodes including the start node. Always
+     *         &gt; 0.
      */
-    @Nonnull
-    public WorkElement <N> getClosestElement ()
+    @Nonnegative
+    public int getReachedNodeCount ()
     {
-      WorkElement <N> ret = null;
-      for (final WorkElement <N> aElement : m_aElements.values ())
-        if (ret == null || aElement.getDistance () < ret.getDistance ())
-          ret = aElement;
-      if (ret == null)
-        throw new IllegalStateException ("Cannot call this method without an element!");
-      return ret;
+      return m_aReachedOrder.length;
     }
 
+    /**
+     * @return The IDs of all reached nodes in ascending order of their
+     *         distance to the start node.
+     */
     @Nonnull
     @ReturnsMutableCopy
-    public List <WorkElement <N>> getAllElements ()
+    public Set <String> getAllReachedNodeIDs ()
     {
-      return ContainerHelper.newList (m_aElements.values ());
+      final Set <String> ret = new LinkedHashSet <String> (m_aReachedOrder.length);
+      for (final int nIndex : m_aReachedOrder)
+        ret.add (m_aIndex.getNodeOfIndex (nIndex).getID ());
+      return ret;
     }
-  }
 
-  @Immutable
-  public static final class Result <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
-  {
-    private final List <N> m_aResultNodes;
-    private final int m_nResultDistance;
+    /**
+     * @param sNodeID
+     *        The ID of the node to check. May be <code>null</code>.
+     * @return <code>true</code> if the shortest distance to the passed node is
+     *         known.
+     */
+    public boolean isReached (@Nullable final String sNodeID)
+    {
+      return _getReachedIndex (sNodeID) >= 0;
+    }
 
-    public Result (@Nonnull @Nonempty final List <N> aResultNodes, @Nonnegative final int nResultDistance)
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The shortest distance from the start node to the passed node or
+     *         {@link CGlobal#ILLEGAL_UINT} if the node was not reached.
+     * @throws IllegalStateException
+     *         If the distance is not an <code>int</code> value
+     * @see #getDistanceAsDouble(String)
+     */
+    public int getDistance (@Nullable final String sNodeID)
     {
-      if (ContainerHelper.isEmpty (aResultNodes))
-        throw new IllegalArgumentException ("resultNodes");
-      if (nResultDistance < 0)
-        throw new IllegalArgumentException ("Distance negative: " + nResultDistance);
-      m_aResultNodes = aResultNodes;
-      m_nResultDistance = nResultDistance;
+      final int nIndex = _getReachedIndex (sNodeID);
+      return nIndex < 0 ? CGlobal.ILLEGAL_UINT : _getAsInt (m_aDistances[nIndex]);
     }
 
-    @Nonnull
-    @ReturnsMutableCopy
-    public List <N> getAllResultNodes ()
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The shortest distance from the start node to the passed node or
+     *         {@link Double#POSITIVE_INFINITY} if the node was not reached.
+     */
+    public double getDistanceAsDouble (@Nullable final String sNodeID)
     {
-      return ContainerHelper.newList (m_aResultNodes);
+      final int nIndex = _getReachedIndex (sNodeID);
+      return nIndex < 0 ? UNREACHED : m_aDistances[nIndex];
     }
 
-    @Nonnull
-    public int getResultNodeCount ()
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The node preceding the passed node on the shortest path from the
+     *         start node. <code>null</code> if the node was not reached or if it
+     *         is the start node.
+     */
+    @Nullable
+    public N getPredecessor (@Nullable final String sNodeID)
     {
-      return m_aResultNodes.size ();
+      final int nIndex = _getReachedIndex (sNodeID);
+      return nIndex < 0 || m_aPredecessors[nIndex] < 0 ? null : m_aIndex.getNodeOfIndex (m_aPredecessors[nIndex]);
     }
 
-    @Nonnegative
-    public int getResultDistance ()
+    /**
+     * Get the shortest path from the start node to the passed node.
+     * 
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return <code>null</code> if the node was not reached.
+     */
+    @Nullable
+    public Result <N> getResult (@Nullable final String sNodeID)
     {
-      return m_nResultDistance;
+      final int nIndex = _getReachedIndex (sNodeID);
+      if (nIndex < 0)
+        return null;
+      return new Result <N> (getPath (m_aIndex, m_aPredecessors, nIndex), m_aDistances[nIndex]);
     }
 
     @Nonnull
@@ -213,13 +277,13 @@ public final class Dijkstra
     public String getAsString ()
     {
       final StringBuilder aSB = new StringBuilder ();
-      aSB.append ("Distance ").append (m_nResultDistance).append (" for route {");
-      int nIndex = 0;
-      for (final N aNode : m_aResultNodes)
+      aSB.append ("Distances from '").append (getStartNode ().getID ()).append ("': {");
+      int nCount = 0;
+      for (final int nIndex : m_aReachedOrder)
       {
-        if (nIndex++ > 0)
+        if (nCount++ > 0)
           aSB.append (',');
-        aSB.append ('\'').append (aNode.getID ()).append ('\'');
+        aSB.append ('\'').append (m_aIndex.getNodeOfIndex (nIndex).getID ()).append ("'=").append (m_aDistances[nIndex]);
       }
       return aSB.append ('}').toString ();
     }
@@ -228,146 +292,503 @@ public final class Dijkstra
   private Dijkstra ()
   {}
 
-  @Nullable
-  private static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> R _getRelationFromLastMatch (@Nonnull final WorkElement <N> aLastMatch,
-                                                                                                                     @Nonnull final N aNode)
+  private static int _getAsInt (final double dDistance)
   {
-    if (aNode.isDirected ())
-    {
-      // Directed
+    final int ret = (int) dDistance;
+    if (ret != dDistance)
+      throw new IllegalStateException ("Distance is not an int value: " + dDistance);
+    return ret;
+  }
 
-      // Cast to Object required for JDK command line compiler
-      final Object aDirectedFromNode = aLastMatch.getToNode ();
-      final Object aDirectedToNode = aNode;
-      final IDirectedGraphRelation r = ((IDirectedGraphNode) aDirectedFromNode).getOutgoingRelationTo ((IDirectedGraphNode) aDirectedToNode);
-      return GenericReflection.<IDirectedGraphRelation, R> uncheckedCast (r);
-    }
+  /**
+   * Check that the passed relation costs can be used for a shortest path
+   * search on the passed indexed graph.
+   */
+  static void checkCosts (@Nonnull final IndexedGraph <?, ?> aIndex, @Nonnull final RelationWeights aCosts)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (aCosts == null)
+      throw new NullPointerException ("costs");
+    if (aCosts.getRelationCount () != aIndex.getRelationCount ())
+      throw new IllegalArgumentException ("Expected " +
+                                          aIndex.getRelationCount () +
+                                          " relation costs but got " +
+                                          aCosts.getRelationCount ());
+    if (!aCosts.isNonNegative ())
+      throw new IllegalArgumentException ("Relation costs may not be negative");
+  }
 
-    // Undirected
-    return aLastMatch.getToNode ().getRelation (aNode);
+  /**
+   * Build the path ending at the passed node by following the predecessors.
+   */
+  @Nonnull
+  static <N extends IBaseGraphNode <N, ?>> List <N> getPath (@Nonnull final IndexedGraph <N, ?> aIndex,
+                                                             @Nonnull final int [] aPredecessors,
+                                                             @Nonnegative final int nEndIndex)
+  {
+    final List <N> ret = new ArrayList <N> ();
+    int nCurrent = nEndIndex;
+    while (nCurrent >= 0)
+    {
+      ret.add (aIndex.getNodeOfIndex (nCurrent));
+      nCurrent = aPredecessors[nCurrent];
+    }
+    return ContainerHelper.getReverseInlineList (ret);
   }
 
-  // ESCA-JAVA0285:
   @Nonnull
-  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyDijkstra (@Nonnull final IBaseGraph <N, R> aGraph,
-                                                                                                                          @Nonnull @Nonempty final String sFromID,
-                                                                                                                          @Nonnull @Nonempty final String sToID,
-                                                                                                                          @Nonnull @Nonempty final String sRelationCostAttr)
+  private static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> ResultTree <N> _applyDijkstra (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                      @Nonnull final RelationWeights aCosts,
+                                                                                                                      @Nonnull @Nonempty final String sFromID,
+                                                                                                                      @Nullable final Collection <String> aToIDs)
   {
-    final N aStartNode = aGraph.getNodeOfID (sFromID);
-    if (aStartNode == null)
+    checkCosts (aIndex, aCosts);
+
+    final int nStartIndex = aIndex.getNodeIndex (sFromID);
+    if (nStartIndex < 0)
       throw new IllegalArgumentException ("From ID: " + sFromID);
-    final N aEndNode = aGraph.getNodeOfID (sToID);
-    if (aEndNode == null)
-      throw new IllegalArgumentException ("To ID: " + sToID);
 
-    // Ordered set for deterministic results
-    final Set <N> aAllRemainingNodes = ContainerHelper.newOrderedSet (aGraph.getAllNodes ().values ());
+    final int nNodeCount = aIndex.getNodeCount ();
+    boolean [] aTargets = null;
+    int nRemainingTargets = 0;
+    if (aToIDs != null)
+    {
+      aTargets = new boolean [nNodeCount];
+      for (final String sToID : aToIDs)
+      {
+        final int nToIndex = aIndex.getNodeIndex (sToID);
+        if (nToIndex < 0)
+          throw new IllegalArgumentException ("To ID: " + sToID);
+        if (!aTargets[nToIndex])
+        {
+          aTargets[nToIndex] = true;
+          ++nRemainingTargets;
+        }
+      }
+    }
 
     if (GlobalDebug.isDebugMode ())
-      s_aLogger.info ("Starting Dijkstra on directed graph with " +
-                      aAllRemainingNodes.size () +
+      s_aLogger.info ("Starting Dijkstra on " +
+                      (aIndex.isDirected () ? "directed" : "undirected") +
+                      " graph with " +
+                      nNodeCount +
                       " nodes starting from '" +
                       sFromID +
-                      "' and up to '" +
-                      sToID +
-                      "'");
-
-    // Map from to-node-id to element
-    final Map <String, WorkElement <N>> aAllMatches = new LinkedHashMap <String, WorkElement <N>> ();
-    WorkElement <N> aLastMatch = null;
-    WorkRow <N> aLastRow = null;
-    int nIteration = 0;
-    do
+                      "'" +
+                      (aToIDs == null ? "" : " up to " + aToIDs));
+
+    final double [] aDistances = new double [nNodeCount];
+    Arrays.fill (aDistances, UNREACHED);
+    final double [] aTentative = new double [nNodeCount];
+    Arrays.fill (aTentative, UNREACHED);
+    final int [] aPredecessors = new int [nNodeCount];
+    Arrays.fill (aPredecessors, CGlobal.ILLEGAL_UINT);
+    final int [] aReachedOrder = new int [nNodeCount];
+    int nReachedCount = 0;
+
+    final IndexedMinHeap aHeap = new IndexedMinHeap (nNodeCount);
+    aTentative[nStartIndex] = 0;
+    aHeap.add (nStartIndex, 0);
+    while (!aHeap.isEmpty ())
     {
-      final WorkRow <N> aRow = new WorkRow <N> (aAllRemainingNodes.size ());
-      if (aLastRow == null)
+      // The node with the smallest tentative distance is final
+      final int nNode = aHeap.remove ();
+      final double dDistance = aTentative[nNode];
+      aDistances[nNode] = dDistance;
+      aReachedOrder[nReachedCount++] = nNode;
+
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Iteration[" +
+                        (nReachedCount - 1) +
+                        "]: '" +
+                        aIndex.getNodeOfIndex (nNode).getID () +
+                        "' with distance " +
+                        dDistance);
+
+      if (aTargets != null && aTargets[nNode] && --nRemainingTargets == 0)
       {
-        // Initial row - no from node
-        for (final N aNode : aAllRemainingNodes)
-          if (aNode.equals (aStartNode))
-          {
-            // Start node has distance 0 to itself
-            aRow.add (new WorkElement <N> (0, aNode));
-          }
-          else
-          {
-            // All other elements have infinite distance to the start node (for
-            // now)
-            aRow.add (new WorkElement <N> (Integer.MAX_VALUE, aNode));
-          }
+        // All requested targets are reached
+        break;
       }
-      else
+
+      // Relax all relations leaving the current node
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
       {
-        // All following rows
-        for (final N aNode : aAllRemainingNodes)
+        final int nToNode = aIndex.getOutgoingNodeIndex (nOfs);
+        if (aDistances[nToNode] != UNREACHED)
+          continue;
+        final double dNewDistance = dDistance + aCosts.getWeight (aIndex.getOutgoingRelationIndex (nOfs));
+
+        // Use only, if distance is shorter (=better) than before!
+        if (dNewDistance < aTentative[nToNode])
         {
-          // Find distance to last match
-          final WorkElement <N> aPrevElement = aLastRow.getElement (aNode.getID ());
-
-          // Get the relation from the last match to this node (may be null if
-          // nodes are not connected)
-          final R aRelation = Dijkstra.<N, R> _getRelationFromLastMatch (aLastMatch, aNode);
-          if (aRelation != null)
-          {
-            // Nodes are related - check weight
-            final int nNewDistance = aLastMatch.getDistance () +
-                                     aRelation.getAttributeAsInt (sRelationCostAttr, Integer.MIN_VALUE);
-
-            // Use only, if distance is shorter (=better) than before!
-            if (nNewDistance < aPrevElement.getDistance ())
-              aRow.add (new WorkElement <N> (aLastMatch.getToNode (), nNewDistance, aNode));
-            else
-              aRow.add (aPrevElement);
-          }
+          if (aTentative[nToNode] == UNREACHED)
+            aHeap.add (nToNode, dNewDistance);
           else
-          {
-            // Nodes are not related - use result from previous row
-            aRow.add (aPrevElement);
-          }
+            aHeap.decreasePriority (nToNode, dNewDistance);
+          aTentative[nToNode] = dNewDistance;
+          aPredecessors[nToNode] = nNode;
         }
       }
+    }
 
-      // Get the closest element of the current row
-      final WorkElement <N> aClosest = aRow.getClosestElement ();
+    return new ResultTree <N> (aIndex, nStartIndex, aDistances, aPredecessors, Arrays.copyOf (aReachedOrder,
+                                                                                             nReachedCount));
+  }
 
-      if (GlobalDebug.isDebugMode ())
-      {
-        final StringBuilder aSB = new StringBuilder ("Iteration[").append (nIteration).append ("]: ");
-        for (final WorkElement <N> e : aRow.getAllElements ())
-          aSB.append (e.getAsString ());
-        aSB.append (" ==> ").append (aClosest.getAsString ());
-        s_aLogger.info (aSB.toString ());
-      }
+  /**
+   * Find the shortest path between two nodes.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        The ID of the end node. Must be contained in the graph.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @return The shortest path and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if a relation has no or a negative cost
+   *         or if the end node cannot be reached from the start node.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyDijkstra (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                          @Nonnull @Nonempty final String sFromID,
+                                                                                                                          @Nonnull @Nonempty final String sToID,
+                                                                                                                          @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    final ResultTree <N> aTree = _applyDijkstra (aIndex,
+                                                 RelationWeights.createFromAttribute (aIndex, sRelationCostAttr),
+                                                 sFromID,
+                                                 ContainerHelper.newList (sToID));
+    final Result <N> ret = aTree.getResult (sToID);
+    if (ret == null)
+      throw new IllegalArgumentException ("No path from '" + sFromID + "' to '" + sToID + "'");
+    return ret;
+  }
+
+  /**
+   * Find the shortest paths from one node to multiple nodes. The search stops
+   * as soon as the shortest distance to all target nodes is known.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param aToIDs
+   *        The IDs of all target nodes. All must be contained in the graph.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @return The shortest path tree and never <code>null</code>. Unreachable
+   *         target nodes are not contained in the result.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown or if a relation has no or a negative cost
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.ResultTree <N> applyDijkstra (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                              @Nonnull @Nonempty final String sFromID,
+                                                                                                                              @Nonnull final Collection <String> aToIDs,
+                                                                                                                              @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return applyDijkstra (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr), sFromID, aToIDs);
+  }
+
+  /**
+   * Find the shortest paths from one node to multiple nodes using pre-resolved
+   * relation costs. The search stops as soon as the shortest distance to all
+   * target nodes is known.
+   * 
+   * @param aIndex
+   *        The indexed graph to search. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param aToIDs
+   *        The IDs of all target nodes. All must be contained in the graph.
+   * @return The shortest path tree and never <code>null</code>. Unreachable
+   *         target nodes are not contained in the result.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown or if the costs don't match the indexed
+   *         graph or contain negative values
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.ResultTree <N> applyDijkstra (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                              @Nonnull final RelationWeights aCosts,
+                                                                                                                              @Nonnull @Nonempty final String sFromID,
+                                                                                                                              @Nonnull final Collection <String> aToIDs)
+  {
+    if (aToIDs == null)
+      throw new NullPointerException ("toIDs");
+    return _applyDijkstra (aIndex, aCosts, sFromID, aToIDs);
+  }
+
+  /**
+   * Find the shortest paths from one node to all reachable nodes.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @return The shortest path tree and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the node ID is unknown or if a relation has no or a negative
+   *         cost
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.ResultTree <N> applyDijkstraAll (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                                 @Nonnull @Nonempty final String sFromID,
+                                                                                                                                 @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return _applyDijkstra (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr), sFromID, null);
+  }
 
-      aAllRemainingNodes.remove (aClosest.getToNode ());
-      aAllMatches.put (aClosest.getToNodeID (), aClosest);
-      aLastMatch = aClosest;
-      aLastRow = aRow;
-      ++nIteration;
+  /**
+   * Find the shortest paths from one node to all reachable nodes using
+   * pre-resolved relation costs.
+   * 
+   * @param aIndex
+   *        The indexed graph to search. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @return The shortest path tree and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the node ID is unknown or if the costs don't match the indexed
+   *         graph or contain negative values
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.ResultTree <N> applyDijkstraAll (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                                 @Nonnull final RelationWeights aCosts,
+                                                                                                                                 @Nonnull @Nonempty final String sFromID)
+  {
+    return _applyDijkstra (aIndex, aCosts, sFromID, null);
+  }
 
-      if (aClosest.getToNode ().equals (aEndNode))
+  /**
+   * Relax all relations of the passed node in one search direction and update
+   * the best known path via a node reached from both directions.
+   * 
+   * @return The new best known total distance
+   */
+  private static double _relaxBidirectional (@Nonnull final IndexedGraph <?, ?> aIndex,
+                                             @Nonnull final RelationWeights aCosts,
+                                             final boolean bForward,
+                                             @Nonnegative final int nNode,
+                                             @Nonnull final IndexedMinHeap aHeap,
+                                             @Nonnull final double [] aTentative,
+                                             @Nonnull final boolean [] aSettled,
+                                             @Nonnull final int [] aPredecessors,
+                                             @Nonnull final double [] aOtherTentative,
+                                             final double dBestDistance,
+                                             @Nonnull final int [] aMeetingNode)
+  {
+    double ret = dBestDistance;
+    final double dDistance = aTentative[nNode];
+    final int nStartOfs = bForward ? aIndex.getOutgoingStartOffset (nNode) : aIndex.getIncomingStartOffset (nNode);
+    final int nEndOfs = bForward ? aIndex.getOutgoingEndOffset (nNode) : aIndex.getIncomingEndOffset (nNode);
+    for (int nOfs = nStartOfs; nOfs < nEndOfs; ++nOfs)
+    {
+      final int nToNode = bForward ? aIndex.getOutgoingNodeIndex (nOfs) : aIndex.getIncomingNodeIndex (nOfs);
+      if (aSettled[nToNode])
+        continue;
+      final double dNewDistance = dDistance +
+                                  aCosts.getWeight (bForward ? aIndex.getOutgoingRelationIndex (nOfs)
+                                                            : aIndex.getIncomingRelationIndex (nOfs));
+      if (dNewDistance < aTentative[nToNode])
       {
-        // We found the shortest way to the end node!
-        break;
+        if (aTentative[nToNode] == UNREACHED)
+          aHeap.add (nToNode, dNewDistance);
+        else
+          aHeap.decreasePriority (nToNode, dNewDistance);
+        aTentative[nToNode] = dNewDistance;
+        aPredecessors[nToNode] = nNode;
+
+        // Is this a shorter connection via a node reached from both sides?
+        final double dTotal = dNewDistance + aOtherTentative[nToNode];
+        if (dTotal < ret)
+        {
+          ret = dTotal;
+          aMeetingNode[0] = nToNode;
+        }
       }
-    } while (true);
+    }
+    return ret;
+  }
+
+  /**
+   * Find the shortest path between two nodes by searching simultaneously
+   * forward from the start node along the outgoing relations and backward from
+   * the end node along the incoming relations. In each step the search
+   * direction with fewer pending nodes is expanded. The search stops as soon as
+   * the sum of the smallest pending distances of both directions is not
+   * shorter than the best path found so far. Compared to
+   * {@link #applyDijkstra(IReadonlyBaseGraph, String, String, String)} this
+   * usually settles considerably less nodes on large graphs.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        The ID of the end node. Must be contained in the graph.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the non-negative
+   *        numeric cost of each relation.
+   * @return The shortest path and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if a relation has no or a negative cost
+   *         or if the end node cannot be reached from the start node.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyBidirectionalDijkstra (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                                       @Nonnull @Nonempty final String sFromID,
+                                                                                                                                       @Nonnull @Nonempty final String sToID,
+                                                                                                                                       @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return applyBidirectionalDijkstra (aIndex,
+                                       RelationWeights.createFromAttribute (aIndex, sRelationCostAttr),
+                                       sFromID,
+                                       sToID);
+  }
 
-    // Now get the result path from back to front
-    final int nResultDistance = aLastMatch.getDistance ();
-    final List <N> aResultNodes = new ArrayList <N> ();
-    while (true)
+  /**
+   * Find the shortest path between two nodes using pre-resolved relation costs
+   * by searching simultaneously forward from the start node and backward from
+   * the end node.
+   * 
+   * @param aIndex
+   *        The indexed graph to search. May not be <code>null</code>.
+   * @param aCosts
+   *        The non-negative cost of each relation of the indexed graph. May
+   *        not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        The ID of the end node. Must be contained in the graph.
+   * @return The shortest path and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if the costs don't match the indexed
+   *         graph or contain negative values or if the end node cannot be
+   *         reached from the start node.
+   * @see #applyBidirectionalDijkstra(IReadonlyBaseGraph, String, String,
+   *      String)
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> Dijkstra.Result <N> applyBidirectionalDijkstra (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                                       @Nonnull final RelationWeights aCosts,
+                                                                                                                                       @Nonnull @Nonempty final String sFromID,
+                                                                                                                                       @Nonnull @Nonempty final String sToID)
+  {
+    checkCosts (aIndex, aCosts);
+    final int nStartIndex = aIndex.getNodeIndex (sFromID);
+    if (nStartIndex < 0)
+      throw new IllegalArgumentException ("From ID: " + sFromID);
+    final int nEndIndex = aIndex.getNodeIndex (sToID);
+    if (nEndIndex < 0)
+      throw new IllegalArgumentException ("To ID: " + sToID);
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    final double [] aForwardTentative = new double [nNodeCount];
+    Arrays.fill (aForwardTentative, UNREACHED);
+    final double [] aBackwardTentative = new double [nNodeCount];
+    Arrays.fill (aBackwardTentative, UNREACHED);
+    final boolean [] aForwardSettled = new boolean [nNodeCount];
+    final boolean [] aBackwardSettled = new boolean [nNodeCount];
+    // Forward: predecessor towards the start; backward: successor towards the
+    // end
+    final int [] aPredecessors = new int [nNodeCount];
+    Arrays.fill (aPredecessors, CGlobal.ILLEGAL_UINT);
+    final int [] aSuccessors = new int [nNodeCount];
+    Arrays.fill (aSuccessors, CGlobal.ILLEGAL_UINT);
+    final IndexedMinHeap aForwardHeap = new IndexedMinHeap (nNodeCount);
+    final IndexedMinHeap aBackwardHeap = new IndexedMinHeap (nNodeCount);
+
+    aForwardTentative[nStartIndex] = 0;
+    aForwardHeap.add (nStartIndex, 0);
+    aBackwardTentative[nEndIndex] = 0;
+    aBackwardHeap.add (nEndIndex, 0);
+    double dBestDistance = nStartIndex == nEndIndex ? 0 : UNREACHED;
+    final int [] aMeetingNode = new int [] { nStartIndex == nEndIndex ? nStartIndex : CGlobal.ILLEGAL_UINT };
+    int nSettledCount = 0;
+
+    while (!aForwardHeap.isEmpty () && !aBackwardHeap.isEmpty ())
     {
-      aResultNodes.add (0, aLastMatch.getToNode ());
-      // Are we at the start node?
-      if (aLastMatch.getFromNode () == null)
+      // No pending node can lead to a shorter path
+      if (aForwardHeap.getPriority (aForwardHeap.peek ()) + aBackwardHeap.getPriority (aBackwardHeap.peek ()) >= dBestDistance)
         break;
-      aLastMatch = aAllMatches.get (aLastMatch.getFromNodeID ());
-      if (aLastMatch == null)
-        throw new IllegalStateException ("Inconsistency!");
+
+      ++nSettledCount;
+      if (aForwardHeap.size () <= aBackwardHeap.size ())
+      {
+        final int nNode = aForwardHeap.remove ();
+        aForwardSettled[nNode] = true;
+        dBestDistance = _relaxBidirectional (aIndex,
+                                             aCosts,
+                                             true,
+                                             nNode,
+                                             aForwardHeap,
+                                             aForwardTentative,
+                                             aForwardSettled,
+                                             aPredecessors,
+                                             aBackwardTentative,
+                                             dBestDistance,
+                                             aMeetingNode);
+      }
+      else
+      {
+        final int nNode = aBackwardHeap.remove ();
+        aBackwardSettled[nNode] = true;
+        dBestDistance = _relaxBidirectional (aIndex,
+                                             aCosts,
+                                             false,
+                                             nNode,
+                                             aBackwardHeap,
+                                             aBackwardTentative,
+                                             aBackwardSettled,
+                                             aSuccessors,
+                                             aForwardTentative,
+                                             dBestDistance,
+                                             aMeetingNode);
+      }
     }
 
-    // Results
-    return new Dijkstra.Result <N> (aResultNodes, nResultDistance);
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Bidirectional Dijkstra from '" +
+                      sFromID +
+                      "' to '" +
+                      sToID +
+                      "' settled " +
+                      nSettledCount +
+                      " of " +
+                      nNodeCount +
+                      " nodes");
+
+    if (aMeetingNode[0] < 0)
+      throw new IllegalArgumentException ("No path from '" + sFromID + "' to '" + sToID + "'");
+
+    // Combine the forward path up to the meeting node with the backward path
+    final List <N> aResultNodes = getPath (aIndex, aPredecessors, aMeetingNode[0]);
+    int nCurrent = aSuccessors[aMeetingNode[0]];
+    while (nCurrent >= 0)
+    {
+      aResultNodes.add (aIndex.getNodeOfIndex (nCurrent));
+      nCurrent = aSuccessors[nCurrent];
+    }
+    return new Result <N> (aResultNodes, dBestDistance);
   }
 }
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * A disjoint-set (union-find) structure over dense <code>int</code> elements
+ * in the range <code>[0, getElementCount())</code>. Union by rank and path
+ * compression are used, so that all operations run in nearly constant
+ * amortized time. New elements can be added at any time.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public final class DisjointSet
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private int [] m_aParents;
+  private byte [] m_aRanks;
+  private int m_nElementCount = 0;
+  private int m_nSetCount = 0;
+
+  /**
+   * Create an empty disjoint-set.
+   */
+  public DisjointSet ()
+  {
+    this (0);
+  }
+
+  /**
+   * Create a new disjoint-set where each of the passed number of elements is
+   * in its own set.
+   * 
+   * @param nElementCount
+   *        The number of initial elements. Must be &ge; 0.
+   */
+  public DisjointSet (@Nonnegative final int nElementCount)
+  {
+    if (nElementCount < 0)
+      throw new IllegalArgumentException ("ElementCount may not be negative: " + nElementCount);
+    final int nCapacity = Math.max (nElementCount, DEFAULT_CAPACITY);
+    m_aParents = new int [nCapacity];
+    m_aRanks = new byte [nCapacity];
+    for (int i = 0; i < nElementCount; ++i)
+      m_aParents[i] = i;
+    m_nElementCount = nElementCount;
+    m_nSetCount = nElementCount;
+  }
+
+  /**
+   * @return The total number of elements. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getElementCount ()
+  {
+    return m_nElementCount;
+  }
+
+  /**
+   * @return The number of disjoint sets. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSetCount ()
+  {
+    return m_nSetCount;
+  }
+
+  /**
+   * Add a new element that is in its own set.
+   * 
+   * @return The new element. Always the previous element count.
+   */
+  @Nonnegative
+  public int addElement ()
+  {
+    if (m_nElementCount == m_aParents.length)
+    {
+      final int nNewCapacity = m_aParents.length * 2;
+      m_aParents = Arrays.copyOf (m_aParents, nNewCapacity);
+      m_aRanks = Arrays.copyOf (m_aRanks, nNewCapacity);
+    }
+    final int ret = m_nElementCount++;
+    m_aParents[ret] = ret;
+    m_aRanks[ret] = 0;
+    m_nSetCount++;
+    return ret;
+  }
+
+  private void _checkElement (final int nElement)
+  {
+    if (nElement < 0 || nElement >= m_nElementCount)
+      throw new IllegalArgumentException ("Invalid element " + nElement + " - must be between 0 and " + m_nElementCount);
+  }
+
+  /**
+   * Find the representative of the set the passed element belongs to.
+   * 
+   * @param nElement
+   *        The element to search.
+   * @return The representative element. Two elements are in the same set if
+   *         they have the same representative.
+   */
+  @Nonnegative
+  public int find (@Nonnegative final int nElement)
+  {
+    _checkElement (nElement);
+
+    // Find the root
+    int nRoot = nElement;
+    while (m_aParents[nRoot] != nRoot)
+      nRoot = m_aParents[nRoot];
+
+    // Path compression
+    int nCurrent = nElement;
+    while (m_aParents[nCurrent] != nRoot)
+    {
+      final int nNext = m_aParents[nCurrent];
+      m_aParents[nCurrent] = nRoot;
+      nCurrent = nNext;
+    }
+    return nRoot;
+  }
+
+  /**
+   * Check if two elements are in the same set.
+   * 
+   * @param nElement1
+   *        First element.
+   * @param nElement2
+   *        Second element.
+   * @return <code>true</code> if both elements are in the same set.
+   */
+  public boolean isSameSet (@Nonnegative final int nElement1, @Nonnegative final int nElement2)
+  {
+    return find (nElement1) == find (nElement2);
+  }
+
+  /**
+   * Merge the sets of the two passed elements.
+   * 
+   * @param nElement1
+   *        First element.
+   * @param nElement2
+   *        Second element.
+   * @return <code>true</code> if the sets were merged, <code>false</code> if
+   *         both elements were already in the same set.
+   */
+  public boolean union (@Nonnegative final int nElement1, @Nonnegative final int nElement2)
+  {
+    final int nRoot1 = find (nElement1);
+    final int nRoot2 = find (nElement2);
+    if (nRoot1 == nRoot2)
+      return false;
+
+    // Union by rank
+    final byte nRank1 = m_aRanks[nRoot1];
+    final byte nRank2 = m_aRanks[nRoot2];
+    if (nRank1 < nRank2)
+      m_aParents[nRoot1] = nRoot2;
+    else
+    {
+      m_aParents[nRoot2] = nRoot1;
+      if (nRank1 == nRank2)
+        m_aRanks[nRoot1]++;
+    }
+    m_nSetCount--;
+    return true;
+  }
+
+  /**
+   * Put every element back into its own set.
+   */
+  public void reset ()
+  {
+    for (int i = 0; i < m_nElementCount; ++i)
+    {
+      m_aParents[i] = i;
+      m_aRanks[i] = 0;
+    }
+    m_nSetCount = m_nElementCount;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("elementCount", m_nElementCount)
+                                       .append ("setCount", m_nSetCount)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.matrix.Matrix;
+
+/**
+ * The shortest distances between all pairs of nodes of an
+ * {@link IndexedGraph}, as created by {@link AllPairsShortestPaths}. The
+ * distances are stored row by row in a single array, where the row is the
+ * index of the start node and the column is the index of the end node.
+ * Optionally the predecessor of each end node on the shortest path is stored
+ * in the same layout, so that the paths can be reconstructed.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ */
+@Immutable
+public final class DistanceMatrix <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
+{
+  private final IndexedGraph <N, ?> m_aIndex;
+  private final int m_nNodeCount;
+  private final double [] m_aDistances;
+  private final int [] m_aPredecessors;
+
+  DistanceMatrix (@Nonnull final IndexedGraph <N, ?> aIndex,
+                  @Nonnull final double [] aDistances,
+                  @Nullable final int [] aPredecessors)
+  {
+    m_aIndex = aIndex;
+    m_nNodeCount = aIndex.getNodeCount ();
+    m_aDistances = aDistances;
+    m_aPredecessors = aPredecessors;
+  }
+
+  /**
+   * @return The indexed graph the distances were computed for. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public IndexedGraph <N, ?> getIndex ()
+  {
+    return m_aIndex;
+  }
+
+  /**
+   * @return The number of rows and columns.
+   */
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_nNodeCount;
+  }
+
+  /**
+   * @return <code>true</code> if the predecessors were computed and the paths
+   *         can be reconstructed.
+   */
+  public boolean hasPredecessors ()
+  {
+    return m_aPredecessors != null;
+  }
+
+  /**
+   * @param nFromIndex
+   *        The index of the start node.
+   * @param nToIndex
+   *        The index of the end node.
+   * @return The shortest distance or {@link Double#POSITIVE_INFINITY} if the
+   *         end node cannot be reached.
+   */
+  public double getDistanceOfIndex (@Nonnegative final int nFromIndex, @Nonnegative final int nToIndex)
+  {
+    return m_aDistances[nFromIndex * m_nNodeCount + nToIndex];
+  }
+
+  /**
+   * @param nFromIndex
+   *        The index of the start node.
+   * @param nToIndex
+   *        The index of the end node.
+   * @return The index of the node preceding the end node on the shortest path
+   *         or {@link CGlobal#ILLEGAL_UINT} if the end node is the start node
+   *         or cannot be reached.
+   * @throws IllegalStateException
+   *         If no predecessors were computed
+   */
+  public int getPredecessorOfIndex (@Nonnegative final int nFromIndex, @Nonnegative final int nToIndex)
+  {
+    if (m_aPredecessors == null)
+      throw new IllegalStateException ("No predecessors were computed");
+    return m_aPredecessors[nFromIndex * m_nNodeCount + nToIndex];
+  }
+
+  /**
+   * @param sFromID
+   *        The ID of the start node. May be <code>null</code>.
+   * @param sToID
+   *        The ID of the end node. May be <code>null</code>.
+   * @return The shortest distance or {@link Double#POSITIVE_INFINITY} if a
+   *         node is unknown or if the end node cannot be reached.
+   */
+  public double getDistance (@Nullable final String sFromID, @Nullable final String sToID)
+  {
+    final int nFromIndex = m_aIndex.getNodeIndex (sFromID);
+    final int nToIndex = m_aIndex.getNodeIndex (sToID);
+    if (nFromIndex < 0 || nToIndex < 0)
+      return Double.POSITIVE_INFINITY;
+    return getDistanceOfIndex (nFromIndex, nToIndex);
+  }
+
+  /**
+   * @param sFromID
+   *        The ID of the start node. May be <code>null</code>.
+   * @param sToID
+   *        The ID of the end node. May be <code>null</code>.
+   * @return <code>true</code> if both nodes are known and the end node can be
+   *         reached from the start node.
+   */
+  public boolean isReachable (@Nullable final String sFromID, @Nullable final String sToID)
+  {
+    return getDistance (sFromID, sToID) != Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Reconstruct the shortest path between two nodes.
+   * 
+   * @param sFromID
+   *        The ID of the start node. May be <code>null</code>.
+   * @param sToID
+   *        The ID of the end node. May be <code>null</code>.
+   * @return <code>null</code> if a node is unknown or if the end node cannot
+   *         be reached.
+   * @throws IllegalStateException
+   *         If no predecessors were computed
+   */
+  @Nullable
+  public Dijkstra.Result <N> getResult (@Nullable final String sFromID, @Nullable final String sToID)
+  {
+    if (m_aPredecessors == null)
+      throw new IllegalStateException ("No predecessors were computed");
+    if (!isReachable (sFromID, sToID))
+      return null;
+
+    final int nFromIndex = m_aIndex.getNodeIndex (sFromID);
+    final int nToIndex = m_aIndex.getNodeIndex (sToID);
+    final int nRowOfs = nFromIndex * m_nNodeCount;
+    final List <N> aResultNodes = new ArrayList <N> ();
+    int nCurrent = nToIndex;
+    while (nCurrent >= 0)
+    {
+      aResultNodes.add (m_aIndex.getNodeOfIndex (nCurrent));
+      nCurrent = m_aPredecessors[nRowOfs + nCurrent];
+    }
+    return new Dijkstra.Result <N> (ContainerHelper.getReverseInlineList (aResultNodes),
+                                    m_aDistances[nRowOfs + nToIndex]);
+  }
+
+  /**
+   * @return A copy of all distances, stored row by row.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] getAllDistances ()
+  {
+    return m_aDistances.clone ();
+  }
+
+  /**
+   * @return The distances as a dense matrix where the row is the index of the
+   *         start node and the column is the index of the end node.
+   *         Unreachable nodes have the distance
+   *         {@link Double#POSITIVE_INFINITY}.
+   * @throws IllegalArgumentException
+   *         If the graph has no nodes
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix getAsMatrix ()
+  {
+    final Matrix ret = new Matrix (m_nNodeCount, m_nNodeCount);
+    final double [][] aData = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nNodeCount; ++nRow)
+      System.arraycopy (m_aDistances, nRow * m_nNodeCount, aData[nRow], 0, m_nNodeCount);
+    return ret;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getAsString ()
+  {
+    int nReachable = 0;
+    for (final double dDistance : m_aDistances)
+      if (dDistance != Double.POSITIVE_INFINITY)
+        ++nReachable;
+    return "Distances between " +
+           m_nNodeCount +
+           " nodes with " +
+           nReachable +
+           " reachable pairs" +
+           (m_aPredecessors == null ? "" : " including predecessors");
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * The available minimum spanning tree algorithms. All of them create a
+ * minimum spanning tree with the same total weight, but the selected relations
+ * may differ if multiple relations have the same cost. Use
+ * {@link #getSuitableAlgorithm(IndexedGraph)} to choose the algorithm based on
+ * the size and the density of a graph.
+ * 
+ * @author Philip Helger
+ */
+public enum EMinimumSpanningTreeAlgorithm implements IMinimumSpanningTreeAlgorithm
+{
+  /**
+   * {@link Kruskal} - sorts all relations once. A good default for sparse
+   * graphs.
+   */
+  KRUSKAL
+  {
+    @Nonnull
+    public Kruskal.RelationsResult applyRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                   @Nonnull final RelationWeights aCosts)
+    {
+      return Kruskal.applyKruskalRelations (aIndex, aCosts);
+    }
+  },
+  /**
+   * {@link Prim} - grows the tree using an indexed heap without sorting. Best
+   * for dense graphs.
+   */
+  PRIM
+  {
+    @Nonnull
+    public Kruskal.RelationsResult applyRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                   @Nonnull final RelationWeights aCosts)
+    {
+      return Prim.applyPrimRelations (aIndex, aCosts);
+    }
+  },
+  /**
+   * {@link Boruvka} - merges all components in parallel phases on the common
+   * fork/join pool. Best for very large sparse graphs.
+   */
+  BORUVKA
+  {
+    @Nonnull
+    public Kruskal.RelationsResult applyRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                   @Nonnull final RelationWeights aCosts)
+    {
+      return Boruvka.applyBoruvkaRelations (aIndex, aCosts, null);
+    }
+  };
+
+  /**
+   * The minimum ratio of the number of relations to the maximum possible
+   * number of relations, to consider a graph dense.
+   */
+  public static final double DENSE_GRAPH_THRESHOLD = 0.1;
+  /** The minimum number of nodes to consider a graph large. */
+  public static final int LARGE_GRAPH_NODE_COUNT = 100000;
+
+  /**
+   * Determine the minimum spanning tree and create a new graph containing it.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The new graph containing the minimum spanning tree together with
+   *         its total weight. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric cost
+   */
+  @Nonnull
+  public Kruskal.Result apply (@Nonnull final IReadonlyGraph aGraph, @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    final Kruskal.RelationsResult aResult = applyRelations (aIndex,
+                                                            RelationWeights.createFromAttribute (aIndex,
+                                                                                                 sRelationCostAttr));
+    return new Kruskal.Result (aResult.createGraph (), aResult.getTotalWeightAsDouble ());
+  }
+
+  /**
+   * Choose the algorithm to use for the passed graph: {@link #PRIM} for dense
+   * graphs, {@link #BORUVKA} for large sparse graphs and {@link #KRUSKAL}
+   * otherwise.
+   * 
+   * @param aIndex
+   *        The indexed graph to check. May not be <code>null</code>.
+   * @return The algorithm to use. Never <code>null</code>.
+   * @see #DENSE_GRAPH_THRESHOLD
+   * @see #LARGE_GRAPH_NODE_COUNT
+   */
+  @Nonnull
+  public static EMinimumSpanningTreeAlgorithm getSuitableAlgorithm (@Nonnull final IndexedGraph <?, ?> aIndex)
+  {
+    final double dNodeCount = aIndex.getNodeCount ();
+    final double dMaxRelationCount = dNodeCount * (dNodeCount - 1) / 2;
+    if (dMaxRelationCount > 0 && aIndex.getRelationCount () >= dMaxRelationCount * DENSE_GRAPH_THRESHOLD)
+      return PRIM;
+    if (aIndex.getNodeCount () >= LARGE_GRAPH_NODE_COUNT)
+      return BORUVKA;
+    return KRUSKAL;
+  }
+
+  /**
+   * Determine the minimum spanning tree with the algorithm most suitable for
+   * the passed graph and create a new graph containing it.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The new graph containing the minimum spanning tree together with
+   *         its total weight. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric cost
+   * @see #getSuitableAlgorithm(IndexedGraph)
+   */
+  @Nonnull
+  public static Kruskal.Result applyMinimumSpanningTree (@Nonnull final IReadonlyGraph aGraph,
+                                                         @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    final Kruskal.RelationsResult aResult = getSuitableAlgorithm (aIndex).applyRelations (aIndex,
+                                                                                          RelationWeights.createFromAttribute (aIndex,
+                                                                                                                               sRelationCostAttr));
+    return new Kruskal.Result (aResult.createGraph (), aResult.getTotalWeightAsDouble ());
+  }
+}
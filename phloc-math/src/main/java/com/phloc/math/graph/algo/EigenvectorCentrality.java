@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.GlobalDebug;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Eigenvector centrality computation using power iteration over the CSR
+ * adjacency of an {@link IndexedGraph}. The score of a node is proportional
+ * to the sum of the scores of the nodes with a relation to it (for directed
+ * graphs the incoming relations are used). To guarantee convergence on
+ * periodic graphs the shifted iteration <i>x' = x + A<sup>T</sup>x</i> is
+ * used, which has the same dominant eigenvector. The nodes of each iteration
+ * can be processed in parallel on a {@link ForkJoinPool}.<br>
+ * The resulting score vector has the euclidean length 1.
+ * 
+ * @author Philip Helger
+ */
+public final class EigenvectorCentrality
+{
+  /**
+   * The default tolerance for the L1 norm of the change per iteration and
+   * node
+   */
+  public static final double DEFAULT_TOLERANCE = 1e-9;
+  /** The default maximum number of iterations */
+  public static final int DEFAULT_MAX_ITERATIONS = 1000;
+  /** The default minimum node count to iterate in parallel */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = PageRank.DEFAULT_PARALLEL_THRESHOLD;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (EigenvectorCentrality.class);
+
+  private EigenvectorCentrality ()
+  {}
+
+  /**
+   * Compute the eigenvector centrality with the default settings.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @return The scores of all nodes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> CentralityResult <N> applyEigenvectorCentrality (@Nonnull final IReadonlyBaseGraph <N, R> aGraph)
+  {
+    return applyEigenvectorCentrality (new IndexedGraph <N, R> (aGraph),
+                                       null,
+                                       DEFAULT_TOLERANCE,
+                                       DEFAULT_MAX_ITERATIONS,
+                                       DEFAULT_PARALLEL_THRESHOLD,
+                                       null);
+  }
+
+  /**
+   * Compute the eigenvector centrality.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aWeights
+   *        Optional non-negative relation weights. May be <code>null</code>
+   *        to weight all relations with 1.
+   * @param dTolerance
+   *        The computation stops as soon as the L1 norm of the change of an
+   *        iteration divided by the node count is below this value. Must be
+   *        &gt; 0.
+   * @param nMaxIterations
+   *        The maximum number of iterations. Must be &gt; 0.
+   * @param nParallelThreshold
+   *        The minimum number of nodes to iterate in parallel. Use
+   *        {@link Integer#MAX_VALUE} to always run sequentially. Must be &gt;
+   *        0.
+   * @param aPool
+   *        The pool to use for parallel iterations. May be <code>null</code>
+   *        to use {@link ForkJoinPool#commonPool()}.
+   * @return The scores of all nodes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> CentralityResult <N> applyEigenvectorCentrality (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                                       @Nullable final RelationWeights aWeights,
+                                                                                                                                       final double dTolerance,
+                                                                                                                                       @Nonnegative final int nMaxIterations,
+                                                                                                                                       @Nonnegative final int nParallelThreshold,
+                                                                                                                                       @Nullable final ForkJoinPool aPool)
+  {
+    PageRank.checkParameters (aIndex, aWeights, dTolerance, nMaxIterations, nParallelThreshold);
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (nNodeCount == 0)
+      return new CentralityResult <N> (aIndex, new double [0], 0, true);
+    final ForkJoinPool aRealPool = nNodeCount < nParallelThreshold ? null : aPool != null ? aPool
+                                                                                          : ForkJoinPool.commonPool ();
+
+    double [] aScores = new double [nNodeCount];
+    Arrays.fill (aScores, 1.0 / Math.sqrt (nNodeCount));
+    double [] aNextScores = new double [nNodeCount];
+    int nIteration = 0;
+    boolean bConverged = false;
+    while (nIteration < nMaxIterations && !bConverged)
+    {
+      ++nIteration;
+      final double [] aCur = aScores;
+      final double [] aNext = aNextScores;
+
+      // Pull the scores via the incoming relations and sum up the squares
+      final double dSquareSum = RangeSumTask.sum (aRealPool, nNodeCount, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          double dSum = 0;
+          for (int nNode = nStart; nNode < nEnd; ++nNode)
+          {
+            double dScore = aCur[nNode];
+            final int nEndOfs = aIndex.getIncomingEndOffset (nNode);
+            for (int nOfs = aIndex.getIncomingStartOffset (nNode); nOfs < nEndOfs; ++nOfs)
+            {
+              final double dIncoming = aCur[aIndex.getIncomingNodeIndex (nOfs)];
+              dScore += aWeights == null ? dIncoming : dIncoming *
+                                                       aWeights.getWeight (aIndex.getIncomingRelationIndex (nOfs));
+            }
+            aNext[nNode] = dScore;
+            dSum += dScore * dScore;
+          }
+          return dSum;
+        }
+      });
+
+      // Normalize and determine the change
+      final double dNorm = Math.sqrt (dSquareSum);
+      final double dChange = RangeSumTask.sum (aRealPool, nNodeCount, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          double dSum = 0;
+          for (int nNode = nStart; nNode < nEnd; ++nNode)
+          {
+            aNext[nNode] /= dNorm;
+            dSum += Math.abs (aNext[nNode] - aCur[nNode]);
+          }
+          return dSum;
+        }
+      });
+
+      aScores = aNext;
+      aNextScores = aCur;
+      bConverged = dChange < dTolerance * nNodeCount;
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Eigenvector centrality iteration " + nIteration + " changed by " + dChange);
+    }
+    return new CentralityResult <N> (aIndex, aScores, nIteration, bConverged);
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IBaseGraphNode;
+
+/**
+ * An {@link IAStarHeuristic} using the euclidean distance of two dimensional
+ * coordinates stored as numeric node attributes. The estimation is admissible
+ * and consistent as long as no relation is cheaper than the scaled euclidean
+ * distance between its nodes.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ */
+@Immutable
+public final class EuclideanHeuristic <N extends IBaseGraphNode <N, ?>> implements IAStarHeuristic <N>
+{
+  private final String m_sXAttr;
+  private final String m_sYAttr;
+  private final double m_dFactor;
+
+  /**
+   * Constructor using the plain euclidean distance.
+   * 
+   * @param sXAttr
+   *        The name of the node attribute containing the X coordinate.
+   * @param sYAttr
+   *        The name of the node attribute containing the Y coordinate.
+   */
+  public EuclideanHeuristic (@Nonnull @Nonempty final String sXAttr, @Nonnull @Nonempty final String sYAttr)
+  {
+    this (sXAttr, sYAttr, 1);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param sXAttr
+   *        The name of the node attribute containing the X coordinate.
+   * @param sYAttr
+   *        The name of the node attribute containing the Y coordinate.
+   * @param dFactor
+   *        The factor to multiply the euclidean distance with, e.g. the lowest
+   *        cost per distance unit. Must be &ge; 0.
+   */
+  public EuclideanHeuristic (@Nonnull @Nonempty final String sXAttr,
+                             @Nonnull @Nonempty final String sYAttr,
+                             @Nonnegative final double dFactor)
+  {
+    if (StringHelper.hasNoText (sXAttr))
+      throw new IllegalArgumentException ("xAttr");
+    if (StringHelper.hasNoText (sYAttr))
+      throw new IllegalArgumentException ("yAttr");
+    if (!(dFactor >= 0))
+      throw new IllegalArgumentException ("Factor must be >= 0: " + dFactor);
+    m_sXAttr = sXAttr;
+    m_sYAttr = sYAttr;
+    m_dFactor = dFactor;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getXAttr ()
+  {
+    return m_sXAttr;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getYAttr ()
+  {
+    return m_sYAttr;
+  }
+
+  @Nonnegative
+  public double getFactor ()
+  {
+    return m_dFactor;
+  }
+
+  private double _getCoordinate (@Nonnull final N aNode, @Nonnull final String sAttr)
+  {
+    final double ret = aNode.getAttributeAsDouble (sAttr, Double.NaN);
+    if (Double.isNaN (ret))
+      throw new IllegalArgumentException ("Node '" + aNode.getID () + "' has no numeric attribute '" + sAttr + "'");
+    return ret;
+  }
+
+  @Nonnegative
+  public double getEstimatedDistance (@Nonnull final N aNode, @Nonnull final N aTargetNode)
+  {
+    final double dX = _getCoordinate (aNode, m_sXAttr) - _getCoordinate (aTargetNode, m_sXAttr);
+    final double dY = _getCoordinate (aNode, m_sYAttr) - _getCoordinate (aTargetNode, m_sYAttr);
+    return Math.sqrt (dX * dX + dY * dY) * m_dFactor;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("xAttr", m_sXAttr)
+                                       .append ("yAttr", m_sYAttr)
+                                       .append ("factor", m_dFactor)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import com.phloc.math.graph.IBaseGraphNode;
+
+/**
+ * A heuristic for the {@link AStar} search, estimating the remaining distance
+ * from a node to the target node. To find the shortest path, the estimation
+ * must be admissible: it may never exceed the real shortest distance. If the
+ * estimation is additionally consistent (the estimation difference between
+ * two connected nodes is never larger than the cost of the relation), every
+ * node is settled at most once.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ */
+public interface IAStarHeuristic <N extends IBaseGraphNode <N, ?>>
+{
+  /**
+   * Estimate the distance between two nodes.
+   * 
+   * @param aNode
+   *        The node to start from. Never <code>null</code>.
+   * @param aTargetNode
+   *        The target node of the search. Never <code>null</code>.
+   * @return The estimated distance. Must be &ge; 0.
+   */
+  @Nonnegative
+  double getEstimatedDistance (@Nonnull N aNode, @Nonnull N aTargetNode);
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Base interface for all algorithms determining the minimum spanning tree (or
+ * forest) of an undirected graph.
+ * 
+ * @author Philip Helger
+ * @see EMinimumSpanningTreeAlgorithm
+ */
+public interface IMinimumSpanningTreeAlgorithm
+{
+  /**
+   * Determine the relations of the minimum spanning tree using pre-resolved
+   * relation costs without creating a new graph.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The cost of each relation of the indexed graph. May not be
+   *        <code>null</code>.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph
+   */
+  @Nonnull
+  Kruskal.RelationsResult applyRelations (@Nonnull IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                          @Nonnull RelationWeights aCosts);
+}
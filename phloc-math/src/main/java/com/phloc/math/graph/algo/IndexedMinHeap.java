@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A binary min heap of <code>int</code> elements in the range
+ * <code>[0, capacity)</code> with an associated <code>double</code> priority.
+ * The position of each element within the heap is tracked, so that
+ * {@link #decreasePriority(int, double)} and {@link #contains(int)} are
+ * performed in O(log n) respectively O(1). Elements with the same priority
+ * are ordered by their element value to achieve deterministic results.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class IndexedMinHeap
+{
+  private final int [] m_aHeap;
+  private final int [] m_aPositions;
+  private final double [] m_aPriorities;
+  private int m_nSize = 0;
+
+  public IndexedMinHeap (@Nonnegative final int nCapacity)
+  {
+    if (nCapacity < 0)
+      throw new IllegalArgumentException ("Capacity may not be negative: " + nCapacity);
+    m_aHeap = new int [nCapacity];
+    m_aPositions = new int [nCapacity];
+    Arrays.fill (m_aPositions, -1);
+    m_aPriorities = new double [nCapacity];
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @param nElement
+   *        The element to check.
+   * @return <code>true</code> if the passed element is currently contained.
+   */
+  public boolean contains (@Nonnegative final int nElement)
+  {
+    return m_aPositions[nElement] >= 0;
+  }
+
+  /**
+   * @param nElement
+   *        The element to query. Must be contained.
+   * @return The current priority of the passed element.
+   */
+  public double getPriority (@Nonnegative final int nElement)
+  {
+    if (!contains (nElement))
+      throw new IllegalArgumentException ("Element " + nElement + " is not contained");
+    return m_aPriorities[nElement];
+  }
+
+  private boolean _isLess (final int nElement1, final int nElement2)
+  {
+    final double dPrio1 = m_aPriorities[nElement1];
+    final double dPrio2 = m_aPriorities[nElement2];
+    return dPrio1 < dPrio2 || (dPrio1 == dPrio2 && nElement1 < nElement2);
+  }
+
+  private void _set (final int nPos, final int nElement)
+  {
+    m_aHeap[nPos] = nElement;
+    m_aPositions[nElement] = nPos;
+  }
+
+  private void _siftUp (final int nStartPos)
+  {
+    int nPos = nStartPos;
+    final int nElement = m_aHeap[nPos];
+    while (nPos > 0)
+    {
+      final int nParentPos = (nPos - 1) >>> 1;
+      final int nParent = m_aHeap[nParentPos];
+      if (!_isLess (nElement, nParent))
+        break;
+      _set (nPos, nParent);
+      nPos = nParentPos;
+    }
+    _set (nPos, nElement);
+  }
+
+  private void _siftDown (final int nStartPos)
+  {
+    int nPos = nStartPos;
+    final int nElement = m_aHeap[nPos];
+    while (true)
+    {
+      int nChildPos = 2 * nPos + 1;
+      if (nChildPos >= m_nSize)
+        break;
+      if (nChildPos + 1 < m_nSize && _isLess (m_aHeap[nChildPos + 1], m_aHeap[nChildPos]))
+        ++nChildPos;
+      final int nChild = m_aHeap[nChildPos];
+      if (!_isLess (nChild, nElement))
+        break;
+      _set (nPos, nChild);
+      nPos = nChildPos;
+    }
+    _set (nPos, nElement);
+  }
+
+  /**
+   * Add a new element.
+   * 
+   * @param nElement
+   *        The element to add. May not yet be contained.
+   * @param dPriority
+   *        The priority of the element.
+   */
+  public void add (@Nonnegative final int nElement, final double dPriority)
+  {
+    if (contains (nElement))
+      throw new IllegalArgumentException ("Element " + nElement + " is already contained");
+    m_aPriorities[nElement] = dPriority;
+    _set (m_nSize, nElement);
+    _siftUp (m_nSize++);
+  }
+
+  /**
+   * Decrease the priority of an existing element.
+   * 
+   * @param nElement
+   *        The element to modify. Must be contained.
+   * @param dPriority
+   *        The new priority. Must be &le; the current priority.
+   */
+  public void decreasePriority (@Nonnegative final int nElement, final double dPriority)
+  {
+    if (dPriority > getPriority (nElement))
+      throw new IllegalArgumentException ("The priority of element " +
+                                          nElement +
+                                          " may not be increased from " +
+                                          m_aPriorities[nElement] +
+                                          " to " +
+                                          dPriority);
+    m_aPriorities[nElement] = dPriority;
+    _siftUp (m_aPositions[nElement]);
+  }
+
+  /**
+   * @return The element with the lowest priority without removing it.
+   * @throws NoSuchElementException
+   *         If the heap is empty
+   */
+  @Nonnegative
+  public int peek ()
+  {
+    if (m_nSize == 0)
+      throw new NoSuchElementException ();
+    return m_aHeap[0];
+  }
+
+  /**
+   * Remove and return the element with the lowest priority.
+   * 
+   * @return The removed element.
+   * @throws NoSuchElementException
+   *         If the heap is empty
+   */
+  @Nonnegative
+  public int remove ()
+  {
+    final int ret = peek ();
+    m_aPositions[ret] = -1;
+    --m_nSize;
+    if (m_nSize > 0)
+    {
+      _set (0, m_aHeap[m_nSize]);
+      _siftDown (0);
+    }
+    return ret;
+  }
+}
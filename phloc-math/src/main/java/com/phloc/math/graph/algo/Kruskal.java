@@ -18,28 +18,36 @@
 package com.phloc.math.graph.algo;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.TreeSet;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.phloc.commons.GlobalDebug;
 import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
 import com.phloc.commons.collections.ContainerHelper;
-import com.phloc.commons.compare.AbstractNumericComparator;
 import com.phloc.commons.string.StringHelper;
 import com.phloc.math.graph.IGraphNode;
 import com.phloc.math.graph.IGraphRelation;
-import com.phloc.math.graph.simple.ISimpleGraph;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
 import com.phloc.math.graph.simple.SimpleGraph;
 import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
 
 /**
- * Find the minimum spanning tree of a graph, using Kruskal's algorithm.
+ * Find the minimum spanning tree of a graph, using Kruskal's algorithm. The
+ * relation weights are resolved once into a {@link RelationWeights} array, the
+ * relation indices are sorted by weight and a {@link DisjointSet} over the node
+ * indices is used to decide whether a relation would introduce a cycle. This
+ * results in a runtime of O(R log R).
  * 
  * @author Philip Helger
  */
@@ -53,14 +61,14 @@ public final class Kruskal
   public static final class Result
   {
     private final SimpleGraph m_aGraph;
-    private final int m_nTotalWeight;
+    private final double m_dTotalWeight;
 
-    public Result (@Nonnull final SimpleGraph aGraph, final int nTotalWeight)
+    public Result (@Nonnull final SimpleGraph aGraph, final double dTotalWeight)
     {
       if (aGraph == null)
         throw new NullPointerException ("graph");
       m_aGraph = aGraph;
-      m_nTotalWeight = nTotalWeight;
+      m_dTotalWeight = dTotalWeight;
     }
 
     @Nonnull
@@ -69,9 +77,20 @@ public final class Kruskal
       return m_aGraph;
     }
 
+    /**
+     * @return The total weight as an <code>int</code>.
+     * @throws IllegalStateException
+     *         If the total weight is not an <code>int</code> value
+     * @see #getTotalWeightAsDouble()
+     */
     public int getTotalWeight ()
     {
-      return m_nTotalWeight;
+      return _getAsInt (m_dTotalWeight);
+    }
+
+    public double getTotalWeightAsDouble ()
+    {
+      return m_dTotalWeight;
     }
 
     @Nonnull
@@ -79,9 +98,9 @@ public final class Kruskal
     public String getAsString ()
     {
       final StringBuilder aSB = new StringBuilder ();
-      aSB.append ("Total weight ").append (m_nTotalWeight).append (" for nodes {");
+      aSB.append ("Total weight ").append (m_dTotalWeight).append (" for nodes {");
       int nIndex = 0;
-      for (final IGraphNode aNode : m_aGraph.getAllNodes ().values ())
+      for (final IGraphNode aNode : m_aGraph.getNodesView ())
       {
         if (nIndex++ > 0)
           aSB.append (',');
@@ -91,79 +110,244 @@ public final class Kruskal
     }
   }
 
-  private static String _getWeightInfo (@Nonnull final IGraphRelation aRel,
-                                        @Nonnull @Nonempty final String sRelationCostAttr)
+  /**
+   * The result of
+   * {@link Kruskal#applyKruskalRelations(IndexedGraph, RelationWeights)}. It only
+   * references the relations of the source graph that are part of the minimum
+   * spanning tree. A separate graph can be created on demand via
+   * {@link #createGraph()}.
+   */
+  @Immutable
+  public static final class RelationsResult
+  {
+    private final IReadonlyBaseGraph <IGraphNode, IGraphRelation> m_aSourceGraph;
+    private final List <IGraphRelation> m_aRelations;
+    private final double m_dTotalWeight;
+
+    public RelationsResult (@Nonnull final IReadonlyBaseGraph <IGraphNode, IGraphRelation> aSourceGraph,
+                            @Nonnull final List <IGraphRelation> aRelations,
+                            final double dTotalWeight)
+    {
+      if (aSourceGraph == null)
+        throw new NullPointerException ("sourceGraph");
+      if (aRelations == null)
+        throw new NullPointerException ("relations");
+      m_aSourceGraph = aSourceGraph;
+      m_aRelations = aRelations;
+      m_dTotalWeight = dTotalWeight;
+    }
+
+    /**
+     * @return The graph the minimum spanning tree was calculated for.
+     */
+    @Nonnull
+    public IReadonlyBaseGraph <IGraphNode, IGraphRelation> getSourceGraph ()
+    {
+      return m_aSourceGraph;
+    }
+
+    /**
+     * @return The relations of the source graph that are part of the minimum
+     *         spanning tree in the order they were selected.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <IGraphRelation> getAllRelations ()
+    {
+      return ContainerHelper.newList (m_aRelations);
+    }
+
+    @Nonnegative
+    public int getRelationCount ()
+    {
+      return m_aRelations.size ();
+    }
+
+    /**
+     * @return The total weight as an <code>int</code>.
+     * @throws IllegalStateException
+     *         If the total weight is not an <code>int</code> value
+     * @see #getTotalWeightAsDouble()
+     */
+    public int getTotalWeight ()
+    {
+      return _getAsInt (m_dTotalWeight);
+    }
+
+    public double getTotalWeightAsDouble ()
+    {
+      return m_dTotalWeight;
+    }
+
+    /**
+     * Create a new graph containing copies of all nodes of the source graph
+     * and of all selected relations including their attributes.
+     * 
+     * @return The new graph. Never <code>null</code>.
+     */
+    @Nonnull
+    public SimpleGraph createGraph ()
+    {
+      final SimpleGraph ret = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+      // Duplicate all nodes from source graph
+      for (final IGraphNode aNode : m_aSourceGraph.getNodesView ())
+      {
+        final IGraphNode aNewNode = ret.createNode (aNode.getID ());
+        aNewNode.setAttributes (aNode.getAllAttributes ());
+      }
+      for (final IGraphRelation aRelation : m_aRelations)
+      {
+        final IGraphRelation aNewRelation = ret.createRelation (aRelation.getNode1ID (), aRelation.getNode2ID ());
+        aNewRelation.setAttributes (aRelation.getAllAttributes ());
+      }
+      return ret;
+    }
+
+    @Nonnull
+    @Nonempty
+    public String getAsString ()
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      aSB.append ("Total weight ").append (m_dTotalWeight).append (" for relations {");
+      int nIndex = 0;
+      for (final IGraphRelation aRelation : m_aRelations)
+      {
+        if (nIndex++ > 0)
+          aSB.append (',');
+        aSB.append ('\'').append (aRelation.getID ()).append ('\'');
+      }
+      return aSB.append ('}').toString ();
+    }
+  }
+
+  private static int _getAsInt (final double dWeight)
+  {
+    final int ret = (int) dWeight;
+    if (ret != dWeight)
+      throw new IllegalStateException ("Total weight is not an int value: " + dWeight);
+    return ret;
+  }
+
+  private static String _getWeightInfo (@Nonnull final IGraphRelation aRel, final double dWeight)
   {
     return "{" +
            StringHelper.getImploded (',', new TreeSet <String> (aRel.getAllConnectedNodeIDs ())) +
            ":" +
-           aRel.getAttributeAsInt (sRelationCostAttr) +
+           dWeight +
            "}";
   }
 
+  /**
+   * Determine the relations of the minimum spanning tree without creating a
+   * new graph.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric cost
+   */
   @Nonnull
-  public static Kruskal.Result applyKruskal (@Nonnull final ISimpleGraph aGraph,
-                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  public static Kruskal.RelationsResult applyKruskalRelations (@Nonnull final IReadonlyGraph aGraph,
+                                                               @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    return applyKruskalRelations (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr));
+  }
+
+  /**
+   * Determine the relations of the minimum spanning tree using pre-resolved
+   * relation costs without creating a new graph.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The cost of each relation of the indexed graph. May not be
+   *        <code>null</code>.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph
+   */
+  @Nonnull
+  public static Kruskal.RelationsResult applyKruskalRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                               @Nonnull final RelationWeights aCosts)
   {
-    final Collection <IGraphRelation> aAllRelations = aGraph.getAllRelations ().values ();
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (aCosts == null)
+      throw new NullPointerException ("costs");
+    final int nRelationCount = aIndex.getRelationCount ();
+    if (aCosts.getRelationCount () != nRelationCount)
+      throw new IllegalArgumentException ("Expected " +
+                                          nRelationCount +
+                                          " relation costs but got " +
+                                          aCosts.getRelationCount ());
     if (GlobalDebug.isDebugMode ())
-      s_aLogger.info ("Starting Kruskal on " + aAllRelations.size () + " relations");
-    final List <IGraphRelation> aSortedRelations = ContainerHelper.getSorted (aAllRelations,
-                                                                              new AbstractNumericComparator <IGraphRelation> ()
-                                                                              {
-                                                                                @Override
-                                                                                protected double asDouble (final IGraphRelation aObject)
-                                                                                {
-                                                                                  return aObject.getAttributeAsInt (sRelationCostAttr);
-                                                                                }
-                                                                              });
+      s_aLogger.info ("Starting Kruskal on " + nRelationCount + " relations");
+
+    // Sort by weight - the order of relations with the same weight is retained
+    final int [] aSortedRelations = aCosts.getSortedRelationIndices ();
 
     if (GlobalDebug.isDebugMode ())
     {
       final List <String> aSortedRelationsText = new ArrayList <String> ();
-      for (final IGraphRelation aRel : aSortedRelations)
-        aSortedRelationsText.add (_getWeightInfo (aRel, sRelationCostAttr));
+      for (final int nRel : aSortedRelations)
+        aSortedRelationsText.add (_getWeightInfo (aIndex.getRelationOfIndex (nRel), aCosts.getWeight (nRel)));
       s_aLogger.info ("Sorted relations: " + StringHelper.getImploded (';', aSortedRelationsText));
     }
 
-    final SimpleGraph ret = new SimpleGraph (new SimpleGraphObjectFastFactory ());
-    // Duplicate all nodes from source graph
-    for (final IGraphNode aNode : aGraph.getAllNodes ().values ())
-    {
-      final IGraphNode aNewNode = ret.createNode (aNode.getID ());
-      aNewNode.setAttributes (aNode.getAllAttributes ());
-    }
-
     // Now start adding the relations (undirected!)
-    int nRemainingRelations = aGraph.getNodeCount () - 1;
-    int nTotalWeight = 0;
-    for (final IGraphRelation aRelation : aSortedRelations)
+    final DisjointSet aComponents = new DisjointSet (aIndex.getNodeCount ());
+    final List <IGraphRelation> aRelations = new ArrayList <IGraphRelation> ();
+    int nRemainingRelations = aIndex.getNodeCount () - 1;
+    double dTotalWeight = 0;
+    for (final int nRel : aSortedRelations)
     {
-      final int nWeight = aRelation.getAttributeAsInt (sRelationCostAttr);
-      final IGraphRelation aNewRelation = ret.createRelation (aRelation.getNode1ID (), aRelation.getNode2ID ());
-      aNewRelation.setAttributes (aRelation.getAllAttributes ());
-      if (ret.containsCycles ())
+      if (nRemainingRelations <= 0)
+        break;
+
+      final IGraphRelation aRelation = aIndex.getRelationOfIndex (nRel);
+      if (!aComponents.union (aIndex.getRelationFromIndex (nRel), aIndex.getRelationToIndex (nRel)))
       {
         if (GlobalDebug.isDebugMode ())
-          s_aLogger.info ("Ignoring " +
-                          _getWeightInfo (aNewRelation, sRelationCostAttr) +
-                          " because it introduces a cycle!");
-        ret.removeRelation (aNewRelation);
+          s_aLogger.info ("Ignoring " + _getWeightInfo (aRelation, aCosts.getWeight (nRel)) + " because it introduces a cycle!");
       }
       else
       {
         if (GlobalDebug.isDebugMode ())
-          s_aLogger.info ("Added " + _getWeightInfo (aNewRelation, sRelationCostAttr) + "!");
-        nTotalWeight += nWeight;
+          s_aLogger.info ("Added " + _getWeightInfo (aRelation, aCosts.getWeight (nRel)) + "!");
+        aRelations.add (aRelation);
+        dTotalWeight += aCosts.getWeight (nRel);
         nRemainingRelations--;
-        if (nRemainingRelations == 0)
-          break;
       }
     }
 
     if (GlobalDebug.isDebugMode ())
-      s_aLogger.info ("Having a total weight of " + nTotalWeight);
+      s_aLogger.info ("Having a total weight of " + dTotalWeight);
+
+    return new Kruskal.RelationsResult (aIndex.getGraph (), aRelations, dTotalWeight);
+  }
 
-    return new Kruskal.Result (ret, nTotalWeight);
+  /**
+   * Determine the minimum spanning tree and create a new graph containing it.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The new graph containing the minimum spanning tree together with
+   *         its total weight. Never <code>null</code>.
+   * @see #applyKruskalRelations(IReadonlyGraph, String)
+   */
+  @Nonnull
+  public static Kruskal.Result applyKruskal (@Nonnull final IReadonlyGraph aGraph,
+                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final RelationsResult aResult = applyKruskalRelations (aGraph, sRelationCostAttr);
+    return new Kruskal.Result (aResult.createGraph (), aResult.getTotalWeightAsDouble ());
   }
 }
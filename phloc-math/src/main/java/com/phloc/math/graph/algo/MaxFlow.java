@@ -0,0 +1,502 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Determine the maximum flow between two nodes, using Dinic's algorithm. The
+ * capacities are copied into a residual network in CSR layout, so the source
+ * graph is never modified. Each phase builds the level graph with a breadth
+ * first search and saturates it with an iterative depth first search, so that
+ * also very long paths don't exhaust the call stack. The runtime is O(N
+ * <sup>2</sup> R) in the worst case, but usually much faster.<br>
+ * In directed graphs each relation can only carry flow from its from-node to
+ * its to-node. In undirected graphs each relation can carry flow in either
+ * direction up to its capacity.
+ * 
+ * @author Philip Helger
+ */
+public final class MaxFlow
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (MaxFlow.class);
+
+  @Immutable
+  public static final class Result <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
+  {
+    private final IndexedGraph <N, ?> m_aIndex;
+    private final int m_nSourceIndex;
+    private final int m_nSinkIndex;
+    private final double m_dMaxFlow;
+    private final double [] m_aFlows;
+    private final boolean [] m_aSourceSide;
+
+    Result (@Nonnull final IndexedGraph <N, ?> aIndex,
+            @Nonnegative final int nSourceIndex,
+            @Nonnegative final int nSinkIndex,
+            @Nonnegative final double dMaxFlow,
+            @Nonnull final double [] aFlows,
+            @Nonnull final boolean [] aSourceSide)
+    {
+      m_aIndex = aIndex;
+      m_nSourceIndex = nSourceIndex;
+      m_nSinkIndex = nSinkIndex;
+      m_dMaxFlow = dMaxFlow;
+      m_aFlows = aFlows;
+      m_aSourceSide = aSourceSide;
+    }
+
+    /**
+     * @return The indexed graph the flow was computed for. Never
+     *         <code>null</code>.
+     */
+    @Nonnull
+    public IndexedGraph <N, ?> getIndex ()
+    {
+      return m_aIndex;
+    }
+
+    /**
+     * @return The source node. Never <code>null</code>.
+     */
+    @Nonnull
+    public N getSourceNode ()
+    {
+      return m_aIndex.getNodeOfIndex (m_nSourceIndex);
+    }
+
+    /**
+     * @return The sink node. Never <code>null</code>.
+     */
+    @Nonnull
+    public N getSinkNode ()
+    {
+      return m_aIndex.getNodeOfIndex (m_nSinkIndex);
+    }
+
+    /**
+     * @return The value of the maximum flow, which equals the capacity of the
+     *         minimum cut. Always &ge; 0.
+     */
+    @Nonnegative
+    public double getMaxFlow ()
+    {
+      return m_dMaxFlow;
+    }
+
+    /**
+     * @param nRelationIndex
+     *        The relation index in the indexed graph.
+     * @return The flow over the relation. A negative value means that the flow
+     *         goes from the to-node to the from-node, which is only possible in
+     *         undirected graphs.
+     */
+    public double getFlowOfIndex (@Nonnegative final int nRelationIndex)
+    {
+      return m_aFlows[nRelationIndex];
+    }
+
+    /**
+     * @return A copy of the flows of all relations, indexed by relation index.
+     * @see #getFlowOfIndex(int)
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public double [] getAllFlows ()
+    {
+      return m_aFlows.clone ();
+    }
+
+    /**
+     * @param sNodeID
+     *        The ID of the node to check. May be <code>null</code>.
+     * @return <code>true</code> if the node is on the source side of the
+     *         minimum cut, meaning that it can still be reached from the source
+     *         in the residual network.
+     */
+    public boolean isOnSourceSide (@Nullable final String sNodeID)
+    {
+      final int nIndex = m_aIndex.getNodeIndex (sNodeID);
+      return nIndex >= 0 && m_aSourceSide[nIndex];
+    }
+
+    @Nonnull
+    @ReturnsMutableCopy
+    private Set <String> _getNodeIDs (final boolean bSourceSide)
+    {
+      final Set <String> ret = new LinkedHashSet <String> ();
+      for (int i = 0; i < m_aSourceSide.length; ++i)
+        if (m_aSourceSide[i] == bSourceSide)
+          ret.add (m_aIndex.getNodeOfIndex (i).getID ());
+      return ret;
+    }
+
+    /**
+     * @return The IDs of all nodes on the source side of the minimum cut,
+     *         including the source node.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public Set <String> getAllSourceSideNodeIDs ()
+    {
+      return _getNodeIDs (true);
+    }
+
+    /**
+     * @return The IDs of all nodes on the sink side of the minimum cut,
+     *         including the sink node.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public Set <String> getAllSinkSideNodeIDs ()
+    {
+      return _getNodeIDs (false);
+    }
+
+    /**
+     * @return The IDs of all relations crossing the minimum cut. Their
+     *         capacities sum up to the maximum flow.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public Set <String> getAllCutRelationIDs ()
+    {
+      final Set <String> ret = new LinkedHashSet <String> ();
+      for (int i = 0; i < m_aFlows.length; ++i)
+      {
+        final boolean bFromSource = m_aSourceSide[m_aIndex.getRelationFromIndex (i)];
+        final boolean bToSource = m_aSourceSide[m_aIndex.getRelationToIndex (i)];
+        if (m_aIndex.isDirected () ? bFromSource && !bToSource : bFromSource != bToSource)
+          ret.add (m_aIndex.getRelationOfIndex (i).getID ());
+      }
+      return ret;
+    }
+
+    /**
+     * Write the flow of each relation into the passed relation attribute. This
+     * modifies the relations of the source graph!
+     * 
+     * @param sAttrName
+     *        The name of the attribute to set. May neither be
+     *        <code>null</code> nor empty.
+     */
+    public void setFlowAsAttribute (@Nonnull @Nonempty final String sAttrName)
+    {
+      for (int i = 0; i < m_aFlows.length; ++i)
+        m_aIndex.getRelationOfIndex (i).setAttribute (sAttrName, m_aFlows[i]);
+    }
+
+    @Nonnull
+    @Nonempty
+    public String getAsString ()
+    {
+      return "Max flow " +
+             m_dMaxFlow +
+             " from '" +
+             getSourceNode ().getID () +
+             "' to '" +
+             getSinkNode ().getID () +
+             "'";
+    }
+  }
+
+  /**
+   * The residual network. Arc <code>2r</code> is the forward arc of relation
+   * <code>r</code> and arc <code>2r+1</code> the paired backward arc.
+   */
+  private static final class ResidualNetwork
+  {
+    private final int [] m_aNodeOffsets;
+    private final int [] m_aArcs;
+    private final int [] m_aArcTargets;
+    private final double [] m_aCapacities;
+
+    ResidualNetwork (@Nonnull final IndexedGraph <?, ?> aIndex, @Nonnull final RelationWeights aCapacities)
+    {
+      final int nNodeCount = aIndex.getNodeCount ();
+      final int nArcCount = 2 * aIndex.getRelationCount ();
+      final int [] aArcSources = new int [nArcCount];
+      m_aArcTargets = new int [nArcCount];
+      m_aCapacities = new double [nArcCount];
+      for (int nRel = 0; nRel < aIndex.getRelationCount (); ++nRel)
+      {
+        final int nFrom = aIndex.getRelationFromIndex (nRel);
+        final int nTo = aIndex.getRelationToIndex (nRel);
+        final double dCapacity = aCapacities.getWeight (nRel);
+        aArcSources[2 * nRel] = nFrom;
+        m_aArcTargets[2 * nRel] = nTo;
+        m_aCapacities[2 * nRel] = dCapacity;
+        aArcSources[2 * nRel + 1] = nTo;
+        m_aArcTargets[2 * nRel + 1] = nFrom;
+        m_aCapacities[2 * nRel + 1] = aIndex.isDirected () ? 0 : dCapacity;
+      }
+
+      // Group the arcs by their source node
+      m_aNodeOffsets = new int [nNodeCount + 1];
+      for (final int nSource : aArcSources)
+        m_aNodeOffsets[nSource + 1]++;
+      for (int i = 0; i < nNodeCount; ++i)
+        m_aNodeOffsets[i + 1] += m_aNodeOffsets[i];
+      final int [] aFill = Arrays.copyOf (m_aNodeOffsets, nNodeCount);
+      m_aArcs = new int [nArcCount];
+      for (int nArc = 0; nArc < nArcCount; ++nArc)
+        m_aArcs[aFill[aArcSources[nArc]]++] = nArc;
+    }
+
+    /**
+     * Determine the BFS level of all nodes reachable from the source via arcs
+     * with remaining capacity.
+     * 
+     * @return <code>true</code> if the sink is reachable
+     */
+    boolean buildLevels (@Nonnegative final int nSource,
+                         @Nonnegative final int nSink,
+                         @Nonnull final int [] aLevels,
+                         @Nonnull final int [] aQueue)
+    {
+      Arrays.fill (aLevels, -1);
+      aLevels[nSource] = 0;
+      aQueue[0] = nSource;
+      int nHead = 0;
+      int nTail = 1;
+      while (nHead < nTail)
+      {
+        final int nNode = aQueue[nHead++];
+        for (int i = m_aNodeOffsets[nNode]; i < m_aNodeOffsets[nNode + 1]; ++i)
+        {
+          final int nArc = m_aArcs[i];
+          final int nTarget = m_aArcTargets[nArc];
+          if (m_aCapacities[nArc] > 0 && aLevels[nTarget] < 0)
+          {
+            aLevels[nTarget] = aLevels[nNode] + 1;
+            aQueue[nTail++] = nTarget;
+          }
+        }
+      }
+      return aLevels[nSink] >= 0;
+    }
+
+    /**
+     * Find augmenting paths in the level graph until it is saturated.
+     * 
+     * @return The total flow added.
+     */
+    double augmentBlockingFlow (@Nonnegative final int nSource,
+                                @Nonnegative final int nSink,
+                                @Nonnull final int [] aLevels)
+    {
+      final int nNodeCount = aLevels.length;
+      // The next arc position to examine per node
+      final int [] aNextArc = Arrays.copyOf (m_aNodeOffsets, nNodeCount);
+      final int [] aPathArcs = new int [nNodeCount];
+      final int [] aPathNodes = new int [nNodeCount + 1];
+      double ret = 0;
+      int nDepth = 0;
+      aPathNodes[0] = nSource;
+      while (true)
+      {
+        final int nNode = aPathNodes[nDepth];
+        if (nNode == nSink)
+        {
+          // Augment along the path by its bottleneck capacity
+          double dBottleneck = Double.POSITIVE_INFINITY;
+          for (int i = 0; i < nDepth; ++i)
+            dBottleneck = Math.min (dBottleneck, m_aCapacities[aPathArcs[i]]);
+          int nFirstSaturated = -1;
+          for (int i = 0; i < nDepth; ++i)
+          {
+            final int nArc = aPathArcs[i];
+            m_aCapacities[nArc] -= dBottleneck;
+            m_aCapacities[nArc ^ 1] += dBottleneck;
+            if (nFirstSaturated < 0 && m_aCapacities[nArc] <= 0)
+              nFirstSaturated = i;
+          }
+          ret += dBottleneck;
+          // Continue from the tail of the first saturated arc
+          nDepth = nFirstSaturated;
+          continue;
+        }
+
+        // Advance along the next admissible arc
+        int nArc = -1;
+        final int nEnd = m_aNodeOffsets[nNode + 1];
+        while (aNextArc[nNode] < nEnd)
+        {
+          final int nCandidate = m_aArcs[aNextArc[nNode]];
+          if (m_aCapacities[nCandidate] > 0 && aLevels[m_aArcTargets[nCandidate]] == aLevels[nNode] + 1)
+          {
+            nArc = nCandidate;
+            break;
+          }
+          aNextArc[nNode]++;
+        }
+
+        if (nArc >= 0)
+        {
+          aPathArcs[nDepth] = nArc;
+          aPathNodes[++nDepth] = m_aArcTargets[nArc];
+        }
+        else
+        {
+          // Dead end - remove the node from the level graph and retreat
+          aLevels[nNode] = -1;
+          if (nDepth == 0)
+            break;
+          --nDepth;
+          aNextArc[aPathNodes[nDepth]]++;
+        }
+      }
+      return ret;
+    }
+
+    /**
+     * @return The net flow of the passed relation in its forward direction.
+     */
+    double getFlow (@Nonnull final RelationWeights aCapacities, @Nonnegative final int nRelationIndex)
+    {
+      return aCapacities.getWeight (nRelationIndex) - m_aCapacities[2 * nRelationIndex];
+    }
+  }
+
+  private MaxFlow ()
+  {}
+
+  /**
+   * Determine the maximum flow between two nodes.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sSourceID
+   *        The ID of the source node. Must be contained in the graph.
+   * @param sSinkID
+   *        The ID of the sink node. Must be contained in the graph and must
+   *        differ from the source node.
+   * @param sCapacityAttr
+   *        The name of the relation attribute containing the non-negative
+   *        finite numeric capacity of each relation.
+   * @return The maximum flow and the minimum cut. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if source and sink are equal or if a
+   *         relation has no or an invalid capacity
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> MaxFlow.Result <N> applyMaxFlow (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                        @Nonnull @Nonempty final String sSourceID,
+                                                                                                                        @Nonnull @Nonempty final String sSinkID,
+                                                                                                                        @Nonnull @Nonempty final String sCapacityAttr)
+  {
+    final IndexedGraph <N, R> aIndex = new IndexedGraph <N, R> (aGraph);
+    return applyMaxFlow (aIndex, RelationWeights.createFromAttribute (aIndex, sCapacityAttr), sSourceID, sSinkID);
+  }
+
+  /**
+   * Determine the maximum flow between two nodes using pre-resolved
+   * capacities.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCapacities
+   *        The non-negative finite capacity of each relation of the indexed
+   *        graph. May not be <code>null</code>.
+   * @param sSourceID
+   *        The ID of the source node. Must be contained in the graph.
+   * @param sSinkID
+   *        The ID of the sink node. Must be contained in the graph and must
+   *        differ from the source node.
+   * @return The maximum flow and the minimum cut. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a node ID is unknown, if source and sink are equal or if the
+   *         capacities don't match the indexed graph or contain negative or
+   *         infinite values
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> MaxFlow.Result <N> applyMaxFlow (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                        @Nonnull final RelationWeights aCapacities,
+                                                                                                                        @Nonnull @Nonempty final String sSourceID,
+                                                                                                                        @Nonnull @Nonempty final String sSinkID)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (aCapacities == null)
+      throw new NullPointerException ("capacities");
+    if (aCapacities.getRelationCount () != aIndex.getRelationCount ())
+      throw new IllegalArgumentException ("Expected " +
+                                          aIndex.getRelationCount () +
+                                          " relation capacities but got " +
+                                          aCapacities.getRelationCount ());
+    if (!aCapacities.isNonNegative ())
+      throw new IllegalArgumentException ("Relation capacities may not be negative");
+    for (int i = 0; i < aCapacities.getRelationCount (); ++i)
+      if (Double.isInfinite (aCapacities.getWeight (i)))
+        throw new IllegalArgumentException ("The capacity of relation '" +
+                                            aIndex.getRelationOfIndex (i).getID () +
+                                            "' is infinite");
+    final int nSourceIndex = aIndex.getNodeIndex (sSourceID);
+    if (nSourceIndex < 0)
+      throw new IllegalArgumentException ("Source ID: " + sSourceID);
+    final int nSinkIndex = aIndex.getNodeIndex (sSinkID);
+    if (nSinkIndex < 0)
+      throw new IllegalArgumentException ("Sink ID: " + sSinkID);
+    if (nSourceIndex == nSinkIndex)
+      throw new IllegalArgumentException ("Source and sink must be different: " + sSourceID);
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    final ResidualNetwork aNetwork = new ResidualNetwork (aIndex, aCapacities);
+    final int [] aLevels = new int [nNodeCount];
+    final int [] aQueue = new int [nNodeCount];
+    double dMaxFlow = 0;
+    int nPhase = 0;
+    while (aNetwork.buildLevels (nSourceIndex, nSinkIndex, aLevels, aQueue))
+    {
+      ++nPhase;
+      final double dFlow = aNetwork.augmentBlockingFlow (nSourceIndex, nSinkIndex, aLevels);
+      dMaxFlow += dFlow;
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Phase " + nPhase + " added flow " + dFlow);
+    }
+
+    // The last BFS marked all nodes still reachable from the source
+    final boolean [] aSourceSide = new boolean [nNodeCount];
+    for (int i = 0; i < nNodeCount; ++i)
+      aSourceSide[i] = aLevels[i] >= 0;
+    final double [] aFlows = new double [aIndex.getRelationCount ()];
+    for (int i = 0; i < aFlows.length; ++i)
+      aFlows[i] = aNetwork.getFlow (aCapacities, i);
+    return new Result <N> (aIndex, nSourceIndex, nSinkIndex, dMaxFlow, aFlows, aSourceSide);
+  }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.GlobalDebug;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * PageRank computation using power iteration over the CSR adjacency of an
+ * {@link IndexedGraph}. Each iteration pulls the rank contributions via the
+ * incoming adjacency, so that no synchronization is required and the nodes
+ * can be processed in parallel on a {@link ForkJoinPool}. The rank of nodes
+ * without outgoing relations (dangling nodes) is distributed evenly across
+ * all nodes. For undirected graphs each relation is followed in both
+ * directions.<br>
+ * The resulting scores sum up to 1.
+ * 
+ * @author Philip Helger
+ */
+public final class PageRank
+{
+  /** The default damping factor */
+  public static final double DEFAULT_DAMPING = 0.85;
+  /** The default tolerance for the L1 norm of the change per iteration */
+  public static final double DEFAULT_TOLERANCE = 1e-9;
+  /** The default maximum number of iterations */
+  public static final int DEFAULT_MAX_ITERATIONS = 100;
+  /** The default minimum node count to iterate in parallel */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (PageRank.class);
+
+  private PageRank ()
+  {}
+
+  /**
+   * Check the common power iteration parameters.
+   */
+  static void checkParameters (@Nonnull final IndexedGraph <?, ?> aIndex,
+                               @Nullable final RelationWeights aWeights,
+                               final double dTolerance,
+                               final int nMaxIterations,
+                               final int nParallelThreshold)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (aWeights != null)
+    {
+      if (aWeights.getRelationCount () != aIndex.getRelationCount ())
+        throw new IllegalArgumentException ("The weights don't match the relations of the graph");
+      if (!aWeights.isNonNegative ())
+        throw new IllegalArgumentException ("The weights may not be negative");
+    }
+    if (!(dTolerance > 0))
+      throw new IllegalArgumentException ("Tolerance must be > 0: " + dTolerance);
+    if (nMaxIterations <= 0)
+      throw new IllegalArgumentException ("MaxIterations must be > 0: " + nMaxIterations);
+    if (nParallelThreshold <= 0)
+      throw new IllegalArgumentException ("ParallelThreshold must be > 0: " + nParallelThreshold);
+  }
+
+  /**
+   * Compute the PageRank with the default settings.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @return The scores of all nodes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> CentralityResult <N> applyPageRank (@Nonnull final IReadonlyBaseGraph <N, R> aGraph)
+  {
+    return applyPageRank (new IndexedGraph <N, R> (aGraph),
+                          null,
+                          DEFAULT_DAMPING,
+                          DEFAULT_TOLERANCE,
+                          DEFAULT_MAX_ITERATIONS,
+                          DEFAULT_PARALLEL_THRESHOLD,
+                          null);
+  }
+
+  /**
+   * Compute the PageRank.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aWeights
+   *        Optional relation weights. If present, the rank of a node is
+   *        distributed proportionally to the weights of its outgoing
+   *        relations. May be <code>null</code> to weight all relations
+   *        equally.
+   * @param dDamping
+   *        The damping factor. Must be &ge; 0 and &lt; 1.
+   * @param dTolerance
+   *        The computation stops as soon as the L1 norm of the change of an
+   *        iteration is below this value. Must be &gt; 0.
+   * @param nMaxIterations
+   *        The maximum number of iterations. Must be &gt; 0.
+   * @param nParallelThreshold
+   *        The minimum number of nodes to iterate in parallel. Use
+   *        {@link Integer#MAX_VALUE} to always run sequentially. Must be &gt;
+   *        0.
+   * @param aPool
+   *        The pool to use for parallel iterations. May be <code>null</code>
+   *        to use {@link ForkJoinPool#commonPool()}.
+   * @return The scores of all nodes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> CentralityResult <N> applyPageRank (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                          @Nullable final RelationWeights aWeights,
+                                                                                                                          final double dDamping,
+                                                                                                                          final double dTolerance,
+                                                                                                                          @Nonnegative final int nMaxIterations,
+                                                                                                                          @Nonnegative final int nParallelThreshold,
+                                                                                                                          @Nullable final ForkJoinPool aPool)
+  {
+    checkParameters (aIndex, aWeights, dTolerance, nMaxIterations, nParallelThreshold);
+    if (!(dDamping >= 0 && dDamping < 1))
+      throw new IllegalArgumentException ("Damping must be >= 0 and < 1: " + dDamping);
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (nNodeCount == 0)
+      return new CentralityResult <N> (aIndex, new double [0], 0, true);
+    final ForkJoinPool aRealPool = nNodeCount < nParallelThreshold ? null : aPool != null ? aPool
+                                                                                          : ForkJoinPool.commonPool ();
+
+    // The sum of the weights of all outgoing relations per node
+    final double [] aOutWeights = new double [nNodeCount];
+    for (int nNode = 0; nNode < nNodeCount; ++nNode)
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+        aOutWeights[nNode] += aWeights == null ? 1 : aWeights.getWeight (aIndex.getOutgoingRelationIndex (nOfs));
+
+    double [] aRanks = new double [nNodeCount];
+    Arrays.fill (aRanks, 1.0 / nNodeCount);
+    double [] aNextRanks = new double [nNodeCount];
+    final double [] aContributions = new double [nNodeCount];
+    int nIteration = 0;
+    boolean bConverged = false;
+    while (nIteration < nMaxIterations && !bConverged)
+    {
+      ++nIteration;
+      final double [] aCur = aRanks;
+      final double [] aNext = aNextRanks;
+
+      // Contribution per outgoing weight unit and the total dangling rank
+      final double dDanglingRank = RangeSumTask.sum (aRealPool, nNodeCount, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          double dSum = 0;
+          for (int nNode = nStart; nNode < nEnd; ++nNode)
+            if (aOutWeights[nNode] > 0)
+              aContributions[nNode] = aCur[nNode] / aOutWeights[nNode];
+            else
+            {
+              aContributions[nNode] = 0;
+              dSum += aCur[nNode];
+            }
+          return dSum;
+        }
+      });
+
+      // Pull the contributions via the incoming relations
+      final double dBase = (1 - dDamping) / nNodeCount + dDamping * dDanglingRank / nNodeCount;
+      final double dChange = RangeSumTask.sum (aRealPool, nNodeCount, new RangeSumTask.IRangeOperation ()
+      {
+        public double apply (final int nStart, final int nEnd)
+        {
+          double dSum = 0;
+          for (int nNode = nStart; nNode < nEnd; ++nNode)
+          {
+            double dIncoming = 0;
+            final int nEndOfs = aIndex.getIncomingEndOffset (nNode);
+            for (int nOfs = aIndex.getIncomingStartOffset (nNode); nOfs < nEndOfs; ++nOfs)
+            {
+              final double dContribution = aContributions[aIndex.getIncomingNodeIndex (nOfs)];
+              dIncoming += aWeights == null ? dContribution
+                                           : dContribution *
+                                             aWeights.getWeight (aIndex.getIncomingRelationIndex (nOfs));
+            }
+            aNext[nNode] = dBase + dDamping * dIncoming;
+            dSum += Math.abs (aNext[nNode] - aCur[nNode]);
+          }
+          return dSum;
+        }
+      });
+
+      aRanks = aNext;
+      aNextRanks = aCur;
+      bConverged = dChange < dTolerance;
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("PageRank iteration " + nIteration + " changed by " + dChange);
+    }
+    return new CentralityResult <N> (aIndex, aRanks, nIteration, bConverged);
+  }
+}
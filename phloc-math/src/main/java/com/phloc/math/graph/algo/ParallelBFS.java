@@ -0,0 +1,400 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+
+/**
+ * A level synchronous breadth first search that determines the hop distance
+ * and the BFS parent of all nodes reachable from a start node. For directed
+ * graphs the outgoing relations are followed. Each level (frontier) is
+ * expanded in parallel using a {@link ForkJoinPool} as soon as it contains at
+ * least a configurable number of nodes; smaller frontiers are expanded
+ * sequentially. The visited state of the nodes is kept in a lock free bit set
+ * over the dense node indices of an {@link IndexedGraph}.<br>
+ * The hop distances are deterministic, whereas the BFS parent of a node may be
+ * any of its predecessors on the previous level if the search ran in
+ * parallel.
+ * 
+ * @author Philip Helger
+ */
+public final class ParallelBFS
+{
+  /** The default minimum frontier size to expand a level in parallel */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (ParallelBFS.class);
+
+  /** The number of frontier nodes expanded by a single task */
+  private static final int LEAF_SIZE = 512;
+
+  @Immutable
+  public static final class Result <N extends IBaseGraphNode <N, ?>> implements IHasStringRepresentation
+  {
+    private final IndexedGraph <N, ?> m_aIndex;
+    private final int m_nStartNodeIndex;
+    private final int [] m_aDistances;
+    private final int [] m_aParents;
+    private final int m_nReachedNodeCount;
+    private final int m_nMaxDistance;
+
+    Result (@Nonnull final IndexedGraph <N, ?> aIndex,
+            @Nonnegative final int nStartNodeIndex,
+            @Nonnull final int [] aDistances,
+            @Nonnull final int [] aParents,
+            @Nonnegative final int nReachedNodeCount,
+            @Nonnegative final int nMaxDistance)
+    {
+      m_aIndex = aIndex;
+      m_nStartNodeIndex = nStartNodeIndex;
+      m_aDistances = aDistances;
+      m_aParents = aParents;
+      m_nReachedNodeCount = nReachedNodeCount;
+      m_nMaxDistance = nMaxDistance;
+    }
+
+    /**
+     * @return The indexed graph the search ran on. Never <code>null</code>.
+     */
+    @Nonnull
+    public IndexedGraph <N, ?> getIndex ()
+    {
+      return m_aIndex;
+    }
+
+    /**
+     * @return The start node. Never <code>null</code>.
+     */
+    @Nonnull
+    public N getStartNode ()
+    {
+      return m_aIndex.getNodeOfIndex (m_nStartNodeIndex);
+    }
+
+    /**
+     * @return The number of reached nodes including the start node. Always
+     *         &gt; 0.
+     */
+    @Nonnegative
+    public int getReachedNodeCount ()
+    {
+      return m_nReachedNodeCount;
+    }
+
+    /**
+     * @return The largest hop distance of all reached nodes. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getMaxDistance ()
+    {
+      return m_nMaxDistance;
+    }
+
+    /**
+     * @param nNodeIndex
+     *        The node index in the indexed graph.
+     * @return The hop distance from the start node or
+     *         {@link CGlobal#ILLEGAL_UINT} if the node was not reached.
+     */
+    public int getDistanceOfIndex (@Nonnegative final int nNodeIndex)
+    {
+      return m_aDistances[nNodeIndex];
+    }
+
+    /**
+     * @param nNodeIndex
+     *        The node index in the indexed graph.
+     * @return The index of the BFS parent node or {@link CGlobal#ILLEGAL_UINT}
+     *         if the node was not reached or if it is the start node.
+     */
+    public int getParentIndexOfIndex (@Nonnegative final int nNodeIndex)
+    {
+      return m_aParents[nNodeIndex];
+    }
+
+    /**
+     * @param sNodeID
+     *        The ID of the node to check. May be <code>null</code>.
+     * @return <code>true</code> if the passed node is reachable from the start
+     *         node.
+     */
+    public boolean isReached (@Nullable final String sNodeID)
+    {
+      return getDistance (sNodeID) >= 0;
+    }
+
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The hop distance from the start node or
+     *         {@link CGlobal#ILLEGAL_UINT} if the node was not reached.
+     */
+    public int getDistance (@Nullable final String sNodeID)
+    {
+      final int nIndex = m_aIndex.getNodeIndex (sNodeID);
+      return nIndex < 0 ? CGlobal.ILLEGAL_UINT : m_aDistances[nIndex];
+    }
+
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The BFS parent node or <code>null</code> if the node was not
+     *         reached or if it is the start node.
+     */
+    @Nullable
+    public N getParent (@Nullable final String sNodeID)
+    {
+      final int nIndex = m_aIndex.getNodeIndex (sNodeID);
+      return nIndex < 0 || m_aParents[nIndex] < 0 ? null : m_aIndex.getNodeOfIndex (m_aParents[nIndex]);
+    }
+
+    @Nonnull
+    @Nonempty
+    public String getAsString ()
+    {
+      return "Reached " +
+             m_nReachedNodeCount +
+             " nodes from '" +
+             getStartNode ().getID () +
+             "' with a maximum distance of " +
+             m_nMaxDistance;
+    }
+  }
+
+  /**
+   * The state shared by all tasks of a single search.
+   */
+  private static final class SearchState
+  {
+    private final IndexedGraph <?, ?> m_aIndex;
+    private final AtomicLongArray m_aVisited;
+    private final int [] m_aDistances;
+    private final int [] m_aParents;
+    private int [] m_aFrontier;
+    private int m_nFrontierSize;
+    private int [] m_aNextFrontier;
+    private final AtomicInteger m_aNextFrontierSize = new AtomicInteger (0);
+
+    SearchState (@Nonnull final IndexedGraph <?, ?> aIndex)
+    {
+      final int nNodeCount = aIndex.getNodeCount ();
+      m_aIndex = aIndex;
+      m_aVisited = new AtomicLongArray ((nNodeCount + 63) / 64);
+      m_aDistances = new int [nNodeCount];
+      Arrays.fill (m_aDistances, CGlobal.ILLEGAL_UINT);
+      m_aParents = new int [nNodeCount];
+      Arrays.fill (m_aParents, CGlobal.ILLEGAL_UINT);
+      m_aFrontier = new int [nNodeCount];
+      m_aNextFrontier = new int [nNodeCount];
+    }
+
+    /**
+     * Atomically mark the passed node as visited.
+     * 
+     * @return <code>true</code> if the node was not visited before
+     */
+    boolean tryVisit (final int nNode)
+    {
+      final int nWord = nNode >>> 6;
+      final long nMask = 1L << (nNode & 63);
+      while (true)
+      {
+        final long nOld = m_aVisited.get (nWord);
+        if ((nOld & nMask) != 0)
+          return false;
+        if (m_aVisited.compareAndSet (nWord, nOld, nOld | nMask))
+          return true;
+      }
+    }
+
+    /**
+     * Expand the frontier nodes in the range [nStart, nEnd) and append all
+     * newly discovered nodes to the next frontier.
+     */
+    void expand (final int nStart, final int nEnd, final int nNextDistance)
+    {
+      int [] aFound = new int [64];
+      int nFound = 0;
+      for (int i = nStart; i < nEnd; ++i)
+      {
+        final int nNode = m_aFrontier[i];
+        for (int nOfs = m_aIndex.getOutgoingStartOffset (nNode); nOfs < m_aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+        {
+          final int nToNode = m_aIndex.getOutgoingNodeIndex (nOfs);
+          if (tryVisit (nToNode))
+          {
+            // Only the thread that visited the node writes its data
+            m_aDistances[nToNode] = nNextDistance;
+            m_aParents[nToNode] = nNode;
+            if (nFound == aFound.length)
+              aFound = Arrays.copyOf (aFound, nFound * 2);
+            aFound[nFound++] = nToNode;
+          }
+        }
+      }
+      if (nFound > 0)
+      {
+        // Reserve a range in the next frontier with a single atomic operation
+        final int nOfs = m_aNextFrontierSize.getAndAdd (nFound);
+        System.arraycopy (aFound, 0, m_aNextFrontier, nOfs, nFound);
+      }
+    }
+
+    void swapFrontiers ()
+    {
+      final int [] aTmp = m_aFrontier;
+      m_aFrontier = m_aNextFrontier;
+      m_aNextFrontier = aTmp;
+      m_nFrontierSize = m_aNextFrontierSize.getAndSet (0);
+    }
+  }
+
+  /**
+   * Expands a part of the current frontier, splitting it recursively.
+   */
+  private static final class ExpandTask extends RecursiveAction
+  {
+    private final SearchState m_aState;
+    private final int m_nStart;
+    private final int m_nEnd;
+    private final int m_nNextDistance;
+
+    ExpandTask (@Nonnull final SearchState aState, final int nStart, final int nEnd, final int nNextDistance)
+    {
+      m_aState = aState;
+      m_nStart = nStart;
+      m_nEnd = nEnd;
+      m_nNextDistance = nNextDistance;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_nEnd - m_nStart <= LEAF_SIZE)
+        m_aState.expand (m_nStart, m_nEnd, m_nNextDistance);
+      else
+      {
+        final int nMid = (m_nStart + m_nEnd) >>> 1;
+        invokeAll (new ExpandTask (m_aState, m_nStart, nMid, m_nNextDistance),
+                   new ExpandTask (m_aState, nMid, m_nEnd, m_nNextDistance));
+      }
+    }
+  }
+
+  private ParallelBFS ()
+  {}
+
+  /**
+   * Run a breadth first search with the default settings.
+   * 
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @return The search result. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the start node ID is unknown
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> ParallelBFS.Result <N> applyBFS (@Nonnull final IReadonlyBaseGraph <N, R> aGraph,
+                                                                                                                        @Nonnull @Nonempty final String sFromID)
+  {
+    return applyBFS (new IndexedGraph <N, R> (aGraph), sFromID, DEFAULT_PARALLEL_THRESHOLD, null);
+  }
+
+  /**
+   * Run a breadth first search.
+   * 
+   * @param aIndex
+   *        The indexed graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        The ID of the start node. Must be contained in the graph.
+   * @param nParallelThreshold
+   *        The minimum number of nodes of a frontier to be expanded in
+   *        parallel. Use {@link Integer#MAX_VALUE} to always run sequentially.
+   *        Must be &gt; 0.
+   * @param aPool
+   *        The pool to use for the parallel expansion. May be
+   *        <code>null</code> to use {@link ForkJoinPool#commonPool()}.
+   * @return The search result. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the start node ID is unknown
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> ParallelBFS.Result <N> applyBFS (@Nonnull final IndexedGraph <N, R> aIndex,
+                                                                                                                        @Nonnull @Nonempty final String sFromID,
+                                                                                                                        @Nonnegative final int nParallelThreshold,
+                                                                                                                        @Nullable final ForkJoinPool aPool)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (nParallelThreshold <= 0)
+      throw new IllegalArgumentException ("ParallelThreshold must be > 0: " + nParallelThreshold);
+    final int nStartIndex = aIndex.getNodeIndex (sFromID);
+    if (nStartIndex < 0)
+      throw new IllegalArgumentException ("From ID: " + sFromID);
+
+    final ForkJoinPool aRealPool = aPool != null ? aPool : ForkJoinPool.commonPool ();
+    final SearchState aState = new SearchState (aIndex);
+    aState.tryVisit (nStartIndex);
+    aState.m_aDistances[nStartIndex] = 0;
+    aState.m_aFrontier[0] = nStartIndex;
+    aState.m_nFrontierSize = 1;
+
+    int nReachedNodeCount = 1;
+    int nDistance = 0;
+    while (true)
+    {
+      if (aState.m_nFrontierSize >= nParallelThreshold)
+        aRealPool.invoke (new ExpandTask (aState, 0, aState.m_nFrontierSize, nDistance + 1));
+      else
+        aState.expand (0, aState.m_nFrontierSize, nDistance + 1);
+      aState.swapFrontiers ();
+      if (aState.m_nFrontierSize == 0)
+        break;
+      nReachedNodeCount += aState.m_nFrontierSize;
+      ++nDistance;
+
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Level " + nDistance + " contains " + aState.m_nFrontierSize + " nodes");
+    }
+
+    return new Result <N> (aIndex, nStartIndex, aState.m_aDistances, aState.m_aParents, nReachedNodeCount, nDistance);
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+
+/**
+ * Find the minimum spanning tree of a graph, using Prim's algorithm. The tree
+ * is grown from a start node by always adding the cheapest relation to a node
+ * outside the tree. The cheapest known relation of each outside node is
+ * managed in an indexed binary heap, resulting in a runtime of O(R log N)
+ * without sorting all relations. This makes it the better choice for dense
+ * graphs. For graphs with multiple components a minimum spanning forest is
+ * created, as with {@link Kruskal}.
+ * 
+ * @author Philip Helger
+ */
+public final class Prim
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (Prim.class);
+
+  private Prim ()
+  {}
+
+  /**
+   * Check that the passed relation costs can be used for a minimum spanning
+   * tree of the passed indexed graph.
+   */
+  static void checkCosts (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                          @Nonnull final RelationWeights aCosts)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (aCosts == null)
+      throw new NullPointerException ("costs");
+    if (aCosts.getRelationCount () != aIndex.getRelationCount ())
+      throw new IllegalArgumentException ("Expected " +
+                                          aIndex.getRelationCount () +
+                                          " relation costs but got " +
+                                          aCosts.getRelationCount ());
+  }
+
+  /**
+   * Determine the relations of the minimum spanning tree without creating a
+   * new graph.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric cost
+   */
+  @Nonnull
+  public static Kruskal.RelationsResult applyPrimRelations (@Nonnull final IReadonlyGraph aGraph,
+                                                            @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    return applyPrimRelations (aIndex, RelationWeights.createFromAttribute (aIndex, sRelationCostAttr));
+  }
+
+  /**
+   * Determine the relations of the minimum spanning tree using pre-resolved
+   * relation costs without creating a new graph.
+   * 
+   * @param aIndex
+   *        The indexed graph to use. May not be <code>null</code>.
+   * @param aCosts
+   *        The cost of each relation of the indexed graph. May not be
+   *        <code>null</code>.
+   * @return The selected relations and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the costs don't match the indexed graph
+   */
+  @Nonnull
+  public static Kruskal.RelationsResult applyPrimRelations (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndex,
+                                                            @Nonnull final RelationWeights aCosts)
+  {
+    checkCosts (aIndex, aCosts);
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting Prim on " + nNodeCount + " nodes");
+
+    final boolean [] aInTree = new boolean [nNodeCount];
+    // The cheapest relation connecting each node to the tree
+    final int [] aBestRelations = new int [nNodeCount];
+    final IndexedMinHeap aHeap = new IndexedMinHeap (nNodeCount);
+    final List <IGraphRelation> aRelations = new ArrayList <IGraphRelation> ();
+    double dTotalWeight = 0;
+    for (int nRoot = 0; nRoot < nNodeCount; ++nRoot)
+    {
+      if (aInTree[nRoot])
+        continue;
+
+      // Start a new tree of the forest
+      aBestRelations[nRoot] = CGlobal.ILLEGAL_UINT;
+      aHeap.add (nRoot, 0);
+      while (!aHeap.isEmpty ())
+      {
+        final int nNode = aHeap.remove ();
+        aInTree[nNode] = true;
+        final int nBestRel = aBestRelations[nNode];
+        if (nBestRel >= 0)
+        {
+          aRelations.add (aIndex.getRelationOfIndex (nBestRel));
+          dTotalWeight += aCosts.getWeight (nBestRel);
+        }
+
+        for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+        {
+          final int nToNode = aIndex.getOutgoingNodeIndex (nOfs);
+          if (aInTree[nToNode])
+            continue;
+          final int nRel = aIndex.getOutgoingRelationIndex (nOfs);
+          final double dCost = aCosts.getWeight (nRel);
+          if (!aHeap.contains (nToNode))
+          {
+            aHeap.add (nToNode, dCost);
+            aBestRelations[nToNode] = nRel;
+          }
+          else
+            if (dCost < aHeap.getPriority (nToNode))
+            {
+              aHeap.decreasePriority (nToNode, dCost);
+              aBestRelations[nToNode] = nRel;
+            }
+        }
+      }
+    }
+
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Having a total weight of " + dTotalWeight);
+
+    return new Kruskal.RelationsResult (aIndex.getGraph (), aRelations, dTotalWeight);
+  }
+
+  /**
+   * Determine the minimum spanning tree and create a new graph containing it.
+   * 
+   * @param aGraph
+   *        The graph to use. May not be <code>null</code>.
+   * @param sRelationCostAttr
+   *        The name of the relation attribute containing the numeric cost of
+   *        each relation.
+   * @return The new graph containing the minimum spanning tree together with
+   *         its total weight. Never <code>null</code>.
+   * @see #applyPrimRelations(IReadonlyGraph, String)
+   */
+  @Nonnull
+  public static Kruskal.Result applyPrim (@Nonnull final IReadonlyGraph aGraph,
+                                          @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    final Kruskal.RelationsResult aResult = applyPrimRelations (aGraph, sRelationCostAttr);
+    return new Kruskal.Result (aResult.createGraph (), aResult.getTotalWeightAsDouble ());
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Applies an operation to all indices of a range and sums up the partial
+ * results of the operation. The range is split recursively, so that the
+ * operation can run in parallel on a {@link ForkJoinPool}. The split points
+ * only depend on the range size, so the summation order is deterministic.
+ * 
+ * @author Philip Helger
+ */
+final class RangeSumTask extends RecursiveTask <Double>
+{
+  /**
+   * The operation to apply on a part of the range.
+   * 
+   * @author Philip Helger
+   */
+  interface IRangeOperation
+  {
+    /**
+     * Apply the operation on all indices in the range [nStart, nEnd).
+     * 
+     * @return The partial sum of the range.
+     */
+    double apply (int nStart, int nEnd);
+  }
+
+  /** The default number of indices handled by a single task */
+  static final int DEFAULT_LEAF_SIZE = 1024;
+
+  private final IRangeOperation m_aOperation;
+  private final int m_nLeafSize;
+  private final int m_nStart;
+  private final int m_nEnd;
+
+  private RangeSumTask (@Nonnull final IRangeOperation aOperation,
+                        final int nLeafSize,
+                        final int nStart,
+                        final int nEnd)
+  {
+    m_aOperation = aOperation;
+    m_nLeafSize = nLeafSize;
+    m_nStart = nStart;
+    m_nEnd = nEnd;
+  }
+
+  @Override
+  protected Double compute ()
+  {
+    if (m_nEnd - m_nStart <= m_nLeafSize)
+      return Double.valueOf (m_aOperation.apply (m_nStart, m_nEnd));
+    final int nMid = (m_nStart + m_nEnd) >>> 1;
+    final RangeSumTask aLeft = new RangeSumTask (m_aOperation, m_nLeafSize, m_nStart, nMid);
+    aLeft.fork ();
+    final double dRight = new RangeSumTask (m_aOperation, m_nLeafSize, nMid, m_nEnd).compute ().doubleValue ();
+    return Double.valueOf (aLeft.join ().doubleValue () + dRight);
+  }
+
+  /**
+   * Apply the passed operation on the range [0, nCount).
+   * 
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to run sequentially in
+   *        the calling thread.
+   * @param nCount
+   *        The size of the range.
+   * @param aOperation
+   *        The operation to apply. May not be <code>null</code>.
+   * @return The sum of all partial results.
+   */
+  static double sum (@Nullable final ForkJoinPool aPool,
+                     @Nonnegative final int nCount,
+                     @Nonnull final IRangeOperation aOperation)
+  {
+    return sum (aPool, nCount, DEFAULT_LEAF_SIZE, aOperation);
+  }
+
+  /**
+   * Apply the passed operation on the range [0, nCount).
+   * 
+   * @param aPool
+   *        The pool to use. May be <code>null</code> to run sequentially in
+   *        the calling thread.
+   * @param nCount
+   *        The size of the range.
+   * @param nLeafSize
+   *        The maximum number of indices handled by a single task. Must be
+   *        &gt; 0.
+   * @param aOperation
+   *        The operation to apply. May not be <code>null</code>.
+   * @return The sum of all partial results.
+   */
+  static double sum (@Nullable final ForkJoinPool aPool,
+                     @Nonnegative final int nCount,
+                     @Nonnegative final int nLeafSize,
+                     @Nonnull final IRangeOperation aOperation)
+  {
+    if (aPool == null)
+      return aOperation.apply (0, nCount);
+    return aPool.invoke (new RangeSumTask (aOperation, nLeafSize, 0, nCount)).doubleValue ();
+  }
+}
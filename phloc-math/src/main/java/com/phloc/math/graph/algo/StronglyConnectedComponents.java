@@ -0,0 +1,411 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+
+/**
+ * Determine the strongly connected components of a directed graph, using
+ * Tarjan's algorithm. The depth first search is driven by explicit int stacks
+ * over the dense indices of an {@link IndexedGraph} instead of recursion, so
+ * arbitrarily deep graphs can be handled. The runtime is O(N + R).<br>
+ * The components are numbered in topological order of the condensation graph:
+ * for every relation between two different components, the index of the
+ * from-component is smaller than the index of the to-component.
+ * 
+ * @author Philip Helger
+ */
+public final class StronglyConnectedComponents
+{
+  /**
+   * The name of the node attribute in the condensation graph, containing the
+   * IDs of all nodes of the component as a {@link List} of {@link String}.
+   */
+  public static final String ATTR_MEMBER_NODE_IDS = "memberNodeIDs";
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (StronglyConnectedComponents.class);
+
+  @Immutable
+  public static final class Result implements IHasStringRepresentation
+  {
+    private final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> m_aIndex;
+    private final int [] m_aComponentOfNode;
+    private final int m_nComponentCount;
+    // Offsets into m_aComponentNodes per component (length count + 1)
+    private final int [] m_aComponentStart;
+    // All node indices ordered by component
+    private final int [] m_aComponentNodes;
+    private final boolean [] m_aCyclic;
+
+    Result (@Nonnull final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex,
+            @Nonnull final int [] aComponentOfNode,
+            @Nonnegative final int nComponentCount)
+    {
+      m_aIndex = aIndex;
+      m_aComponentOfNode = aComponentOfNode;
+      m_nComponentCount = nComponentCount;
+
+      // Counting sort of the nodes by component
+      final int nNodeCount = aComponentOfNode.length;
+      m_aComponentStart = new int [nComponentCount + 1];
+      for (final int nComponent : aComponentOfNode)
+        m_aComponentStart[nComponent + 1]++;
+      for (int i = 0; i < nComponentCount; ++i)
+        m_aComponentStart[i + 1] += m_aComponentStart[i];
+      final int [] aPos = Arrays.copyOf (m_aComponentStart, nComponentCount);
+      m_aComponentNodes = new int [nNodeCount];
+      for (int i = 0; i < nNodeCount; ++i)
+        m_aComponentNodes[aPos[aComponentOfNode[i]]++] = i;
+
+      // A component is cyclic if it has more than one node or a self-relation
+      m_aCyclic = new boolean [nComponentCount];
+      for (int i = 0; i < nComponentCount; ++i)
+        if (m_aComponentStart[i + 1] - m_aComponentStart[i] > 1)
+          m_aCyclic[i] = true;
+      for (int i = 0; i < aIndex.getRelationCount (); ++i)
+        if (aIndex.getRelationFromIndex (i) == aIndex.getRelationToIndex (i))
+          m_aCyclic[aComponentOfNode[aIndex.getRelationFromIndex (i)]] = true;
+    }
+
+    /**
+     * @return The indexed graph the components were determined on. Never
+     *         <code>null</code>.
+     */
+    @Nonnull
+    public IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> getIndex ()
+    {
+      return m_aIndex;
+    }
+
+    /**
+     * @return The number of strongly connected components. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getComponentCount ()
+    {
+      return m_nComponentCount;
+    }
+
+    /**
+     * @param nNodeIndex
+     *        The node index in the indexed graph.
+     * @return The index of the component containing the passed node.
+     */
+    @Nonnegative
+    public int getComponentOfIndex (@Nonnegative final int nNodeIndex)
+    {
+      return m_aComponentOfNode[nNodeIndex];
+    }
+
+    /**
+     * @param sNodeID
+     *        The ID of the node to query. May be <code>null</code>.
+     * @return The index of the component containing the passed node or
+     *         {@link CGlobal#ILLEGAL_UINT} if no such node is contained.
+     */
+    public int getComponentOfNodeID (@Nullable final String sNodeID)
+    {
+      final int nNodeIndex = m_aIndex.getNodeIndex (sNodeID);
+      return nNodeIndex < 0 ? CGlobal.ILLEGAL_UINT : m_aComponentOfNode[nNodeIndex];
+    }
+
+    /**
+     * @return The component index of every node, indexed by the node index in
+     *         the indexed graph. Never <code>null</code>.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public int [] getAllComponentIndices ()
+    {
+      return m_aComponentOfNode.clone ();
+    }
+
+    /**
+     * @param nComponent
+     *        The component index.
+     * @return The number of nodes in the passed component. Always &gt; 0.
+     */
+    @Nonnegative
+    public int getComponentSize (@Nonnegative final int nComponent)
+    {
+      return m_aComponentStart[nComponent + 1] - m_aComponentStart[nComponent];
+    }
+
+    /**
+     * @param nComponent
+     *        The component index.
+     * @return <code>true</code> if the passed component contains a cycle, that
+     *         is if it has more than one node or a relation from its only node
+     *         to itself.
+     */
+    public boolean isCyclicComponent (@Nonnegative final int nComponent)
+    {
+      return m_aCyclic[nComponent];
+    }
+
+    /**
+     * @return <code>true</code> if at least one component contains a cycle.
+     */
+    public boolean containsCycles ()
+    {
+      for (final boolean bCyclic : m_aCyclic)
+        if (bCyclic)
+          return true;
+      return false;
+    }
+
+    /**
+     * @param nComponent
+     *        The component index.
+     * @return All nodes of the passed component, ordered by node index. Never
+     *         <code>null</code>.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <IDirectedGraphNode> getComponentNodes (@Nonnegative final int nComponent)
+    {
+      final List <IDirectedGraphNode> ret = new ArrayList <IDirectedGraphNode> (getComponentSize (nComponent));
+      for (int i = m_aComponentStart[nComponent]; i < m_aComponentStart[nComponent + 1]; ++i)
+        ret.add (m_aIndex.getNodeOfIndex (m_aComponentNodes[i]));
+      return ret;
+    }
+
+    /**
+     * @return The nodes of all components, ordered by component index. Never
+     *         <code>null</code>.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <List <IDirectedGraphNode>> getAllComponents ()
+    {
+      final List <List <IDirectedGraphNode>> ret = new ArrayList <List <IDirectedGraphNode>> (m_nComponentCount);
+      for (int i = 0; i < m_nComponentCount; ++i)
+        ret.add (getComponentNodes (i));
+      return ret;
+    }
+
+    /**
+     * Build the condensation graph, in which every component is contracted to
+     * a single node. The ID of each node is the string representation of the
+     * component index and the attribute {@link #ATTR_MEMBER_NODE_IDS} contains
+     * the IDs of the original nodes. There is at most one relation between two
+     * components, and relations within a component are omitted, so the result
+     * is always acyclic.
+     * 
+     * @return A new directed graph. Never <code>null</code>.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public SimpleDirectedGraph createCondensationGraph ()
+    {
+      final SimpleDirectedGraph ret = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+      final IDirectedGraphNode [] aNodes = new IDirectedGraphNode [m_nComponentCount];
+      for (int i = 0; i < m_nComponentCount; ++i)
+      {
+        final List <String> aMemberIDs = new ArrayList <String> (getComponentSize (i));
+        for (int j = m_aComponentStart[i]; j < m_aComponentStart[i + 1]; ++j)
+          aMemberIDs.add (m_aIndex.getNodeOfIndex (m_aComponentNodes[j]).getID ());
+        aNodes[i] = ret.createNode (Integer.toString (i));
+        aNodes[i].setAttribute (ATTR_MEMBER_NODE_IDS, aMemberIDs);
+      }
+
+      // Remember the last from-component per to-component to avoid duplicate
+      // relations, as the nodes are visited grouped by component
+      final int [] aLastFrom = new int [m_nComponentCount];
+      Arrays.fill (aLastFrom, -1);
+      for (int nFrom = 0; nFrom < m_nComponentCount; ++nFrom)
+        for (int i = m_aComponentStart[nFrom]; i < m_aComponentStart[nFrom + 1]; ++i)
+        {
+          final int nNode = m_aComponentNodes[i];
+          for (int nOfs = m_aIndex.getOutgoingStartOffset (nNode); nOfs < m_aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+          {
+            final int nTo = m_aComponentOfNode[m_aIndex.getOutgoingNodeIndex (nOfs)];
+            if (nTo != nFrom && aLastFrom[nTo] != nFrom)
+            {
+              aLastFrom[nTo] = nFrom;
+              ret.createRelation (aNodes[nFrom], aNodes[nTo]);
+            }
+          }
+        }
+      return ret;
+    }
+
+    @Nonnull
+    @Nonempty
+    public String getAsString ()
+    {
+      final StringBuilder aSB = new StringBuilder ("{");
+      for (int i = 0; i < m_nComponentCount; ++i)
+      {
+        if (i > 0)
+          aSB.append (',');
+        aSB.append ('[');
+        for (int j = m_aComponentStart[i]; j < m_aComponentStart[i + 1]; ++j)
+        {
+          if (j > m_aComponentStart[i])
+            aSB.append (',');
+          aSB.append ('\'').append (m_aIndex.getNodeOfIndex (m_aComponentNodes[j]).getID ()).append ('\'');
+        }
+        aSB.append (']');
+      }
+      return aSB.append ('}').toString ();
+    }
+  }
+
+  private StronglyConnectedComponents ()
+  {}
+
+  /**
+   * Determine the strongly connected components of the passed graph.
+   * 
+   * @param aGraph
+   *        The graph to be analyzed. May not be <code>null</code>.
+   * @return The components. Never <code>null</code>.
+   */
+  @Nonnull
+  public static StronglyConnectedComponents.Result applySCC (@Nonnull final IReadonlyDirectedGraph aGraph)
+  {
+    return applySCC (new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph));
+  }
+
+  /**
+   * Determine the strongly connected components of the passed indexed graph.
+   * 
+   * @param aIndex
+   *        The indexed directed graph to be analyzed. May not be
+   *        <code>null</code>.
+   * @return The components. Never <code>null</code>.
+   */
+  @Nonnull
+  public static StronglyConnectedComponents.Result applySCC (@Nonnull final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (!aIndex.isDirected ())
+      throw new IllegalArgumentException ("The indexed graph must be directed");
+
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting SCC search on " + nNodeCount + " nodes");
+
+    // DFS discovery index per node (-1 = not yet visited)
+    final int [] aDiscovery = new int [nNodeCount];
+    Arrays.fill (aDiscovery, -1);
+    final int [] aLowLink = new int [nNodeCount];
+    // Component per node (-1 = still on the Tarjan stack or not yet visited)
+    final int [] aComponent = new int [nNodeCount];
+    Arrays.fill (aComponent, -1);
+    // The Tarjan stack of nodes without a component
+    final int [] aStack = new int [nNodeCount];
+    int nStackSize = 0;
+    // The explicit DFS call stack: node and next outgoing offset to visit
+    final int [] aCallNode = new int [nNodeCount];
+    final int [] aCallOffset = new int [nNodeCount];
+    int nCallSize = 0;
+    int nNextDiscovery = 0;
+    int nComponentCount = 0;
+
+    for (int nRoot = 0; nRoot < nNodeCount; ++nRoot)
+    {
+      if (aDiscovery[nRoot] >= 0)
+        continue;
+
+      aDiscovery[nRoot] = aLowLink[nRoot] = nNextDiscovery++;
+      aStack[nStackSize++] = nRoot;
+      aCallNode[nCallSize] = nRoot;
+      aCallOffset[nCallSize] = aIndex.getOutgoingStartOffset (nRoot);
+      nCallSize++;
+
+      while (nCallSize > 0)
+      {
+        final int nNode = aCallNode[nCallSize - 1];
+        final int nOfs = aCallOffset[nCallSize - 1];
+        if (nOfs < aIndex.getOutgoingEndOffset (nNode))
+        {
+          aCallOffset[nCallSize - 1] = nOfs + 1;
+          final int nTo = aIndex.getOutgoingNodeIndex (nOfs);
+          if (aDiscovery[nTo] < 0)
+          {
+            // Descend
+            aDiscovery[nTo] = aLowLink[nTo] = nNextDiscovery++;
+            aStack[nStackSize++] = nTo;
+            aCallNode[nCallSize] = nTo;
+            aCallOffset[nCallSize] = aIndex.getOutgoingStartOffset (nTo);
+            nCallSize++;
+          }
+          else
+            if (aComponent[nTo] < 0)
+            {
+              // Still on the Tarjan stack
+              aLowLink[nNode] = Math.min (aLowLink[nNode], aDiscovery[nTo]);
+            }
+        }
+        else
+        {
+          // All relations handled - return
+          nCallSize--;
+          if (aLowLink[nNode] == aDiscovery[nNode])
+          {
+            int nMember;
+            do
+            {
+              nMember = aStack[--nStackSize];
+              aComponent[nMember] = nComponentCount;
+            } while (nMember != nNode);
+            nComponentCount++;
+          }
+          if (nCallSize > 0)
+          {
+            final int nParent = aCallNode[nCallSize - 1];
+            aLowLink[nParent] = Math.min (aLowLink[nParent], aLowLink[nNode]);
+          }
+        }
+      }
+    }
+
+    // Tarjan emits the components in reverse topological order
+    for (int i = 0; i < nNodeCount; ++i)
+      aComponent[i] = nComponentCount - 1 - aComponent[i];
+
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Found " + nComponentCount + " strongly connected components");
+    return new StronglyConnectedComponents.Result (aIndex, aComponent, nComponentCount);
+  }
+}
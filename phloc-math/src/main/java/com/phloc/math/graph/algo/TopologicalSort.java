@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.GlobalDebug;
+import com.phloc.commons.IHasStringRepresentation;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+
+/**
+ * Sort the nodes of a directed graph topologically, using Kahn's algorithm.
+ * If the graph contains a cycle, the nodes of one cycle are determined
+ * instead. The runtime is O(N + R). Only relations between nodes contained in
+ * the graph are considered.
+ * 
+ * @author Philip Helger
+ */
+public final class TopologicalSort
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (TopologicalSort.class);
+
+  @Immutable
+  public static final class Result implements IHasStringRepresentation
+  {
+    private final List <IDirectedGraphNode> m_aSortedNodes;
+    private final List <IDirectedGraphNode> m_aCycleNodes;
+
+    public Result (@Nonnull final List <IDirectedGraphNode> aSortedNodes,
+                   @Nonnull final List <IDirectedGraphNode> aCycleNodes)
+    {
+      if (aSortedNodes == null)
+        throw new NullPointerException ("sortedNodes");
+      if (aCycleNodes == null)
+        throw new NullPointerException ("cycleNodes");
+      if (!aSortedNodes.isEmpty () && !aCycleNodes.isEmpty ())
+        throw new IllegalArgumentException ("Either sorted nodes or cycle nodes may be present");
+      m_aSortedNodes = aSortedNodes;
+      m_aCycleNodes = aCycleNodes;
+    }
+
+    /**
+     * @return <code>true</code> if the graph contains a cycle and therefore
+     *         cannot be sorted.
+     */
+    public boolean hasCycle ()
+    {
+      return !m_aCycleNodes.isEmpty ();
+    }
+
+    /**
+     * @return All nodes of the graph in topological order, so that for every
+     *         relation the from-node is located before the to-node. Empty if
+     *         the graph contains a cycle.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <IDirectedGraphNode> getAllSortedNodes ()
+    {
+      return ContainerHelper.newList (m_aSortedNodes);
+    }
+
+    /**
+     * @return The nodes of one cycle in the order of the relations. The last
+     *         node has a relation to the first node. Empty if the graph contains
+     *         no cycle.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public List <IDirectedGraphNode> getAllCycleNodes ()
+    {
+      return ContainerHelper.newList (m_aCycleNodes);
+    }
+
+    @Nonnull
+    @Nonempty
+    public String getAsString ()
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      aSB.append (hasCycle () ? "Cycle {" : "Sorted {");
+      int nIndex = 0;
+      for (final IDirectedGraphNode aNode : hasCycle () ? m_aCycleNodes : m_aSortedNodes)
+      {
+        if (nIndex++ > 0)
+          aSB.append (',');
+        aSB.append ('\'').append (aNode.getID ()).append ('\'');
+      }
+      return aSB.append ('}').toString ();
+    }
+  }
+
+  private TopologicalSort ()
+  {}
+
+  /**
+   * Find a cycle in the nodes that could not be sorted. Each of these nodes
+   * has at least one incoming relation from another unsorted node, so
+   * following these relations backwards must end in a cycle.
+   */
+  @Nonnull
+  private static List <IDirectedGraphNode> _findCycle (@Nonnull final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex,
+                                                       @Nonnull final int [] aInDegree)
+  {
+    final int nNodeCount = aIndex.getNodeCount ();
+    int nStart = 0;
+    while (aInDegree[nStart] == 0)
+      ++nStart;
+
+    // Position of each node on the backward path
+    final int [] aPathPos = new int [nNodeCount];
+    Arrays.fill (aPathPos, -1);
+    final int [] aPath = new int [nNodeCount];
+    int nPathLength = 0;
+    int nNode = nStart;
+    while (aPathPos[nNode] < 0)
+    {
+      aPathPos[nNode] = nPathLength;
+      aPath[nPathLength++] = nNode;
+      int nPrev = -1;
+      for (int nOfs = aIndex.getIncomingStartOffset (nNode); nOfs < aIndex.getIncomingEndOffset (nNode); ++nOfs)
+        if (aInDegree[aIndex.getIncomingNodeIndex (nOfs)] > 0)
+        {
+          nPrev = aIndex.getIncomingNodeIndex (nOfs);
+          break;
+        }
+      if (nPrev < 0)
+        throw new IllegalStateException ("Inconsistency - unsorted node without unsorted predecessor");
+      nNode = nPrev;
+    }
+
+    // The path was built backwards - reverse it to follow the relations
+    final List <IDirectedGraphNode> ret = new ArrayList <IDirectedGraphNode> ();
+    for (int i = nPathLength - 1; i >= aPathPos[nNode]; --i)
+      ret.add (aIndex.getNodeOfIndex (aPath[i]));
+    return ret;
+  }
+
+  /**
+   * Sort the passed graph topologically.
+   * 
+   * @param aGraph
+   *        The graph to be sorted. May not be <code>null</code>.
+   * @return The sorted nodes or the nodes of a cycle. Never <code>null</code>.
+   */
+  @Nonnull
+  public static TopologicalSort.Result sort (@Nonnull final IReadonlyDirectedGraph aGraph)
+  {
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    final int nNodeCount = aIndex.getNodeCount ();
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting topological sort on " + nNodeCount + " nodes");
+
+    final int [] aInDegree = new int [nNodeCount];
+    final int [] aQueue = new int [nNodeCount];
+    int nQueueEnd = 0;
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      aInDegree[i] = aIndex.getIncomingEndOffset (i) - aIndex.getIncomingStartOffset (i);
+      if (aInDegree[i] == 0)
+        aQueue[nQueueEnd++] = i;
+    }
+
+    // The queue contains the sorted nodes
+    int nQueueStart = 0;
+    while (nQueueStart < nQueueEnd)
+    {
+      final int nNode = aQueue[nQueueStart++];
+      for (int nOfs = aIndex.getOutgoingStartOffset (nNode); nOfs < aIndex.getOutgoingEndOffset (nNode); ++nOfs)
+      {
+        final int nTo = aIndex.getOutgoingNodeIndex (nOfs);
+        if (--aInDegree[nTo] == 0)
+          aQueue[nQueueEnd++] = nTo;
+      }
+    }
+
+    if (nQueueEnd < nNodeCount)
+    {
+      final List <IDirectedGraphNode> aCycleNodes = _findCycle (aIndex, aInDegree);
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Found cycle with " + aCycleNodes.size () + " nodes");
+      return new TopologicalSort.Result (new ArrayList <IDirectedGraphNode> (), aCycleNodes);
+    }
+
+    final List <IDirectedGraphNode> aSortedNodes = new ArrayList <IDirectedGraphNode> (nNodeCount);
+    for (final int nNode : aQueue)
+      aSortedNodes.add (aIndex.getNodeOfIndex (nNode));
+    return new TopologicalSort.Result (aSortedNodes, new ArrayList <IDirectedGraphNode> ());
+  }
+}
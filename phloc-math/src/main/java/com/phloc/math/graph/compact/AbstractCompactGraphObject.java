@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.annotations.UnsupportedOperation;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.collections.attrs.AbstractReadonlyAttributeContainer;
+import com.phloc.commons.collections.attrs.IReadonlyAttributeContainer;
+import com.phloc.commons.state.EChange;
+import com.phloc.math.graph.IBaseGraphObject;
+
+/**
+ * Base class for all objects of the compact graph representations. The
+ * attributes are copied once upon creation and can only be read afterwards.
+ * All modifying methods throw an {@link UnsupportedOperationException}.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public abstract class AbstractCompactGraphObject extends AbstractReadonlyAttributeContainer implements IBaseGraphObject
+{
+  private final Map <String, Object> m_aAttrs;
+
+  /**
+   * Constructor
+   * 
+   * @param aAttrs
+   *        The attributes to be copied. May be <code>null</code>.
+   */
+  protected AbstractCompactGraphObject (@Nullable final IReadonlyAttributeContainer aAttrs)
+  {
+    // Don't create a map for objects without attributes (the default case)
+    m_aAttrs = aAttrs == null || aAttrs.containsNoAttribute () ? null : aAttrs.getAllAttributes ();
+  }
+
+  /**
+   * Constructor taking ownership of an already decoded attribute map.
+   * 
+   * @param aAttrs
+   *        The attributes to use. May be <code>null</code>. The map is not
+   *        copied and must not be modified afterwards.
+   */
+  protected AbstractCompactGraphObject (@Nullable final Map <String, Object> aAttrs)
+  {
+    m_aAttrs = aAttrs == null || aAttrs.isEmpty () ? null : aAttrs;
+  }
+
+  @Nonnegative
+  public final int getAttributeCount ()
+  {
+    return ContainerHelper.getSize (m_aAttrs);
+  }
+
+  public final boolean containsNoAttribute ()
+  {
+    return m_aAttrs == null;
+  }
+
+  public final boolean containsAttribute (@Nullable final String sName)
+  {
+    return m_aAttrs != null && m_aAttrs.containsKey (sName);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public final Map <String, Object> getAllAttributes ()
+  {
+    return ContainerHelper.newMap (m_aAttrs);
+  }
+
+  @Nullable
+  public final Object getAttributeObject (@Nullable final String sName)
+  {
+    return m_aAttrs == null ? null : m_aAttrs.get (sName);
+  }
+
+  @Nonnull
+  public final Enumeration <String> getAttributeNames ()
+  {
+    return Collections.enumeration (getAllAttributeNames ());
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public final Set <String> getAllAttributeNames ()
+  {
+    return m_aAttrs == null ? ContainerHelper.<String> newSet () : ContainerHelper.newSet (m_aAttrs.keySet ());
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public final Collection <Object> getAllAttributeValues ()
+  {
+    return m_aAttrs == null ? ContainerHelper.newList () : ContainerHelper.newList (m_aAttrs.values ());
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttribute (final String sName, final Object aValue)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttribute (final String sName, final boolean dValue)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttribute (final String sName, final int nValue)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttribute (final String sName, final long nValue)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttribute (final String sName, final double dValue)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttributes (final Map <String, ?> aValues)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange setAttributes (final IReadonlyAttributeContainer aValues)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange removeAttribute (final String sName)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final boolean getAndSetAttributeFlag (final String sName)
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+
+  @UnsupportedOperation
+  public final EChange clear ()
+  {
+    throw new UnsupportedOperationException ("Compact graph objects are read-only!");
+  }
+}
@@ -0,0 +1,716 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsImmutableObject;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.state.ETriState;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.matrix.Matrix;
+
+/**
+ * An immutable, memory efficient snapshot of a directed graph. All nodes are
+ * assigned a dense index (in the iteration order of the source graph) and the
+ * outgoing and incoming adjacency is stored in compressed sparse row (CSR)
+ * format as plain <code>int</code> arrays:
+ * <ul>
+ * <li>The outgoing relations of node <code>n</code> are located at the offsets
+ * <code>[getOutgoingStartOffset(n), getOutgoingEndOffset(n))</code>.
+ * Relations are numbered in outgoing order, so the relation index of an
+ * outgoing offset is the offset itself.</li>
+ * <li>The incoming relations of node <code>n</code> are located at the offsets
+ * <code>[getIncomingStartOffset(n), getIncomingEndOffset(n))</code>, ordered
+ * by relation index.</li>
+ * </ul>
+ * Relations pointing to nodes that are not contained in the source graph (see
+ * {@link IReadonlyDirectedGraph#isSelfContained()}) are not part of the
+ * snapshot.<br>
+ * Graphs loaded via {@link CompactGraphFile#mapDirectedGraph(java.io.File)}
+ * only hold the CSR arrays in memory: node and relation objects including
+ * their IDs and attributes are decoded from the mapped file upon first access.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class CompactDirectedGraph extends AbstractCompactGraphObject implements IReadonlyDirectedGraph
+{
+  private final String m_sID;
+  private final CompactDirectedGraphNode [] m_aNodes;
+  private final Collection <IDirectedGraphNode> m_aNodesView = new AbstractList <IDirectedGraphNode> ()
+  {
+    @Override
+    public IDirectedGraphNode get (final int nIndex)
+    {
+      return getNodeOfIndex (nIndex);
+    }
+
+    @Override
+    public int size ()
+    {
+      return m_aNodes.length;
+    }
+  };
+  private final Map <String, CompactDirectedGraphNode> m_aNodeMap;
+  private final MappedGraphFile m_aMappedFile;
+  private final CompactDirectedGraphRelation [] m_aRelations;
+  private final int [] m_aRelationFrom;
+  private final int [] m_aOutgoingOffsets;
+  private final int [] m_aOutgoingNodes;
+  private final int [] m_aIncomingOffsets;
+  private final int [] m_aIncomingNodes;
+  private final int [] m_aIncomingRelations;
+  // Status vars
+  private ETriState m_eCacheHasCycles = ETriState.UNDEFINED;
+
+  /**
+   * Create a new compact snapshot of the passed graph.
+   * 
+   * @param aGraph
+   *        The source graph. May not be <code>null</code>.
+   */
+  public CompactDirectedGraph (@Nonnull final IReadonlyDirectedGraph aGraph)
+  {
+    super (aGraph);
+    m_sID = aGraph.getID ();
+
+    // Assign the dense node indices
+    final IDirectedGraphNode [] aSrcNodes = aGraph.getNodesView ().toArray (new IDirectedGraphNode [0]);
+    final int nNodeCount = aSrcNodes.length;
+    m_aNodes = new CompactDirectedGraphNode [nNodeCount];
+    m_aMappedFile = null;
+    m_aNodeMap = new HashMap <String, CompactDirectedGraphNode> (nNodeCount * 2);
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      final CompactDirectedGraphNode aNode = new CompactDirectedGraphNode (this, i, aSrcNodes[i]);
+      m_aNodes[i] = aNode;
+      m_aNodeMap.put (aNode.getID (), aNode);
+    }
+
+    // Collect all outgoing relations in node order - this directly results in
+    // the outgoing offsets
+    final List <IDirectedGraphRelation> aSrcRelations = new ArrayList <IDirectedGraphRelation> ();
+    m_aOutgoingOffsets = new int [nNodeCount + 1];
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      for (final IDirectedGraphRelation aSrcRelation : aSrcNodes[i].getOutgoingRelationsView ())
+        if (m_aNodeMap.containsKey (aSrcRelation.getToID ()))
+          aSrcRelations.add (aSrcRelation);
+      m_aOutgoingOffsets[i + 1] = aSrcRelations.size ();
+    }
+
+    final int nRelationCount = aSrcRelations.size ();
+    m_aRelations = new CompactDirectedGraphRelation [nRelationCount];
+    m_aRelationFrom = new int [nRelationCount];
+    m_aOutgoingNodes = new int [nRelationCount];
+    for (int nFrom = 0; nFrom < nNodeCount; ++nFrom)
+      for (int nRel = m_aOutgoingOffsets[nFrom]; nRel < m_aOutgoingOffsets[nFrom + 1]; ++nRel)
+      {
+        final IDirectedGraphRelation aSrcRelation = aSrcRelations.get (nRel);
+        m_aRelations[nRel] = new CompactDirectedGraphRelation (this, nRel, aSrcRelation);
+        m_aRelationFrom[nRel] = nFrom;
+        m_aOutgoingNodes[nRel] = m_aNodeMap.get (aSrcRelation.getToID ()).getIndex ();
+      }
+
+    m_aIncomingOffsets = new int [nNodeCount + 1];
+    m_aIncomingNodes = new int [nRelationCount];
+    m_aIncomingRelations = new int [nRelationCount];
+    _fillIncoming ();
+  }
+
+  /**
+   * Create a new graph from node and relation data that was already resolved
+   * to dense indices. This avoids the creation of a full source graph when the
+   * data is maintained elsewhere (e.g. by a concurrent graph that keeps
+   * immutable copies of its nodes). The outgoing relations of node
+   * <code>n</code> are located at the offsets
+   * <code>[aOutgoingOffsets[n], aOutgoingOffsets[n + 1])</code> of the
+   * relation lists.<br>
+   * All passed attribute maps are used as they are and must not be modified
+   * afterwards.
+   * 
+   * @param sID
+   *        The graph ID. May neither be <code>null</code> nor empty.
+   * @param aAttrs
+   *        The graph attributes. May be <code>null</code>.
+   * @param aNodeIDs
+   *        The unique IDs of all nodes in index order. May not be
+   *        <code>null</code>.
+   * @param aNodeAttrs
+   *        The attributes of all nodes in index order. Elements may be
+   *        <code>null</code>. Must have the same size as the node IDs.
+   * @param aOutgoingOffsets
+   *        The outgoing offsets. Must contain one more element than there are
+   *        nodes.
+   * @param aOutgoingNodes
+   *        The index of the to-node of each relation. Is not copied.
+   * @param aRelationIDs
+   *        The unique IDs of all relations in index order. May not be
+   *        <code>null</code>.
+   * @param aRelationAttrs
+   *        The attributes of all relations in index order. Elements may be
+   *        <code>null</code>. Must have the same size as the relation IDs.
+   */
+  public CompactDirectedGraph (@Nonnull @Nonempty final String sID,
+                               @Nullable final Map <String, Object> aAttrs,
+                               @Nonnull final List <String> aNodeIDs,
+                               @Nonnull final List <Map <String, Object>> aNodeAttrs,
+                               @Nonnull final int [] aOutgoingOffsets,
+                               @Nonnull final int [] aOutgoingNodes,
+                               @Nonnull final List <String> aRelationIDs,
+                               @Nonnull final List <Map <String, Object>> aRelationAttrs)
+  {
+    super (aAttrs);
+    final int nNodeCount = aNodeIDs.size ();
+    final int nRelationCount = aRelationIDs.size ();
+    if (aNodeAttrs.size () != nNodeCount)
+      throw new IllegalArgumentException ("Node ID and attribute count differ");
+    if (aOutgoingOffsets.length != nNodeCount + 1 || aOutgoingOffsets[nNodeCount] != nRelationCount)
+      throw new IllegalArgumentException ("Outgoing offsets don't match the node and relation count");
+    if (aOutgoingNodes.length != nRelationCount || aRelationAttrs.size () != nRelationCount)
+      throw new IllegalArgumentException ("Relation ID, to-node and attribute count differ");
+
+    m_sID = sID;
+    m_aNodes = new CompactDirectedGraphNode [nNodeCount];
+    m_aMappedFile = null;
+    m_aNodeMap = new HashMap <String, CompactDirectedGraphNode> (nNodeCount * 2);
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      final CompactDirectedGraphNode aNode = new CompactDirectedGraphNode (this,
+                                                                          i,
+                                                                          aNodeIDs.get (i),
+                                                                          aNodeAttrs.get (i));
+      m_aNodes[i] = aNode;
+      m_aNodeMap.put (aNode.getID (), aNode);
+    }
+
+    m_aOutgoingOffsets = aOutgoingOffsets;
+    m_aOutgoingNodes = aOutgoingNodes;
+    m_aRelations = new CompactDirectedGraphRelation [nRelationCount];
+    m_aRelationFrom = new int [nRelationCount];
+    for (int nFrom = 0; nFrom < nNodeCount; ++nFrom)
+      for (int nRel = m_aOutgoingOffsets[nFrom]; nRel < m_aOutgoingOffsets[nFrom + 1]; ++nRel)
+      {
+        m_aRelations[nRel] = new CompactDirectedGraphRelation (this,
+                                                               nRel,
+                                                               aRelationIDs.get (nRel),
+                                                               aRelationAttrs.get (nRel));
+        m_aRelationFrom[nRel] = nFrom;
+      }
+
+    m_aIncomingOffsets = new int [nNodeCount + 1];
+    m_aIncomingNodes = new int [nRelationCount];
+    m_aIncomingRelations = new int [nRelationCount];
+    _fillIncoming ();
+  }
+
+  /**
+   * Create a graph on top of a memory mapped graph file. Only the CSR arrays
+   * are copied - nodes and relations are created lazily.
+   * 
+   * @param aMappedFile
+   *        The mapped file to read from. May not be <code>null</code>.
+   */
+  CompactDirectedGraph (@Nonnull final MappedGraphFile aMappedFile)
+  {
+    super (aMappedFile.getGraphAttributes ());
+    m_sID = aMappedFile.getGraphID ();
+    m_aNodes = new CompactDirectedGraphNode [aMappedFile.getNodeCount ()];
+    m_aNodeMap = null;
+    m_aMappedFile = aMappedFile;
+    m_aRelations = new CompactDirectedGraphRelation [aMappedFile.getRelationCount ()];
+    m_aOutgoingOffsets = aMappedFile.getOutgoingOffsets ();
+    m_aOutgoingNodes = aMappedFile.getOutgoingNodes ();
+    m_aIncomingOffsets = aMappedFile.getIncomingOffsets ();
+    m_aIncomingNodes = aMappedFile.getIncomingNodes ();
+    m_aIncomingRelations = aMappedFile.getIncomingRelations ();
+    m_aRelationFrom = new int [m_aRelations.length];
+    for (int nFrom = 0; nFrom < m_aNodes.length; ++nFrom)
+      Arrays.fill (m_aRelationFrom, m_aOutgoingOffsets[nFrom], m_aOutgoingOffsets[nFrom + 1], nFrom);
+  }
+
+  /**
+   * Build the incoming arrays from the outgoing arrays with a counting sort
+   * over the to-nodes. Must be called from the constructors after the
+   * outgoing arrays are filled and the incoming arrays are allocated.
+   */
+  private void _fillIncoming ()
+  {
+    final int nNodeCount = m_aNodes.length;
+    for (final int nTo : m_aOutgoingNodes)
+      m_aIncomingOffsets[nTo + 1]++;
+    for (int i = 0; i < nNodeCount; ++i)
+      m_aIncomingOffsets[i + 1] += m_aIncomingOffsets[i];
+    final int [] aInsertPos = Arrays.copyOf (m_aIncomingOffsets, nNodeCount);
+    for (int nRel = 0; nRel < m_aOutgoingNodes.length; ++nRel)
+    {
+      final int nPos = aInsertPos[m_aOutgoingNodes[nRel]]++;
+      m_aIncomingNodes[nPos] = m_aRelationFrom[nRel];
+      m_aIncomingRelations[nPos] = nRel;
+    }
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  public boolean isDirected ()
+  {
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * As this graph is immutable, this is always 0.
+   */
+  @Nonnegative
+  public long getModificationStamp ()
+  {
+    return 0;
+  }
+
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_aNodes.length;
+  }
+
+  @Nullable
+  public CompactDirectedGraphNode getNodeOfID (@Nullable final String sID)
+  {
+    if (m_aNodeMap != null)
+      return m_aNodeMap.get (sID);
+    final int nIndex = m_aMappedFile.getNodeIndex (sID);
+    return nIndex == CGlobal.ILLEGAL_UINT ? null : getNodeOfIndex (nIndex);
+  }
+
+  /**
+   * Get the dense index of the node with the passed ID.
+   * 
+   * @param sID
+   *        The node ID to search. May be <code>null</code>.
+   * @return {@link CGlobal#ILLEGAL_UINT} if no such node is contained.
+   */
+  public int getNodeIndex (@Nullable final String sID)
+  {
+    if (m_aNodeMap == null)
+      return m_aMappedFile.getNodeIndex (sID);
+    final CompactDirectedGraphNode aNode = m_aNodeMap.get (sID);
+    return aNode == null ? CGlobal.ILLEGAL_UINT : aNode.getIndex ();
+  }
+
+  /**
+   * Get the node with the passed dense index.
+   * 
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The node and never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraphNode getNodeOfIndex (@Nonnegative final int nNodeIndex)
+  {
+    CompactDirectedGraphNode ret = m_aNodes[nNodeIndex];
+    if (ret == null)
+    {
+      // Lazily decode from the mapped file. Concurrent first accesses may
+      // create equal duplicates, which is harmless.
+      ret = m_aMappedFile.createNode (this, nNodeIndex);
+      m_aNodes[nNodeIndex] = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of relations in this graph. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_aRelations.length;
+  }
+
+  /**
+   * Get the relation with the passed dense index.
+   * 
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The relation and never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraphRelation getRelationOfIndex (@Nonnegative final int nRelationIndex)
+  {
+    CompactDirectedGraphRelation ret = m_aRelations[nRelationIndex];
+    if (ret == null)
+    {
+      ret = m_aMappedFile.createRelation (this, nRelationIndex);
+      m_aRelations[nRelationIndex] = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The node index of the from-node of the passed relation.
+   */
+  @Nonnegative
+  public int getRelationFromIndex (@Nonnegative final int nRelationIndex)
+  {
+    return m_aRelationFrom[nRelationIndex];
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The node index of the to-node of the passed relation.
+   */
+  @Nonnegative
+  public int getRelationToIndex (@Nonnegative final int nRelationIndex)
+  {
+    return m_aOutgoingNodes[nRelationIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The first outgoing offset of the passed node (inclusive).
+   */
+  @Nonnegative
+  public int getOutgoingStartOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aOutgoingOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The last outgoing offset of the passed node (exclusive).
+   */
+  @Nonnegative
+  public int getOutgoingEndOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aOutgoingOffsets[nNodeIndex + 1];
+  }
+
+  /**
+   * @param nOffset
+   *        The outgoing offset.
+   * @return The index of the to-node at the passed outgoing offset.
+   */
+  @Nonnegative
+  public int getOutgoingNodeIndex (@Nonnegative final int nOffset)
+  {
+    return m_aOutgoingNodes[nOffset];
+  }
+
+  /**
+   * @param nOffset
+   *        The outgoing offset.
+   * @return The index of the relation at the passed outgoing offset. This is
+   *         always identical to the offset.
+   */
+  @Nonnegative
+  public int getOutgoingRelationIndex (@Nonnegative final int nOffset)
+  {
+    return nOffset;
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The first incoming offset of the passed node (inclusive).
+   */
+  @Nonnegative
+  public int getIncomingStartOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aIncomingOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The last incoming offset of the passed node (exclusive).
+   */
+  @Nonnegative
+  public int getIncomingEndOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aIncomingOffsets[nNodeIndex + 1];
+  }
+
+  /**
+   * @param nOffset
+   *        The incoming offset.
+   * @return The index of the from-node at the passed incoming offset.
+   */
+  @Nonnegative
+  public int getIncomingNodeIndex (@Nonnegative final int nOffset)
+  {
+    return m_aIncomingNodes[nOffset];
+  }
+
+  /**
+   * @param nOffset
+   *        The incoming offset.
+   * @return The index of the relation at the passed incoming offset.
+   */
+  @Nonnegative
+  public int getIncomingRelationIndex (@Nonnegative final int nOffset)
+  {
+    return m_aIncomingRelations[nOffset];
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Map <String, IDirectedGraphNode> getAllNodes ()
+  {
+    final Map <String, IDirectedGraphNode> ret = new LinkedHashMap <String, IDirectedGraphNode> (m_aNodes.length);
+    for (int i = 0; i < m_aNodes.length; ++i)
+    {
+      final CompactDirectedGraphNode aNode = getNodeOfIndex (i);
+      ret.put (aNode.getID (), aNode);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllNodeIDs ()
+  {
+    final Set <String> ret = new LinkedHashSet <String> (m_aNodes.length);
+    for (int i = 0; i < m_aNodes.length; ++i)
+      ret.add (getNodeOfIndex (i).getID ());
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphNode> getNodesView ()
+  {
+    return m_aNodesView;
+  }
+
+  public void forEachNode (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphNode> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    for (int i = 0; i < m_aNodes.length; ++i)
+      aCallback.run (getNodeOfIndex (i));
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Map <String, IDirectedGraphRelation> getAllRelations ()
+  {
+    final Map <String, IDirectedGraphRelation> ret = new LinkedHashMap <String, IDirectedGraphRelation> (m_aRelations.length);
+    for (int i = 0; i < m_aRelations.length; ++i)
+    {
+      final CompactDirectedGraphRelation aRelation = getRelationOfIndex (i);
+      ret.put (aRelation.getID (), aRelation);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllRelationIDs ()
+  {
+    final Set <String> ret = new LinkedHashSet <String> (m_aRelations.length);
+    for (int i = 0; i < m_aRelations.length; ++i)
+      ret.add (getRelationOfIndex (i).getID ());
+    return ret;
+  }
+
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    for (int i = 0; i < m_aRelations.length; ++i)
+      aCallback.run (getRelationOfIndex (i));
+  }
+
+  @Nonnull
+  public IDirectedGraphNode getSingleStartNode () throws IllegalStateException
+  {
+    final Set <IDirectedGraphNode> aStartNodes = getAllStartNodes ();
+    if (aStartNodes.size () > 1)
+      throw new IllegalStateException ("Graph has more than one starting node");
+    if (aStartNodes.isEmpty ())
+      throw new IllegalStateException ("Graph has no starting node");
+    return ContainerHelper.getFirstElement (aStartNodes);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllStartNodes ()
+  {
+    final Set <IDirectedGraphNode> ret = new LinkedHashSet <IDirectedGraphNode> ();
+    for (int i = 0; i < m_aNodes.length; ++i)
+      if (m_aIncomingOffsets[i] == m_aIncomingOffsets[i + 1])
+        ret.add (getNodeOfIndex (i));
+    return ret;
+  }
+
+  @Nonnull
+  public IDirectedGraphNode getSingleEndNode () throws IllegalStateException
+  {
+    final Set <IDirectedGraphNode> aEndNodes = getAllEndNodes ();
+    if (aEndNodes.size () > 1)
+      throw new IllegalStateException ("Graph has more than one ending node");
+    if (aEndNodes.isEmpty ())
+      throw new IllegalStateException ("Graph has no ending node");
+    return ContainerHelper.getFirstElement (aEndNodes);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllEndNodes ()
+  {
+    final Set <IDirectedGraphNode> ret = new LinkedHashSet <IDirectedGraphNode> ();
+    for (int i = 0; i < m_aNodes.length; ++i)
+      if (m_aOutgoingOffsets[i] == m_aOutgoingOffsets[i + 1])
+        ret.add (getNodeOfIndex (i));
+    return ret;
+  }
+
+  /**
+   * Check for cycles using Kahn's algorithm: repeatedly remove nodes without
+   * remaining incoming relations. If not all nodes can be removed, the
+   * remaining nodes are part of or reachable from a cycle.
+   * 
+   * @return <code>true</code> if a cycle is present
+   */
+  private boolean _determineCycles ()
+  {
+    final int nNodeCount = m_aNodes.length;
+    final int [] aInDegree = new int [nNodeCount];
+    final int [] aQueue = new int [nNodeCount];
+    int nQueueEnd = 0;
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      aInDegree[i] = m_aIncomingOffsets[i + 1] - m_aIncomingOffsets[i];
+      if (aInDegree[i] == 0)
+        aQueue[nQueueEnd++] = i;
+    }
+    int nQueueStart = 0;
+    while (nQueueStart < nQueueEnd)
+    {
+      final int nNode = aQueue[nQueueStart++];
+      for (int nOfs = m_aOutgoingOffsets[nNode]; nOfs < m_aOutgoingOffsets[nNode + 1]; ++nOfs)
+        if (--aInDegree[m_aOutgoingNodes[nOfs]] == 0)
+          aQueue[nQueueEnd++] = m_aOutgoingNodes[nOfs];
+    }
+    return nQueueEnd < nNodeCount;
+  }
+
+  public boolean containsCycles ()
+  {
+    // The graph is immutable, so the result can be cached safely
+    if (m_eCacheHasCycles.isUndefined ())
+      m_eCacheHasCycles = ETriState.valueOf (_determineCycles ());
+    return m_eCacheHasCycles.getAsBooleanValue (true);
+  }
+
+  /**
+   * @return Always <code>true</code> because relations to nodes outside of
+   *         the source graph are not taken over into the snapshot.
+   */
+  public boolean isSelfContained ()
+  {
+    return true;
+  }
+
+  @Nonnull
+  public Matrix createIncidenceMatrix ()
+  {
+    final int nNodeCount = getNodeCount ();
+    final Matrix ret = new Matrix (nNodeCount, nNodeCount, 0);
+    for (int nRel = 0; nRel < m_aRelations.length; ++nRel)
+    {
+      final int nFrom = m_aRelationFrom[nRel];
+      final int nTo = m_aOutgoingNodes[nRel];
+      if (nFrom != nTo)
+      {
+        ret.set (nFrom, nTo, 1);
+        ret.set (nTo, nFrom, -1);
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!(o instanceof CompactDirectedGraph))
+      return false;
+    final CompactDirectedGraph rhs = (CompactDirectedGraph) o;
+    return m_sID.equals (rhs.m_sID) &&
+           getAllNodeIDs ().equals (rhs.getAllNodeIDs ()) &&
+           getAllRelationIDs ().equals (rhs.getAllRelationIDs ()) &&
+           Arrays.equals (m_aOutgoingOffsets, rhs.m_aOutgoingOffsets) &&
+           Arrays.equals (m_aOutgoingNodes, rhs.m_aOutgoingNodes);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_sID)
+                                       .append (m_aOutgoingOffsets)
+                                       .append (m_aOutgoingNodes)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("id", m_sID)
+                                       .append ("nodeCount", m_aNodes.length)
+                                       .append ("relationCount", m_aRelations.length)
+                                       .toString ();
+  }
+}
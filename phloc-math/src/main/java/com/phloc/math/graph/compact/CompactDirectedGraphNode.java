@@ -0,0 +1,512 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsImmutableObject;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.annotations.UnsupportedOperation;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.state.EChange;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+
+/**
+ * A single node of a {@link CompactDirectedGraph}. The node itself only knows
+ * its dense index - all relations are resolved via the compressed sparse row
+ * arrays of the owning graph. All modifying methods throw an
+ * {@link UnsupportedOperationException}.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class CompactDirectedGraphNode extends AbstractCompactGraphObject implements IDirectedGraphNode
+{
+  private final CompactDirectedGraph m_aGraph;
+  private final int m_nIndex;
+  private final String m_sID;
+
+  CompactDirectedGraphNode (@Nonnull final CompactDirectedGraph aGraph,
+                            @Nonnegative final int nIndex,
+                            @Nonnull final IDirectedGraphNode aSrcNode)
+  {
+    super (aSrcNode);
+    m_aGraph = aGraph;
+    m_nIndex = nIndex;
+    m_sID = aSrcNode.getID ();
+  }
+
+  CompactDirectedGraphNode (@Nonnull final CompactDirectedGraph aGraph,
+                            @Nonnegative final int nIndex,
+                            @Nonnull @Nonempty final String sID,
+                            @Nullable final Map <String, Object> aAttrs)
+  {
+    super (aAttrs);
+    m_aGraph = aGraph;
+    m_nIndex = nIndex;
+    m_sID = sID;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return The owning graph. Never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraph getGraph ()
+  {
+    return m_aGraph;
+  }
+
+  /**
+   * @return The dense index of this node within the owning graph. Always &ge;
+   *         0 and &lt; {@link CompactDirectedGraph#getNodeCount()}.
+   */
+  @Nonnegative
+  public int getIndex ()
+  {
+    return m_nIndex;
+  }
+
+  public boolean isDirected ()
+  {
+    return true;
+  }
+
+  /**
+   * Get the node index of the passed node, if it is a node of the same graph.
+   * 
+   * @param aNode
+   *        The node to check. May be <code>null</code>.
+   * @return -1 if the passed node is not part of the same compact graph.
+   */
+  private int _getIndexInGraph (@Nullable final IDirectedGraphNode aNode)
+  {
+    if (aNode instanceof CompactDirectedGraphNode)
+    {
+      final CompactDirectedGraphNode aCompactNode = (CompactDirectedGraphNode) aNode;
+      if (aCompactNode.m_aGraph == m_aGraph)
+        return aCompactNode.m_nIndex;
+    }
+    return -1;
+  }
+
+  /**
+   * Get the relation index of the passed relation, if it is a relation of the
+   * same graph.
+   * 
+   * @param aRelation
+   *        The relation to check. May be <code>null</code>.
+   * @return -1 if the passed relation is not part of the same compact graph.
+   */
+  private int _getIndexInGraph (@Nullable final IDirectedGraphRelation aRelation)
+  {
+    if (aRelation instanceof CompactDirectedGraphRelation)
+    {
+      final CompactDirectedGraphRelation aCompactRelation = (CompactDirectedGraphRelation) aRelation;
+      if (aCompactRelation.getGraph () == m_aGraph)
+        return aCompactRelation.getIndex ();
+    }
+    return -1;
+  }
+
+  /**
+   * A read-only list view on a range of the incoming or outgoing adjacency
+   * arrays of the owning graph.
+   * 
+   * @author Philip Helger
+   */
+  private static final class RelationsView extends AbstractList <IDirectedGraphRelation>
+  {
+    private final CompactDirectedGraph m_aGraph;
+    private final int m_nStart;
+    private final int m_nEnd;
+    private final boolean m_bOutgoing;
+
+    RelationsView (@Nonnull final CompactDirectedGraph aGraph,
+                   final int nStart,
+                   final int nEnd,
+                   final boolean bOutgoing)
+    {
+      m_aGraph = aGraph;
+      m_nStart = nStart;
+      m_nEnd = nEnd;
+      m_bOutgoing = bOutgoing;
+    }
+
+    @Override
+    public IDirectedGraphRelation get (final int nIndex)
+    {
+      if (nIndex < 0 || nIndex >= size ())
+        throw new IndexOutOfBoundsException ("Index " + nIndex + " is invalid");
+      final int nOffset = m_nStart + nIndex;
+      return m_aGraph.getRelationOfIndex (m_bOutgoing ? m_aGraph.getOutgoingRelationIndex (nOffset)
+                                                      : m_aGraph.getIncomingRelationIndex (nOffset));
+    }
+
+    @Override
+    public int size ()
+    {
+      return m_nEnd - m_nStart;
+    }
+  }
+
+  // --- incoming ---
+
+  @UnsupportedOperation
+  public void addIncomingRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  public boolean hasIncomingRelations ()
+  {
+    return getIncomingRelationCount () > 0;
+  }
+
+  @Nonnegative
+  public int getIncomingRelationCount ()
+  {
+    return m_aGraph.getIncomingEndOffset (m_nIndex) - m_aGraph.getIncomingStartOffset (m_nIndex);
+  }
+
+  public boolean isIncomingRelation (@Nullable final IDirectedGraphRelation aRelation)
+  {
+    final int nRelationIndex = _getIndexInGraph (aRelation);
+    return nRelationIndex >= 0 && m_aGraph.getRelationToIndex (nRelationIndex) == m_nIndex;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public List <IDirectedGraphRelation> getAllIncomingRelations ()
+  {
+    final int nStart = m_aGraph.getIncomingStartOffset (m_nIndex);
+    final int nEnd = m_aGraph.getIncomingEndOffset (m_nIndex);
+    final List <IDirectedGraphRelation> ret = new ArrayList <IDirectedGraphRelation> (nEnd - nStart);
+    for (int i = nStart; i < nEnd; ++i)
+      ret.add (m_aGraph.getRelationOfIndex (m_aGraph.getIncomingRelationIndex (i)));
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphRelation> getIncomingRelationsView ()
+  {
+    return new RelationsView (m_aGraph,
+                              m_aGraph.getIncomingStartOffset (m_nIndex),
+                              m_aGraph.getIncomingEndOffset (m_nIndex),
+                              false);
+  }
+
+  public void forEachIncomingRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    final int nEnd = m_aGraph.getIncomingEndOffset (m_nIndex);
+    for (int i = m_aGraph.getIncomingStartOffset (m_nIndex); i < nEnd; ++i)
+      aCallback.run (m_aGraph.getRelationOfIndex (m_aGraph.getIncomingRelationIndex (i)));
+  }
+
+  @UnsupportedOperation
+  public EChange removeIncomingRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  @UnsupportedOperation
+  public EChange removeAllIncomingRelations ()
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  public boolean isFromNode (@Nullable final IDirectedGraphNode aNode)
+  {
+    return getIncomingRelationFrom (aNode) != null;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllFromNodes ()
+  {
+    final Set <IDirectedGraphNode> ret = new LinkedHashSet <IDirectedGraphNode> ();
+    final int nEnd = m_aGraph.getIncomingEndOffset (m_nIndex);
+    for (int i = m_aGraph.getIncomingStartOffset (m_nIndex); i < nEnd; ++i)
+      ret.add (m_aGraph.getNodeOfIndex (m_aGraph.getIncomingNodeIndex (i)));
+    return ret;
+  }
+
+  @Nullable
+  public CompactDirectedGraphRelation getIncomingRelationFrom (@Nullable final IDirectedGraphNode aFromNode)
+  {
+    final int nFromIndex = _getIndexInGraph (aFromNode);
+    if (nFromIndex >= 0)
+    {
+      final int nEnd = m_aGraph.getIncomingEndOffset (m_nIndex);
+      for (int i = m_aGraph.getIncomingStartOffset (m_nIndex); i < nEnd; ++i)
+        if (m_aGraph.getIncomingNodeIndex (i) == nFromIndex)
+          return m_aGraph.getRelationOfIndex (m_aGraph.getIncomingRelationIndex (i));
+    }
+    return null;
+  }
+
+  // --- outgoing ---
+
+  @UnsupportedOperation
+  public void addOutgoingRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  public boolean hasOutgoingRelations ()
+  {
+    return getOutgoingRelationCount () > 0;
+  }
+
+  @Nonnegative
+  public int getOutgoingRelationCount ()
+  {
+    return m_aGraph.getOutgoingEndOffset (m_nIndex) - m_aGraph.getOutgoingStartOffset (m_nIndex);
+  }
+
+  public boolean isOutgoingRelation (@Nullable final IDirectedGraphRelation aRelation)
+  {
+    final int nRelationIndex = _getIndexInGraph (aRelation);
+    return nRelationIndex >= 0 && m_aGraph.getRelationFromIndex (nRelationIndex) == m_nIndex;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public List <IDirectedGraphRelation> getAllOutgoingRelations ()
+  {
+    final int nStart = m_aGraph.getOutgoingStartOffset (m_nIndex);
+    final int nEnd = m_aGraph.getOutgoingEndOffset (m_nIndex);
+    final List <IDirectedGraphRelation> ret = new ArrayList <IDirectedGraphRelation> (nEnd - nStart);
+    for (int i = nStart; i < nEnd; ++i)
+      ret.add (m_aGraph.getRelationOfIndex (m_aGraph.getOutgoingRelationIndex (i)));
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphRelation> getOutgoingRelationsView ()
+  {
+    return new RelationsView (m_aGraph,
+                              m_aGraph.getOutgoingStartOffset (m_nIndex),
+                              m_aGraph.getOutgoingEndOffset (m_nIndex),
+                              true);
+  }
+
+  public void forEachOutgoingRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    final int nEnd = m_aGraph.getOutgoingEndOffset (m_nIndex);
+    for (int i = m_aGraph.getOutgoingStartOffset (m_nIndex); i < nEnd; ++i)
+      aCallback.run (m_aGraph.getRelationOfIndex (m_aGraph.getOutgoingRelationIndex (i)));
+  }
+
+  @UnsupportedOperation
+  public EChange removeOutgoingRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  @UnsupportedOperation
+  public EChange removeAllOutgoingRelations ()
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  public boolean isToNode (@Nullable final IDirectedGraphNode aNode)
+  {
+    return getOutgoingRelationTo (aNode) != null;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllToNodes ()
+  {
+    final Set <IDirectedGraphNode> ret = new LinkedHashSet <IDirectedGraphNode> ();
+    final int nEnd = m_aGraph.getOutgoingEndOffset (m_nIndex);
+    for (int i = m_aGraph.getOutgoingStartOffset (m_nIndex); i < nEnd; ++i)
+      ret.add (m_aGraph.getNodeOfIndex (m_aGraph.getOutgoingNodeIndex (i)));
+    return ret;
+  }
+
+  @Nullable
+  public CompactDirectedGraphRelation getOutgoingRelationTo (@Nullable final IDirectedGraphNode aToNode)
+  {
+    final int nToIndex = _getIndexInGraph (aToNode);
+    if (nToIndex >= 0)
+    {
+      final int nEnd = m_aGraph.getOutgoingEndOffset (m_nIndex);
+      for (int i = m_aGraph.getOutgoingStartOffset (m_nIndex); i < nEnd; ++i)
+        if (m_aGraph.getOutgoingNodeIndex (i) == nToIndex)
+          return m_aGraph.getRelationOfIndex (m_aGraph.getOutgoingRelationIndex (i));
+    }
+    return null;
+  }
+
+  // --- incoming and/or outgoing
+
+  public boolean isConnectedWith (@Nullable final IDirectedGraphNode aNode)
+  {
+    return getIncomingRelationFrom (aNode) != null || getOutgoingRelationTo (aNode) != null;
+  }
+
+  @Nullable
+  public CompactDirectedGraphRelation getRelation (@Nullable final IDirectedGraphNode aNode)
+  {
+    final CompactDirectedGraphRelation aIncoming = getIncomingRelationFrom (aNode);
+    final CompactDirectedGraphRelation aOutgoing = getOutgoingRelationTo (aNode);
+    if (aIncoming != null && aOutgoing != null)
+      throw new IllegalStateException ("Both incoming and outgoing relations between node '" +
+                                       m_sID +
+                                       "' and '" +
+                                       aNode.getID () +
+                                       "' exist!");
+    return aIncoming != null ? aIncoming : aOutgoing;
+  }
+
+  public boolean hasRelations ()
+  {
+    return hasIncomingOrOutgoingRelations ();
+  }
+
+  public boolean hasIncomingOrOutgoingRelations ()
+  {
+    return hasIncomingRelations () || hasOutgoingRelations ();
+  }
+
+  public boolean hasIncomingAndOutgoingRelations ()
+  {
+    return hasIncomingRelations () && hasOutgoingRelations ();
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return getIncomingRelationCount () + getOutgoingRelationCount ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphRelation> getAllRelations ()
+  {
+    final Set <IDirectedGraphRelation> ret = new LinkedHashSet <IDirectedGraphRelation> ();
+    ret.addAll (getIncomingRelationsView ());
+    ret.addAll (getOutgoingRelationsView ());
+    return ret;
+  }
+
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    forEachIncomingRelation (aCallback);
+    final int nEnd = m_aGraph.getOutgoingEndOffset (m_nIndex);
+    for (int i = m_aGraph.getOutgoingStartOffset (m_nIndex); i < nEnd; ++i)
+    {
+      // Self-loops are contained as incoming and outgoing relation
+      if (m_aGraph.getOutgoingNodeIndex (i) != m_nIndex)
+        aCallback.run (m_aGraph.getRelationOfIndex (m_aGraph.getOutgoingRelationIndex (i)));
+    }
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllRelationIDs ()
+  {
+    final Set <String> ret = new LinkedHashSet <String> ();
+    for (final IDirectedGraphRelation aRelation : getAllRelations ())
+      ret.add (aRelation.getID ());
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllRelatedNodes ()
+  {
+    final Set <IDirectedGraphNode> ret = getAllFromNodes ();
+    ret.addAll (getAllToNodes ());
+    return ret;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllRelatedNodeIDs ()
+  {
+    final Set <String> ret = new LinkedHashSet <String> ();
+    for (final IDirectedGraphNode aNode : getAllRelatedNodes ())
+      ret.add (aNode.getID ());
+    return ret;
+  }
+
+  @UnsupportedOperation
+  public EChange removeAllRelations ()
+  {
+    throw new UnsupportedOperationException ("Compact graph nodes are read-only!");
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!(o instanceof CompactDirectedGraphNode))
+      return false;
+    final CompactDirectedGraphNode rhs = (CompactDirectedGraphNode) o;
+    return m_aGraph == rhs.m_aGraph && m_nIndex == rhs.m_nIndex;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nIndex).append (m_sID).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("id", m_sID)
+                                       .append ("index", m_nIndex)
+                                       .append ("incomingCount", getIncomingRelationCount ())
+                                       .append ("outgoingCount", getOutgoingRelationCount ())
+                                       .toString ();
+  }
+}
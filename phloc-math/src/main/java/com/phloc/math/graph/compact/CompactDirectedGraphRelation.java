@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+
+/**
+ * A single relation of a {@link CompactDirectedGraph}. The from- and to-nodes
+ * are not stored in the relation itself but resolved via the owning graph.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class CompactDirectedGraphRelation extends AbstractCompactGraphObject implements IDirectedGraphRelation
+{
+  private final CompactDirectedGraph m_aGraph;
+  private final int m_nIndex;
+  private final String m_sID;
+
+  CompactDirectedGraphRelation (@Nonnull final CompactDirectedGraph aGraph,
+                                @Nonnegative final int nIndex,
+                                @Nonnull final IDirectedGraphRelation aSrcRelation)
+  {
+    super (aSrcRelation);
+    m_aGraph = aGraph;
+    m_nIndex = nIndex;
+    m_sID = aSrcRelation.getID ();
+  }
+
+  CompactDirectedGraphRelation (@Nonnull final CompactDirectedGraph aGraph,
+                                @Nonnegative final int nIndex,
+                                @Nonnull @Nonempty final String sID,
+                                @Nullable final Map <String, Object> aAttrs)
+  {
+    super (aAttrs);
+    m_aGraph = aGraph;
+    m_nIndex = nIndex;
+    m_sID = sID;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return The owning graph. Never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraph getGraph ()
+  {
+    return m_aGraph;
+  }
+
+  /**
+   * @return The dense index of this relation within the owning graph. Always
+   *         &ge; 0 and &lt; {@link CompactDirectedGraph#getRelationCount()}.
+   */
+  @Nonnegative
+  public int getIndex ()
+  {
+    return m_nIndex;
+  }
+
+  public boolean isDirected ()
+  {
+    return true;
+  }
+
+  public boolean isRelatedTo (@Nullable final IDirectedGraphNode aNode)
+  {
+    return getFrom ().equals (aNode) || getTo ().equals (aNode);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllConnectedNodes ()
+  {
+    return ContainerHelper.<IDirectedGraphNode> newSet (getFrom (), getTo ());
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllConnectedNodeIDs ()
+  {
+    return ContainerHelper.newSet (getFromID (), getToID ());
+  }
+
+  @Nonnull
+  public CompactDirectedGraphNode getFrom ()
+  {
+    return m_aGraph.getNodeOfIndex (m_aGraph.getRelationFromIndex (m_nIndex));
+  }
+
+  @Nonnull
+  public String getFromID ()
+  {
+    return getFrom ().getID ();
+  }
+
+  @Nonnull
+  public CompactDirectedGraphNode getTo ()
+  {
+    return m_aGraph.getNodeOfIndex (m_aGraph.getRelationToIndex (m_nIndex));
+  }
+
+  @Nonnull
+  public String getToID ()
+  {
+    return getTo ().getID ();
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!(o instanceof CompactDirectedGraphRelation))
+      return false;
+    final CompactDirectedGraphRelation rhs = (CompactDirectedGraphRelation) o;
+    return m_aGraph == rhs.m_aGraph && m_nIndex == rhs.m_nIndex;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nIndex).append (m_sID).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("id", m_sID)
+                                       .append ("index", m_nIndex)
+                                       .append ("fromID", getFromID ())
+                                       .append ("toID", getToID ())
+                                       .toString ();
+  }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.PresentForCodeCoverage;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.collections.attrs.IReadonlyAttributeContainer;
+import com.phloc.math.graph.IBaseGraphObject;
+import com.phloc.math.graph.IGraph;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.impl.Graph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFactory;
+
+/**
+ * Versioned binary file format for graphs. All values are stored big endian
+ * and every section starts at a multiple of 8 bytes:
+ * <ol>
+ * <li>Header (32 bytes): magic number, version, flags (bit 0 = directed),
+ * node count, relation count and the number of node, relation and graph
+ * attribute columns.</li>
+ * <li>String table: string count, <code>count + 1</code> offsets and the UTF-8
+ * bytes of the graph ID, all node IDs and all relation IDs.</li>
+ * <li>Node ID index: all node indices sorted by node ID, for binary search.</li>
+ * <li>Topology: for directed graphs the CSR arrays as used by
+ * {@link CompactDirectedGraph}; for undirected graphs the two node indices of
+ * each relation.</li>
+ * <li>Attribute columns (graph, nodes, relations): one column per attribute
+ * name with the type, the name, a presence bitmap and the values. Supported
+ * value types are {@link Boolean}, {@link Integer}, {@link Long},
+ * {@link Double} and {@link String}.</li>
+ * </ol>
+ * Directed graphs are loaded via memory mapping and only the CSR arrays are
+ * copied - IDs and attributes are decoded on first access of a node or
+ * relation. Files are limited to 2GB.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class CompactGraphFile
+{
+  /** The magic number at the beginning of every file ("PGBF") */
+  public static final int MAGIC = 0x50474246;
+  /** The current format version */
+  public static final int VERSION = 1;
+
+  static final int FLAG_DIRECTED = 0x01;
+  static final int HEADER_SIZE = 32;
+
+  @PresentForCodeCoverage
+  @SuppressWarnings ("unused")
+  private static final CompactGraphFile s_aInstance = new CompactGraphFile ();
+
+  private CompactGraphFile ()
+  {}
+
+  @Nonnull
+  private static int [] _getSortedNodeIndices (@Nonnull final String [] aNodeIDs)
+  {
+    final Integer [] aIndices = new Integer [aNodeIDs.length];
+    for (int i = 0; i < aIndices.length; ++i)
+      aIndices[i] = Integer.valueOf (i);
+    Arrays.sort (aIndices, new Comparator <Integer> ()
+    {
+      public int compare (final Integer aIndex1, final Integer aIndex2)
+      {
+        return aNodeIDs[aIndex1.intValue ()].compareTo (aNodeIDs[aIndex2.intValue ()]);
+      }
+    });
+    final int [] ret = new int [aIndices.length];
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = aIndices[i].intValue ();
+    return ret;
+  }
+
+  private static void _write (@Nonnull final File aFile,
+                              final boolean bDirected,
+                              @Nonnull final IReadonlyAttributeContainer aGraph,
+                              @Nonnull final String sGraphID,
+                              @Nonnull final List <? extends IBaseGraphObject> aNodes,
+                              @Nonnull final List <? extends IBaseGraphObject> aRelations,
+                              @Nonnull final int [] [] aTopology) throws IOException
+  {
+    final int nNodeCount = aNodes.size ();
+    final int nRelationCount = aRelations.size ();
+
+    // Collect the attributes first, so that errors are detected before the
+    // file is touched
+    final List <CompactGraphFileColumn> aGraphColumns = CompactGraphFileColumn.collect (Collections.singletonList (aGraph));
+    final List <CompactGraphFileColumn> aNodeColumns = CompactGraphFileColumn.collect (aNodes);
+    final List <CompactGraphFileColumn> aRelationColumns = CompactGraphFileColumn.collect (aRelations);
+
+    final String [] aStrings = new String [1 + nNodeCount + nRelationCount];
+    aStrings[0] = sGraphID;
+    for (int i = 0; i < nNodeCount; ++i)
+      aStrings[1 + i] = aNodes.get (i).getID ();
+    for (int i = 0; i < nRelationCount; ++i)
+      aStrings[1 + nNodeCount + i] = aRelations.get (i).getID ();
+
+    final CompactGraphFileWriter aWriter = new CompactGraphFileWriter (new FileOutputStream (aFile).getChannel ());
+    try
+    {
+      aWriter.writeInt (MAGIC);
+      aWriter.writeInt (VERSION);
+      aWriter.writeInt (bDirected ? FLAG_DIRECTED : 0);
+      aWriter.writeInt (nNodeCount);
+      aWriter.writeInt (nRelationCount);
+      aWriter.writeInt (aNodeColumns.size ());
+      aWriter.writeInt (aRelationColumns.size ());
+      aWriter.writeInt (aGraphColumns.size ());
+
+      aWriter.writeInt (aStrings.length);
+      CompactGraphFileColumn.writeStringTable (aWriter, aStrings);
+      aWriter.align ();
+
+      aWriter.writeInts (_getSortedNodeIndices (Arrays.copyOfRange (aStrings, 1, 1 + nNodeCount)));
+      aWriter.align ();
+
+      for (final int [] aArray : aTopology)
+        aWriter.writeInts (aArray);
+      aWriter.align ();
+
+      for (final CompactGraphFileColumn aColumn : aGraphColumns)
+        aColumn.write (aWriter);
+      for (final CompactGraphFileColumn aColumn : aNodeColumns)
+        aColumn.write (aWriter);
+      for (final CompactGraphFileColumn aColumn : aRelationColumns)
+        aColumn.write (aWriter);
+      if (aWriter.getPosition () > Integer.MAX_VALUE)
+        throw new IOException ("The graph is too large for a compact graph file");
+    }
+    finally
+    {
+      aWriter.close ();
+    }
+  }
+
+  /**
+   * Write the passed directed graph. Relations pointing to nodes outside of
+   * the graph are not written.
+   * 
+   * @param aGraph
+   *        The graph to write. May not be <code>null</code>.
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>. An existing file
+   *        is overwritten.
+   * @throws IOException
+   *         In case writing fails
+   * @throws IllegalArgumentException
+   *         If an attribute has an unsupported value type
+   */
+  public static void writeDirectedGraph (@Nonnull final IReadonlyDirectedGraph aGraph, @Nonnull final File aFile) throws IOException
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+    if (aFile == null)
+      throw new NullPointerException ("file");
+
+    // The compact graph already has the required CSR layout
+    final CompactDirectedGraph aCompact = aGraph instanceof CompactDirectedGraph ? (CompactDirectedGraph) aGraph
+                                                                                  : new CompactDirectedGraph (aGraph);
+    final int nNodeCount = aCompact.getNodeCount ();
+    final int nRelationCount = aCompact.getRelationCount ();
+    final List <CompactDirectedGraphNode> aNodes = new ArrayList <CompactDirectedGraphNode> (nNodeCount);
+    final int [] aOutgoingOffsets = new int [nNodeCount + 1];
+    final int [] aIncomingOffsets = new int [nNodeCount + 1];
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      aNodes.add (aCompact.getNodeOfIndex (i));
+      aOutgoingOffsets[i + 1] = aCompact.getOutgoingEndOffset (i);
+      aIncomingOffsets[i + 1] = aCompact.getIncomingEndOffset (i);
+    }
+    final List <CompactDirectedGraphRelation> aRelations = new ArrayList <CompactDirectedGraphRelation> (nRelationCount);
+    final int [] aOutgoingNodes = new int [nRelationCount];
+    final int [] aIncomingNodes = new int [nRelationCount];
+    final int [] aIncomingRelations = new int [nRelationCount];
+    for (int i = 0; i < nRelationCount; ++i)
+    {
+      aRelations.add (aCompact.getRelationOfIndex (i));
+      aOutgoingNodes[i] = aCompact.getOutgoingNodeIndex (i);
+      aIncomingNodes[i] = aCompact.getIncomingNodeIndex (i);
+      aIncomingRelations[i] = aCompact.getIncomingRelationIndex (i);
+    }
+    _write (aFile, true, aCompact, aCompact.getID (), aNodes, aRelations, new int [] [] { aOutgoingOffsets,
+                                                                                          aOutgoingNodes,
+                                                                                          aIncomingOffsets,
+                                                                                          aIncomingNodes,
+                                                                                          aIncomingRelations });
+  }
+
+  /**
+   * Write the passed undirected graph. Relations connecting nodes outside of
+   * the graph are not written.
+   * 
+   * @param aGraph
+   *        The graph to write. May not be <code>null</code>.
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>. An existing file
+   *        is overwritten.
+   * @throws IOException
+   *         In case writing fails
+   * @throws IllegalArgumentException
+   *         If an attribute has an unsupported value type
+   */
+  public static void writeGraph (@Nonnull final IReadonlyGraph aGraph, @Nonnull final File aFile) throws IOException
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+    if (aFile == null)
+      throw new NullPointerException ("file");
+
+    final List <IGraphNode> aNodes = new ArrayList <IGraphNode> (aGraph.getNodesView ());
+    final Map <String, Integer> aNodeIndex = new HashMap <String, Integer> (aNodes.size () * 2);
+    for (int i = 0; i < aNodes.size (); ++i)
+      aNodeIndex.put (aNodes.get (i).getID (), Integer.valueOf (i));
+
+    final List <IGraphRelation> aRelations = new ArrayList <IGraphRelation> (aGraph.getRelationCount ());
+    aGraph.forEachRelation (new INonThrowingRunnableWithParameter <IGraphRelation> ()
+    {
+      public void run (final IGraphRelation aRelation)
+      {
+        if (aNodeIndex.containsKey (aRelation.getNode1ID ()) && aNodeIndex.containsKey (aRelation.getNode2ID ()))
+          aRelations.add (aRelation);
+      }
+    });
+    final int [] aFirstNodes = new int [aRelations.size ()];
+    final int [] aSecondNodes = new int [aRelations.size ()];
+    for (int i = 0; i < aRelations.size (); ++i)
+    {
+      aFirstNodes[i] = aNodeIndex.get (aRelations.get (i).getNode1ID ()).intValue ();
+      aSecondNodes[i] = aNodeIndex.get (aRelations.get (i).getNode2ID ()).intValue ();
+    }
+    _write (aFile, false, aGraph, aGraph.getID (), aNodes, aRelations, new int [] [] { aFirstNodes, aSecondNodes });
+  }
+
+  /**
+   * Memory map a file containing a directed graph. Only the adjacency arrays
+   * are read upfront - node and relation objects are created on first access.
+   * 
+   * @param aFile
+   *        The file to read. May not be <code>null</code>.
+   * @return The read-only graph and never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be read, is not a compact graph file or
+   *         contains an undirected graph.
+   */
+  @Nonnull
+  public static CompactDirectedGraph mapDirectedGraph (@Nonnull final File aFile) throws IOException
+  {
+    final MappedGraphFile aMappedFile = MappedGraphFile.map (aFile);
+    if (!aMappedFile.isDirected ())
+      throw new IOException ("The file contains an undirected graph: " + aFile);
+    return new CompactDirectedGraph (aMappedFile);
+  }
+
+  /**
+   * Read a file containing an undirected graph. As there is no compact
+   * undirected graph, the graph is fully decoded into a new {@link Graph}.
+   * 
+   * @param aFile
+   *        The file to read. May not be <code>null</code>.
+   * @return The new graph and never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be read, is not a compact graph file or
+   *         contains a directed graph.
+   */
+  @Nonnull
+  public static IGraph readGraph (@Nonnull final File aFile) throws IOException
+  {
+    final MappedGraphFile aMappedFile = MappedGraphFile.map (aFile);
+    if (aMappedFile.isDirected ())
+      throw new IOException ("The file contains a directed graph: " + aFile);
+
+    final int nNodeCount = aMappedFile.getNodeCount ();
+    final Graph ret = new Graph (aMappedFile.getGraphID (), new SimpleGraphObjectFactory (), nNodeCount);
+    _setAttributes (ret, aMappedFile.getGraphAttributes ());
+    final IGraphNode [] aNodes = new IGraphNode [nNodeCount];
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      aNodes[i] = ret.createNode (aMappedFile.getNodeID (i));
+      _setAttributes (aNodes[i], aMappedFile.getNodeAttributes (i));
+    }
+    final int [] aFirstNodes = aMappedFile.getFirstNodes ();
+    final int [] aSecondNodes = aMappedFile.getSecondNodes ();
+    for (int i = 0; i < aFirstNodes.length; ++i)
+    {
+      final IGraphRelation aRelation = ret.createRelation (aMappedFile.getRelationID (i),
+                                                           aNodes[aFirstNodes[i]],
+                                                           aNodes[aSecondNodes[i]]);
+      _setAttributes (aRelation, aMappedFile.getRelationAttributes (i));
+    }
+    return ret;
+  }
+
+  private static void _setAttributes (@Nonnull final IBaseGraphObject aObject, final Map <String, Object> aAttrs)
+  {
+    if (aAttrs != null)
+      aObject.setAttributes (aAttrs);
+  }
+}
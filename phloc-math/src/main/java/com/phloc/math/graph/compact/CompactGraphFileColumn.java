@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.collections.attrs.IReadonlyAttributeContainer;
+
+/**
+ * A single typed attribute column of a {@link CompactGraphFile}, used while
+ * writing. Each column contains the values of one attribute name for all
+ * nodes or all relations. Objects not having the attribute are marked in the
+ * presence bitmap of the column.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class CompactGraphFileColumn
+{
+  static final int TYPE_BOOLEAN = 1;
+  static final int TYPE_INT = 2;
+  static final int TYPE_LONG = 3;
+  static final int TYPE_DOUBLE = 4;
+  static final int TYPE_STRING = 5;
+
+  private final String m_sName;
+  private final int m_nType;
+  private final Object [] m_aValues;
+
+  private CompactGraphFileColumn (@Nonnull @Nonempty final String sName,
+                                  final int nType,
+                                  @Nonnegative final int nObjectCount)
+  {
+    m_sName = sName;
+    m_nType = nType;
+    m_aValues = new Object [nObjectCount];
+  }
+
+  /**
+   * Get the column type of the passed attribute value.
+   * 
+   * @param aValue
+   *        The value to check. May not be <code>null</code>.
+   * @return -1 if the value type is not supported.
+   */
+  static int getTypeOfValue (@Nonnull final Object aValue)
+  {
+    if (aValue instanceof Boolean)
+      return TYPE_BOOLEAN;
+    if (aValue instanceof Integer)
+      return TYPE_INT;
+    if (aValue instanceof Long)
+      return TYPE_LONG;
+    if (aValue instanceof Double)
+      return TYPE_DOUBLE;
+    if (aValue instanceof String)
+      return TYPE_STRING;
+    return -1;
+  }
+
+  /**
+   * Collect all attribute columns of the passed objects.
+   * 
+   * @param aObjects
+   *        The graph objects in index order. May not be <code>null</code>.
+   * @return The columns in the order of first occurrence of each attribute
+   *         name.
+   * @throws IllegalArgumentException
+   *         If an attribute value type is not supported or if the values of
+   *         one attribute name have different types.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  static List <CompactGraphFileColumn> collect (@Nonnull final List <? extends IReadonlyAttributeContainer> aObjects)
+  {
+    final int nObjectCount = aObjects.size ();
+    final Map <String, CompactGraphFileColumn> aColumns = new LinkedHashMap <String, CompactGraphFileColumn> ();
+    for (int i = 0; i < nObjectCount; ++i)
+    {
+      final IReadonlyAttributeContainer aObject = aObjects.get (i);
+      if (aObject.containsNoAttribute ())
+        continue;
+      for (final Map.Entry <String, Object> aEntry : aObject.getAllAttributes ().entrySet ())
+      {
+        final Object aValue = aEntry.getValue ();
+        if (aValue == null)
+          continue;
+        final String sName = aEntry.getKey ();
+        final int nType = getTypeOfValue (aValue);
+        if (nType < 0)
+          throw new IllegalArgumentException ("Attribute '" +
+                                              sName +
+                                              "' has the unsupported value type " +
+                                              aValue.getClass ().getName ());
+        CompactGraphFileColumn aColumn = aColumns.get (sName);
+        if (aColumn == null)
+        {
+          aColumn = new CompactGraphFileColumn (sName, nType, nObjectCount);
+          aColumns.put (sName, aColumn);
+        }
+        else
+          if (aColumn.m_nType != nType)
+            throw new IllegalArgumentException ("Attribute '" + sName + "' has values of different types");
+        aColumn.m_aValues[i] = aValue;
+      }
+    }
+    return new ArrayList <CompactGraphFileColumn> (aColumns.values ());
+  }
+
+  /**
+   * Write this column: type, name, presence bitmap and values. Each part is
+   * aligned to 8 bytes.
+   * 
+   * @param aWriter
+   *        The writer to use. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  void write (@Nonnull final CompactGraphFileWriter aWriter) throws IOException
+  {
+    final byte [] aName = CharsetManager.getAsBytes (m_sName, CCharset.CHARSET_UTF_8_OBJ);
+    aWriter.writeInt (m_nType);
+    aWriter.writeInt (aName.length);
+    aWriter.writeBytes (aName);
+    aWriter.align ();
+
+    // Presence bitmap
+    final int nCount = m_aValues.length;
+    for (int nWord = 0; nWord < getBitmapWordCount (nCount); ++nWord)
+    {
+      long nBits = 0;
+      final int nEnd = Math.min (nCount, (nWord + 1) * 64);
+      for (int i = nWord * 64; i < nEnd; ++i)
+        if (m_aValues[i] != null)
+          nBits |= 1L << (i & 63);
+      aWriter.writeLong (nBits);
+    }
+
+    // Values - absent values are written as 0 to keep direct indexing
+    switch (m_nType)
+    {
+      case TYPE_BOOLEAN:
+        for (final Object aValue : m_aValues)
+          aWriter.writeByte (aValue != null && ((Boolean) aValue).booleanValue () ? (byte) 1 : (byte) 0);
+        break;
+      case TYPE_INT:
+        for (final Object aValue : m_aValues)
+          aWriter.writeInt (aValue == null ? 0 : ((Integer) aValue).intValue ());
+        break;
+      case TYPE_LONG:
+        for (final Object aValue : m_aValues)
+          aWriter.writeLong (aValue == null ? 0 : ((Long) aValue).longValue ());
+        break;
+      case TYPE_DOUBLE:
+        for (final Object aValue : m_aValues)
+          aWriter.writeDouble (aValue == null ? 0 : ((Double) aValue).doubleValue ());
+        break;
+      case TYPE_STRING:
+      {
+        final String [] aStrings = new String [nCount];
+        for (int i = 0; i < nCount; ++i)
+          aStrings[i] = m_aValues[i] == null ? "" : (String) m_aValues[i];
+        writeStringTable (aWriter, aStrings);
+        break;
+      }
+      default:
+        throw new IllegalStateException ("Unsupported type " + m_nType);
+    }
+    aWriter.align ();
+  }
+
+  /**
+   * @param nBitCount
+   *        The number of bits required.
+   * @return The number of 64 bit words needed for a bitmap of the passed size.
+   */
+  @Nonnegative
+  static int getBitmapWordCount (@Nonnegative final int nBitCount)
+  {
+    return (nBitCount + 63) / 64;
+  }
+
+  /**
+   * Write a string table: <code>n + 1</code> int offsets followed by the
+   * UTF-8 encoded bytes of all strings.
+   * 
+   * @param aWriter
+   *        The writer to use. May not be <code>null</code>.
+   * @param aStrings
+   *        The strings to write. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  static void writeStringTable (@Nonnull final CompactGraphFileWriter aWriter, @Nonnull final String [] aStrings) throws IOException
+  {
+    final byte [][] aEncoded = new byte [aStrings.length] [];
+    int nOffset = 0;
+    aWriter.writeInt (0);
+    for (int i = 0; i < aStrings.length; ++i)
+    {
+      aEncoded[i] = CharsetManager.getAsBytes (aStrings[i], CCharset.CHARSET_UTF_8_OBJ);
+      nOffset += aEncoded[i].length;
+      aWriter.writeInt (nOffset);
+    }
+    for (final byte [] aBytes : aEncoded)
+      aWriter.writeBytes (aBytes);
+  }
+}
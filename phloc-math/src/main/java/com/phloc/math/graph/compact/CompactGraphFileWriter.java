@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Low level writer for {@link CompactGraphFile}: all values are collected in a
+ * direct buffer (big endian) that is handed to the file channel whenever it is
+ * full.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class CompactGraphFileWriter implements Closeable
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel m_aChannel;
+  private final ByteBuffer m_aBuffer = ByteBuffer.allocateDirect (BUFFER_SIZE);
+  private long m_nPosition = 0;
+
+  CompactGraphFileWriter (@Nonnull @WillCloseWhenClosed final FileChannel aChannel)
+  {
+    if (aChannel == null)
+      throw new NullPointerException ("channel");
+    m_aChannel = aChannel;
+  }
+
+  /**
+   * @return The number of bytes written so far.
+   */
+  @Nonnegative
+  long getPosition ()
+  {
+    return m_nPosition;
+  }
+
+  private void _ensure (@Nonnegative final int nBytes) throws IOException
+  {
+    if (m_aBuffer.remaining () < nBytes)
+      flush ();
+  }
+
+  void writeByte (final byte nValue) throws IOException
+  {
+    _ensure (1);
+    m_aBuffer.put (nValue);
+    m_nPosition++;
+  }
+
+  void writeInt (final int nValue) throws IOException
+  {
+    _ensure (4);
+    m_aBuffer.putInt (nValue);
+    m_nPosition += 4;
+  }
+
+  void writeLong (final long nValue) throws IOException
+  {
+    _ensure (8);
+    m_aBuffer.putLong (nValue);
+    m_nPosition += 8;
+  }
+
+  void writeDouble (final double dValue) throws IOException
+  {
+    _ensure (8);
+    m_aBuffer.putDouble (dValue);
+    m_nPosition += 8;
+  }
+
+  void writeInts (@Nonnull final int [] aValues) throws IOException
+  {
+    for (final int nValue : aValues)
+      writeInt (nValue);
+  }
+
+  void writeBytes (@Nonnull final byte [] aBytes) throws IOException
+  {
+    int nOfs = 0;
+    while (nOfs < aBytes.length)
+    {
+      if (!m_aBuffer.hasRemaining ())
+        flush ();
+      final int nLen = Math.min (m_aBuffer.remaining (), aBytes.length - nOfs);
+      m_aBuffer.put (aBytes, nOfs, nLen);
+      nOfs += nLen;
+    }
+    m_nPosition += aBytes.length;
+  }
+
+  /**
+   * Pad with zero bytes, so that the next section starts at a multiple of 8.
+   * 
+   * @throws IOException
+   *         In case writing fails
+   */
+  void align () throws IOException
+  {
+    while ((m_nPosition & 7) != 0)
+      writeByte ((byte) 0);
+  }
+
+  void flush () throws IOException
+  {
+    m_aBuffer.flip ();
+    while (m_aBuffer.hasRemaining ())
+      m_aChannel.write (m_aBuffer);
+    m_aBuffer.clear ();
+  }
+
+  public void close () throws IOException
+  {
+    try
+    {
+      flush ();
+    }
+    finally
+    {
+      m_aChannel.close ();
+    }
+  }
+}
@@ -0,0 +1,498 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.lang.GenericReflection;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyBaseGraph;
+import com.phloc.math.matrix.SparseMatrix;
+import com.phloc.math.matrix.SparseMatrixBuilder;
+
+/**
+ * A dense integer index over an arbitrary graph. All nodes and relations of
+ * the source graph are assigned an index (in the iteration order of the source
+ * graph) and the adjacency is stored in compressed sparse row (CSR) format, so
+ * that algorithms can work on plain <code>int</code> arrays instead of
+ * performing map lookups for each step. The original node and relation
+ * objects are kept and can be resolved by their index.<br>
+ * For directed graphs the outgoing adjacency contains the to-nodes and the
+ * incoming adjacency contains the from-nodes of each node. For undirected
+ * graphs both adjacencies are identical and contain all connected nodes.
+ * Relations connected to nodes that are not contained in the source graph are
+ * not indexed.<br>
+ * The index is a snapshot and does not reflect later modifications of the
+ * source graph.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ * @param <R>
+ *        Relation class
+ */
+@Immutable
+public final class IndexedGraph <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>>
+{
+  private final IReadonlyBaseGraph <N, R> m_aGraph;
+  private final long m_nModificationStamp;
+  private final boolean m_bDirected;
+  private final Object [] m_aNodes;
+  private final Map <String, Integer> m_aNodeIndex;
+  private final Object [] m_aRelations;
+  private final int [] m_aRelationFrom;
+  private final int [] m_aRelationTo;
+  private final int [] m_aOutgoingOffsets;
+  private final int [] m_aOutgoingNodes;
+  private final int [] m_aOutgoingRelations;
+  private final int [] m_aIncomingOffsets;
+  private final int [] m_aIncomingNodes;
+  private final int [] m_aIncomingRelations;
+
+  /**
+   * Create a new index over the passed graph.
+   * 
+   * @param aGraph
+   *        The source graph. May not be <code>null</code>.
+   */
+  public IndexedGraph (@Nonnull final IReadonlyBaseGraph <N, R> aGraph)
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+
+    m_aGraph = aGraph;
+    m_nModificationStamp = aGraph.getModificationStamp ();
+    m_bDirected = aGraph.isDirected ();
+
+    // Nodes
+    m_aNodes = aGraph.getNodesView ().toArray ();
+    final int nNodeCount = m_aNodes.length;
+    m_aNodeIndex = new HashMap <String, Integer> (nNodeCount * 2);
+    for (int i = 0; i < nNodeCount; ++i)
+      m_aNodeIndex.put (((IBaseGraphNode <?, ?>) m_aNodes[i]).getID (), Integer.valueOf (i));
+
+    // Relations - skip all relations with unknown nodes
+    final Object [] aAllRelations = new Object [aGraph.getRelationCount ()];
+    aGraph.forEachRelation (new INonThrowingRunnableWithParameter <R> ()
+    {
+      private int m_nIndex = 0;
+
+      public void run (final R aRelation)
+      {
+        aAllRelations[m_nIndex++] = aRelation;
+      }
+    });
+    final Object [] aRelations = new Object [aAllRelations.length];
+    final int [] aRelationFrom = new int [aAllRelations.length];
+    final int [] aRelationTo = new int [aAllRelations.length];
+    int nRelationCount = 0;
+    for (final Object aObj : aAllRelations)
+    {
+      final R aRelation = GenericReflection.<Object, R> uncheckedCast (aObj);
+      String sID1;
+      String sID2;
+      if (aRelation instanceof IDirectedGraphRelation)
+      {
+        sID1 = ((IDirectedGraphRelation) aRelation).getFromID ();
+        sID2 = ((IDirectedGraphRelation) aRelation).getToID ();
+      }
+      else
+        if (aRelation instanceof IGraphRelation)
+        {
+          sID1 = ((IGraphRelation) aRelation).getNode1ID ();
+          sID2 = ((IGraphRelation) aRelation).getNode2ID ();
+        }
+        else
+        {
+          final String [] aIDs = aRelation.getAllConnectedNodeIDs ().toArray (new String [0]);
+          if (aIDs.length == 0)
+            continue;
+          sID1 = aIDs[0];
+          sID2 = aIDs[aIDs.length - 1];
+        }
+      final int nIndex1 = getNodeIndex (sID1);
+      final int nIndex2 = getNodeIndex (sID2);
+      if (nIndex1 < 0 || nIndex2 < 0)
+        continue;
+      aRelations[nRelationCount] = aRelation;
+      aRelationFrom[nRelationCount] = nIndex1;
+      aRelationTo[nRelationCount] = nIndex2;
+      ++nRelationCount;
+    }
+    m_aRelations = _trim (aRelations, nRelationCount);
+    m_aRelationFrom = _trim (aRelationFrom, nRelationCount);
+    m_aRelationTo = _trim (aRelationTo, nRelationCount);
+
+    // Build the adjacency with a counting sort
+    m_aOutgoingOffsets = new int [nNodeCount + 1];
+    for (int nRel = 0; nRel < nRelationCount; ++nRel)
+    {
+      m_aOutgoingOffsets[m_aRelationFrom[nRel] + 1]++;
+      if (!m_bDirected && m_aRelationFrom[nRel] != m_aRelationTo[nRel])
+        m_aOutgoingOffsets[m_aRelationTo[nRel] + 1]++;
+    }
+    for (int i = 0; i < nNodeCount; ++i)
+      m_aOutgoingOffsets[i + 1] += m_aOutgoingOffsets[i];
+    final int nOutgoingCount = m_aOutgoingOffsets[nNodeCount];
+    m_aOutgoingNodes = new int [nOutgoingCount];
+    m_aOutgoingRelations = new int [nOutgoingCount];
+    final int [] aOutgoingPos = _trim (m_aOutgoingOffsets, nNodeCount);
+    for (int nRel = 0; nRel < nRelationCount; ++nRel)
+    {
+      final int nFrom = m_aRelationFrom[nRel];
+      final int nTo = m_aRelationTo[nRel];
+      int nPos = aOutgoingPos[nFrom]++;
+      m_aOutgoingNodes[nPos] = nTo;
+      m_aOutgoingRelations[nPos] = nRel;
+      if (!m_bDirected && nFrom != nTo)
+      {
+        nPos = aOutgoingPos[nTo]++;
+        m_aOutgoingNodes[nPos] = nFrom;
+        m_aOutgoingRelations[nPos] = nRel;
+      }
+    }
+
+    if (m_bDirected)
+    {
+      m_aIncomingOffsets = new int [nNodeCount + 1];
+      for (int nRel = 0; nRel < nRelationCount; ++nRel)
+        m_aIncomingOffsets[m_aRelationTo[nRel] + 1]++;
+      for (int i = 0; i < nNodeCount; ++i)
+        m_aIncomingOffsets[i + 1] += m_aIncomingOffsets[i];
+      m_aIncomingNodes = new int [nRelationCount];
+      m_aIncomingRelations = new int [nRelationCount];
+      final int [] aIncomingPos = _trim (m_aIncomingOffsets, nNodeCount);
+      for (int nRel = 0; nRel < nRelationCount; ++nRel)
+      {
+        final int nPos = aIncomingPos[m_aRelationTo[nRel]]++;
+        m_aIncomingNodes[nPos] = m_aRelationFrom[nRel];
+        m_aIncomingRelations[nPos] = nRel;
+      }
+    }
+    else
+    {
+      // Undirected graph - incoming and outgoing are identical
+      m_aIncomingOffsets = m_aOutgoingOffsets;
+      m_aIncomingNodes = m_aOutgoingNodes;
+      m_aIncomingRelations = m_aOutgoingRelations;
+    }
+  }
+
+  @Nonnull
+  private static Object [] _trim (@Nonnull final Object [] aArray, @Nonnegative final int nLength)
+  {
+    if (aArray.length == nLength)
+      return aArray;
+    final Object [] ret = new Object [nLength];
+    System.arraycopy (aArray, 0, ret, 0, nLength);
+    return ret;
+  }
+
+  @Nonnull
+  private static int [] _trim (@Nonnull final int [] aArray, @Nonnegative final int nLength)
+  {
+    final int [] ret = new int [nLength];
+    System.arraycopy (aArray, 0, ret, 0, nLength);
+    return ret;
+  }
+
+  /**
+   * @return The graph this index was created from. Never <code>null</code>.
+   */
+  @Nonnull
+  public IReadonlyBaseGraph <N, R> getGraph ()
+  {
+    return m_aGraph;
+  }
+
+  /**
+   * @return The modification stamp of the source graph at the time this index
+   *         was created.
+   * @see IReadonlyBaseGraph#getModificationStamp()
+   */
+  @Nonnegative
+  public long getModificationStamp ()
+  {
+    return m_nModificationStamp;
+  }
+
+  /**
+   * @return <code>true</code> if the source graph was modified after this
+   *         index was created, so that a new index should be created.
+   */
+  public boolean isOutdated ()
+  {
+    return m_aGraph.getModificationStamp () != m_nModificationStamp;
+  }
+
+  /**
+   * @return <code>true</code> if the source graph is directed.
+   */
+  public boolean isDirected ()
+  {
+    return m_bDirected;
+  }
+
+  /**
+   * @return The number of indexed nodes. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_aNodes.length;
+  }
+
+  /**
+   * @return The number of indexed relations. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_aRelations.length;
+  }
+
+  /**
+   * Get the index of the node with the passed ID.
+   * 
+   * @param sNodeID
+   *        The node ID to search. May be <code>null</code>.
+   * @return {@link CGlobal#ILLEGAL_UINT} if no such node is contained.
+   */
+  public int getNodeIndex (@Nullable final String sNodeID)
+  {
+    final Integer aIndex = m_aNodeIndex.get (sNodeID);
+    return aIndex == null ? CGlobal.ILLEGAL_UINT : aIndex.intValue ();
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The node with the passed index. Never <code>null</code>.
+   */
+  @Nonnull
+  public N getNodeOfIndex (@Nonnegative final int nNodeIndex)
+  {
+    return GenericReflection.<Object, N> uncheckedCast (m_aNodes[nNodeIndex]);
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The relation with the passed index. Never <code>null</code>.
+   */
+  @Nonnull
+  public R getRelationOfIndex (@Nonnegative final int nRelationIndex)
+  {
+    return GenericReflection.<Object, R> uncheckedCast (m_aRelations[nRelationIndex]);
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The index of the from-node (directed graphs) or of the first node
+   *         (undirected graphs) of the passed relation.
+   */
+  @Nonnegative
+  public int getRelationFromIndex (@Nonnegative final int nRelationIndex)
+  {
+    return m_aRelationFrom[nRelationIndex];
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The index of the to-node (directed graphs) or of the second node
+   *         (undirected graphs) of the passed relation.
+   */
+  @Nonnegative
+  public int getRelationToIndex (@Nonnegative final int nRelationIndex)
+  {
+    return m_aRelationTo[nRelationIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The first outgoing offset of the passed node (inclusive).
+   */
+  @Nonnegative
+  public int getOutgoingStartOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aOutgoingOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The last outgoing offset of the passed node (exclusive).
+   */
+  @Nonnegative
+  public int getOutgoingEndOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aOutgoingOffsets[nNodeIndex + 1];
+  }
+
+  /**
+   * @param nOffset
+   *        The outgoing offset.
+   * @return The index of the related node at the passed outgoing offset.
+   */
+  @Nonnegative
+  public int getOutgoingNodeIndex (@Nonnegative final int nOffset)
+  {
+    return m_aOutgoingNodes[nOffset];
+  }
+
+  /**
+   * @param nOffset
+   *        The outgoing offset.
+   * @return The index of the relation at the passed outgoing offset.
+   */
+  @Nonnegative
+  public int getOutgoingRelationIndex (@Nonnegative final int nOffset)
+  {
+    return m_aOutgoingRelations[nOffset];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The first incoming offset of the passed node (inclusive).
+   */
+  @Nonnegative
+  public int getIncomingStartOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aIncomingOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        The node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The last incoming offset of the passed node (exclusive).
+   */
+  @Nonnegative
+  public int getIncomingEndOffset (@Nonnegative final int nNodeIndex)
+  {
+    return m_aIncomingOffsets[nNodeIndex + 1];
+  }
+
+  /**
+   * @param nOffset
+   *        The incoming offset.
+   * @return The index of the related node at the passed incoming offset.
+   */
+  @Nonnegative
+  public int getIncomingNodeIndex (@Nonnegative final int nOffset)
+  {
+    return m_aIncomingNodes[nOffset];
+  }
+
+  /**
+   * @param nOffset
+   *        The incoming offset.
+   * @return The index of the relation at the passed incoming offset.
+   */
+  @Nonnegative
+  public int getIncomingRelationIndex (@Nonnegative final int nOffset)
+  {
+    return m_aIncomingRelations[nOffset];
+  }
+
+  /**
+   * Create the sparse adjacency matrix of the indexed graph. Rows and columns
+   * are the node indices. The element <code>[i][j]</code> contains the sum of
+   * the weights of all relations from node <code>i</code> to node
+   * <code>j</code>. For undirected graphs the matrix is symmetric.
+   * 
+   * @param aWeights
+   *        The relation weights to use. May be <code>null</code> in which case
+   *        each relation has the weight 1.
+   * @return The new sparse matrix and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the weights don't match the relations of this index
+   */
+  @Nonnull
+  public SparseMatrix createAdjacencyMatrix (@Nullable final RelationWeights aWeights)
+  {
+    final int nRelationCount = m_aRelations.length;
+    if (aWeights != null && aWeights.getRelationCount () != nRelationCount)
+      throw new IllegalArgumentException ("The weights don't match the relations of this graph");
+    final SparseMatrixBuilder aBuilder = new SparseMatrixBuilder (m_aNodes.length, m_aNodes.length);
+    for (int nRel = 0; nRel < nRelationCount; ++nRel)
+    {
+      final double dWeight = aWeights == null ? 1 : aWeights.getWeight (nRel);
+      final int nFrom = m_aRelationFrom[nRel];
+      final int nTo = m_aRelationTo[nRel];
+      aBuilder.add (nFrom, nTo, dWeight);
+      if (!m_bDirected && nFrom != nTo)
+        aBuilder.add (nTo, nFrom, dWeight);
+    }
+    return aBuilder.build ();
+  }
+
+  /**
+   * Create the sparse equivalent of
+   * {@link IReadonlyBaseGraph#createIncidenceMatrix()}, using the node indices
+   * of this index. In contrast to the dense matrix, only O(number of
+   * relations) memory is required.
+   * 
+   * @return The new sparse matrix and never <code>null</code>.
+   */
+  @Nonnull
+  public SparseMatrix createIncidenceMatrix ()
+  {
+    final int nNodeCount = m_aNodes.length;
+    final SparseMatrixBuilder aBuilder = new SparseMatrixBuilder (nNodeCount, nNodeCount);
+    for (int nRow = 0; nRow < nNodeCount; ++nRow)
+      for (int i = m_aOutgoingOffsets[nRow]; i < m_aOutgoingOffsets[nRow + 1]; ++i)
+      {
+        final int nCol = m_aOutgoingNodes[i];
+        if (nCol != nRow)
+        {
+          aBuilder.set (nRow, nCol, 1);
+          aBuilder.set (nCol, nRow, m_bDirected ? -1 : 1);
+        }
+      }
+    return aBuilder.build ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("graphID", m_aGraph.getID ())
+                                       .append ("directed", m_bDirected)
+                                       .append ("nodeCount", m_aNodes.length)
+                                       .append ("relationCount", m_aRelations.length)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,414 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.io.streams.StreamUtils;
+
+/**
+ * Read access to a memory mapped {@link CompactGraphFile}. Opening only reads
+ * the header and the positions of the sections - strings and attributes are
+ * decoded on demand. Only absolute reads are used on the mapped buffer, so
+ * concurrent read access is safe.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+final class MappedGraphFile
+{
+  /**
+   * The position of a single attribute column within the mapped file.
+   * 
+   * @author Philip Helger
+   */
+  private static final class Column
+  {
+    private final String m_sName;
+    private final int m_nType;
+    private final int m_nBitmapPos;
+    private final int m_nValuesPos;
+    private final int m_nStringBytesPos;
+
+    Column (@Nonnull final String sName,
+            final int nType,
+            final int nBitmapPos,
+            final int nValuesPos,
+            final int nStringBytesPos)
+    {
+      m_sName = sName;
+      m_nType = nType;
+      m_nBitmapPos = nBitmapPos;
+      m_nValuesPos = nValuesPos;
+      m_nStringBytesPos = nStringBytesPos;
+    }
+  }
+
+  private final ByteBuffer m_aBuffer;
+  private final boolean m_bDirected;
+  private final int m_nNodeCount;
+  private final int m_nRelationCount;
+  private final int m_nStringOffsetsPos;
+  private final int m_nStringBytesPos;
+  private final int m_nNodeIDIndexPos;
+  private final int m_nTopologyPos;
+  private final Column [] m_aGraphColumns;
+  private final Column [] m_aNodeColumns;
+  private final Column [] m_aRelationColumns;
+
+  private MappedGraphFile (@Nonnull final ByteBuffer aBuffer) throws IOException
+  {
+    m_aBuffer = aBuffer;
+    if (aBuffer.capacity () < CompactGraphFile.HEADER_SIZE || aBuffer.getInt (0) != CompactGraphFile.MAGIC)
+      throw new IOException ("Not a compact graph file");
+    final int nVersion = aBuffer.getInt (4);
+    if (nVersion != CompactGraphFile.VERSION)
+      throw new IOException ("Unsupported compact graph file version " + nVersion);
+    m_bDirected = (aBuffer.getInt (8) & CompactGraphFile.FLAG_DIRECTED) != 0;
+    m_nNodeCount = aBuffer.getInt (12);
+    m_nRelationCount = aBuffer.getInt (16);
+    final int nNodeColumnCount = aBuffer.getInt (20);
+    final int nRelationColumnCount = aBuffer.getInt (24);
+    final int nGraphColumnCount = aBuffer.getInt (28);
+
+    // String table: graph ID, node IDs, relation IDs
+    int nPos = CompactGraphFile.HEADER_SIZE;
+    final int nStringCount = aBuffer.getInt (nPos);
+    if (nStringCount != 1 + m_nNodeCount + m_nRelationCount)
+      throw new IOException ("Corrupt string table");
+    m_nStringOffsetsPos = nPos + 4;
+    m_nStringBytesPos = m_nStringOffsetsPos + 4 * (nStringCount + 1);
+    nPos = _align (m_nStringBytesPos + aBuffer.getInt (m_nStringOffsetsPos + 4 * nStringCount));
+
+    m_nNodeIDIndexPos = nPos;
+    nPos = _align (nPos + 4 * m_nNodeCount);
+
+    m_nTopologyPos = nPos;
+    if (m_bDirected)
+      nPos = _align (nPos + 4 * (2 * (m_nNodeCount + 1) + 3 * m_nRelationCount));
+    else
+      nPos = _align (nPos + 4 * 2 * m_nRelationCount);
+
+    m_aGraphColumns = new Column [nGraphColumnCount];
+    for (int i = 0; i < nGraphColumnCount; ++i)
+      nPos = _readColumn (nPos, 1, m_aGraphColumns, i);
+    m_aNodeColumns = new Column [nNodeColumnCount];
+    for (int i = 0; i < nNodeColumnCount; ++i)
+      nPos = _readColumn (nPos, m_nNodeCount, m_aNodeColumns, i);
+    m_aRelationColumns = new Column [nRelationColumnCount];
+    for (int i = 0; i < nRelationColumnCount; ++i)
+      nPos = _readColumn (nPos, m_nRelationCount, m_aRelationColumns, i);
+    if (nPos > aBuffer.capacity ())
+      throw new IOException ("Compact graph file is truncated");
+  }
+
+  private static int _align (final int nPos)
+  {
+    return (nPos + 7) & ~7;
+  }
+
+  private int _readColumn (final int nPos, final int nCount, @Nonnull final Column [] aTarget, final int nIndex) throws IOException
+  {
+    final int nType = m_aBuffer.getInt (nPos);
+    final int nNameLength = m_aBuffer.getInt (nPos + 4);
+    final String sName = _decode (nPos + 8, nNameLength);
+    final int nBitmapPos = _align (nPos + 8 + nNameLength);
+    final int nValuesPos = nBitmapPos + 8 * CompactGraphFileColumn.getBitmapWordCount (nCount);
+    int nStringBytesPos = 0;
+    int nEndPos;
+    switch (nType)
+    {
+      case CompactGraphFileColumn.TYPE_BOOLEAN:
+        nEndPos = nValuesPos + nCount;
+        break;
+      case CompactGraphFileColumn.TYPE_INT:
+        nEndPos = nValuesPos + 4 * nCount;
+        break;
+      case CompactGraphFileColumn.TYPE_LONG:
+      case CompactGraphFileColumn.TYPE_DOUBLE:
+        nEndPos = nValuesPos + 8 * nCount;
+        break;
+      case CompactGraphFileColumn.TYPE_STRING:
+        nStringBytesPos = nValuesPos + 4 * (nCount + 1);
+        nEndPos = nStringBytesPos + m_aBuffer.getInt (nValuesPos + 4 * nCount);
+        break;
+      default:
+        throw new IOException ("Unsupported attribute type " + nType + " of column '" + sName + "'");
+    }
+    aTarget[nIndex] = new Column (sName, nType, nBitmapPos, nValuesPos, nStringBytesPos);
+    return _align (nEndPos);
+  }
+
+  @Nonnull
+  private String _decode (final int nPos, @Nonnegative final int nLength)
+  {
+    final byte [] aBytes = new byte [nLength];
+    for (int i = 0; i < nLength; ++i)
+      aBytes[i] = m_aBuffer.get (nPos + i);
+    return CharsetManager.getAsString (aBytes, CCharset.CHARSET_UTF_8_OBJ);
+  }
+
+  @Nonnull
+  private String _getString (@Nonnegative final int nIndex)
+  {
+    final int nStart = m_aBuffer.getInt (m_nStringOffsetsPos + 4 * nIndex);
+    final int nEnd = m_aBuffer.getInt (m_nStringOffsetsPos + 4 * (nIndex + 1));
+    return _decode (m_nStringBytesPos + nStart, nEnd - nStart);
+  }
+
+  @Nonnull
+  private int [] _getInts (final int nPos, @Nonnegative final int nCount)
+  {
+    final int [] ret = new int [nCount];
+    final ByteBuffer aBuffer = m_aBuffer.duplicate ();
+    aBuffer.position (nPos);
+    aBuffer.asIntBuffer ().get (ret);
+    return ret;
+  }
+
+  @Nullable
+  private Object _getValue (@Nonnull final Column aColumn, @Nonnegative final int nIndex)
+  {
+    final long nBits = m_aBuffer.getLong (aColumn.m_nBitmapPos + 8 * (nIndex >> 6));
+    if ((nBits & (1L << (nIndex & 63))) == 0)
+      return null;
+    switch (aColumn.m_nType)
+    {
+      case CompactGraphFileColumn.TYPE_BOOLEAN:
+        return Boolean.valueOf (m_aBuffer.get (aColumn.m_nValuesPos + nIndex) != 0);
+      case CompactGraphFileColumn.TYPE_INT:
+        return Integer.valueOf (m_aBuffer.getInt (aColumn.m_nValuesPos + 4 * nIndex));
+      case CompactGraphFileColumn.TYPE_LONG:
+        return Long.valueOf (m_aBuffer.getLong (aColumn.m_nValuesPos + 8 * nIndex));
+      case CompactGraphFileColumn.TYPE_DOUBLE:
+        return Double.valueOf (m_aBuffer.getDouble (aColumn.m_nValuesPos + 8 * nIndex));
+      default:
+      {
+        final int nStart = m_aBuffer.getInt (aColumn.m_nValuesPos + 4 * nIndex);
+        final int nEnd = m_aBuffer.getInt (aColumn.m_nValuesPos + 4 * (nIndex + 1));
+        return _decode (aColumn.m_nStringBytesPos + nStart, nEnd - nStart);
+      }
+    }
+  }
+
+  @Nullable
+  private Map <String, Object> _getAttributes (@Nonnull final Column [] aColumns, @Nonnegative final int nIndex)
+  {
+    Map <String, Object> ret = null;
+    for (final Column aColumn : aColumns)
+    {
+      final Object aValue = _getValue (aColumn, nIndex);
+      if (aValue != null)
+      {
+        if (ret == null)
+          ret = new HashMap <String, Object> ();
+        ret.put (aColumn.m_sName, aValue);
+      }
+    }
+    return ret;
+  }
+
+  boolean isDirected ()
+  {
+    return m_bDirected;
+  }
+
+  @Nonnull
+  String getGraphID ()
+  {
+    return _getString (0);
+  }
+
+  @Nullable
+  Map <String, Object> getGraphAttributes ()
+  {
+    return _getAttributes (m_aGraphColumns, 0);
+  }
+
+  @Nonnegative
+  int getNodeCount ()
+  {
+    return m_nNodeCount;
+  }
+
+  @Nonnegative
+  int getRelationCount ()
+  {
+    return m_nRelationCount;
+  }
+
+  @Nonnull
+  String getNodeID (@Nonnegative final int nNodeIndex)
+  {
+    return _getString (1 + nNodeIndex);
+  }
+
+  @Nonnull
+  String getRelationID (@Nonnegative final int nRelationIndex)
+  {
+    return _getString (1 + m_nNodeCount + nRelationIndex);
+  }
+
+  @Nullable
+  Map <String, Object> getNodeAttributes (@Nonnegative final int nNodeIndex)
+  {
+    return _getAttributes (m_aNodeColumns, nNodeIndex);
+  }
+
+  @Nullable
+  Map <String, Object> getRelationAttributes (@Nonnegative final int nRelationIndex)
+  {
+    return _getAttributes (m_aRelationColumns, nRelationIndex);
+  }
+
+  /**
+   * Binary search the node ID index, which contains all node indices sorted
+   * by node ID.
+   * 
+   * @param sID
+   *        The node ID to search. May be <code>null</code>.
+   * @return {@link CGlobal#ILLEGAL_UINT} if no such node is contained.
+   */
+  int getNodeIndex (@Nullable final String sID)
+  {
+    if (sID == null)
+      return CGlobal.ILLEGAL_UINT;
+    int nLow = 0;
+    int nHigh = m_nNodeCount - 1;
+    while (nLow <= nHigh)
+    {
+      final int nMid = (nLow + nHigh) >>> 1;
+      final int nNodeIndex = m_aBuffer.getInt (m_nNodeIDIndexPos + 4 * nMid);
+      final int nCmp = getNodeID (nNodeIndex).compareTo (sID);
+      if (nCmp < 0)
+        nLow = nMid + 1;
+      else
+        if (nCmp > 0)
+          nHigh = nMid - 1;
+        else
+          return nNodeIndex;
+    }
+    return CGlobal.ILLEGAL_UINT;
+  }
+
+  // Directed topology
+
+  @Nonnull
+  int [] getOutgoingOffsets ()
+  {
+    return _getInts (m_nTopologyPos, m_nNodeCount + 1);
+  }
+
+  @Nonnull
+  int [] getOutgoingNodes ()
+  {
+    return _getInts (m_nTopologyPos + 4 * (m_nNodeCount + 1), m_nRelationCount);
+  }
+
+  @Nonnull
+  int [] getIncomingOffsets ()
+  {
+    return _getInts (m_nTopologyPos + 4 * (m_nNodeCount + 1 + m_nRelationCount), m_nNodeCount + 1);
+  }
+
+  @Nonnull
+  int [] getIncomingNodes ()
+  {
+    return _getInts (m_nTopologyPos + 4 * (2 * (m_nNodeCount + 1) + m_nRelationCount), m_nRelationCount);
+  }
+
+  @Nonnull
+  int [] getIncomingRelations ()
+  {
+    return _getInts (m_nTopologyPos + 4 * (2 * (m_nNodeCount + 1) + 2 * m_nRelationCount), m_nRelationCount);
+  }
+
+  // Undirected topology
+
+  @Nonnull
+  int [] getFirstNodes ()
+  {
+    return _getInts (m_nTopologyPos, m_nRelationCount);
+  }
+
+  @Nonnull
+  int [] getSecondNodes ()
+  {
+    return _getInts (m_nTopologyPos + 4 * m_nRelationCount, m_nRelationCount);
+  }
+
+  @Nonnull
+  CompactDirectedGraphNode createNode (@Nonnull final CompactDirectedGraph aGraph, @Nonnegative final int nNodeIndex)
+  {
+    return new CompactDirectedGraphNode (aGraph, nNodeIndex, getNodeID (nNodeIndex), getNodeAttributes (nNodeIndex));
+  }
+
+  @Nonnull
+  CompactDirectedGraphRelation createRelation (@Nonnull final CompactDirectedGraph aGraph,
+                                               @Nonnegative final int nRelationIndex)
+  {
+    return new CompactDirectedGraphRelation (aGraph,
+                                             nRelationIndex,
+                                             getRelationID (nRelationIndex),
+                                             getRelationAttributes (nRelationIndex));
+  }
+
+  /**
+   * Map the passed file into memory. The file channel is closed immediately -
+   * the mapping stays valid until the returned object is garbage collected.
+   * 
+   * @param aFile
+   *        The file to map. May not be <code>null</code>.
+   * @return The mapped file and never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be read or is not a valid compact graph file.
+   */
+  @Nonnull
+  static MappedGraphFile map (@Nonnull final File aFile) throws IOException
+  {
+    if (aFile == null)
+      throw new NullPointerException ("file");
+    final RandomAccessFile aRAF = new RandomAccessFile (aFile, "r");
+    try
+    {
+      final FileChannel aChannel = aRAF.getChannel ();
+      final long nSize = aChannel.size ();
+      if (nSize > Integer.MAX_VALUE)
+        throw new IOException ("Compact graph files larger than 2GB are not supported: " + aFile);
+      return new MappedGraphFile (aChannel.map (FileChannel.MapMode.READ_ONLY, 0, nSize));
+    }
+    finally
+    {
+      StreamUtils.close (aRAF);
+    }
+  }
+}
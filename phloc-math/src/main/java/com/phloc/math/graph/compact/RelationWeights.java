@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IBaseGraphRelation;
+
+/**
+ * The weights of all relations of an {@link IndexedGraph}, stored in a dense
+ * <code>double</code> array indexed by the relation index. The weight
+ * attribute of each relation is resolved exactly once upon creation, so that
+ * algorithms don't need to perform an attribute lookup and a type conversion
+ * for every access. <code>int</code> and <code>long</code> weights are
+ * represented exactly as long as their absolute value is &le; 2<sup>53</sup>.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class RelationWeights
+{
+  private final double [] m_aWeights;
+  private final boolean m_bNonNegative;
+
+  /**
+   * Constructor
+   * 
+   * @param aWeights
+   *        The weights indexed by relation index. May not be <code>null</code>
+   *        and may not contain {@link Double#NaN} values. The array is copied.
+   */
+  public RelationWeights (@Nonnull final double [] aWeights)
+  {
+    if (aWeights == null)
+      throw new NullPointerException ("weights");
+
+    m_aWeights = aWeights.clone ();
+    boolean bNonNegative = true;
+    for (int i = 0; i < m_aWeights.length; ++i)
+    {
+      if (Double.isNaN (m_aWeights[i]))
+        throw new IllegalArgumentException ("Weight of relation index " + i + " is not a number");
+      if (m_aWeights[i] < 0)
+        bNonNegative = false;
+    }
+    m_bNonNegative = bNonNegative;
+  }
+
+  /**
+   * @return The number of contained weights. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_aWeights.length;
+  }
+
+  /**
+   * @param nRelationIndex
+   *        The relation index. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount()}.
+   * @return The weight of the relation with the passed index.
+   */
+  public double getWeight (@Nonnegative final int nRelationIndex)
+  {
+    return m_aWeights[nRelationIndex];
+  }
+
+  /**
+   * @return <code>true</code> if no weight is negative.
+   */
+  public boolean isNonNegative ()
+  {
+    return m_bNonNegative;
+  }
+
+  /**
+   * @return A copy of all weights indexed by relation index. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] getAllWeights ()
+  {
+    return m_aWeights.clone ();
+  }
+
+  /**
+   * Get all relation indices sorted ascending by their weight. Relations with
+   * the same weight are ordered by their index. No object is created per
+   * relation.
+   * 
+   * @return The sorted relation indices. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] getSortedRelationIndices ()
+  {
+    final int nCount = m_aWeights.length;
+    int [] aSrc = new int [nCount];
+    for (int i = 0; i < nCount; ++i)
+      aSrc[i] = i;
+
+    // Bottom-up merge sort, which is stable
+    int [] aDst = new int [nCount];
+    for (int nWidth = 1; nWidth < nCount; nWidth *= 2)
+    {
+      for (int nLeft = 0; nLeft < nCount; nLeft += 2 * nWidth)
+      {
+        final int nMid = Math.min (nLeft + nWidth, nCount);
+        final int nRight = Math.min (nLeft + 2 * nWidth, nCount);
+        int i = nLeft;
+        int j = nMid;
+        int k = nLeft;
+        while (i < nMid && j < nRight)
+          aDst[k++] = m_aWeights[aSrc[j]] < m_aWeights[aSrc[i]] ? aSrc[j++] : aSrc[i++];
+        while (i < nMid)
+          aDst[k++] = aSrc[i++];
+        while (j < nRight)
+          aDst[k++] = aSrc[j++];
+      }
+      final int [] aTmp = aSrc;
+      aSrc = aDst;
+      aDst = aTmp;
+    }
+    return aSrc;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!(o instanceof RelationWeights))
+      return false;
+    final RelationWeights rhs = (RelationWeights) o;
+    return Arrays.equals (m_aWeights, rhs.m_aWeights);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_aWeights).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("relationCount", m_aWeights.length)
+                                       .append ("nonNegative", m_bNonNegative)
+                                       .toString ();
+  }
+
+  /**
+   * Resolve the weights of all relations of the passed index from a relation
+   * attribute.
+   * 
+   * @param aIndex
+   *        The indexed graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute containing the numeric weight.
+   *        May neither be <code>null</code> nor empty.
+   * @return The weights indexed by relation index. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no numeric weight attribute
+   */
+  @Nonnull
+  public static RelationWeights createFromAttribute (@Nonnull final IndexedGraph <?, ?> aIndex,
+                                                     @Nonnull @Nonempty final String sWeightAttr)
+  {
+    if (aIndex == null)
+      throw new NullPointerException ("index");
+    if (StringHelper.hasNoText (sWeightAttr))
+      throw new IllegalArgumentException ("weightAttr");
+
+    final double [] aWeights = new double [aIndex.getRelationCount ()];
+    for (int i = 0; i < aWeights.length; ++i)
+    {
+      final IBaseGraphRelation <?, ?> aRelation = aIndex.getRelationOfIndex (i);
+      final double dWeight = aRelation.getAttributeAsDouble (sWeightAttr, Double.NaN);
+      if (Double.isNaN (dWeight))
+        throw new IllegalArgumentException ("Relation '" +
+                                            aRelation.getID () +
+                                            "' has no numeric weight in attribute '" +
+                                            sWeightAttr +
+                                            "'");
+      aWeights[i] = dWeight;
+    }
+    return new RelationWeights (aWeights);
+  }
+}
@@ -17,7 +17,11 @@
  */
 package com.phloc.math.graph.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,13 +30,18 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.state.EChange;
 import com.phloc.commons.string.ToStringGenerator;
 import com.phloc.math.graph.IBaseGraph;
 import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphObject;
 import com.phloc.math.graph.IBaseGraphRelation;
+import com.phloc.math.graph.IGraphChangeListener;
 
 /**
  * A simple graph object that bidirectionally links graph nodes.
@@ -44,13 +53,39 @@ public abstract class AbstractBaseGraph <N extends IBaseGraphNode <N, R>, R exte
 {
   /** By default this is allowed */
   public static final boolean DEFAULT_CHANGING_CONNECTED_OBJECTS_ALLOWED = true;
+  /** The default expected node count used to size the node map */
+  public static final int DEFAULT_EXPECTED_NODE_COUNT = 12;
 
-  protected final Map <String, N> m_aNodes = new LinkedHashMap <String, N> ();
+  protected final Map <String, N> m_aNodes;
+  private final Collection <N> m_aNodesView;
   private boolean m_bIsChangingConnectedObjectsAllowed = DEFAULT_CHANGING_CONNECTED_OBJECTS_ALLOWED;
+  private long m_nModificationStamp = 0;
+  // Created upon the first registration
+  private List <IGraphChangeListener <N, R>> m_aChangeListeners;
 
   public AbstractBaseGraph (@Nullable final String sID)
+  {
+    this (sID, DEFAULT_EXPECTED_NODE_COUNT);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param sID
+   *        The graph ID. May be <code>null</code> to create a new ID.
+   * @param nExpectedNodeCount
+   *        The number of nodes that are expected to be added. Used to presize
+   *        the internal node map, so that large graphs can be filled without
+   *        rehashing.
+   */
+  public AbstractBaseGraph (@Nullable final String sID, @Nonnegative final int nExpectedNodeCount)
   {
     super (sID);
+    if (nExpectedNodeCount < 0)
+      throw new IllegalArgumentException ("ExpectedNodeCount may not be negative: " + nExpectedNodeCount);
+    // Take the default load factor into account
+    m_aNodes = new LinkedHashMap <String, N> ((int) Math.ceil (nExpectedNodeCount / 0.75));
+    m_aNodesView = Collections.unmodifiableCollection (m_aNodes.values ());
   }
 
   public void setChangingConnectedObjectsAllowed (final boolean bIsChangingConnectedObjectsAllowed)
@@ -63,6 +98,181 @@ public abstract class AbstractBaseGraph <N extends IBaseGraphNode <N, R>, R exte
     return m_bIsChangingConnectedObjectsAllowed;
   }
 
+  @Nonnegative
+  public final long getModificationStamp ()
+  {
+    return m_nModificationStamp;
+  }
+
+  @Nonnull
+  public final EChange addChangeListener (@Nonnull final IGraphChangeListener <N, R> aListener)
+  {
+    if (aListener == null)
+      throw new NullPointerException ("listener");
+
+    if (m_aChangeListeners == null)
+      m_aChangeListeners = new ArrayList <IGraphChangeListener <N, R>> ();
+    else
+      if (m_aChangeListeners.contains (aListener))
+        return EChange.UNCHANGED;
+    m_aChangeListeners.add (aListener);
+    return EChange.CHANGED;
+  }
+
+  @Nonnull
+  public final EChange removeChangeListener (@Nullable final IGraphChangeListener <N, R> aListener)
+  {
+    return EChange.valueOf (m_aChangeListeners != null && m_aChangeListeners.remove (aListener));
+  }
+
+  /**
+   * @return A copy of the registered change listeners, so that listeners may
+   *         unregister themselves while being notified. <code>null</code> if
+   *         no listener is registered.
+   */
+  @Nullable
+  private List <IGraphChangeListener <N, R>> _getChangeListeners ()
+  {
+    return ContainerHelper.isEmpty (m_aChangeListeners) ? null : ContainerHelper.newList (m_aChangeListeners);
+  }
+
+  private void _addOwnerGraph (@Nonnull final IBaseGraphObject aObject)
+  {
+    // Objects of other implementations cannot notify about attribute changes
+    if (aObject instanceof AbstractBaseGraphObject)
+      ((AbstractBaseGraphObject) aObject).addOwnerGraph (this);
+  }
+
+  private void _removeOwnerGraph (@Nonnull final IBaseGraphObject aObject)
+  {
+    if (aObject instanceof AbstractBaseGraphObject)
+      ((AbstractBaseGraphObject) aObject).removeOwnerGraph (this);
+  }
+
+  /**
+   * Must be called by implementations after a node was added. The relations
+   * the node already has are tracked for attribute changes as well.
+   * 
+   * @param aNode
+   *        The added node.
+   */
+  protected final void onNodeAdded (@Nonnull final N aNode)
+  {
+    ++m_nModificationStamp;
+    _addOwnerGraph (aNode);
+    if (aNode.hasRelations ())
+      aNode.forEachRelation (new INonThrowingRunnableWithParameter <R> ()
+      {
+        public void run (final R aRelation)
+        {
+          _addOwnerGraph (aRelation);
+        }
+      });
+
+    final List <IGraphChangeListener <N, R>> aListeners = _getChangeListeners ();
+    if (aListeners != null)
+      for (final IGraphChangeListener <N, R> aListener : aListeners)
+        aListener.onNodeAdded (aNode);
+  }
+
+  /**
+   * Must be called by implementations after a node was removed.
+   * 
+   * @param aNode
+   *        The removed node.
+   */
+  protected final void onNodeRemoved (@Nonnull final N aNode)
+  {
+    ++m_nModificationStamp;
+    _removeOwnerGraph (aNode);
+
+    final List <IGraphChangeListener <N, R>> aListeners = _getChangeListeners ();
+    if (aListeners != null)
+      for (final IGraphChangeListener <N, R> aListener : aListeners)
+        aListener.onNodeRemoved (aNode);
+  }
+
+  /**
+   * Must be called by implementations after all nodes were removed at once.
+   * First all relations of the removed nodes are reported as removed - each
+   * relation only once, even if it is contained in both connected nodes -
+   * afterwards all nodes.
+   * 
+   * @param aNodes
+   *        The removed nodes.
+   */
+  protected final void onAllNodesRemoved (@Nonnull final Collection <N> aNodes)
+  {
+    final Map <String, R> aRelations = new LinkedHashMap <String, R> ();
+    for (final N aNode : aNodes)
+      aNode.forEachRelation (new INonThrowingRunnableWithParameter <R> ()
+      {
+        public void run (final R aRelation)
+        {
+          aRelations.put (aRelation.getID (), aRelation);
+        }
+      });
+    for (final R aRelation : aRelations.values ())
+      onRelationRemoved (aRelation);
+    for (final N aNode : aNodes)
+      onNodeRemoved (aNode);
+  }
+
+  /**
+   * Must be called by implementations after a relation was added.
+   * 
+   * @param aRelation
+   *        The added relation.
+   */
+  protected final void onRelationAdded (@Nonnull final R aRelation)
+  {
+    ++m_nModificationStamp;
+    _addOwnerGraph (aRelation);
+
+    final List <IGraphChangeListener <N, R>> aListeners = _getChangeListeners ();
+    if (aListeners != null)
+      for (final IGraphChangeListener <N, R> aListener : aListeners)
+        aListener.onRelationAdded (aRelation);
+  }
+
+  /**
+   * Must be called by implementations after a relation was removed.
+   * 
+   * @param aRelation
+   *        The removed relation.
+   */
+  protected final void onRelationRemoved (@Nonnull final R aRelation)
+  {
+    ++m_nModificationStamp;
+    _removeOwnerGraph (aRelation);
+
+    final List <IGraphChangeListener <N, R>> aListeners = _getChangeListeners ();
+    if (aListeners != null)
+      for (final IGraphChangeListener <N, R> aListener : aListeners)
+        aListener.onRelationRemoved (aRelation);
+  }
+
+  /**
+   * Called by the graph itself and by the contained nodes and relations after
+   * an attribute was set or removed.
+   */
+  final void onObjectAttributeChanged (@Nonnull final IBaseGraphObject aObject, @Nonnull final String sAttrName)
+  {
+    ++m_nModificationStamp;
+
+    final List <IGraphChangeListener <N, R>> aListeners = _getChangeListeners ();
+    if (aListeners != null)
+      for (final IGraphChangeListener <N, R> aListener : aListeners)
+        aListener.onAttributeChanged (aObject, sAttrName);
+  }
+
+  @Override
+  protected void onAttributeChanged (@Nonnull final String sAttrName)
+  {
+    // An attribute of the graph itself changed
+    onObjectAttributeChanged (this, sAttrName);
+  }
+
   @Nullable
   public N getNodeOfID (@Nullable final String sID)
   {
@@ -89,6 +299,21 @@ public abstract class AbstractBaseGraph <N extends IBaseGraphNode <N, R>, R exte
     return ContainerHelper.newOrderedSet (m_aNodes.keySet ());
   }
 
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <N> getNodesView ()
+  {
+    return m_aNodesView;
+  }
+
+  public void forEachNode (@Nonnull final INonThrowingRunnableWithParameter <N> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    for (final N aNode : m_aNodes.values ())
+      aCallback.run (aNode);
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -96,7 +321,8 @@ public abstract class AbstractBaseGraph <N extends IBaseGraphNode <N, R>, R exte
       return true;
     if (!(o instanceof AbstractBaseGraph <?, ?>))
       return false;
-    // Do not use m_eHasCycles because this is just a state variable
+    // Do not use m_eHasCycles and the modification stamp because these are
+    // just state variables
     final AbstractBaseGraph <?, ?> rhs = (AbstractBaseGraph <?, ?>) o;
     return m_aNodes.equals (rhs.m_aNodes);
   }
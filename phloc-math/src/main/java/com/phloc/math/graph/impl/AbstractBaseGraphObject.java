@@ -17,6 +17,10 @@
  */
 package com.phloc.math.graph.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -24,6 +28,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 import com.phloc.commons.annotations.Nonempty;
 import com.phloc.commons.collections.attrs.MapBasedAttributeContainer;
 import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.state.EChange;
 import com.phloc.commons.string.StringHelper;
 import com.phloc.commons.string.ToStringGenerator;
 import com.phloc.math.graph.IBaseGraphObject;
@@ -37,6 +42,10 @@ import com.phloc.math.graph.IBaseGraphObject;
 public abstract class AbstractBaseGraphObject extends MapBasedAttributeContainer implements IBaseGraphObject
 {
   private final String m_sID;
+  // The graphs this object is contained in - notified about attribute changes.
+  // The first graph is stored separately, as this is the common case.
+  private AbstractBaseGraph <?, ?> m_aOwnerGraph;
+  private List <AbstractBaseGraph <?, ?>> m_aMoreOwnerGraphs;
 
   /**
    * Constructor
@@ -60,6 +69,81 @@ public abstract class AbstractBaseGraphObject extends MapBasedAttributeContainer
     return m_sID;
   }
 
+  final void addOwnerGraph (@Nonnull final AbstractBaseGraph <?, ?> aGraph)
+  {
+    if (m_aOwnerGraph == null)
+      m_aOwnerGraph = aGraph;
+    else
+      if (m_aOwnerGraph != aGraph)
+      {
+        if (m_aMoreOwnerGraphs == null)
+          m_aMoreOwnerGraphs = new ArrayList <AbstractBaseGraph <?, ?>> (2);
+        if (!m_aMoreOwnerGraphs.contains (aGraph))
+          m_aMoreOwnerGraphs.add (aGraph);
+      }
+  }
+
+  final void removeOwnerGraph (@Nonnull final AbstractBaseGraph <?, ?> aGraph)
+  {
+    if (m_aOwnerGraph == aGraph)
+      m_aOwnerGraph = m_aMoreOwnerGraphs == null || m_aMoreOwnerGraphs.isEmpty () ? null
+                                                                                : m_aMoreOwnerGraphs.remove (0);
+    else
+      if (m_aMoreOwnerGraphs != null)
+        m_aMoreOwnerGraphs.remove (aGraph);
+  }
+
+  /**
+   * Called after an attribute of this object was set or removed. Notifies all
+   * graphs containing this object.
+   * 
+   * @param sAttrName
+   *        The name of the changed attribute.
+   */
+  protected void onAttributeChanged (@Nonnull final String sAttrName)
+  {
+    if (m_aOwnerGraph != null)
+    {
+      m_aOwnerGraph.onObjectAttributeChanged (this, sAttrName);
+      if (m_aMoreOwnerGraphs != null)
+        for (final AbstractBaseGraph <?, ?> aGraph : m_aMoreOwnerGraphs)
+          aGraph.onObjectAttributeChanged (this, sAttrName);
+    }
+  }
+
+  @Override
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, @Nullable final Object aValue)
+  {
+    // A null value is handled by removeAttribute
+    final EChange ret = super.setAttribute (sName, aValue);
+    if (aValue != null && ret.isChanged ())
+      onAttributeChanged (sName);
+    return ret;
+  }
+
+  @Override
+  @Nonnull
+  public EChange removeAttribute (@Nullable final String sName)
+  {
+    final EChange ret = super.removeAttribute (sName);
+    if (ret.isChanged ())
+      onAttributeChanged (sName);
+    return ret;
+  }
+
+  @Override
+  @Nonnull
+  public EChange clear ()
+  {
+    final Set <String> aAttrNames = getAllAttributeNames ();
+    final EChange ret = super.clear ();
+    if (ret.isChanged ())
+      for (final String sAttrName : aAttrNames)
+        onAttributeChanged (sAttrName);
+    return ret;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
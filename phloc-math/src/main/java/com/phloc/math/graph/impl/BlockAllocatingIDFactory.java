@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.idfactory.IStringIDFactory;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * A lock free ID factory that is meant to be used with
+ * {@link GraphObjectIDFactory#setIDFactory(com.phloc.commons.idfactory.IIDFactory)}
+ * when many graph objects are created concurrently. Each thread reserves a
+ * block of consecutive numeric IDs from a shared {@link AtomicLong} and hands
+ * them out without any synchronization until the block is exhausted. The
+ * created IDs are unique per factory instance, but IDs created by different
+ * threads are not ordered by creation time.
+ * 
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class BlockAllocatingIDFactory implements IStringIDFactory
+{
+  /** The default prefix of all created IDs */
+  public static final String DEFAULT_PREFIX = "go";
+  /** The default number of IDs reserved at once by a thread */
+  public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  private final String m_sPrefix;
+  private final int m_nBlockSize;
+  private final AtomicLong m_aNextBlockStart = new AtomicLong (0);
+  // Per thread: [0] = next ID, [1] = exclusive end of the reserved block
+  private final ThreadLocal <long []> m_aBlock = new ThreadLocal <long []> ()
+  {
+    @Override
+    protected long [] initialValue ()
+    {
+      return new long [2];
+    }
+  };
+
+  public BlockAllocatingIDFactory ()
+  {
+    this (DEFAULT_PREFIX, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param sPrefix
+   *        The prefix of all created IDs. May neither be <code>null</code> nor
+   *        empty, as created IDs must be valid graph object IDs.
+   * @param nBlockSize
+   *        The number of IDs a thread reserves at once. Must be &gt; 0.
+   */
+  public BlockAllocatingIDFactory (@Nonnull @Nonempty final String sPrefix, @Nonnegative final int nBlockSize)
+  {
+    if (StringHelper.hasNoText (sPrefix))
+      throw new IllegalArgumentException ("prefix may not be empty");
+    if (nBlockSize <= 0)
+      throw new IllegalArgumentException ("Block size must be > 0: " + nBlockSize);
+    m_sPrefix = sPrefix;
+    m_nBlockSize = nBlockSize;
+  }
+
+  /**
+   * @return The prefix of all created IDs. Neither <code>null</code> nor
+   *         empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getPrefix ()
+  {
+    return m_sPrefix;
+  }
+
+  /**
+   * @return The number of IDs a thread reserves at once. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getBlockSize ()
+  {
+    return m_nBlockSize;
+  }
+
+  /**
+   * @return The number of IDs reserved so far by all threads. This is an upper
+   *         bound of the number of IDs created.
+   */
+  @Nonnegative
+  public long getReservedIDCount ()
+  {
+    return m_aNextBlockStart.get ();
+  }
+
+  /**
+   * @return The next numeric ID of the calling thread.
+   */
+  private long _getNextNumericID ()
+  {
+    final long [] aBlock = m_aBlock.get ();
+    if (aBlock[0] == aBlock[1])
+    {
+      // Block exhausted - reserve the next one
+      final long nStart = m_aNextBlockStart.getAndAdd (m_nBlockSize);
+      aBlock[0] = nStart;
+      aBlock[1] = nStart + m_nBlockSize;
+    }
+    return aBlock[0]++;
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getNewID ()
+  {
+    return m_sPrefix + Long.toString (_getNextNumericID ());
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("prefix", m_sPrefix)
+                                       .append ("blockSize", m_nBlockSize)
+                                       .append ("reservedIDCount", m_aNextBlockStart.get ())
+                                       .toString ();
+  }
+}
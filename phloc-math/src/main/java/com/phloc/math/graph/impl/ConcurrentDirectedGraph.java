@@ -0,0 +1,978 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsImmutableObject;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.collections.attrs.AbstractReadonlyAttributeContainer;
+import com.phloc.commons.collections.attrs.IReadonlyAttributeContainer;
+import com.phloc.commons.state.EChange;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IBaseGraphObject;
+import com.phloc.math.graph.IDirectedGraph;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphObjectFactory;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphChangeListener;
+import com.phloc.math.graph.compact.CompactDirectedGraph;
+import com.phloc.math.graph.compact.CompactDirectedGraphNode;
+import com.phloc.math.matrix.Matrix;
+
+/**
+ * A directed graph that can be shared between threads without external
+ * locking:
+ * <ul>
+ * <li>All modifications are serialized by a single lock and are applied to an
+ * internal {@link DirectedGraph}.</li>
+ * <li>All read methods work on an immutable {@link CompactDirectedGraph}
+ * snapshot that is rebuilt on the first read after a modification. Reads
+ * between modifications are lock free and always see a consistent state.</li>
+ * <li>Snapshots are built incrementally: an immutable copy of each node with
+ * its outgoing relations is kept and only recreated for the nodes touched by a
+ * modification. The write lock is only held while the changed node copies are
+ * recreated and the node copies are collected - the snapshot itself is built
+ * outside of the lock.</li>
+ * <li>{@link #getNodeCount()}, {@link #getRelationCount()} and
+ * {@link #getNodeOfID(String)} (for nodes not changed since the last snapshot)
+ * don't require a new snapshot.</li>
+ * </ul>
+ * Long running algorithms should explicitly retrieve {@link #getSnapshot()}
+ * and work on it (e.g. <code>Dijkstra.applyDijkstra (aGraph.getSnapshot (),
+ * ...)</code>) while other threads continue to modify the graph.<br>
+ * The node and relation objects returned by the read methods are the
+ * immutable objects of the snapshot. They can be passed to the modifying
+ * methods of this graph, as they are resolved by ID. The objects returned by
+ * <code>createNode</code> and <code>createRelation</code> are the mutable
+ * objects of the internal graph - their attributes may only be modified
+ * within {@link #modify(INonThrowingRunnableWithParameter)}.<br>
+ * Snapshots only contain relations between nodes of this graph.
+ * 
+ * @author Philip Helger
+ */
+@ThreadSafe
+public class ConcurrentDirectedGraph extends AbstractReadonlyAttributeContainer implements IDirectedGraph
+{
+  /**
+   * Immutable copy of a single node of the internal graph together with its
+   * outgoing relations.
+   * 
+   * @author Philip Helger
+   */
+  private static final class NodeCopy
+  {
+    private final String m_sID;
+    private final Map <String, Object> m_aAttrs;
+    private final List <String> m_aRelationIDs;
+    private final List <String> m_aRelationToIDs;
+    private final List <Map <String, Object>> m_aRelationAttrs;
+
+    NodeCopy (@Nonnull final IDirectedGraphNode aNode)
+    {
+      m_sID = aNode.getID ();
+      m_aAttrs = _getAttrs (aNode);
+      final int nRelationCount = aNode.getOutgoingRelationCount ();
+      m_aRelationIDs = new ArrayList <String> (nRelationCount);
+      m_aRelationToIDs = new ArrayList <String> (nRelationCount);
+      m_aRelationAttrs = new ArrayList <Map <String, Object>> (nRelationCount);
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+      {
+        m_aRelationIDs.add (aRelation.getID ());
+        m_aRelationToIDs.add (aRelation.getToID ());
+        m_aRelationAttrs.add (_getAttrs (aRelation));
+      }
+    }
+  }
+
+  /**
+   * A built snapshot together with the modification stamp of the internal
+   * graph it reflects.
+   * 
+   * @author Philip Helger
+   */
+  private static final class Snapshot
+  {
+    private final long m_nModificationStamp;
+    private final CompactDirectedGraph m_aGraph;
+
+    Snapshot (final long nModificationStamp, @Nonnull final CompactDirectedGraph aGraph)
+    {
+      m_nModificationStamp = nModificationStamp;
+      m_aGraph = aGraph;
+    }
+  }
+
+  /**
+   * Internal listener that keeps track of the nodes that need a new copy. It
+   * is invoked with the write lock held, also for changes performed within
+   * {@link ConcurrentDirectedGraph#modify(INonThrowingRunnableWithParameter)}.
+   * 
+   * @author Philip Helger
+   */
+  private final class NodeCopyUpdater implements IGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation>
+  {
+    public void onNodeAdded (@Nonnull final IDirectedGraphNode aNode)
+    {
+      // Reserve the position, so that the node order of the internal graph is
+      // kept
+      m_aNodeCopies.put (aNode.getID (), null);
+      m_aChangedNodeIDs.add (aNode.getID ());
+      m_nCurrentRelationCount += _getContainedRelationCount (aNode);
+      _touchNodeAndNeighbours (aNode);
+    }
+
+    public void onNodeRemoved (@Nonnull final IDirectedGraphNode aNode)
+    {
+      m_aNodeCopies.remove (aNode.getID ());
+      m_aChangedNodeIDs.remove (aNode.getID ());
+      m_aNodeStamps.remove (aNode.getID ());
+      if (m_aGraph.getNodeCount () == 0)
+        m_nCurrentRelationCount = 0;
+      else
+        m_nCurrentRelationCount -= _getContainedRelationCount (aNode);
+      _touchNodeAndNeighbours (aNode);
+    }
+
+    public void onRelationAdded (@Nonnull final IDirectedGraphRelation aRelation)
+    {
+      if (_isContained (aRelation))
+        ++m_nCurrentRelationCount;
+      _touchRelation (aRelation);
+    }
+
+    public void onRelationRemoved (@Nonnull final IDirectedGraphRelation aRelation)
+    {
+      if (_isContained (aRelation))
+        --m_nCurrentRelationCount;
+      _touchRelation (aRelation);
+    }
+
+    public void onAttributeChanged (@Nonnull final IBaseGraphObject aObject, @Nonnull final String sAttrName)
+    {
+      // Graph attributes are copied upon each snapshot
+      if (aObject instanceof IDirectedGraphRelation)
+        _touchRelation ((IDirectedGraphRelation) aObject);
+      else
+        if (aObject instanceof IDirectedGraphNode)
+          _touchNode (aObject.getID (), true);
+    }
+  }
+
+  private final Lock m_aLock = new ReentrantLock ();
+  private final DirectedGraph m_aGraph;
+  // The copies of all nodes in the order of the internal graph - the value is
+  // null for new nodes that were not yet copied. Guarded by the lock.
+  private final Map <String, NodeCopy> m_aNodeCopies = new LinkedHashMap <String, NodeCopy> ();
+  // The IDs of all nodes that need a new copy. Guarded by the lock.
+  private final Set <String> m_aChangedNodeIDs = new LinkedHashSet <String> ();
+  // Node ID to the modification stamp of the last change of the node itself,
+  // its attributes or one of its relations
+  private final Map <String, Long> m_aNodeStamps = new ConcurrentHashMap <String, Long> ();
+  // Relations between nodes of this graph. Guarded by the lock.
+  private int m_nCurrentRelationCount = 0;
+  private final AtomicReference <Snapshot> m_aSnapshot = new AtomicReference <Snapshot> ();
+  // Copies of the internal state, so that they can be read lock free
+  private volatile long m_nModificationStamp = 0;
+  private volatile int m_nNodeCount = 0;
+  private volatile int m_nRelationCount = 0;
+  private volatile boolean m_bIncrementalCycleDetection = false;
+
+  public ConcurrentDirectedGraph (@Nullable final String sID, @Nonnull final IDirectedGraphObjectFactory aFactory)
+  {
+    m_aGraph = new DirectedGraph (sID, aFactory);
+    m_aGraph.addChangeListener (new NodeCopyUpdater ());
+  }
+
+  @Nullable
+  private static Map <String, Object> _getAttrs (@Nonnull final IReadonlyAttributeContainer aObject)
+  {
+    return aObject.containsNoAttribute () ? null : aObject.getAllAttributes ();
+  }
+
+  private boolean _isContained (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    return m_aGraph.getNodeOfID (aRelation.getFromID ()) != null &&
+           m_aGraph.getNodeOfID (aRelation.getToID ()) != null;
+  }
+
+  /**
+   * Get the number of relations of the passed node that are part of a
+   * snapshot in case the node is contained in this graph.
+   */
+  @Nonnegative
+  private int _getContainedRelationCount (@Nonnull final IDirectedGraphNode aNode)
+  {
+    int ret = 0;
+    for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+      if (aRelation.getToID ().equals (aNode.getID ()) || m_aGraph.getNodeOfID (aRelation.getToID ()) != null)
+        ++ret;
+    for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
+      if (!aRelation.getFromID ().equals (aNode.getID ()) && m_aGraph.getNodeOfID (aRelation.getFromID ()) != null)
+        ++ret;
+    return ret;
+  }
+
+  private void _touchNode (@Nonnull final String sNodeID, final boolean bNeedsCopy)
+  {
+    if (m_aGraph.getNodeOfID (sNodeID) != null)
+    {
+      if (bNeedsCopy)
+        m_aChangedNodeIDs.add (sNodeID);
+      m_aNodeStamps.put (sNodeID, Long.valueOf (m_aGraph.getModificationStamp ()));
+    }
+  }
+
+  private void _touchNodeAndNeighbours (@Nonnull final IDirectedGraphNode aNode)
+  {
+    _touchNode (aNode.getID (), false);
+    // Relations to the node appear or disappear in the snapshot
+    for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+      _touchNode (aRelation.getToID (), false);
+    for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
+      _touchNode (aRelation.getFromID (), false);
+  }
+
+  private void _touchRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    // Only the from-node holds a copy of the relation
+    _touchNode (aRelation.getFromID (), true);
+    _touchNode (aRelation.getToID (), false);
+  }
+
+  @Nonnull
+  @Nonempty
+  public String getID ()
+  {
+    return m_aGraph.getID ();
+  }
+
+  public boolean isDirected ()
+  {
+    return true;
+  }
+
+  /**
+   * Get an immutable snapshot of the current graph state. The snapshot is
+   * shared by all readers until the next modification. If several threads
+   * request a new snapshot at the same time, each of them may build its own
+   * one.
+   * 
+   * @return The current snapshot and never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraph getSnapshot ()
+  {
+    final Snapshot aSnapshot = m_aSnapshot.get ();
+    if (aSnapshot != null && aSnapshot.m_nModificationStamp >= m_nModificationStamp)
+      return aSnapshot.m_aGraph;
+
+    // Collect the node copies and recreate the changed ones
+    final String sID;
+    final Map <String, Object> aAttrs;
+    final NodeCopy [] aNodeCopies;
+    final long nModificationStamp;
+    m_aLock.lock ();
+    try
+    {
+      for (final String sNodeID : m_aChangedNodeIDs)
+        m_aNodeCopies.put (sNodeID, new NodeCopy (m_aGraph.getNodeOfID (sNodeID)));
+      m_aChangedNodeIDs.clear ();
+      sID = m_aGraph.getID ();
+      aAttrs = _getAttrs (m_aGraph);
+      aNodeCopies = m_aNodeCopies.values ().toArray (new NodeCopy [m_aNodeCopies.size ()]);
+      nModificationStamp = m_aGraph.getModificationStamp ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+
+    // Build the snapshot outside of the lock
+    final Snapshot aNewSnapshot = new Snapshot (nModificationStamp, _createSnapshot (sID, aAttrs, aNodeCopies));
+    while (true)
+    {
+      // Don't replace a newer snapshot built by another thread
+      final Snapshot aOldSnapshot = m_aSnapshot.get ();
+      if (aOldSnapshot != null && aOldSnapshot.m_nModificationStamp >= nModificationStamp)
+        break;
+      if (m_aSnapshot.compareAndSet (aOldSnapshot, aNewSnapshot))
+        break;
+    }
+    return aNewSnapshot.m_aGraph;
+  }
+
+  @Nonnull
+  private static CompactDirectedGraph _createSnapshot (@Nonnull final String sID,
+                                                       @Nullable final Map <String, Object> aAttrs,
+                                                       @Nonnull final NodeCopy [] aNodeCopies)
+  {
+    final int nNodeCount = aNodeCopies.length;
+    final List <String> aNodeIDs = new ArrayList <String> (nNodeCount);
+    final List <Map <String, Object>> aNodeAttrs = new ArrayList <Map <String, Object>> (nNodeCount);
+    final Map <String, Integer> aNodeIndex = new HashMap <String, Integer> (nNodeCount * 2);
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      aNodeIDs.add (aNodeCopies[i].m_sID);
+      aNodeAttrs.add (aNodeCopies[i].m_aAttrs);
+      aNodeIndex.put (aNodeCopies[i].m_sID, Integer.valueOf (i));
+    }
+
+    // Only relations between nodes of this graph are part of the snapshot
+    final int [] aOutgoingOffsets = new int [nNodeCount + 1];
+    final TIntArrayList aOutgoingNodes = new TIntArrayList ();
+    final List <String> aRelationIDs = new ArrayList <String> ();
+    final List <Map <String, Object>> aRelationAttrs = new ArrayList <Map <String, Object>> ();
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      final NodeCopy aNodeCopy = aNodeCopies[i];
+      final int nRelationCount = aNodeCopy.m_aRelationIDs.size ();
+      for (int j = 0; j < nRelationCount; ++j)
+      {
+        final Integer aToIndex = aNodeIndex.get (aNodeCopy.m_aRelationToIDs.get (j));
+        if (aToIndex != null)
+        {
+          aOutgoingNodes.add (aToIndex.intValue ());
+          aRelationIDs.add (aNodeCopy.m_aRelationIDs.get (j));
+          aRelationAttrs.add (aNodeCopy.m_aRelationAttrs.get (j));
+        }
+      }
+      aOutgoingOffsets[i + 1] = aRelationIDs.size ();
+    }
+    return new CompactDirectedGraph (sID,
+                                     aAttrs,
+                                     aNodeIDs,
+                                     aNodeAttrs,
+                                     aOutgoingOffsets,
+                                     aOutgoingNodes.toArray (),
+                                     aRelationIDs,
+                                     aRelationAttrs);
+  }
+
+  /**
+   * Publish the state of the internal graph to the lock free readers. Must be
+   * called with the lock held.
+   */
+  private void _publishState ()
+  {
+    m_nModificationStamp = m_aGraph.getModificationStamp ();
+    m_nNodeCount = m_aGraph.getNodeCount ();
+    m_nRelationCount = m_nCurrentRelationCount;
+  }
+
+  @Nonnull
+  private EChange _onChange (@Nonnull final EChange eChange)
+  {
+    if (eChange.isChanged ())
+      _publishState ();
+    return eChange;
+  }
+
+  /**
+   * Perform an arbitrary set of modifications on the internal graph while
+   * holding the write lock. Afterwards a new snapshot is created upon the next
+   * read access, in which only the changed nodes are copied again. Use this method to modify the attributes of nodes and
+   * relations or to apply several changes at once.
+   * 
+   * @param aCallback
+   *        The callback that receives the internal mutable graph. The graph
+   *        may not be used outside of the callback. May not be
+   *        <code>null</code>.
+   */
+  public void modify (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraph> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    m_aLock.lock ();
+    try
+    {
+      aCallback.run (m_aGraph);
+    }
+    finally
+    {
+      _publishState ();
+      m_bIncrementalCycleDetection = m_aGraph.isIncrementalCycleDetection ();
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * The stamp is the one of the internal graph and therefore also reflects
+   * attribute changes performed within
+   * {@link #modify(INonThrowingRunnableWithParameter)}.
+   */
+  @Nonnegative
+  public long getModificationStamp ()
+  {
+    return m_nModificationStamp;
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * The listeners are invoked by the modifying thread while holding the write
+   * lock and receive the mutable objects of the internal graph.
+   */
+  @Nonnull
+  public EChange addChangeListener (@Nonnull final IGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> aListener)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aGraph.addChangeListener (aListener);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange removeChangeListener (@Nullable final IGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> aListener)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aGraph.removeChangeListener (aListener);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Resolve the passed node (e.g. from a snapshot) to the node of the internal
+   * graph. Must be called with the lock held.
+   */
+  @Nonnull
+  private IDirectedGraphNode _getInternalNode (@Nonnull final IDirectedGraphNode aNode)
+  {
+    if (aNode == null)
+      throw new NullPointerException ("node");
+    final IDirectedGraphNode ret = m_aGraph.getNodeOfID (aNode.getID ());
+    if (ret == null)
+      throw new IllegalArgumentException ("The node '" + aNode.getID () + "' is not part of this graph");
+    return ret;
+  }
+
+  public void setChangingConnectedObjectsAllowed (final boolean bIsChangingConnectedObjectsAllowed)
+  {
+    m_aLock.lock ();
+    try
+    {
+      m_aGraph.setChangingConnectedObjectsAllowed (bIsChangingConnectedObjectsAllowed);
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  public boolean isChangingConnectedObjectsAllowed ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return m_aGraph.isChangingConnectedObjectsAllowed ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * If enabled, {@link #containsCycles()} is answered by the internal graph
+   * while holding the write lock, instead of checking the whole snapshot.
+   */
+  public void setIncrementalCycleDetection (final boolean bIncremental)
+  {
+    m_aLock.lock ();
+    try
+    {
+      m_aGraph.setIncrementalCycleDetection (bIncremental);
+      m_bIncrementalCycleDetection = bIncremental;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  public boolean isIncrementalCycleDetection ()
+  {
+    return m_bIncrementalCycleDetection;
+  }
+
+  @Nonnull
+  public IDirectedGraphNode createNode ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphNode ret = m_aGraph.createNode ();
+      _onChange (EChange.CHANGED);
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nullable
+  public IDirectedGraphNode createNode (@Nullable final String sID)
+  {
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphNode ret = m_aGraph.createNode (sID);
+      _onChange (EChange.valueOf (ret != null));
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange addNode (@Nonnull final IDirectedGraphNode aNode)
+  {
+    if (aNode instanceof CompactDirectedGraphNode)
+      throw new IllegalArgumentException ("Immutable snapshot nodes cannot be added");
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.addNode (aNode));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange removeNode (@Nonnull final IDirectedGraphNode aNode)
+  {
+    if (aNode == null)
+      throw new NullPointerException ("node");
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphNode aInternalNode = m_aGraph.getNodeOfID (aNode.getID ());
+      return aInternalNode == null ? EChange.UNCHANGED : _onChange (m_aGraph.removeNode (aInternalNode));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange removeNodeAndAllRelations (@Nonnull final IDirectedGraphNode aNode)
+  {
+    if (aNode == null)
+      throw new NullPointerException ("node");
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphNode aInternalNode = m_aGraph.getNodeOfID (aNode.getID ());
+      return aInternalNode == null ? EChange.UNCHANGED
+                                   : _onChange (m_aGraph.removeNodeAndAllRelations (aInternalNode));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public IDirectedGraphRelation createRelation (@Nonnull final IDirectedGraphNode aFrom,
+                                                @Nonnull final IDirectedGraphNode aTo)
+  {
+    return createRelation (null, aFrom, aTo);
+  }
+
+  @Nonnull
+  public IDirectedGraphRelation createRelation (@Nullable final String sID,
+                                                @Nonnull final IDirectedGraphNode aFrom,
+                                                @Nonnull final IDirectedGraphNode aTo)
+  {
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphRelation ret = m_aGraph.createRelation (sID,
+                                                                  _getInternalNode (aFrom),
+                                                                  _getInternalNode (aTo));
+      _onChange (EChange.CHANGED);
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange removeRelation (@Nullable final IDirectedGraphRelation aRelation)
+  {
+    if (aRelation == null)
+      return EChange.UNCHANGED;
+    m_aLock.lock ();
+    try
+    {
+      final IDirectedGraphNode aFrom = m_aGraph.getNodeOfID (aRelation.getFromID ());
+      if (aFrom != null)
+        for (final IDirectedGraphRelation aInternalRelation : aFrom.getOutgoingRelationsView ())
+          if (aInternalRelation.getID ().equals (aRelation.getID ()))
+            return _onChange (m_aGraph.removeRelation (aInternalRelation));
+      return EChange.UNCHANGED;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange clear ()
+  {
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.clear ());
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  // Read methods - all working on the snapshot
+
+  /**
+   * {@inheritDoc}<br>
+   * If the node was not changed since the last snapshot was built, it is
+   * returned from this snapshot without building a new one. In this case the
+   * node and its relations are up to date, but the neighbour nodes reached
+   * via the relations may reflect this older state.
+   */
+  @Nullable
+  public IDirectedGraphNode getNodeOfID (@Nullable final String sID)
+  {
+    if (sID == null)
+      return null;
+    final Snapshot aSnapshot = m_aSnapshot.get ();
+    // All contained nodes have a stamp
+    final Long aNodeStamp = m_aNodeStamps.get (sID);
+    if (aNodeStamp == null)
+      return null;
+    if (aSnapshot != null && aNodeStamp.longValue () <= aSnapshot.m_nModificationStamp)
+      return aSnapshot.m_aGraph.getNodeOfID (sID);
+    return getSnapshot ().getNodeOfID (sID);
+  }
+
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_nNodeCount;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Map <String, IDirectedGraphNode> getAllNodes ()
+  {
+    return getSnapshot ().getAllNodes ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllNodeIDs ()
+  {
+    return getSnapshot ().getAllNodeIDs ();
+  }
+
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphNode> getNodesView ()
+  {
+    return getSnapshot ().getNodesView ();
+  }
+
+  public void forEachNode (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphNode> aCallback)
+  {
+    getSnapshot ().forEachNode (aCallback);
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_nRelationCount;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Map <String, IDirectedGraphRelation> getAllRelations ()
+  {
+    return getSnapshot ().getAllRelations ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllRelationIDs ()
+  {
+    return getSnapshot ().getAllRelationIDs ();
+  }
+
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    getSnapshot ().forEachRelation (aCallback);
+  }
+
+  @Nonnull
+  public IDirectedGraphNode getSingleStartNode () throws IllegalStateException
+  {
+    return getSnapshot ().getSingleStartNode ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllStartNodes ()
+  {
+    return getSnapshot ().getAllStartNodes ();
+  }
+
+  @Nonnull
+  public IDirectedGraphNode getSingleEndNode () throws IllegalStateException
+  {
+    return getSnapshot ().getSingleEndNode ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <IDirectedGraphNode> getAllEndNodes ()
+  {
+    return getSnapshot ().getAllEndNodes ();
+  }
+
+  public boolean containsCycles ()
+  {
+    if (m_bIncrementalCycleDetection)
+    {
+      m_aLock.lock ();
+      try
+      {
+        // Check again inside the lock
+        if (m_aGraph.isIncrementalCycleDetection ())
+          return m_aGraph.containsCycles ();
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+    return getSnapshot ().containsCycles ();
+  }
+
+  public boolean isSelfContained ()
+  {
+    return getSnapshot ().isSelfContained ();
+  }
+
+  @Nonnull
+  public Matrix createIncidenceMatrix ()
+  {
+    return getSnapshot ().createIncidenceMatrix ();
+  }
+
+  // Graph attributes
+
+  @Nonnegative
+  public int getAttributeCount ()
+  {
+    return getSnapshot ().getAttributeCount ();
+  }
+
+  public boolean containsNoAttribute ()
+  {
+    return getSnapshot ().containsNoAttribute ();
+  }
+
+  public boolean containsAttribute (@Nullable final String sName)
+  {
+    return getSnapshot ().containsAttribute (sName);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Map <String, Object> getAllAttributes ()
+  {
+    return getSnapshot ().getAllAttributes ();
+  }
+
+  @Nullable
+  public Object getAttributeObject (@Nullable final String sName)
+  {
+    return getSnapshot ().getAttributeObject (sName);
+  }
+
+  @Nonnull
+  public Enumeration <String> getAttributeNames ()
+  {
+    return getSnapshot ().getAttributeNames ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Set <String> getAllAttributeNames ()
+  {
+    return getSnapshot ().getAllAttributeNames ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public Collection <Object> getAllAttributeValues ()
+  {
+    return getSnapshot ().getAllAttributeValues ();
+  }
+
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, @Nullable final Object aValue)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.setAttribute (sName, aValue));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, final boolean bValue)
+  {
+    return setAttribute (sName, Boolean.valueOf (bValue));
+  }
+
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, final int nValue)
+  {
+    return setAttribute (sName, Integer.valueOf (nValue));
+  }
+
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, final long nValue)
+  {
+    return setAttribute (sName, Long.valueOf (nValue));
+  }
+
+  @Nonnull
+  public EChange setAttribute (@Nonnull final String sName, final double dValue)
+  {
+    return setAttribute (sName, Double.valueOf (dValue));
+  }
+
+  @Nonnull
+  public EChange setAttributes (@Nullable final Map <String, ?> aValues)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.setAttributes (aValues));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange setAttributes (@Nullable final IReadonlyAttributeContainer aValues)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.setAttributes (aValues));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Nonnull
+  public EChange removeAttribute (@Nullable final String sName)
+  {
+    m_aLock.lock ();
+    try
+    {
+      return _onChange (m_aGraph.removeAttribute (sName));
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  public boolean getAndSetAttributeFlag (@Nonnull final String sName)
+  {
+    m_aLock.lock ();
+    try
+    {
+      final boolean ret = m_aGraph.getAndSetAttributeFlag (sName);
+      _onChange (EChange.valueOf (!ret));
+      return ret;
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("snapshot", getSnapshot ()).toString ();
+  }
+}
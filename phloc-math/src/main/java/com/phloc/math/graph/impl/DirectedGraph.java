@@ -17,17 +17,21 @@
  */
 package com.phloc.math.graph.impl;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.state.EChange;
 import com.phloc.commons.state.ETriState;
@@ -35,7 +39,8 @@ import com.phloc.math.graph.IDirectedGraph;
 import com.phloc.math.graph.IDirectedGraphNode;
 import com.phloc.math.graph.IDirectedGraphObjectFactory;
 import com.phloc.math.graph.IDirectedGraphRelation;
-import com.phloc.math.graph.iterate.DirectedGraphIteratorForward;
+import com.phloc.math.graph.algo.TopologicalSort;
+import com.phloc.math.graph.compact.CompactDirectedGraph;
 import com.phloc.math.matrix.Matrix;
 
 /**
@@ -48,10 +53,20 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
 {
   private final IDirectedGraphObjectFactory m_aFactory;
   private ETriState m_eCacheHasCycles = ETriState.UNDEFINED;
+  private boolean m_bIncrementalCycleDetection = false;
+  // Only present if incremental cycle detection is enabled and valid
+  private DirectedGraphCycleTracker m_aCycleTracker;
 
   public DirectedGraph (@Nullable final String sID, @Nonnull final IDirectedGraphObjectFactory aFactory)
   {
-    super (sID);
+    this (sID, aFactory, DEFAULT_EXPECTED_NODE_COUNT);
+  }
+
+  public DirectedGraph (@Nullable final String sID,
+                        @Nonnull final IDirectedGraphObjectFactory aFactory,
+                        @Nonnegative final int nExpectedNodeCount)
+  {
+    super (sID, nExpectedNodeCount);
     if (aFactory == null)
       throw new NullPointerException ("factory");
     m_aFactory = aFactory;
@@ -66,6 +81,27 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     // Reset the "has cycles" cached value
     m_eCacheHasCycles = ETriState.UNDEFINED;
+    m_aCycleTracker = null;
+  }
+
+  private void _onRelationAdded (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    // Reset the "has cycles" cached value
+    m_eCacheHasCycles = ETriState.UNDEFINED;
+    if (m_aCycleTracker != null)
+      m_aCycleTracker.addRelation (aRelation);
+  }
+
+  public void setIncrementalCycleDetection (final boolean bIncremental)
+  {
+    m_bIncrementalCycleDetection = bIncremental;
+    // Created upon the next call to containsCycles
+    m_aCycleTracker = null;
+  }
+
+  public boolean isIncrementalCycleDetection ()
+  {
+    return m_bIncrementalCycleDetection;
   }
 
   @Nonnull
@@ -99,7 +135,10 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
       return EChange.UNCHANGED;
     m_aNodes.put (sID, aNode);
 
-    _invalidateCache ();
+    // A node without relations cannot introduce a cycle
+    if (aNode.hasRelations ())
+      _invalidateCache ();
+    onNodeAdded (aNode);
     return EChange.CHANGED;
   }
 
@@ -112,10 +151,12 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
     if (!isChangingConnectedObjectsAllowed () && aNode.hasRelations ())
       throw new IllegalArgumentException ("The node to be removed already has incoming and/or outgoing relations and this is not allowed!");
 
-    if (m_aNodes.remove (aNode.getID ()) == null)
+    final IDirectedGraphNode aRemovedNode = m_aNodes.remove (aNode.getID ());
+    if (aRemovedNode == null)
       return EChange.UNCHANGED;
 
     _invalidateCache ();
+    onNodeRemoved (aRemovedNode);
     return EChange.CHANGED;
   }
 
@@ -129,12 +170,22 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
       return EChange.UNCHANGED;
 
     // Remove all affected relations from all nodes
-    for (final IDirectedGraphRelation aRelation : aNode.getAllOutgoingRelations ())
+    final List <IDirectedGraphRelation> aOutgoingRelations = aNode.getAllOutgoingRelations ();
+    final List <IDirectedGraphRelation> aIncomingRelations = aNode.getAllIncomingRelations ();
+    for (final IDirectedGraphRelation aRelation : aOutgoingRelations)
       aRelation.getTo ().removeIncomingRelation (aRelation);
-    for (final IDirectedGraphRelation aRelation : aNode.getAllIncomingRelations ())
+    for (final IDirectedGraphRelation aRelation : aIncomingRelations)
       aRelation.getFrom ().removeOutgoingRelation (aRelation);
 
     aNode.removeAllRelations ();
+    for (final IDirectedGraphRelation aRelation : aOutgoingRelations)
+      onRelationRemoved (aRelation);
+    for (final IDirectedGraphRelation aRelation : aIncomingRelations)
+    {
+      // Self-relations are also contained in the outgoing relations
+      if (aRelation.getFrom () != aNode)
+        onRelationRemoved (aRelation);
+    }
     if (removeNode (aNode).isUnchanged ())
       throw new IllegalStateException ("Inconsistency removing node and all relations");
     return EChange.CHANGED;
@@ -145,7 +196,8 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     aRelation.getFrom ().addOutgoingRelation (aRelation);
     aRelation.getTo ().addIncomingRelation (aRelation);
-    _invalidateCache ();
+    _onRelationAdded (aRelation);
+    onRelationAdded (aRelation);
     return aRelation;
   }
 
@@ -173,7 +225,10 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
       ret = ret.or (aRelation.getFrom ().removeOutgoingRelation (aRelation));
       ret = ret.or (aRelation.getTo ().removeIncomingRelation (aRelation));
       if (ret.isChanged ())
+      {
         _invalidateCache ();
+        onRelationRemoved (aRelation);
+      }
     }
     return ret;
   }
@@ -228,8 +283,12 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     final Map <String, IDirectedGraphRelation> ret = new LinkedHashMap <String, IDirectedGraphRelation> ();
     for (final IDirectedGraphNode aNode : m_aNodes.values ())
-      for (final IDirectedGraphRelation aRelation : aNode.getAllRelations ())
+    {
+      for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
         ret.put (aRelation.getID (), aRelation);
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+        ret.put (aRelation.getID (), aRelation);
+    }
     return ret;
   }
 
@@ -239,41 +298,73 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     final Set <String> ret = new LinkedHashSet <String> ();
     for (final IDirectedGraphNode aNode : m_aNodes.values ())
-      ret.addAll (aNode.getAllRelationIDs ());
+    {
+      for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
+        ret.add (aRelation.getID ());
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+        ret.add (aRelation.getID ());
+    }
+    return ret;
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    int ret = 0;
+    for (final IDirectedGraphNode aNode : m_aNodes.values ())
+    {
+      ret += aNode.getOutgoingRelationCount ();
+      // Incoming relations from nodes outside of this graph
+      for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
+        if (!m_aNodes.containsKey (aRelation.getFromID ()))
+          ++ret;
+    }
     return ret;
   }
 
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    // Each relation is handled by its from-node, if it is part of this graph
+    for (final IDirectedGraphNode aNode : m_aNodes.values ())
+    {
+      for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
+        if (!m_aNodes.containsKey (aRelation.getFromID ()))
+          aCallback.run (aRelation);
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+        aCallback.run (aRelation);
+    }
+  }
+
   @Override
   @Nonnull
   public EChange clear ()
   {
     if (m_aNodes.isEmpty ())
       return EChange.UNCHANGED;
+    final List <IDirectedGraphNode> aRemovedNodes = ContainerHelper.newList (m_aNodes.values ());
     m_aNodes.clear ();
 
     _invalidateCache ();
+    onAllNodesRemoved (aRemovedNodes);
     return EChange.CHANGED;
   }
 
   public boolean containsCycles ()
   {
+    if (m_bIncrementalCycleDetection)
+    {
+      if (m_aCycleTracker == null)
+        m_aCycleTracker = DirectedGraphCycleTracker.create (m_aNodes.values ());
+      return m_aCycleTracker.hasCycles ();
+    }
+
     // Use cached result?
     if (m_eCacheHasCycles.isUndefined ())
     {
-      m_eCacheHasCycles = ETriState.FALSE;
-      // Check all nodes, in case we a small cycle and a set of other nodes (see
-      // test case testCycles2)
-      for (final IDirectedGraphNode aCurNode : m_aNodes.values ())
-      {
-        final DirectedGraphIteratorForward it = new DirectedGraphIteratorForward (aCurNode);
-        while (it.hasNext () && !it.hasCycles ())
-          it.next ();
-        if (it.hasCycles ())
-        {
-          m_eCacheHasCycles = ETriState.TRUE;
-          break;
-        }
-      }
+      // Single pass over all nodes and relations
+      m_eCacheHasCycles = ETriState.valueOf (TopologicalSort.sort (this).hasCycle ());
     }
 
     // cannot be undefined here
@@ -285,10 +376,10 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     for (final IDirectedGraphNode aNode : m_aNodes.values ())
     {
-      for (final IDirectedGraphRelation aRelation : aNode.getAllIncomingRelations ())
+      for (final IDirectedGraphRelation aRelation : aNode.getIncomingRelationsView ())
         if (!m_aNodes.containsKey (aRelation.getFromID ()))
           return false;
-      for (final IDirectedGraphRelation aRelation : aNode.getAllOutgoingRelations ())
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
         if (!m_aNodes.containsKey (aRelation.getToID ()))
           return false;
     }
@@ -300,21 +391,39 @@ public class DirectedGraph extends AbstractBaseGraph <IDirectedGraphNode, IDirec
   {
     final int nNodeCount = getNodeCount ();
     final Matrix ret = new Matrix (nNodeCount, nNodeCount, 0);
-    final IDirectedGraphNode [] aNodes = m_aNodes.values ().toArray (new IDirectedGraphNode [nNodeCount]);
-    for (int nRow = 0; nRow < nNodeCount; ++nRow)
+    final Map <String, Integer> aNodeIndex = new HashMap <String, Integer> (nNodeCount * 2);
+    for (final IDirectedGraphNode aNode : m_aNodes.values ())
+      aNodeIndex.put (aNode.getID (), Integer.valueOf (aNodeIndex.size ()));
+    int nRow = 0;
+    for (final IDirectedGraphNode aNodeRow : m_aNodes.values ())
     {
-      final IDirectedGraphNode aNodeRow = aNodes[nRow];
-      for (int nCol = 0; nCol < nNodeCount; ++nCol)
-        if (nRow != nCol)
-          if (aNodeRow.isToNode (aNodes[nCol]))
-          {
-            ret.set (nRow, nCol, 1);
-            ret.set (nCol, nRow, -1);
-          }
+      for (final IDirectedGraphRelation aRelation : aNodeRow.getOutgoingRelationsView ())
+      {
+        final Integer aCol = aNodeIndex.get (aRelation.getToID ());
+        if (aCol != null && aCol.intValue () != nRow)
+        {
+          ret.set (nRow, aCol.intValue (), 1);
+          ret.set (aCol.intValue (), nRow, -1);
+        }
+      }
+      ++nRow;
     }
     return ret;
   }
 
+  /**
+   * Create an immutable, array based snapshot of this graph. The snapshot is
+   * not affected by later modifications of this graph and is better suited for
+   * read-only algorithms working on large graphs.
+   * 
+   * @return A new {@link CompactDirectedGraph} and never <code>null</code>.
+   */
+  @Nonnull
+  public CompactDirectedGraph toCompactSnapshot ()
+  {
+    return new CompactDirectedGraph (this);
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+
+/**
+ * Incrementally tracks whether a directed graph contains a cycle, by
+ * maintaining a topological order of all nodes (algorithm of Pearce and
+ * Kelly). When a relation is added that violates the current order, only the
+ * nodes between the two positions are searched and re-ordered. As soon as a
+ * cycle is found, no further order is maintained. Removing relations cannot be
+ * handled, so the tracker must be re-created in this case.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class DirectedGraphCycleTracker
+{
+  private static final int [] EMPTY = new int [0];
+
+  private final Map <String, Integer> m_aNodeIndex = new HashMap <String, Integer> ();
+  private int m_nNodeCount = 0;
+  // Topological position of each node
+  private int [] m_aOrder = new int [16];
+  private int [] [] m_aOutgoing = new int [16] [];
+  private int [] m_aOutgoingCount = new int [16];
+  private int [] [] m_aIncoming = new int [16] [];
+  private int [] m_aIncomingCount = new int [16];
+  private int [] m_aVisited = new int [16];
+  private int m_nVisitGeneration = 0;
+  private int [] m_aStack = new int [16];
+  private boolean m_bHasCycles = false;
+
+  private DirectedGraphCycleTracker ()
+  {}
+
+  private int _getNodeIndex (@Nonnull final String sNodeID)
+  {
+    final Integer aIndex = m_aNodeIndex.get (sNodeID);
+    if (aIndex != null)
+      return aIndex.intValue ();
+
+    final int nIndex = m_nNodeCount++;
+    if (nIndex == m_aOrder.length)
+    {
+      final int nNewCapacity = nIndex * 2;
+      m_aOrder = Arrays.copyOf (m_aOrder, nNewCapacity);
+      m_aOutgoing = Arrays.copyOf (m_aOutgoing, nNewCapacity);
+      m_aOutgoingCount = Arrays.copyOf (m_aOutgoingCount, nNewCapacity);
+      m_aIncoming = Arrays.copyOf (m_aIncoming, nNewCapacity);
+      m_aIncomingCount = Arrays.copyOf (m_aIncomingCount, nNewCapacity);
+      m_aVisited = Arrays.copyOf (m_aVisited, nNewCapacity);
+      m_aStack = Arrays.copyOf (m_aStack, nNewCapacity);
+    }
+    // A new node has no relations, so it can be placed at the end
+    m_aOrder[nIndex] = nIndex;
+    m_aOutgoing[nIndex] = EMPTY;
+    m_aIncoming[nIndex] = EMPTY;
+    m_aNodeIndex.put (sNodeID, Integer.valueOf (nIndex));
+    return nIndex;
+  }
+
+  @Nonnull
+  private static int [] _append (@Nonnull final int [] aArray, @Nonnegative final int nCount, final int nValue)
+  {
+    int [] ret = aArray;
+    if (nCount == ret.length)
+      ret = Arrays.copyOf (ret, Math.max (4, nCount * 2));
+    ret[nCount] = nValue;
+    return ret;
+  }
+
+  private void _addEdge (final int nFrom, final int nTo)
+  {
+    m_aOutgoing[nFrom] = _append (m_aOutgoing[nFrom], m_aOutgoingCount[nFrom]++, nTo);
+    m_aIncoming[nTo] = _append (m_aIncoming[nTo], m_aIncomingCount[nTo]++, nFrom);
+  }
+
+  /**
+   * Collect all nodes reachable from the start node that are within the
+   * affected region of the topological order.
+   * 
+   * @param nStart
+   *        Start node
+   * @param nBound
+   *        The order bound
+   * @param bForward
+   *        <code>true</code> to follow outgoing relations to nodes with an
+   *        order &le; bound, <code>false</code> to follow incoming relations to
+   *        nodes with an order &gt; bound.
+   * @return <code>null</code> if a forward search reached the node with the
+   *         bound order, meaning a cycle was found.
+   */
+  @Nullable
+  private int [] _collect (final int nStart, final int nBound, final boolean bForward)
+  {
+    final int nGeneration = ++m_nVisitGeneration;
+    int [] aResult = new int [8];
+    int nResultCount = 0;
+    int nStackSize = 0;
+    m_aStack[nStackSize++] = nStart;
+    m_aVisited[nStart] = nGeneration;
+    while (nStackSize > 0)
+    {
+      final int nNode = m_aStack[--nStackSize];
+      aResult = _append (aResult, nResultCount++, nNode);
+      final int [] aNext = bForward ? m_aOutgoing[nNode] : m_aIncoming[nNode];
+      final int nNextCount = bForward ? m_aOutgoingCount[nNode] : m_aIncomingCount[nNode];
+      for (int i = 0; i < nNextCount; ++i)
+      {
+        final int nNext = aNext[i];
+        final int nOrder = m_aOrder[nNext];
+        if (bForward)
+        {
+          if (nOrder == nBound)
+            return null;
+          if (nOrder > nBound)
+            continue;
+        }
+        else
+          if (nOrder < nBound)
+            continue;
+        if (m_aVisited[nNext] != nGeneration)
+        {
+          m_aVisited[nNext] = nGeneration;
+          m_aStack[nStackSize++] = nNext;
+        }
+      }
+    }
+    return Arrays.copyOf (aResult, nResultCount);
+  }
+
+  private void _sortByOrder (@Nonnull final int [] aNodes)
+  {
+    final long [] aKeys = new long [aNodes.length];
+    for (int i = 0; i < aNodes.length; ++i)
+      aKeys[i] = ((long) m_aOrder[aNodes[i]] << 32) | aNodes[i];
+    Arrays.sort (aKeys);
+    for (int i = 0; i < aNodes.length; ++i)
+      aNodes[i] = (int) aKeys[i];
+  }
+
+  private void _reorder (@Nonnull final int [] aForward, @Nonnull final int [] aBackward)
+  {
+    _sortByOrder (aForward);
+    _sortByOrder (aBackward);
+
+    // All nodes reaching the from-node must be placed before all nodes
+    // reachable from the to-node, re-using the positions of both sets
+    final int nTotal = aBackward.length + aForward.length;
+    final int [] aNodes = new int [nTotal];
+    System.arraycopy (aBackward, 0, aNodes, 0, aBackward.length);
+    System.arraycopy (aForward, 0, aNodes, aBackward.length, aForward.length);
+    final int [] aPositions = new int [nTotal];
+    for (int i = 0; i < nTotal; ++i)
+      aPositions[i] = m_aOrder[aNodes[i]];
+    Arrays.sort (aPositions);
+    for (int i = 0; i < nTotal; ++i)
+      m_aOrder[aNodes[i]] = aPositions[i];
+  }
+
+  /**
+   * Notify the tracker about a new relation.
+   * 
+   * @param aRelation
+   *        The relation that was added. May not be <code>null</code>.
+   */
+  public void addRelation (@Nonnull final IDirectedGraphRelation aRelation)
+  {
+    if (m_bHasCycles)
+    {
+      // Cycles can only be removed by removing relations
+      return;
+    }
+
+    final int nFrom = _getNodeIndex (aRelation.getFromID ());
+    final int nTo = _getNodeIndex (aRelation.getToID ());
+    if (nFrom == nTo)
+    {
+      // Self-loop
+      m_bHasCycles = true;
+      return;
+    }
+
+    final int nLowerBound = m_aOrder[nTo];
+    final int nUpperBound = m_aOrder[nFrom];
+    if (nLowerBound < nUpperBound)
+    {
+      // The new relation violates the current order
+      final int [] aForward = _collect (nTo, nUpperBound, true);
+      if (aForward == null)
+      {
+        // The from-node is reachable from the to-node
+        m_bHasCycles = true;
+        return;
+      }
+      final int [] aBackward = _collect (nFrom, nLowerBound, false);
+      _reorder (aForward, aBackward);
+    }
+    _addEdge (nFrom, nTo);
+  }
+
+  public boolean hasCycles ()
+  {
+    return m_bHasCycles;
+  }
+
+  /**
+   * Create a new tracker for all outgoing relations of the passed nodes. The
+   * initial topological order is determined using Kahn's algorithm.
+   * 
+   * @param aNodes
+   *        The nodes of the graph. May not be <code>null</code>.
+   * @return The new tracker. Never <code>null</code>.
+   */
+  @Nonnull
+  public static DirectedGraphCycleTracker create (@Nonnull final Iterable <IDirectedGraphNode> aNodes)
+  {
+    final DirectedGraphCycleTracker ret = new DirectedGraphCycleTracker ();
+    for (final IDirectedGraphNode aNode : aNodes)
+    {
+      final int nFrom = ret._getNodeIndex (aNode.getID ());
+      for (final IDirectedGraphRelation aRelation : aNode.getOutgoingRelationsView ())
+        ret._addEdge (nFrom, ret._getNodeIndex (aRelation.getToID ()));
+    }
+
+    // Kahn's algorithm
+    final int nNodeCount = ret.m_nNodeCount;
+    final int [] aInDegree = Arrays.copyOf (ret.m_aIncomingCount, nNodeCount);
+    final int [] aQueue = new int [nNodeCount];
+    int nQueueEnd = 0;
+    for (int i = 0; i < nNodeCount; ++i)
+      if (aInDegree[i] == 0)
+        aQueue[nQueueEnd++] = i;
+    int nQueueStart = 0;
+    while (nQueueStart < nQueueEnd)
+    {
+      final int nNode = aQueue[nQueueStart];
+      ret.m_aOrder[nNode] = nQueueStart++;
+      final int [] aOutgoing = ret.m_aOutgoing[nNode];
+      for (int i = 0; i < ret.m_aOutgoingCount[nNode]; ++i)
+        if (--aInDegree[aOutgoing[i]] == 0)
+          aQueue[nQueueEnd++] = aOutgoing[i];
+    }
+    if (nQueueEnd < nNodeCount)
+      ret.m_bHasCycles = true;
+    return ret;
+  }
+}
@@ -18,6 +18,9 @@
 package com.phloc.math.graph.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -30,7 +33,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.state.EChange;
 import com.phloc.commons.string.ToStringGenerator;
@@ -47,6 +52,9 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
 {
   private Map <String, IDirectedGraphRelation> m_aIncoming;
   private Map <String, IDirectedGraphRelation> m_aOutgoing;
+  // Secondary indices from the ID of the peer node to the relation
+  private Map <String, IDirectedGraphRelation> m_aIncomingByFromID;
+  private Map <String, IDirectedGraphRelation> m_aOutgoingByToID;
 
   public DirectedGraphNode ()
   {
@@ -77,19 +85,20 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
                                             ") is already contained as an incoming relation");
 
       // check if the relation from-node is already contained
-      for (final IDirectedGraphRelation aRelation : m_aIncoming.values ())
-        if (aRelation.getFrom () == aNewRelation.getFrom ())
-          throw new IllegalArgumentException ("The from-node of the passed relation (" +
-                                              aNewRelation +
-                                              ") is already contained");
+      if (m_aIncomingByFromID.containsKey (aNewRelation.getFromID ()))
+        throw new IllegalArgumentException ("The from-node of the passed relation (" +
+                                            aNewRelation +
+                                            ") is already contained");
     }
     else
     {
       m_aIncoming = new LinkedHashMap <String, IDirectedGraphRelation> ();
+      m_aIncomingByFromID = new HashMap <String, IDirectedGraphRelation> ();
     }
 
     // Add!
     m_aIncoming.put (aNewRelation.getID (), aNewRelation);
+    m_aIncomingByFromID.put (aNewRelation.getFromID (), aNewRelation);
   }
 
   public boolean hasIncomingRelations ()
@@ -116,11 +125,33 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
                               : ContainerHelper.newList (m_aIncoming.values ());
   }
 
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphRelation> getIncomingRelationsView ()
+  {
+    return m_aIncoming == null ? Collections.<IDirectedGraphRelation> emptyList ()
+                              : Collections.unmodifiableCollection (m_aIncoming.values ());
+  }
+
+  public void forEachIncomingRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    if (m_aIncoming != null)
+      for (final IDirectedGraphRelation aRelation : m_aIncoming.values ())
+        aCallback.run (aRelation);
+  }
+
   @Nonnull
   public EChange removeIncomingRelation (@Nonnull final IDirectedGraphRelation aRelation)
   {
-    return aRelation == null || m_aIncoming == null ? EChange.UNCHANGED
-                                                   : EChange.valueOf (m_aIncoming.remove (aRelation.getID ()) != null);
+    if (aRelation == null || m_aIncoming == null)
+      return EChange.UNCHANGED;
+    final IDirectedGraphRelation aRemoved = m_aIncoming.remove (aRelation.getID ());
+    if (aRemoved == null)
+      return EChange.UNCHANGED;
+    m_aIncomingByFromID.remove (aRemoved.getFromID ());
+    return EChange.CHANGED;
   }
 
   @Nonnull
@@ -129,6 +160,7 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
     if (!hasIncomingRelations ())
       return EChange.UNCHANGED;
     m_aIncoming = null;
+    m_aIncomingByFromID = null;
     return EChange.CHANGED;
   }
 
@@ -152,9 +184,11 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
   public IDirectedGraphRelation getIncomingRelationFrom (@Nullable final IDirectedGraphNode aFromNode)
   {
     if (m_aIncoming != null && aFromNode != null)
-      for (final IDirectedGraphRelation aRelation : m_aIncoming.values ())
-        if (aRelation.getFrom ().equals (aFromNode))
-          return aRelation;
+    {
+      final IDirectedGraphRelation aRelation = m_aIncomingByFromID.get (aFromNode.getID ());
+      if (aRelation != null && aRelation.getFrom ().equals (aFromNode))
+        return aRelation;
+    }
     return null;
   }
 
@@ -171,19 +205,20 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
                                             aNewRelation +
                                             " is already contained as an outgoing relation");
       // check if the relation to-node is already contained
-      for (final IDirectedGraphRelation aRelation : m_aOutgoing.values ())
-        if (aRelation.getTo () == aNewRelation.getTo ())
-          throw new IllegalArgumentException ("The to-node of the passed relation " +
-                                              aNewRelation +
-                                              " is already contained");
+      if (m_aOutgoingByToID.containsKey (aNewRelation.getToID ()))
+        throw new IllegalArgumentException ("The to-node of the passed relation " +
+                                            aNewRelation +
+                                            " is already contained");
     }
     else
     {
       m_aOutgoing = new LinkedHashMap <String, IDirectedGraphRelation> ();
+      m_aOutgoingByToID = new HashMap <String, IDirectedGraphRelation> ();
     }
 
     // Add!
     m_aOutgoing.put (aNewRelation.getID (), aNewRelation);
+    m_aOutgoingByToID.put (aNewRelation.getToID (), aNewRelation);
   }
 
   public boolean hasOutgoingRelations ()
@@ -210,6 +245,23 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
                               : ContainerHelper.newList (m_aOutgoing.values ());
   }
 
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IDirectedGraphRelation> getOutgoingRelationsView ()
+  {
+    return m_aOutgoing == null ? Collections.<IDirectedGraphRelation> emptyList ()
+                              : Collections.unmodifiableCollection (m_aOutgoing.values ());
+  }
+
+  public void forEachOutgoingRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    if (m_aOutgoing != null)
+      for (final IDirectedGraphRelation aRelation : m_aOutgoing.values ())
+        aCallback.run (aRelation);
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public Set <IDirectedGraphNode> getAllToNodes ()
@@ -224,8 +276,13 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
   @Nonnull
   public EChange removeOutgoingRelation (@Nonnull final IDirectedGraphRelation aRelation)
   {
-    return aRelation == null || m_aOutgoing == null ? EChange.UNCHANGED
-                                                   : EChange.valueOf (m_aOutgoing.remove (aRelation.getID ()) != null);
+    if (aRelation == null || m_aOutgoing == null)
+      return EChange.UNCHANGED;
+    final IDirectedGraphRelation aRemoved = m_aOutgoing.remove (aRelation.getID ());
+    if (aRemoved == null)
+      return EChange.UNCHANGED;
+    m_aOutgoingByToID.remove (aRemoved.getToID ());
+    return EChange.CHANGED;
   }
 
   @Nonnull
@@ -234,6 +291,7 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
     if (!hasOutgoingRelations ())
       return EChange.UNCHANGED;
     m_aOutgoing = null;
+    m_aOutgoingByToID = null;
     return EChange.CHANGED;
   }
 
@@ -246,9 +304,11 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
   public IDirectedGraphRelation getOutgoingRelationTo (@Nullable final IDirectedGraphNode aToNode)
   {
     if (m_aOutgoing != null && aToNode != null)
-      for (final IDirectedGraphRelation aRelation : m_aOutgoing.values ())
-        if (aRelation.getTo ().equals (aToNode))
-          return aRelation;
+    {
+      final IDirectedGraphRelation aRelation = m_aOutgoingByToID.get (aToNode.getID ());
+      if (aRelation != null && aRelation.getTo ().equals (aToNode))
+        return aRelation;
+    }
     return null;
   }
 
@@ -308,6 +368,22 @@ public class DirectedGraphNode extends AbstractBaseGraphObject implements IDirec
     return ret;
   }
 
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IDirectedGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    if (m_aIncoming != null)
+      for (final IDirectedGraphRelation aRelation : m_aIncoming.values ())
+        aCallback.run (aRelation);
+    if (m_aOutgoing != null)
+      for (final IDirectedGraphRelation aRelation : m_aOutgoing.values ())
+      {
+        // Self-loops are contained as incoming and outgoing relation
+        if (m_aIncoming == null || !m_aIncoming.containsKey (aRelation.getID ()))
+          aCallback.run (aRelation);
+      }
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public Set <String> getAllRelationIDs ()
@@ -17,17 +17,21 @@
  */
 package com.phloc.math.graph.impl;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.state.EChange;
 import com.phloc.commons.state.ETriState;
@@ -48,10 +52,20 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
 {
   private final IGraphObjectFactory m_aFactory;
   private ETriState m_eCacheHasCycles = ETriState.UNDEFINED;
+  private boolean m_bIncrementalCycleDetection = false;
+  // Only present if incremental cycle detection is enabled and valid
+  private GraphCycleTracker m_aCycleTracker;
 
   public Graph (@Nullable final String sID, @Nonnull final IGraphObjectFactory aFactory)
   {
-    super (sID);
+    this (sID, aFactory, DEFAULT_EXPECTED_NODE_COUNT);
+  }
+
+  public Graph (@Nullable final String sID,
+                @Nonnull final IGraphObjectFactory aFactory,
+                @Nonnegative final int nExpectedNodeCount)
+  {
+    super (sID, nExpectedNodeCount);
     if (aFactory == null)
       throw new NullPointerException ("factory");
     m_aFactory = aFactory;
@@ -66,6 +80,27 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
   {
     // Reset the "has cycles" cached value
     m_eCacheHasCycles = ETriState.UNDEFINED;
+    m_aCycleTracker = null;
+  }
+
+  private void _onRelationAdded (@Nonnull final IGraphRelation aRelation)
+  {
+    // Reset the "has cycles" cached value
+    m_eCacheHasCycles = ETriState.UNDEFINED;
+    if (m_aCycleTracker != null)
+      m_aCycleTracker.addRelation (aRelation);
+  }
+
+  public void setIncrementalCycleDetection (final boolean bIncremental)
+  {
+    m_bIncrementalCycleDetection = bIncremental;
+    // Created upon the next call to containsCycles
+    m_aCycleTracker = null;
+  }
+
+  public boolean isIncrementalCycleDetection ()
+  {
+    return m_bIncrementalCycleDetection;
   }
 
   @Nonnull
@@ -99,7 +134,10 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
       return EChange.UNCHANGED;
     m_aNodes.put (sID, aNode);
 
-    _invalidateCache ();
+    // A node without relations cannot introduce a cycle
+    if (aNode.hasRelations ())
+      _invalidateCache ();
+    onNodeAdded (aNode);
     return EChange.CHANGED;
   }
 
@@ -112,10 +150,12 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
     if (!isChangingConnectedObjectsAllowed () && aNode.hasRelations ())
       throw new IllegalArgumentException ("The node to be removed already has incoming and/or outgoing relations and this is not allowed!");
 
-    if (m_aNodes.remove (aNode.getID ()) == null)
+    final IGraphNode aRemovedNode = m_aNodes.remove (aNode.getID ());
+    if (aRemovedNode == null)
       return EChange.UNCHANGED;
 
     _invalidateCache ();
+    onNodeRemoved (aRemovedNode);
     return EChange.CHANGED;
   }
 
@@ -130,8 +170,11 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
 
     // Remove all affected relations from all nodes
     for (final IGraphRelation aRelation : aNode.getAllRelations ())
+    {
       for (final IGraphNode aNode2 : aRelation.getAllConnectedNodes ())
         aNode2.removeRelation (aRelation);
+      onRelationRemoved (aRelation);
+    }
 
     // Remove the node itself
     if (removeNode (aNode).isUnchanged ())
@@ -146,7 +189,10 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
     for (final IGraphNode aNode : aRelation.getAllConnectedNodes ())
       eChange = eChange.or (aNode.addRelation (aRelation));
     if (eChange.isChanged ())
-      _invalidateCache ();
+    {
+      _onRelationAdded (aRelation);
+      onRelationAdded (aRelation);
+    }
     return aRelation;
   }
 
@@ -173,7 +219,10 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
       for (final IGraphNode aNode : aRelation.getAllConnectedNodes ())
         ret = ret.or (aNode.removeRelation (aRelation));
       if (ret.isChanged ())
+      {
         _invalidateCache ();
+        onRelationRemoved (aRelation);
+      }
     }
     return ret;
   }
@@ -184,7 +233,7 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
   {
     final Map <String, IGraphRelation> ret = new LinkedHashMap <String, IGraphRelation> ();
     for (final IGraphNode aNode : m_aNodes.values ())
-      for (final IGraphRelation aRelation : aNode.getAllRelations ())
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
         ret.put (aRelation.getID (), aRelation);
     return ret;
   }
@@ -195,46 +244,88 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
   {
     final Set <String> ret = new LinkedHashSet <String> ();
     for (final IGraphNode aNode : m_aNodes.values ())
-      ret.addAll (aNode.getAllRelationIDs ());
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
+        ret.add (aRelation.getID ());
     return ret;
   }
 
+  /**
+   * Each relation is contained in both connected nodes. To handle it only once,
+   * it is assigned to its first node, or to its second node if the first node
+   * is not part of this graph.
+   */
+  private boolean _isHandledBy (@Nonnull final IGraphRelation aRelation, @Nonnull final IGraphNode aNode)
+  {
+    final String sNode1ID = aRelation.getNode1ID ();
+    return sNode1ID.equals (aNode.getID ()) || !m_aNodes.containsKey (sNode1ID);
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    int ret = 0;
+    for (final IGraphNode aNode : m_aNodes.values ())
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
+        if (_isHandledBy (aRelation, aNode))
+          ++ret;
+    return ret;
+  }
+
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    for (final IGraphNode aNode : m_aNodes.values ())
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
+        if (_isHandledBy (aRelation, aNode))
+          aCallback.run (aRelation);
+  }
+
   @Override
   @Nonnull
   public EChange clear ()
   {
     if (m_aNodes.isEmpty ())
       return EChange.UNCHANGED;
+    final List <IGraphNode> aRemovedNodes = ContainerHelper.newList (m_aNodes.values ());
     m_aNodes.clear ();
 
     _invalidateCache ();
+    onAllNodesRemoved (aRemovedNodes);
     return EChange.CHANGED;
   }
 
   public boolean containsCycles ()
   {
+    if (m_bIncrementalCycleDetection)
+    {
+      if (m_aCycleTracker == null)
+        m_aCycleTracker = GraphCycleTracker.create (m_aNodes.values ());
+      return m_aCycleTracker.hasCycles ();
+    }
+
     // Use cached result?
     if (m_eCacheHasCycles.isUndefined ())
     {
       m_eCacheHasCycles = ETriState.FALSE;
       // Check all nodes, in case we a small cycle and a set of other nodes (see
       // test case testCycles2)
-      final List <IGraphNode> aAllNodes = ContainerHelper.newList (m_aNodes.values ());
-      while (!aAllNodes.isEmpty ())
+      final Set <String> aHandledNodeIDs = new HashSet <String> (m_aNodes.size () * 2);
+      for (final IGraphNode aNode : m_aNodes.values ())
       {
-        // Iterate from the first node
-        final GraphIterator it = new GraphIterator (aAllNodes.remove (0));
+        // Skip all nodes reachable from a previously handled node
+        if (aHandledNodeIDs.contains (aNode.getID ()))
+          continue;
+
+        // The iterator detects cycles while iterating
+        final GraphIterator it = new GraphIterator (aNode);
+        while (it.hasNext () && !it.hasCycles ())
+          aHandledNodeIDs.add (it.next ().getID ());
         if (it.hasCycles ())
         {
           m_eCacheHasCycles = ETriState.TRUE;
           break;
         }
-        while (it.hasNext ())
-        {
-          // Remove from remaining list, because node is reachable from some
-          // other node
-          aAllNodes.remove (it.next ());
-        }
       }
     }
 
@@ -245,10 +336,9 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
   public boolean isSelfContained ()
   {
     for (final IGraphNode aNode : m_aNodes.values ())
-      for (final IGraphRelation aRelation : aNode.getAllRelations ())
-        for (final IGraphNode aRelNode : aRelation.getAllConnectedNodes ())
-          if (!m_aNodes.containsKey (aRelNode.getID ()))
-            return false;
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
+        if (!m_aNodes.containsKey (aRelation.getNode1ID ()) || !m_aNodes.containsKey (aRelation.getNode2ID ()))
+          return false;
     return true;
   }
 
@@ -257,17 +347,24 @@ public class Graph extends AbstractBaseGraph <IGraphNode, IGraphRelation> implem
   {
     final int nNodeCount = getNodeCount ();
     final Matrix ret = new Matrix (nNodeCount, nNodeCount, 0);
-    final IGraphNode [] aNodes = m_aNodes.values ().toArray (new IGraphNode [nNodeCount]);
-    for (int nRow = 0; nRow < nNodeCount; ++nRow)
+    final Map <String, Integer> aNodeIndex = new HashMap <String, Integer> (nNodeCount * 2);
+    for (final IGraphNode aNode : m_aNodes.values ())
+      aNodeIndex.put (aNode.getID (), Integer.valueOf (aNodeIndex.size ()));
+    int nRow = 0;
+    for (final IGraphNode aNodeRow : m_aNodes.values ())
     {
-      final IGraphNode aNodeRow = aNodes[nRow];
-      for (int nCol = 0; nCol < nNodeCount; ++nCol)
-        if (nRow != nCol)
-          if (aNodeRow.isConnectedWith (aNodes[nCol]))
-          {
-            ret.set (nRow, nCol, 1);
-            ret.set (nCol, nRow, 1);
-          }
+      for (final IGraphRelation aRelation : aNodeRow.getRelationsView ())
+      {
+        final String sNode1ID = aRelation.getNode1ID ();
+        final String sPeerID = sNode1ID.equals (aNodeRow.getID ()) ? aRelation.getNode2ID () : sNode1ID;
+        final Integer aCol = aNodeIndex.get (sPeerID);
+        if (aCol != null && aCol.intValue () != nRow)
+        {
+          ret.set (nRow, aCol.intValue (), 1);
+          ret.set (aCol.intValue (), nRow, 1);
+        }
+      }
+      ++nRow;
     }
     return ret;
   }
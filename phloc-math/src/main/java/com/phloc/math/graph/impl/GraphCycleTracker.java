@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.algo.DisjointSet;
+
+/**
+ * Incrementally tracks whether an undirected graph contains a cycle, using a
+ * {@link DisjointSet} over all nodes. A relation that connects two nodes that
+ * are already connected closes a cycle. Self-loops are not considered cycles.
+ * Removing relations cannot be handled, so the tracker must be re-created in
+ * this case.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class GraphCycleTracker
+{
+  private final Map <String, Integer> m_aNodeIndex = new HashMap <String, Integer> ();
+  private final DisjointSet m_aComponents = new DisjointSet ();
+  private boolean m_bHasCycles = false;
+
+  private GraphCycleTracker ()
+  {}
+
+  private int _getNodeIndex (@Nonnull final String sNodeID)
+  {
+    final Integer aIndex = m_aNodeIndex.get (sNodeID);
+    if (aIndex != null)
+      return aIndex.intValue ();
+    final int nIndex = m_aComponents.addElement ();
+    m_aNodeIndex.put (sNodeID, Integer.valueOf (nIndex));
+    return nIndex;
+  }
+
+  /**
+   * Notify the tracker about a new relation.
+   * 
+   * @param aRelation
+   *        The relation that was added. May not be <code>null</code>.
+   */
+  public void addRelation (@Nonnull final IGraphRelation aRelation)
+  {
+    if (m_bHasCycles)
+    {
+      // Cycles can only be removed by removing relations
+      return;
+    }
+
+    final String sNodeID1 = aRelation.getNode1ID ();
+    final String sNodeID2 = aRelation.getNode2ID ();
+    if (sNodeID1.equals (sNodeID2))
+    {
+      // Self-loop
+      return;
+    }
+    if (!m_aComponents.union (_getNodeIndex (sNodeID1), _getNodeIndex (sNodeID2)))
+      m_bHasCycles = true;
+  }
+
+  public boolean hasCycles ()
+  {
+    return m_bHasCycles;
+  }
+
+  /**
+   * Create a new tracker for all relations of the passed nodes.
+   * 
+   * @param aNodes
+   *        The nodes of the graph. May not be <code>null</code>.
+   * @return The new tracker. Never <code>null</code>.
+   */
+  @Nonnull
+  public static GraphCycleTracker create (@Nonnull final Iterable <IGraphNode> aNodes)
+  {
+    final GraphCycleTracker ret = new GraphCycleTracker ();
+    final Set <String> aHandledRelationIDs = new HashSet <String> ();
+    for (final IGraphNode aNode : aNodes)
+      for (final IGraphRelation aRelation : aNode.getRelationsView ())
+        if (aHandledRelationIDs.add (aRelation.getID ()))
+        {
+          ret.addRelation (aRelation);
+          if (ret.hasCycles ())
+            return ret;
+        }
+    return ret;
+  }
+}
@@ -17,8 +17,13 @@
  */
 package com.phloc.math.graph.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,7 +32,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import com.phloc.commons.annotations.ReturnsImmutableObject;
 import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.state.EChange;
 import com.phloc.commons.string.ToStringGenerator;
@@ -43,6 +50,10 @@ import com.phloc.math.graph.IGraphRelation;
 public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
 {
   private Map <String, IGraphRelation> m_aRelations;
+  // Secondary index from the ID of the peer node to the first relation
+  private Map <String, IGraphRelation> m_aRelationByPeerID;
+  // All further relations to the same peer node in insertion order
+  private Map <String, List <IGraphRelation>> m_aParallelRelations;
 
   public GraphNode ()
   {
@@ -59,6 +70,13 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
     return false;
   }
 
+  @Nonnull
+  private String _getPeerID (@Nonnull final IGraphRelation aRelation)
+  {
+    final String sNode1ID = aRelation.getNode1ID ();
+    return sNode1ID.equals (getID ()) ? aRelation.getNode2ID () : sNode1ID;
+  }
+
   @Nonnull
   public EChange addRelation (@Nullable final IGraphRelation aRelation)
   {
@@ -69,12 +87,31 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
 
     final String sRelationID = aRelation.getID ();
     if (m_aRelations == null)
+    {
       m_aRelations = new LinkedHashMap <String, IGraphRelation> ();
+      m_aRelationByPeerID = new HashMap <String, IGraphRelation> ();
+    }
     else
       if (m_aRelations.containsKey (sRelationID))
         return EChange.UNCHANGED;
 
     m_aRelations.put (sRelationID, aRelation);
+    final String sPeerID = _getPeerID (aRelation);
+    if (!m_aRelationByPeerID.containsKey (sPeerID))
+      m_aRelationByPeerID.put (sPeerID, aRelation);
+    else
+    {
+      // Parallel relation
+      if (m_aParallelRelations == null)
+        m_aParallelRelations = new HashMap <String, List <IGraphRelation>> ();
+      List <IGraphRelation> aParallel = m_aParallelRelations.get (sPeerID);
+      if (aParallel == null)
+      {
+        aParallel = new ArrayList <IGraphRelation> (2);
+        m_aParallelRelations.put (sPeerID, aParallel);
+      }
+      aParallel.add (aRelation);
+    }
     return EChange.CHANGED;
   }
 
@@ -83,7 +120,26 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
   {
     if (aRelation == null || m_aRelations == null)
       return EChange.UNCHANGED;
-    return EChange.valueOf (m_aRelations.remove (aRelation.getID ()) != null);
+    final IGraphRelation aRemoved = m_aRelations.remove (aRelation.getID ());
+    if (aRemoved == null)
+      return EChange.UNCHANGED;
+
+    // Update the secondary index
+    final String sPeerID = _getPeerID (aRemoved);
+    final List <IGraphRelation> aParallel = m_aParallelRelations == null ? null : m_aParallelRelations.get (sPeerID);
+    if (m_aRelationByPeerID.get (sPeerID) == aRemoved)
+    {
+      if (aParallel == null)
+        m_aRelationByPeerID.remove (sPeerID);
+      else
+        m_aRelationByPeerID.put (sPeerID, aParallel.remove (0));
+    }
+    else
+      if (aParallel != null)
+        aParallel.remove (aRemoved);
+    if (aParallel != null && aParallel.isEmpty ())
+      m_aParallelRelations.remove (sPeerID);
+    return EChange.CHANGED;
   }
 
   @Nonnull
@@ -92,6 +148,8 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
     if (!hasRelations ())
       return EChange.UNCHANGED;
     m_aRelations = null;
+    m_aRelationByPeerID = null;
+    m_aParallelRelations = null;
     return EChange.CHANGED;
   }
 
@@ -105,9 +163,9 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
   {
     if (m_aRelations != null && aNode != null && aNode != this)
     {
-      for (final IGraphRelation aRelation : m_aRelations.values ())
-        if (aRelation.isRelatedTo (aNode))
-          return aRelation;
+      final IGraphRelation aRelation = m_aRelationByPeerID.get (aNode.getID ());
+      if (aRelation != null && aRelation.isRelatedTo (aNode))
+        return aRelation;
     }
     return null;
   }
@@ -133,6 +191,23 @@ public class GraphNode extends AbstractBaseGraphObject implements IGraphNode
     return ret;
   }
 
+  @Nonnull
+  @ReturnsImmutableObject
+  public Collection <IGraphRelation> getRelationsView ()
+  {
+    return m_aRelations == null ? Collections.<IGraphRelation> emptyList ()
+                               : Collections.unmodifiableCollection (m_aRelations.values ());
+  }
+
+  public void forEachRelation (@Nonnull final INonThrowingRunnableWithParameter <IGraphRelation> aCallback)
+  {
+    if (aCallback == null)
+      throw new NullPointerException ("callback");
+    if (m_aRelations != null)
+      for (final IGraphRelation aRelation : m_aRelations.values ())
+        aCallback.run (aRelation);
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public Set <String> getAllRelationIDs ()
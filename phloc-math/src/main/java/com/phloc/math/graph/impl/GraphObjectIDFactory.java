@@ -17,9 +17,6 @@
  */
 package com.phloc.math.graph.impl;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -33,15 +30,16 @@ import com.phloc.commons.idfactory.IIDFactory;
  * Factory class that handles the generation of graph object IDs. It allows to
  * provide another ID factory. If no custom ID factory is present (which is the
  * default), {@link GlobalIDFactory#getNewStringID()} is used to create Graph
- * object IDs.
+ * object IDs. The factory is held in a volatile field so that ID creation never
+ * blocks; in combination with {@link BlockAllocatingIDFactory} no contention
+ * occurs, even if many threads build graphs in parallel.
  * 
  * @author Philip Helger
  */
 @ThreadSafe
 public final class GraphObjectIDFactory
 {
-  private static final ReadWriteLock s_aRWLock = new ReentrantReadWriteLock ();
-  private static IIDFactory <String> s_aIDFactory;
+  private static volatile IIDFactory <String> s_aIDFactory;
 
   @PresentForCodeCoverage
   @SuppressWarnings ("unused")
@@ -57,15 +55,7 @@ public final class GraphObjectIDFactory
   @Nullable
   public static IIDFactory <String> getIDFactory ()
   {
-    s_aRWLock.readLock ().lock ();
-    try
-    {
-      return s_aIDFactory;
-    }
-    finally
-    {
-      s_aRWLock.readLock ().unlock ();
-    }
+    return s_aIDFactory;
   }
 
   /**
@@ -77,15 +67,7 @@ public final class GraphObjectIDFactory
    */
   public static void setIDFactory (@Nullable final IIDFactory <String> aIDFactory)
   {
-    s_aRWLock.writeLock ().lock ();
-    try
-    {
-      s_aIDFactory = aIDFactory;
-    }
-    finally
-    {
-      s_aRWLock.writeLock ().unlock ();
-    }
+    s_aIDFactory = aIDFactory;
   }
 
   /**
@@ -99,14 +81,8 @@ public final class GraphObjectIDFactory
   @Nonempty
   public static String createNewGraphObjectID ()
   {
-    s_aRWLock.readLock ().lock ();
-    try
-    {
-      return s_aIDFactory != null ? s_aIDFactory.getNewID () : GlobalIDFactory.getNewStringID ();
-    }
-    finally
-    {
-      s_aRWLock.readLock ().unlock ();
-    }
+    // Read the volatile field only once
+    final IIDFactory <String> aIDFactory = s_aIDFactory;
+    return aIDFactory != null ? aIDFactory.getNewID () : GlobalIDFactory.getNewStringID ();
   }
 }
@@ -58,7 +58,7 @@ public final class DirectedGraphIteratorBackward implements IIterableIterator <I
       if (aNode == null)
         throw new NullPointerException ("node");
       m_aNode = aNode;
-      m_aIncomingIt = aNode.getAllIncomingRelations ().iterator ();
+      m_aIncomingIt = aNode.getIncomingRelationsView ().iterator ();
     }
 
     @Nonnull
@@ -80,6 +80,12 @@ public final class DirectedGraphIteratorBackward implements IIterableIterator <I
    */
   private final NonBlockingStack <IterationNode> m_aNodeStack = new NonBlockingStack <IterationNode> ();
 
+  /**
+   * The IDs of all nodes currently contained in the stack, for a quick cycle
+   * check.
+   */
+  private final Set <String> m_aNodeIDsOnStack = new HashSet <String> ();
+
   /**
    * Optional filter for graph relations to defined whether thy should be
    * followed or not. May be <code>null</code>.
@@ -112,6 +118,7 @@ public final class DirectedGraphIteratorBackward implements IIterableIterator <I
 
     // Ensure that the start node is present
     m_aNodeStack.push (new IterationNode (aStartNode));
+    m_aNodeIDsOnStack.add (aStartNode.getID ());
   }
 
   public boolean hasNext ()
@@ -151,19 +158,18 @@ public final class DirectedGraphIteratorBackward implements IIterableIterator <I
 
           // check if the current node is already contained in the stack
           // If so, we have a cycle
-          for (final IterationNode aStackElement : m_aNodeStack)
-            if (aStackElement.getNode () == aCurrentIncomingNode)
-            {
-              // we found a cycle!
-              m_bHasCycles = true;
-              break;
-            }
+          if (m_aNodeIDsOnStack.contains (aCurrentIncomingNode.getID ()))
+          {
+            // we found a cycle!
+            m_bHasCycles = true;
+          }
 
           // Ensure that each node is returned only once!
           if (!m_aHandledNodes.contains (aCurrentIncomingNode.getID ()))
           {
             // Okay, we have a new node
             m_aNodeStack.push (new IterationNode (aCurrentIncomingNode));
+            m_aNodeIDsOnStack.add (aCurrentIncomingNode.getID ());
             bFoundNewNode = true;
             break;
           }
@@ -171,7 +177,7 @@ public final class DirectedGraphIteratorBackward implements IIterableIterator <I
 
         // if we followed all relations of the current node, go to previous node
         if (!bFoundNewNode)
-          m_aNodeStack.pop ();
+          m_aNodeIDsOnStack.remove (m_aNodeStack.pop ().getNode ().getID ());
       }
     }
 
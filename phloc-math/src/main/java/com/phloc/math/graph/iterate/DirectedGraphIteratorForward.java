@@ -57,7 +57,7 @@ public final class DirectedGraphIteratorForward implements IIterableIterator <ID
       if (aNode == null)
         throw new NullPointerException ("node");
       m_aNode = aNode;
-      m_aOutgoingIt = aNode.getAllOutgoingRelations ().iterator ();
+      m_aOutgoingIt = aNode.getOutgoingRelationsView ().iterator ();
     }
 
     @Nonnull
@@ -79,6 +79,12 @@ public final class DirectedGraphIteratorForward implements IIterableIterator <ID
    */
   private final NonBlockingStack <IterationNode> m_aNodeStack = new NonBlockingStack <IterationNode> ();
 
+  /**
+   * The IDs of all nodes currently contained in the stack, for a quick cycle
+   * check.
+   */
+  private final Set <String> m_aNodeIDsOnStack = new HashSet <String> ();
+
   /**
    * Optional filter for graph relations to defined whether thy should be
    * followed or not. May be <code>null</code>.
@@ -111,6 +117,7 @@ public final class DirectedGraphIteratorForward implements IIterableIterator <ID
 
     // Ensure that the start node is present
     m_aNodeStack.push (new IterationNode (aStartNode));
+    m_aNodeIDsOnStack.add (aStartNode.getID ());
   }
 
   public boolean hasNext ()
@@ -150,19 +157,18 @@ public final class DirectedGraphIteratorForward implements IIterableIterator <ID
 
           // check if the current node is already contained in the stack
           // If so, we have a cycle
-          for (final IterationNode aStackElement : m_aNodeStack)
-            if (aStackElement.getNode () == aCurrentOutgoingNode)
-            {
-              // we found a cycle!
-              m_bHasCycles = true;
-              break;
-            }
+          if (m_aNodeIDsOnStack.contains (aCurrentOutgoingNode.getID ()))
+          {
+            // we found a cycle!
+            m_bHasCycles = true;
+          }
 
           // Ensure that each node is returned only once!
           if (!m_aHandledNodes.contains (aCurrentOutgoingNode.getID ()))
           {
             // Okay, we have a new node
             m_aNodeStack.push (new IterationNode (aCurrentOutgoingNode));
+            m_aNodeIDsOnStack.add (aCurrentOutgoingNode.getID ());
             bFoundNewNode = true;
             break;
           }
@@ -170,7 +176,7 @@ public final class DirectedGraphIteratorForward implements IIterableIterator <ID
 
         // if we followed all relations of the current node, go to previous node
         if (!bFoundNewNode)
-          m_aNodeStack.pop ();
+          m_aNodeIDsOnStack.remove (m_aNodeStack.pop ().getNode ().getID ());
       }
     }
 
@@ -17,10 +17,9 @@
  */
 package com.phloc.math.graph.iterate;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
@@ -28,24 +27,64 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.phloc.commons.annotations.UnsupportedOperation;
+import com.phloc.commons.collections.NonBlockingStack;
 import com.phloc.commons.collections.iterate.IIterableIterator;
 import com.phloc.math.graph.IGraphNode;
 import com.phloc.math.graph.IGraphRelation;
 
 /**
- * A simple iterator for undirected graphs.
+ * A simple depth first iterator for undirected graphs. The nodes are
+ * determined lazily upon iteration using an explicit stack, so the size of the
+ * graph is not limited by the thread stack size and stopping the iteration
+ * early does not require traversing the whole graph. The graph may not be
+ * modified while iterating.
  * 
  * @author Philip Helger
+ * @see GraphIteratorBreadthFirst
  */
 @NotThreadSafe
 public final class GraphIterator implements IIterableIterator <IGraphNode>
 {
   /**
-   * Maps node IDs to node states
+   * This class represents a node in the current iteration process. It is
+   * relevant to easily keep the current iterator status and the node together.
+   * 
+   * @author Philip Helger
    */
-  private final Set <String> m_aHandledObjects = new HashSet <String> ();
+  private static final class IterationNode
+  {
+    private final IGraphNode m_aNode;
+    private final Iterator <IGraphRelation> m_aRelationIt;
+
+    private IterationNode (@Nonnull final IGraphNode aNode)
+    {
+      m_aNode = aNode;
+      m_aRelationIt = aNode.getRelationsView ().iterator ();
+    }
+
+    @Nonnull
+    public IGraphNode getNode ()
+    {
+      return m_aNode;
+    }
+
+    @Nonnull
+    public Iterator <IGraphRelation> getRelationIterator ()
+    {
+      return m_aRelationIt;
+    }
+  }
 
-  private final Iterator <IGraphNode> m_aIter;
+  /**
+   * Current stack. It contains the current node plus an iterator of the
+   * relations of the node
+   */
+  private final NonBlockingStack <IterationNode> m_aNodeStack = new NonBlockingStack <IterationNode> ();
+
+  /**
+   * The IDs of all handled nodes and relations
+   */
+  private final Set <String> m_aHandledObjects = new HashSet <String> ();
 
   /**
    * Does the graph have cycles?
@@ -57,49 +96,67 @@ public final class GraphIterator implements IIterableIterator <IGraphNode>
     if (aStartNode == null)
       throw new NullPointerException ("startNode");
 
-    // Collect all nodes, depth first
-    final List <IGraphNode> aList = new ArrayList <IGraphNode> ();
-    _traverseDFS (aStartNode, aList);
-    m_aIter = aList.iterator ();
+    // Ensure that the start node is present
+    m_aNodeStack.push (new IterationNode (aStartNode));
   }
 
-  private void _traverseDFS (@Nonnull final IGraphNode aStartNode, @Nonnull final List <IGraphNode> aList)
+  public boolean hasNext ()
   {
-    m_aHandledObjects.add (aStartNode.getID ());
-    aList.add (aStartNode);
-    for (final IGraphRelation aRelation : aStartNode.getAllRelations ())
+    return !m_aNodeStack.isEmpty ();
+  }
+
+  @Nullable
+  public IGraphNode next ()
+  {
+    // If no nodes are left, there ain't no next!
+    if (!hasNext ())
+      throw new NoSuchElementException ();
+
+    // get the node to return
+    final IGraphNode ret = m_aNodeStack.peek ().getNode ();
+    m_aHandledObjects.add (ret.getID ());
+
+    // find next node
+    while (!m_aNodeStack.isEmpty ())
     {
-      final boolean bNewRelation = m_aHandledObjects.add (aRelation.getID ());
-      for (final IGraphNode aNode : aRelation.getAllConnectedNodes ())
-        if (aNode != aStartNode)
+      final IGraphNode aCurrentNode = m_aNodeStack.peek ().getNode ();
+      final Iterator <IGraphRelation> itPeek = m_aNodeStack.peek ().getRelationIterator ();
+      boolean bFoundNewNode = false;
+      while (itPeek.hasNext ())
+      {
+        final IGraphRelation aRelation = itPeek.next ();
+        final boolean bNewRelation = m_aHandledObjects.add (aRelation.getID ());
+        final IGraphNode aNode = aRelation.getNode1 () == aCurrentNode ? aRelation.getNode2 () : aRelation.getNode1 ();
+        if (aNode != aCurrentNode)
         {
           if (!m_aHandledObjects.contains (aNode.getID ()))
-            _traverseDFS (aNode, aList);
-          else
           {
-            // If an unexplored edge leads to a node visited before, then the
-            // graph contains a cycle.
-            if (bNewRelation)
-              m_bHasCycles = true;
+            // Okay, we have a new node
+            m_aNodeStack.push (new IterationNode (aNode));
+            bFoundNewNode = true;
+            break;
           }
+
+          // If an unexplored edge leads to a node visited before, then the
+          // graph contains a cycle.
+          if (bNewRelation)
+            m_bHasCycles = true;
         }
-    }
-  }
+      }
+      if (bFoundNewNode)
+        break;
 
-  public boolean hasNext ()
-  {
-    return m_aIter.hasNext ();
-  }
+      // if we followed all relations of the current node, go to previous node
+      m_aNodeStack.pop ();
+    }
 
-  @Nullable
-  public IGraphNode next ()
-  {
-    return m_aIter.next ();
+    return ret;
   }
 
   /**
    * @return <code>true</code> if the iterator determined a cycle while
-   *         iterating the graph
+   *         iterating the graph. The result is only final after the iteration
+   *         is complete.
    */
   public boolean hasCycles ()
   {
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.iterate;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.annotations.UnsupportedOperation;
+import com.phloc.commons.collections.iterate.IIterableIterator;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+
+/**
+ * A breadth first iterator for undirected graphs. All nodes are returned in
+ * ascending order of their number of relations to the start node. The
+ * relations of a node are only inspected when the node itself is returned, so
+ * stopping the iteration early does not require traversing the whole graph.
+ * The graph may not be modified while iterating.
+ * 
+ * @author Philip Helger
+ * @see GraphIterator
+ */
+@NotThreadSafe
+public final class GraphIteratorBreadthFirst implements IIterableIterator <IGraphNode>
+{
+  /**
+   * All nodes that were discovered but not yet returned
+   */
+  private final Queue <IGraphNode> m_aQueue = new LinkedList <IGraphNode> ();
+
+  /**
+   * The IDs of all discovered nodes and all handled relations
+   */
+  private final Set <String> m_aHandledObjects = new HashSet <String> ();
+
+  /**
+   * Does the graph have cycles?
+   */
+  private boolean m_bHasCycles = false;
+
+  public GraphIteratorBreadthFirst (@Nonnull final IGraphNode aStartNode)
+  {
+    if (aStartNode == null)
+      throw new NullPointerException ("startNode");
+
+    m_aQueue.add (aStartNode);
+    m_aHandledObjects.add (aStartNode.getID ());
+  }
+
+  public boolean hasNext ()
+  {
+    return !m_aQueue.isEmpty ();
+  }
+
+  @Nullable
+  public IGraphNode next ()
+  {
+    // If no nodes are left, there ain't no next!
+    if (!hasNext ())
+      throw new NoSuchElementException ();
+
+    final IGraphNode ret = m_aQueue.remove ();
+
+    // Discover all new neighbour nodes
+    for (final IGraphRelation aRelation : ret.getRelationsView ())
+    {
+      final boolean bNewRelation = m_aHandledObjects.add (aRelation.getID ());
+      final IGraphNode aNode = aRelation.getNode1 () == ret ? aRelation.getNode2 () : aRelation.getNode1 ();
+      if (aNode != ret)
+      {
+        if (m_aHandledObjects.add (aNode.getID ()))
+          m_aQueue.add (aNode);
+        else
+        {
+          // If an unexplored edge leads to a node discovered before, then the
+          // graph contains a cycle.
+          if (bNewRelation)
+            m_bHasCycles = true;
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if the iterator determined a cycle while
+   *         iterating the graph. The result is only final after the iteration
+   *         is complete.
+   */
+  public boolean hasCycles ()
+  {
+    return m_bHasCycles;
+  }
+
+  /**
+   * @throws UnsupportedOperationException
+   *         every time!
+   */
+  @UnsupportedOperation
+  public void remove ()
+  {
+    throw new UnsupportedOperationException ("This iterator has no remove!");
+  }
+
+  @Nonnull
+  public Iterator <IGraphNode> iterator ()
+  {
+    return this;
+  }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.procedure.TIntProcedure;
+import gnu.trove.procedure.TObjectProcedure;
+
+import java.util.BitSet;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * Abstract base class for graphs that identify nodes and relations by
+ * primitive <code>int</code> values. Nodes may have arbitrary IDs, whereas
+ * relations are identified by consecutive IDs assigned upon creation. Relation
+ * IDs of removed relations are not reused. Instead of attribute maps, only a
+ * single weight per relation is stored in a parallel array, so that large
+ * graphs can be held with a small memory footprint.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public abstract class AbstractIntGraph
+{
+  /** The weight of relations that are created without an explicit weight */
+  public static final double DEFAULT_WEIGHT = 1;
+
+  // Maps node ID to the IDs of the relations of the node (lazily created)
+  protected final TIntObjectHashMap <TIntArrayList> m_aNodes = new TIntObjectHashMap <TIntArrayList> ();
+  private final TIntArrayList m_aRelationNode1 = new TIntArrayList ();
+  private final TIntArrayList m_aRelationNode2 = new TIntArrayList ();
+  private final TDoubleArrayList m_aRelationWeight = new TDoubleArrayList ();
+  private final BitSet m_aRemovedRelations = new BitSet ();
+  private int m_nRemovedRelationCount = 0;
+
+  protected AbstractIntGraph ()
+  {}
+
+  /**
+   * @return <code>true</code> if this graph is directed, <code>false</code> if
+   *         it is undirected.
+   */
+  public abstract boolean isDirected ();
+
+  /**
+   * @return The number of nodes in this graph. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getNodeCount ()
+  {
+    return m_aNodes.size ();
+  }
+
+  /**
+   * Check if the passed node is contained in this graph.
+   * 
+   * @param nNodeID
+   *        The node ID to check.
+   * @return <code>true</code> if it is contained, <code>false</code> if not.
+   */
+  public final boolean containsNode (final int nNodeID)
+  {
+    return m_aNodes.containsKey (nNodeID);
+  }
+
+  /**
+   * @return The IDs of all nodes in arbitrary order. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final int [] getAllNodeIDs ()
+  {
+    return m_aNodes.keys ();
+  }
+
+  /**
+   * Invoke the passed procedure for all node IDs in arbitrary order.
+   * 
+   * @param aProcedure
+   *        The procedure to invoke. May not be <code>null</code>. If it returns
+   *        <code>false</code> the iteration is stopped.
+   * @return <code>false</code> if the iteration was stopped by the procedure.
+   */
+  public final boolean forEachNode (@Nonnull final TIntProcedure aProcedure)
+  {
+    if (aProcedure == null)
+      throw new NullPointerException ("procedure");
+    return m_aNodes.forEachKey (aProcedure);
+  }
+
+  /**
+   * @return The number of relations in this graph. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getRelationCount ()
+  {
+    return m_aRelationNode1.size () - m_nRemovedRelationCount;
+  }
+
+  /**
+   * @return The exclusive upper bound of all relation IDs ever assigned in this
+   *         graph. Algorithms may use this to size arrays indexed by relation
+   *         ID. Always &ge; {@link #getRelationCount()}.
+   */
+  @Nonnegative
+  public final int getRelationIDLimit ()
+  {
+    return m_aRelationNode1.size ();
+  }
+
+  /**
+   * Check if the passed relation is contained in this graph.
+   * 
+   * @param nRelationID
+   *        The relation ID to check.
+   * @return <code>true</code> if it is contained, <code>false</code> if not.
+   */
+  public final boolean containsRelation (final int nRelationID)
+  {
+    return nRelationID >= 0 && nRelationID < m_aRelationNode1.size () && !m_aRemovedRelations.get (nRelationID);
+  }
+
+  protected final void checkRelationID (final int nRelationID)
+  {
+    if (!containsRelation (nRelationID))
+      throw new IllegalArgumentException ("No relation with ID " + nRelationID + " is contained");
+  }
+
+  /**
+   * Invoke the passed procedure for the IDs of all relations in ascending
+   * order.
+   * 
+   * @param aProcedure
+   *        The procedure to invoke. May not be <code>null</code>. If it returns
+   *        <code>false</code> the iteration is stopped.
+   * @return <code>false</code> if the iteration was stopped by the procedure.
+   */
+  public final boolean forEachRelation (@Nonnull final TIntProcedure aProcedure)
+  {
+    if (aProcedure == null)
+      throw new NullPointerException ("procedure");
+    final int nLimit = m_aRelationNode1.size ();
+    for (int i = 0; i < nLimit; ++i)
+      if (!m_aRemovedRelations.get (i))
+        if (!aProcedure.execute (i))
+          return false;
+    return true;
+  }
+
+  /**
+   * Get the weight of the passed relation.
+   * 
+   * @param nRelationID
+   *        The relation ID.
+   * @return The weight of the relation.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public final double getRelationWeight (final int nRelationID)
+  {
+    checkRelationID (nRelationID);
+    return m_aRelationWeight.getQuick (nRelationID);
+  }
+
+  /**
+   * Set the weight of the passed relation.
+   * 
+   * @param nRelationID
+   *        The relation ID.
+   * @param dWeight
+   *        The new weight.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public final void setRelationWeight (final int nRelationID, final double dWeight)
+  {
+    checkRelationID (nRelationID);
+    m_aRelationWeight.setQuick (nRelationID, dWeight);
+  }
+
+  @Nonnull
+  protected final TIntArrayList getOrCreateNodeRelations (final int nNodeID)
+  {
+    TIntArrayList ret = m_aNodes.get (nNodeID);
+    if (ret == null)
+    {
+      ret = new TIntArrayList (4);
+      m_aNodes.put (nNodeID, ret);
+    }
+    return ret;
+  }
+
+  protected final int getRelationNode1 (final int nRelationID)
+  {
+    checkRelationID (nRelationID);
+    return m_aRelationNode1.getQuick (nRelationID);
+  }
+
+  protected final int getRelationNode2 (final int nRelationID)
+  {
+    checkRelationID (nRelationID);
+    return m_aRelationNode2.getQuick (nRelationID);
+  }
+
+  /**
+   * Store a new relation.
+   * 
+   * @return The ID of the new relation.
+   */
+  protected final int addRelationInternal (final int nNode1ID, final int nNode2ID, final double dWeight)
+  {
+    final int ret = m_aRelationNode1.size ();
+    m_aRelationNode1.add (nNode1ID);
+    m_aRelationNode2.add (nNode2ID);
+    m_aRelationWeight.add (dWeight);
+    return ret;
+  }
+
+  /**
+   * Mark the passed relation as removed. The relation must be contained.
+   */
+  protected final void markRelationRemoved (final int nRelationID)
+  {
+    m_aRemovedRelations.set (nRelationID);
+    m_nRemovedRelationCount++;
+  }
+
+  protected static final void trimListsToSize (@Nonnull final TIntObjectHashMap <TIntArrayList> aMap)
+  {
+    aMap.forEachValue (new TObjectProcedure <TIntArrayList> ()
+    {
+      public boolean execute (final TIntArrayList aList)
+      {
+        if (aList != null)
+          aList.trimToSize ();
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Reduce the memory consumption of all internal structures to the minimum.
+   * Should be called after a large graph was completely built.
+   */
+  public void trimToSize ()
+  {
+    m_aRelationNode1.trimToSize ();
+    m_aRelationNode2.trimToSize ();
+    m_aRelationWeight.trimToSize ();
+    trimListsToSize (m_aNodes);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("nodeCount", getNodeCount ())
+                                       .append ("relationCount", getRelationCount ())
+                                       .toString ();
+  }
+}
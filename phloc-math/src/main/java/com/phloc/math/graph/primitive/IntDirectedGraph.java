@@ -0,0 +1,343 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.procedure.TIntProcedure;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.state.EChange;
+
+/**
+ * A directed graph with primitive <code>int</code> node and relation IDs. The
+ * outgoing and incoming relation IDs of each node are stored in primitive
+ * lists. In contrast to {@link com.phloc.math.graph.impl.DirectedGraph} more
+ * than one relation between the same pair of nodes is allowed.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class IntDirectedGraph extends AbstractIntGraph
+{
+  // Maps node ID to the IDs of the incoming relations (lazily created)
+  private final TIntObjectHashMap <TIntArrayList> m_aIncoming = new TIntObjectHashMap <TIntArrayList> ();
+
+  public IntDirectedGraph ()
+  {}
+
+  public final boolean isDirected ()
+  {
+    return true;
+  }
+
+  /**
+   * Add a new node without relations.
+   * 
+   * @param nNodeID
+   *        The ID of the node to add.
+   * @return {@link EChange#UNCHANGED} if a node with the same ID is already
+   *         contained.
+   */
+  @Nonnull
+  public EChange addNode (final int nNodeID)
+  {
+    if (m_aNodes.containsKey (nNodeID))
+      return EChange.UNCHANGED;
+    m_aNodes.put (nNodeID, null);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Remove the passed node and all incoming and outgoing relations of it.
+   * 
+   * @param nNodeID
+   *        The ID of the node to remove.
+   * @return {@link EChange#UNCHANGED} if no such node is contained.
+   */
+  @Nonnull
+  public EChange removeNodeAndAllRelations (final int nNodeID)
+  {
+    if (!m_aNodes.containsKey (nNodeID))
+      return EChange.UNCHANGED;
+    for (final int nRelationID : getAllOutgoingRelationIDs (nNodeID))
+      removeRelation (nRelationID);
+    for (final int nRelationID : getAllIncomingRelationIDs (nNodeID))
+      removeRelation (nRelationID);
+    m_aNodes.remove (nNodeID);
+    m_aIncoming.remove (nNodeID);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Create a new relation with the default weight. Nodes that are not yet
+   * contained are added automatically.
+   * 
+   * @param nFromNodeID
+   *        The from node ID.
+   * @param nToNodeID
+   *        The to node ID.
+   * @return The ID of the new relation. Always &ge; 0.
+   */
+  @Nonnegative
+  public int createRelation (final int nFromNodeID, final int nToNodeID)
+  {
+    return createRelation (nFromNodeID, nToNodeID, DEFAULT_WEIGHT);
+  }
+
+  /**
+   * Create a new relation. Nodes that are not yet contained are added
+   * automatically.
+   * 
+   * @param nFromNodeID
+   *        The from node ID.
+   * @param nToNodeID
+   *        The to node ID.
+   * @param dWeight
+   *        The weight of the relation.
+   * @return The ID of the new relation. Always &ge; 0.
+   */
+  @Nonnegative
+  public int createRelation (final int nFromNodeID, final int nToNodeID, final double dWeight)
+  {
+    final int ret = addRelationInternal (nFromNodeID, nToNodeID, dWeight);
+    getOrCreateNodeRelations (nFromNodeID).add (ret);
+    TIntArrayList aIncoming = m_aIncoming.get (nToNodeID);
+    if (aIncoming == null)
+    {
+      aIncoming = new TIntArrayList (4);
+      m_aIncoming.put (nToNodeID, aIncoming);
+    }
+    aIncoming.add (ret);
+    if (!m_aNodes.containsKey (nToNodeID))
+      m_aNodes.put (nToNodeID, null);
+    return ret;
+  }
+
+  /**
+   * Remove the passed relation.
+   * 
+   * @param nRelationID
+   *        The ID of the relation to remove.
+   * @return {@link EChange#UNCHANGED} if no such relation is contained.
+   */
+  @Nonnull
+  public EChange removeRelation (final int nRelationID)
+  {
+    if (!containsRelation (nRelationID))
+      return EChange.UNCHANGED;
+    m_aNodes.get (getRelationFromNodeID (nRelationID)).remove (nRelationID);
+    m_aIncoming.get (getRelationToNodeID (nRelationID)).remove (nRelationID);
+    markRelationRemoved (nRelationID);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * @param nRelationID
+   *        The relation ID.
+   * @return The ID of the from node of the passed relation.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public int getRelationFromNodeID (final int nRelationID)
+  {
+    return getRelationNode1 (nRelationID);
+  }
+
+  /**
+   * @param nRelationID
+   *        The relation ID.
+   * @return The ID of the to node of the passed relation.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public int getRelationToNodeID (final int nRelationID)
+  {
+    return getRelationNode2 (nRelationID);
+  }
+
+  /**
+   * Find the first relation from one node to another node.
+   * 
+   * @param nFromNodeID
+   *        The from node ID.
+   * @param nToNodeID
+   *        The to node ID.
+   * @return {@link CGlobal#ILLEGAL_UINT} if no such relation exists.
+   */
+  public int findRelationID (final int nFromNodeID, final int nToNodeID)
+  {
+    final TIntArrayList aOutgoing = m_aNodes.get (nFromNodeID);
+    if (aOutgoing != null)
+      for (int i = 0; i < aOutgoing.size (); ++i)
+      {
+        final int nRelationID = aOutgoing.getQuick (i);
+        if (getRelationToNodeID (nRelationID) == nToNodeID)
+          return nRelationID;
+      }
+    return CGlobal.ILLEGAL_UINT;
+  }
+
+  // --- outgoing ---
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The number of outgoing relations of the passed node. 0 if no such
+   *         node is contained.
+   */
+  @Nonnegative
+  public int getOutgoingRelationCount (final int nNodeID)
+  {
+    final TIntArrayList aOutgoing = m_aNodes.get (nNodeID);
+    return aOutgoing == null ? 0 : aOutgoing.size ();
+  }
+
+  /**
+   * Get the ID of an outgoing relation of a node. Together with
+   * {@link #getOutgoingRelationCount(int)} this allows iterating the outgoing
+   * relations without creating any object.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param nIndex
+   *        The index of the outgoing relation. Must be &ge; 0 and &lt;
+   *        {@link #getOutgoingRelationCount(int)}.
+   * @return The relation ID.
+   */
+  public int getOutgoingRelationID (final int nNodeID, @Nonnegative final int nIndex)
+  {
+    final TIntArrayList aOutgoing = m_aNodes.get (nNodeID);
+    if (aOutgoing == null)
+      throw new IllegalArgumentException ("Node " + nNodeID + " has no outgoing relations");
+    return aOutgoing.get (nIndex);
+  }
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The IDs of all outgoing relations of the passed node. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] getAllOutgoingRelationIDs (final int nNodeID)
+  {
+    final TIntArrayList aOutgoing = m_aNodes.get (nNodeID);
+    return aOutgoing == null ? new int [0] : aOutgoing.toArray ();
+  }
+
+  /**
+   * Invoke the passed procedure for the IDs of all outgoing relations of a
+   * node.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param aProcedure
+   *        The procedure to invoke. May not be <code>null</code>. If it returns
+   *        <code>false</code> the iteration is stopped.
+   * @return <code>false</code> if the iteration was stopped by the procedure.
+   */
+  public boolean forEachOutgoingRelation (final int nNodeID, @Nonnull final TIntProcedure aProcedure)
+  {
+    if (aProcedure == null)
+      throw new NullPointerException ("procedure");
+    final TIntArrayList aOutgoing = m_aNodes.get (nNodeID);
+    return aOutgoing == null || aOutgoing.forEach (aProcedure);
+  }
+
+  // --- incoming ---
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The number of incoming relations of the passed node. 0 if no such
+   *         node is contained.
+   */
+  @Nonnegative
+  public int getIncomingRelationCount (final int nNodeID)
+  {
+    final TIntArrayList aIncoming = m_aIncoming.get (nNodeID);
+    return aIncoming == null ? 0 : aIncoming.size ();
+  }
+
+  /**
+   * Get the ID of an incoming relation of a node. Together with
+   * {@link #getIncomingRelationCount(int)} this allows iterating the incoming
+   * relations without creating any object.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param nIndex
+   *        The index of the incoming relation. Must be &ge; 0 and &lt;
+   *        {@link #getIncomingRelationCount(int)}.
+   * @return The relation ID.
+   */
+  public int getIncomingRelationID (final int nNodeID, @Nonnegative final int nIndex)
+  {
+    final TIntArrayList aIncoming = m_aIncoming.get (nNodeID);
+    if (aIncoming == null)
+      throw new IllegalArgumentException ("Node " + nNodeID + " has no incoming relations");
+    return aIncoming.get (nIndex);
+  }
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The IDs of all incoming relations of the passed node. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] getAllIncomingRelationIDs (final int nNodeID)
+  {
+    final TIntArrayList aIncoming = m_aIncoming.get (nNodeID);
+    return aIncoming == null ? new int [0] : aIncoming.toArray ();
+  }
+
+  /**
+   * Invoke the passed procedure for the IDs of all incoming relations of a
+   * node.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param aProcedure
+   *        The procedure to invoke. May not be <code>null</code>. If it returns
+   *        <code>false</code> the iteration is stopped.
+   * @return <code>false</code> if the iteration was stopped by the procedure.
+   */
+  public boolean forEachIncomingRelation (final int nNodeID, @Nonnull final TIntProcedure aProcedure)
+  {
+    if (aProcedure == null)
+      throw new NullPointerException ("procedure");
+    final TIntArrayList aIncoming = m_aIncoming.get (nNodeID);
+    return aIncoming == null || aIncoming.forEach (aProcedure);
+  }
+
+  @Override
+  public void trimToSize ()
+  {
+    super.trimToSize ();
+    trimListsToSize (m_aIncoming);
+  }
+}
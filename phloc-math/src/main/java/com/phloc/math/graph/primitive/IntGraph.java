@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.procedure.TIntProcedure;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.state.EChange;
+
+/**
+ * An undirected graph with primitive <code>int</code> node and relation IDs.
+ * The IDs of all relations of a node are stored in a primitive list. A
+ * relation connecting a node with itself is contained only once in the list of
+ * the node.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class IntGraph extends AbstractIntGraph
+{
+  public IntGraph ()
+  {}
+
+  public final boolean isDirected ()
+  {
+    return false;
+  }
+
+  /**
+   * Add a new node without relations.
+   * 
+   * @param nNodeID
+   *        The ID of the node to add.
+   * @return {@link EChange#UNCHANGED} if a node with the same ID is already
+   *         contained.
+   */
+  @Nonnull
+  public EChange addNode (final int nNodeID)
+  {
+    if (m_aNodes.containsKey (nNodeID))
+      return EChange.UNCHANGED;
+    m_aNodes.put (nNodeID, null);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Remove the passed node and all relations of it.
+   * 
+   * @param nNodeID
+   *        The ID of the node to remove.
+   * @return {@link EChange#UNCHANGED} if no such node is contained.
+   */
+  @Nonnull
+  public EChange removeNodeAndAllRelations (final int nNodeID)
+  {
+    if (!m_aNodes.containsKey (nNodeID))
+      return EChange.UNCHANGED;
+    for (final int nRelationID : getAllRelationIDs (nNodeID))
+      removeRelation (nRelationID);
+    m_aNodes.remove (nNodeID);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Create a new relation with the default weight. Nodes that are not yet
+   * contained are added automatically.
+   * 
+   * @param nNode1ID
+   *        The first node ID.
+   * @param nNode2ID
+   *        The second node ID.
+   * @return The ID of the new relation. Always &ge; 0.
+   */
+  @Nonnegative
+  public int createRelation (final int nNode1ID, final int nNode2ID)
+  {
+    return createRelation (nNode1ID, nNode2ID, DEFAULT_WEIGHT);
+  }
+
+  /**
+   * Create a new relation. Nodes that are not yet contained are added
+   * automatically.
+   * 
+   * @param nNode1ID
+   *        The first node ID.
+   * @param nNode2ID
+   *        The second node ID.
+   * @param dWeight
+   *        The weight of the relation.
+   * @return The ID of the new relation. Always &ge; 0.
+   */
+  @Nonnegative
+  public int createRelation (final int nNode1ID, final int nNode2ID, final double dWeight)
+  {
+    final int ret = addRelationInternal (nNode1ID, nNode2ID, dWeight);
+    getOrCreateNodeRelations (nNode1ID).add (ret);
+    if (nNode2ID != nNode1ID)
+      getOrCreateNodeRelations (nNode2ID).add (ret);
+    return ret;
+  }
+
+  /**
+   * Remove the passed relation.
+   * 
+   * @param nRelationID
+   *        The ID of the relation to remove.
+   * @return {@link EChange#UNCHANGED} if no such relation is contained.
+   */
+  @Nonnull
+  public EChange removeRelation (final int nRelationID)
+  {
+    if (!containsRelation (nRelationID))
+      return EChange.UNCHANGED;
+    final int nNode1ID = getRelationNode1ID (nRelationID);
+    final int nNode2ID = getRelationNode2ID (nRelationID);
+    m_aNodes.get (nNode1ID).remove (nRelationID);
+    if (nNode2ID != nNode1ID)
+      m_aNodes.get (nNode2ID).remove (nRelationID);
+    markRelationRemoved (nRelationID);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * @param nRelationID
+   *        The relation ID.
+   * @return The ID of the first node of the passed relation.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public int getRelationNode1ID (final int nRelationID)
+  {
+    return getRelationNode1 (nRelationID);
+  }
+
+  /**
+   * @param nRelationID
+   *        The relation ID.
+   * @return The ID of the second node of the passed relation.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained
+   */
+  public int getRelationNode2ID (final int nRelationID)
+  {
+    return getRelationNode2 (nRelationID);
+  }
+
+  /**
+   * Get the node on the other side of a relation.
+   * 
+   * @param nRelationID
+   *        The relation ID.
+   * @param nNodeID
+   *        The ID of the node on one side of the relation.
+   * @return The ID of the node on the other side of the relation. For
+   *         relations connecting a node with itself, this is the passed node
+   *         ID.
+   * @throws IllegalArgumentException
+   *         If no such relation is contained or if the relation is not
+   *         connected to the passed node.
+   */
+  public int getRelationPeerNodeID (final int nRelationID, final int nNodeID)
+  {
+    final int nNode1ID = getRelationNode1 (nRelationID);
+    final int nNode2ID = getRelationNode2 (nRelationID);
+    if (nNode1ID == nNodeID)
+      return nNode2ID;
+    if (nNode2ID == nNodeID)
+      return nNode1ID;
+    throw new IllegalArgumentException ("Relation " + nRelationID + " is not connected to node " + nNodeID);
+  }
+
+  /**
+   * Find the first relation between two nodes.
+   * 
+   * @param nNode1ID
+   *        The first node ID.
+   * @param nNode2ID
+   *        The second node ID.
+   * @return {@link CGlobal#ILLEGAL_UINT} if no such relation exists.
+   */
+  public int findRelationID (final int nNode1ID, final int nNode2ID)
+  {
+    final TIntArrayList aRelations = m_aNodes.get (nNode1ID);
+    if (aRelations != null)
+      for (int i = 0; i < aRelations.size (); ++i)
+      {
+        final int nRelationID = aRelations.getQuick (i);
+        if (getRelationPeerNodeID (nRelationID, nNode1ID) == nNode2ID)
+          return nRelationID;
+      }
+    return CGlobal.ILLEGAL_UINT;
+  }
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The number of relations of the passed node. 0 if no such node is
+   *         contained.
+   */
+  @Nonnegative
+  public int getRelationCount (final int nNodeID)
+  {
+    final TIntArrayList aRelations = m_aNodes.get (nNodeID);
+    return aRelations == null ? 0 : aRelations.size ();
+  }
+
+  /**
+   * Get the ID of a relation of a node. Together with
+   * {@link #getRelationCount(int)} this allows iterating the relations without
+   * creating any object.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param nIndex
+   *        The index of the relation. Must be &ge; 0 and &lt;
+   *        {@link #getRelationCount(int)}.
+   * @return The relation ID.
+   */
+  public int getRelationID (final int nNodeID, @Nonnegative final int nIndex)
+  {
+    final TIntArrayList aRelations = m_aNodes.get (nNodeID);
+    if (aRelations == null)
+      throw new IllegalArgumentException ("Node " + nNodeID + " has no relations");
+    return aRelations.get (nIndex);
+  }
+
+  /**
+   * @param nNodeID
+   *        The node ID.
+   * @return The IDs of all relations of the passed node. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public int [] getAllRelationIDs (final int nNodeID)
+  {
+    final TIntArrayList aRelations = m_aNodes.get (nNodeID);
+    return aRelations == null ? new int [0] : aRelations.toArray ();
+  }
+
+  /**
+   * Invoke the passed procedure for the IDs of all relations of a node.
+   * 
+   * @param nNodeID
+   *        The node ID.
+   * @param aProcedure
+   *        The procedure to invoke. May not be <code>null</code>. If it returns
+   *        <code>false</code> the iteration is stopped.
+   * @return <code>false</code> if the iteration was stopped by the procedure.
+   */
+  public boolean forEachRelation (final int nNodeID, @Nonnull final TIntProcedure aProcedure)
+  {
+    if (aProcedure == null)
+      throw new NullPointerException ("procedure");
+    final TIntArrayList aRelations = m_aNodes.get (nNodeID);
+    return aRelations == null || aRelations.forEach (aProcedure);
+  }
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import gnu.trove.procedure.TIntProcedure;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.PresentForCodeCoverage;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.math.graph.IBaseGraphObject;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Conversion between the object based graphs and the primitive
+ * {@link IntDirectedGraph} and {@link IntGraph}. When converting to a primitive
+ * graph, the node and relation IDs are the dense indices of an
+ * {@link IndexedGraph} so that the original objects can be resolved again.
+ * When converting from a primitive graph, the string representation of the
+ * primitive IDs is used as node and relation IDs.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class IntGraphConverter
+{
+  @SuppressWarnings ("unused")
+  @PresentForCodeCoverage
+  private static final IntGraphConverter s_aInstance = new IntGraphConverter ();
+
+  private IntGraphConverter ()
+  {}
+
+  private static double _getWeight (@Nonnull final IBaseGraphObject aRelation, @Nullable final String sWeightAttr)
+  {
+    if (StringHelper.hasNoText (sWeightAttr))
+      return AbstractIntGraph.DEFAULT_WEIGHT;
+    if (!aRelation.containsAttribute (sWeightAttr))
+      throw new IllegalArgumentException ("Relation '" +
+                                          aRelation.getID () +
+                                          "' has no weight attribute '" +
+                                          sWeightAttr +
+                                          "'");
+    return aRelation.getAttributeAsDouble (sWeightAttr);
+  }
+
+  /**
+   * Convert the passed directed graph to a primitive graph.
+   * 
+   * @param aGraph
+   *        The source graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute containing the weight. May be
+   *        <code>null</code> to use {@link AbstractIntGraph#DEFAULT_WEIGHT} for
+   *        all relations.
+   * @return The new primitive graph, where node and relation IDs are the node
+   *         and relation indices of <code>new IndexedGraph (aGraph)</code>.
+   *         Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no weight attribute
+   */
+  @Nonnull
+  public static IntDirectedGraph toIntDirectedGraph (@Nonnull final IReadonlyDirectedGraph aGraph,
+                                                     @Nullable final String sWeightAttr)
+  {
+    return toIntDirectedGraph (new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph), sWeightAttr);
+  }
+
+  /**
+   * Convert the passed indexed directed graph to a primitive graph.
+   * 
+   * @param aIndexedGraph
+   *        The indexed source graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute containing the weight. May be
+   *        <code>null</code> to use {@link AbstractIntGraph#DEFAULT_WEIGHT} for
+   *        all relations.
+   * @return The new primitive graph, where node and relation IDs are the node
+   *         and relation indices of the passed indexed graph. Never
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no weight attribute
+   */
+  @Nonnull
+  public static IntDirectedGraph toIntDirectedGraph (@Nonnull final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndexedGraph,
+                                                     @Nullable final String sWeightAttr)
+  {
+    if (aIndexedGraph == null)
+      throw new NullPointerException ("indexedGraph");
+
+    final IntDirectedGraph ret = new IntDirectedGraph ();
+    for (int i = 0; i < aIndexedGraph.getNodeCount (); ++i)
+      ret.addNode (i);
+    for (int i = 0; i < aIndexedGraph.getRelationCount (); ++i)
+      ret.createRelation (aIndexedGraph.getRelationFromIndex (i),
+                          aIndexedGraph.getRelationToIndex (i),
+                          _getWeight (aIndexedGraph.getRelationOfIndex (i), sWeightAttr));
+    ret.trimToSize ();
+    return ret;
+  }
+
+  /**
+   * Convert the passed undirected graph to a primitive graph.
+   * 
+   * @param aGraph
+   *        The source graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute containing the weight. May be
+   *        <code>null</code> to use {@link AbstractIntGraph#DEFAULT_WEIGHT} for
+   *        all relations.
+   * @return The new primitive graph, where node and relation IDs are the node
+   *         and relation indices of <code>new IndexedGraph (aGraph)</code>.
+   *         Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no weight attribute
+   */
+  @Nonnull
+  public static IntGraph toIntGraph (@Nonnull final IReadonlyGraph aGraph, @Nullable final String sWeightAttr)
+  {
+    return toIntGraph (new IndexedGraph <IGraphNode, IGraphRelation> (aGraph), sWeightAttr);
+  }
+
+  /**
+   * Convert the passed indexed undirected graph to a primitive graph.
+   * 
+   * @param aIndexedGraph
+   *        The indexed source graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute containing the weight. May be
+   *        <code>null</code> to use {@link AbstractIntGraph#DEFAULT_WEIGHT} for
+   *        all relations.
+   * @return The new primitive graph, where node and relation IDs are the node
+   *         and relation indices of the passed indexed graph. Never
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a relation has no weight attribute
+   */
+  @Nonnull
+  public static IntGraph toIntGraph (@Nonnull final IndexedGraph <IGraphNode, IGraphRelation> aIndexedGraph,
+                                     @Nullable final String sWeightAttr)
+  {
+    if (aIndexedGraph == null)
+      throw new NullPointerException ("indexedGraph");
+
+    final IntGraph ret = new IntGraph ();
+    for (int i = 0; i < aIndexedGraph.getNodeCount (); ++i)
+      ret.addNode (i);
+    for (int i = 0; i < aIndexedGraph.getRelationCount (); ++i)
+      ret.createRelation (aIndexedGraph.getRelationFromIndex (i),
+                          aIndexedGraph.getRelationToIndex (i),
+                          _getWeight (aIndexedGraph.getRelationOfIndex (i), sWeightAttr));
+    ret.trimToSize ();
+    return ret;
+  }
+
+  /**
+   * Convert the passed primitive graph to an object based graph. As
+   * {@link SimpleDirectedGraph} does not support parallel relations, all
+   * primitive relations with the same from- and to-node are merged into a
+   * single relation. It has the ID of the first of these relations and the
+   * minimum weight of all of them.
+   * 
+   * @param aGraph
+   *        The primitive graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute to store the weight in. May be
+   *        <code>null</code> to not store the weights.
+   * @return The new graph where all node and relation IDs are the string
+   *         representation of the primitive IDs. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SimpleDirectedGraph toDirectedGraph (@Nonnull final IntDirectedGraph aGraph,
+                                                     @Nullable final String sWeightAttr)
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+
+    final SimpleDirectedGraph ret = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    aGraph.forEachNode (new TIntProcedure ()
+    {
+      public boolean execute (final int nNodeID)
+      {
+        ret.createNode (Integer.toString (nNodeID));
+        return true;
+      }
+    });
+    aGraph.forEachRelation (new TIntProcedure ()
+    {
+      public boolean execute (final int nRelationID)
+      {
+        final IDirectedGraphNode aFrom = ret.getNodeOfID (Integer.toString (aGraph.getRelationFromNodeID (nRelationID)));
+        final IDirectedGraphNode aTo = ret.getNodeOfID (Integer.toString (aGraph.getRelationToNodeID (nRelationID)));
+        final double dWeight = aGraph.getRelationWeight (nRelationID);
+        final IDirectedGraphRelation aExisting = aFrom.getOutgoingRelationTo (aTo);
+        if (aExisting != null)
+        {
+          // Parallel relation - keep the minimum weight
+          if (StringHelper.hasText (sWeightAttr) && dWeight < aExisting.getAttributeAsDouble (sWeightAttr))
+            aExisting.setAttribute (sWeightAttr, Double.valueOf (dWeight));
+          return true;
+        }
+        final IDirectedGraphRelation aRelation = ret.createRelation (Integer.toString (nRelationID), aFrom, aTo);
+        if (StringHelper.hasText (sWeightAttr))
+          aRelation.setAttribute (sWeightAttr, Double.valueOf (dWeight));
+        return true;
+      }
+    });
+    return ret;
+  }
+
+  /**
+   * Convert the passed primitive graph to an object based graph. Parallel
+   * relations are supported by {@link SimpleGraph} and are therefore kept as
+   * separate relations.
+   * 
+   * @param aGraph
+   *        The primitive graph. May not be <code>null</code>.
+   * @param sWeightAttr
+   *        The name of the relation attribute to store the weight in. May be
+   *        <code>null</code> to not store the weights.
+   * @return The new graph where all node and relation IDs are the string
+   *         representation of the primitive IDs. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SimpleGraph toGraph (@Nonnull final IntGraph aGraph, @Nullable final String sWeightAttr)
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+
+    final SimpleGraph ret = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    aGraph.forEachNode (new TIntProcedure ()
+    {
+      public boolean execute (final int nNodeID)
+      {
+        ret.createNode (Integer.toString (nNodeID));
+        return true;
+      }
+    });
+    aGraph.forEachRelation (new TIntProcedure ()
+    {
+      public boolean execute (final int nRelationID)
+      {
+        final IGraphRelation aRelation = ret.createRelation (Integer.toString (nRelationID),
+                                                             ret.getNodeOfID (Integer.toString (aGraph.getRelationNode1ID (nRelationID))),
+                                                             ret.getNodeOfID (Integer.toString (aGraph.getRelationNode2ID (nRelationID))));
+        if (StringHelper.hasText (sWeightAttr))
+          aRelation.setAttribute (sWeightAttr, Double.valueOf (aGraph.getRelationWeight (nRelationID)));
+        return true;
+      }
+    });
+    return ret;
+  }
+}
@@ -0,0 +1,478 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.simple;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.collections.pair.IReadonlyPair;
+import com.phloc.commons.collections.pair.ReadonlyPair;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.math.graph.IBaseGraph;
+import com.phloc.math.graph.IBaseGraphNode;
+import com.phloc.math.graph.IBaseGraphRelation;
+
+/**
+ * Abstract base class for builders that create a complete graph from bulk node
+ * and relation lists. In contrast to creating the graph object by object, all
+ * data is only collected upon the add calls. Validation and graph creation
+ * happen in a single pass in {@link #build()}, where the node map of the new
+ * graph is presized to the final node count.
+ * 
+ * @author Philip Helger
+ * @param <N>
+ *        Node class
+ * @param <R>
+ *        Relation class
+ * @param <G>
+ *        Graph class
+ * @param <IMPLTYPE>
+ *        Implementation type
+ */
+@NotThreadSafe
+public abstract class AbstractSimpleGraphBuilder <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>, G extends IBaseGraph <N, R>, IMPLTYPE extends AbstractSimpleGraphBuilder <N, R, G, IMPLTYPE>>
+{
+  /** The default name of the relation attribute to store weights in */
+  public static final String DEFAULT_WEIGHT_ATTR = "weight";
+  /** By default relations may not reference nodes that were not added */
+  public static final boolean DEFAULT_CREATE_MISSING_NODES = false;
+
+  private final List <String> m_aNodeIDs = new ArrayList <String> ();
+  // Sparse: node index to attributes
+  private final TIntObjectHashMap <Map <String, ?>> m_aNodeAttrs = new TIntObjectHashMap <Map <String, ?>> ();
+  private final List <String> m_aRelationIDs = new ArrayList <String> ();
+  private final List <String> m_aRelationFromIDs = new ArrayList <String> ();
+  private final List <String> m_aRelationToIDs = new ArrayList <String> ();
+  // NaN means no weight
+  private final TDoubleArrayList m_aRelationWeights = new TDoubleArrayList ();
+  // Sparse: relation index to attributes
+  private final TIntObjectHashMap <Map <String, ?>> m_aRelationAttrs = new TIntObjectHashMap <Map <String, ?>> ();
+  private String m_sWeightAttr = DEFAULT_WEIGHT_ATTR;
+  private boolean m_bCreateMissingNodes = DEFAULT_CREATE_MISSING_NODES;
+
+  protected AbstractSimpleGraphBuilder ()
+  {}
+
+  @SuppressWarnings ("unchecked")
+  @Nonnull
+  protected final IMPLTYPE thisAsT ()
+  {
+    return (IMPLTYPE) this;
+  }
+
+  /**
+   * @return The name of the relation attribute the weights are stored in.
+   *         Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public final String getWeightAttributeName ()
+  {
+    return m_sWeightAttr;
+  }
+
+  /**
+   * @param sWeightAttr
+   *        The name of the relation attribute the weights are stored in. May
+   *        neither be <code>null</code> nor empty.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE setWeightAttributeName (@Nonnull @Nonempty final String sWeightAttr)
+  {
+    if (StringHelper.hasNoText (sWeightAttr))
+      throw new IllegalArgumentException ("weightAttr may not be empty");
+    m_sWeightAttr = sWeightAttr;
+    return thisAsT ();
+  }
+
+  /**
+   * @return <code>true</code> if nodes that are only referenced by relations
+   *         are created automatically, <code>false</code> if this is an error.
+   */
+  public final boolean isCreateMissingNodes ()
+  {
+    return m_bCreateMissingNodes;
+  }
+
+  /**
+   * @param bCreateMissingNodes
+   *        <code>true</code> to create nodes that are only referenced by
+   *        relations automatically, <code>false</code> to treat this as an
+   *        error.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE setCreateMissingNodes (final boolean bCreateMissingNodes)
+  {
+    m_bCreateMissingNodes = bCreateMissingNodes;
+    return thisAsT ();
+  }
+
+  /**
+   * @return The number of nodes added so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getNodeCount ()
+  {
+    return m_aNodeIDs.size ();
+  }
+
+  /**
+   * @return The number of relations added so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getRelationCount ()
+  {
+    return m_aRelationIDs.size ();
+  }
+
+  /**
+   * Add a new node without attributes.
+   * 
+   * @param sNodeID
+   *        The ID of the node. May neither be <code>null</code> nor empty. The
+   *        uniqueness is only checked in {@link #build()}.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addNode (@Nonnull @Nonempty final String sNodeID)
+  {
+    return addNode (sNodeID, null);
+  }
+
+  /**
+   * Add a new node.
+   * 
+   * @param sNodeID
+   *        The ID of the node. May neither be <code>null</code> nor empty. The
+   *        uniqueness is only checked in {@link #build()}.
+   * @param aAttrs
+   *        The attributes of the node. May be <code>null</code>. The map is not
+   *        copied.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addNode (@Nonnull @Nonempty final String sNodeID, @Nullable final Map <String, ?> aAttrs)
+  {
+    if (StringHelper.hasNoText (sNodeID))
+      throw new IllegalArgumentException ("nodeID may not be empty");
+    if (aAttrs != null && !aAttrs.isEmpty ())
+      m_aNodeAttrs.put (m_aNodeIDs.size (), aAttrs);
+    m_aNodeIDs.add (sNodeID);
+    return thisAsT ();
+  }
+
+  /**
+   * Add new nodes without attributes.
+   * 
+   * @param aNodeIDs
+   *        The IDs of the nodes. May not be <code>null</code>.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addNodes (@Nonnull final Collection <String> aNodeIDs)
+  {
+    if (aNodeIDs == null)
+      throw new NullPointerException ("nodeIDs");
+    for (final String sNodeID : aNodeIDs)
+      addNode (sNodeID, null);
+    return thisAsT ();
+  }
+
+  /**
+   * Add a new relation with a created ID and without weight and attributes.
+   * 
+   * @param sFromNodeID
+   *        The ID of the first node. May not be <code>null</code>.
+   * @param sToNodeID
+   *        The ID of the second node. May not be <code>null</code>.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addRelation (@Nonnull final String sFromNodeID, @Nonnull final String sToNodeID)
+  {
+    return addRelation (null, sFromNodeID, sToNodeID, Double.NaN, null);
+  }
+
+  /**
+   * Add a new relation with a created ID and without attributes.
+   * 
+   * @param sFromNodeID
+   *        The ID of the first node. May not be <code>null</code>.
+   * @param sToNodeID
+   *        The ID of the second node. May not be <code>null</code>.
+   * @param dWeight
+   *        The weight to be stored in the attribute
+   *        {@link #getWeightAttributeName()}.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addRelation (@Nonnull final String sFromNodeID,
+                                     @Nonnull final String sToNodeID,
+                                     final double dWeight)
+  {
+    if (Double.isNaN (dWeight))
+      throw new IllegalArgumentException ("weight may not be NaN");
+    return addRelation (null, sFromNodeID, sToNodeID, dWeight, null);
+  }
+
+  /**
+   * Add a new relation.
+   * 
+   * @param sRelationID
+   *        The ID of the relation. May be <code>null</code> to create a new ID.
+   *        The uniqueness is only checked in {@link #build()}.
+   * @param sFromNodeID
+   *        The ID of the first node. May not be <code>null</code>.
+   * @param sToNodeID
+   *        The ID of the second node. May not be <code>null</code>.
+   * @param dWeight
+   *        The weight to be stored in the attribute
+   *        {@link #getWeightAttributeName()}. May be {@link Double#NaN} to not
+   *        store a weight.
+   * @param aAttrs
+   *        The attributes of the relation. May be <code>null</code>. The map
+   *        is not copied.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addRelation (@Nullable final String sRelationID,
+                                     @Nonnull final String sFromNodeID,
+                                     @Nonnull final String sToNodeID,
+                                     final double dWeight,
+                                     @Nullable final Map <String, ?> aAttrs)
+  {
+    if (sFromNodeID == null)
+      throw new NullPointerException ("fromNodeID");
+    if (sToNodeID == null)
+      throw new NullPointerException ("toNodeID");
+    if (aAttrs != null && !aAttrs.isEmpty ())
+      m_aRelationAttrs.put (m_aRelationIDs.size (), aAttrs);
+    m_aRelationIDs.add (StringHelper.hasText (sRelationID) ? sRelationID : null);
+    m_aRelationFromIDs.add (sFromNodeID);
+    m_aRelationToIDs.add (sToNodeID);
+    m_aRelationWeights.add (dWeight);
+    return thisAsT ();
+  }
+
+  /**
+   * Add new relations with created IDs and without weights and attributes,
+   * e.g. from an edge list. The relation with index <code>i</code> connects
+   * <code>aFromNodeIDs[i]</code> and <code>aToNodeIDs[i]</code>.
+   * 
+   * @param aFromNodeIDs
+   *        The IDs of the first nodes. May not be <code>null</code>.
+   * @param aToNodeIDs
+   *        The IDs of the second nodes. May not be <code>null</code> and must
+   *        have the same length as the first nodes.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addRelations (@Nonnull final String [] aFromNodeIDs, @Nonnull final String [] aToNodeIDs)
+  {
+    return addRelations (aFromNodeIDs, aToNodeIDs, null);
+  }
+
+  /**
+   * Add new relations with created IDs and without attributes, e.g. from a
+   * weighted edge list. The relation with index <code>i</code> connects
+   * <code>aFromNodeIDs[i]</code> and <code>aToNodeIDs[i]</code>.
+   * 
+   * @param aFromNodeIDs
+   *        The IDs of the first nodes. May not be <code>null</code>.
+   * @param aToNodeIDs
+   *        The IDs of the second nodes. May not be <code>null</code> and must
+   *        have the same length as the first nodes.
+   * @param aWeights
+   *        The weights to be stored in the attribute
+   *        {@link #getWeightAttributeName()}. May be <code>null</code> to not
+   *        store weights. If present, it must have the same length as the
+   *        first nodes and may not contain {@link Double#NaN}.
+   * @return this
+   */
+  @Nonnull
+  public final IMPLTYPE addRelations (@Nonnull final String [] aFromNodeIDs,
+                                      @Nonnull final String [] aToNodeIDs,
+                                      @Nullable final double [] aWeights)
+  {
+    if (aFromNodeIDs == null)
+      throw new NullPointerException ("fromNodeIDs");
+    if (aToNodeIDs == null)
+      throw new NullPointerException ("toNodeIDs");
+    final int nCount = aFromNodeIDs.length;
+    if (aToNodeIDs.length != nCount)
+      throw new IllegalArgumentException ("Expected " + nCount + " to node IDs but got " + aToNodeIDs.length);
+    if (aWeights != null)
+    {
+      if (aWeights.length != nCount)
+        throw new IllegalArgumentException ("Expected " + nCount + " weights but got " + aWeights.length);
+      // Check upfront, so that no relation is added if a weight is invalid
+      for (int i = 0; i < nCount; ++i)
+        if (Double.isNaN (aWeights[i]))
+          throw new IllegalArgumentException ("weight " + i + " may not be NaN");
+    }
+
+    m_aRelationWeights.ensureCapacity (m_aRelationWeights.size () + nCount);
+    for (int i = 0; i < nCount; ++i)
+      addRelation (null, aFromNodeIDs[i], aToNodeIDs[i], aWeights == null ? Double.NaN : aWeights[i], null);
+    return thisAsT ();
+  }
+
+  /**
+   * Create a new empty graph.
+   * 
+   * @param nExpectedNodeCount
+   *        The number of nodes that will be added.
+   * @return The new graph. May not be <code>null</code>.
+   */
+  @Nonnull
+  protected abstract G createGraph (@Nonnegative int nExpectedNodeCount);
+
+  /**
+   * Create a new node in the passed graph.
+   * 
+   * @return The new node or <code>null</code> if a node with the same ID is
+   *         already contained.
+   */
+  @Nullable
+  protected abstract N createNode (@Nonnull G aGraph, @Nonnull String sNodeID);
+
+  /**
+   * Create a new relation in the passed graph.
+   * 
+   * @return The new relation. May not be <code>null</code>.
+   */
+  @Nonnull
+  protected abstract R createRelation (@Nonnull G aGraph, @Nullable String sRelationID, @Nonnull N aFrom, @Nonnull N aTo);
+
+  /**
+   * Check if several relations between the same pair of nodes may be created.
+   * If this method returns <code>false</code> the from/to node ID pairs of all
+   * relations are checked for duplicates in {@link #build()} before the graph
+   * is created. By default parallel relations are allowed.
+   * 
+   * @return <code>true</code> if parallel relations are allowed,
+   *         <code>false</code> if not.
+   */
+  protected boolean isParallelRelationAllowed ()
+  {
+    return true;
+  }
+
+  @Nonnull
+  private N _resolveNode (@Nonnull final G aGraph, @Nonnull final String sNodeID)
+  {
+    N ret = aGraph.getNodeOfID (sNodeID);
+    if (ret == null)
+    {
+      if (!m_bCreateMissingNodes)
+        throw new IllegalArgumentException ("Failed to resolve node ID '" + sNodeID + "'");
+      ret = createNode (aGraph, sNodeID);
+    }
+    return ret;
+  }
+
+  /**
+   * Create a new graph with all nodes and relations added so far. The builder
+   * stays unchanged, so this method may be called several times to create
+   * independent graphs.
+   * 
+   * @return The new graph. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If node IDs or relation IDs are not unique, if a relation
+   *         references a non-existing node and
+   *         {@link #isCreateMissingNodes()} is <code>false</code>, or if
+   *         {@link #isParallelRelationAllowed()} is <code>false</code> and
+   *         several relations have the same from and to node IDs.
+   */
+  @Nonnull
+  public final G build ()
+  {
+    // Check the explicit relation IDs upfront in a single hash pass, so that
+    // no half-built graph object needs to be created
+    final Set <String> aRelationIDs = new HashSet <String> ();
+    for (final String sRelationID : m_aRelationIDs)
+      if (sRelationID != null && !aRelationIDs.add (sRelationID))
+        throw new IllegalArgumentException ("Duplicate relation ID '" + sRelationID + "'");
+    if (!isParallelRelationAllowed ())
+    {
+      final Set <IReadonlyPair <String, String>> aRelationNodeIDs = new HashSet <IReadonlyPair <String, String>> ();
+      final int nRelationCount = m_aRelationFromIDs.size ();
+      for (int i = 0; i < nRelationCount; ++i)
+      {
+        final String sFromID = m_aRelationFromIDs.get (i);
+        final String sToID = m_aRelationToIDs.get (i);
+        if (!aRelationNodeIDs.add (new ReadonlyPair <String, String> (sFromID, sToID)))
+          throw new IllegalArgumentException ("Duplicate relation from '" + sFromID + "' to '" + sToID + "'");
+      }
+    }
+
+    final int nNodeCount = m_aNodeIDs.size ();
+    final G ret = createGraph (nNodeCount);
+    for (int i = 0; i < nNodeCount; ++i)
+    {
+      final N aNode = createNode (ret, m_aNodeIDs.get (i));
+      if (aNode == null)
+        throw new IllegalArgumentException ("Duplicate node ID '" + m_aNodeIDs.get (i) + "'");
+      final Map <String, ?> aAttrs = m_aNodeAttrs.get (i);
+      if (aAttrs != null)
+        aNode.setAttributes (aAttrs);
+    }
+
+    final int nRelationCount = m_aRelationIDs.size ();
+    for (int i = 0; i < nRelationCount; ++i)
+    {
+      final R aRelation = createRelation (ret,
+                                          m_aRelationIDs.get (i),
+                                          _resolveNode (ret, m_aRelationFromIDs.get (i)),
+                                          _resolveNode (ret, m_aRelationToIDs.get (i)));
+      final double dWeight = m_aRelationWeights.getQuick (i);
+      if (!Double.isNaN (dWeight))
+        aRelation.setAttribute (m_sWeightAttr, dWeight);
+      final Map <String, ?> aAttrs = m_aRelationAttrs.get (i);
+      if (aAttrs != null)
+        aRelation.setAttributes (aAttrs);
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("nodeCount", getNodeCount ())
+                                       .append ("relationCount", getRelationCount ())
+                                       .append ("weightAttr", m_sWeightAttr)
+                                       .append ("createMissingNodes", m_bCreateMissingNodes)
+                                       .toString ();
+  }
+}
@@ -17,6 +17,7 @@
  */
 package com.phloc.math.graph.simple;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -44,6 +45,11 @@ public class SimpleDirectedGraph extends DirectedGraph implements ISimpleDirecte
     super (null, aFactory);
   }
 
+  public SimpleDirectedGraph (@Nonnull final IDirectedGraphObjectFactory aFactory, @Nonnegative final int nExpectedNodeCount)
+  {
+    super (null, aFactory, nExpectedNodeCount);
+  }
+
   @Nonnull
   public IDirectedGraphRelation createRelation (@Nonnull final String sFromNodeID, @Nonnull final String sToNodeID)
   {
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.simple;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphObjectFactory;
+import com.phloc.math.graph.IDirectedGraphRelation;
+
+/**
+ * Builder for creating a directed {@link SimpleDirectedGraph} from bulk node and
+ * relation lists.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class SimpleDirectedGraphBuilder extends AbstractSimpleGraphBuilder <IDirectedGraphNode, IDirectedGraphRelation, SimpleDirectedGraph, SimpleDirectedGraphBuilder>
+{
+  private final IDirectedGraphObjectFactory m_aFactory;
+
+  public SimpleDirectedGraphBuilder ()
+  {
+    this (new SimpleDirectedGraphObjectFactory ());
+  }
+
+  public SimpleDirectedGraphBuilder (@Nonnull final IDirectedGraphObjectFactory aFactory)
+  {
+    if (aFactory == null)
+      throw new NullPointerException ("factory");
+    m_aFactory = aFactory;
+  }
+
+  /**
+   * Directed graphs support only one relation per direction between two
+   * nodes.
+   * 
+   * @return Always <code>false</code>
+   */
+  @Override
+  protected boolean isParallelRelationAllowed ()
+  {
+    return false;
+  }
+
+  @Override
+  @Nonnull
+  protected SimpleDirectedGraph createGraph (@Nonnegative final int nExpectedNodeCount)
+  {
+    return new SimpleDirectedGraph (m_aFactory, nExpectedNodeCount);
+  }
+
+  @Override
+  @Nullable
+  protected IDirectedGraphNode createNode (@Nonnull final SimpleDirectedGraph aGraph, @Nonnull final String sNodeID)
+  {
+    return aGraph.createNode (sNodeID);
+  }
+
+  @Override
+  @Nonnull
+  protected IDirectedGraphRelation createRelation (@Nonnull final SimpleDirectedGraph aGraph,
+                                                   @Nullable final String sRelationID,
+                                                   @Nonnull final IDirectedGraphNode aFrom,
+                                                   @Nonnull final IDirectedGraphNode aTo)
+  {
+    return aGraph.createRelation (sRelationID, aFrom, aTo);
+  }
+}
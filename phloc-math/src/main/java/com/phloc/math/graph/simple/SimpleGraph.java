@@ -17,6 +17,7 @@
  */
 package com.phloc.math.graph.simple;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -44,6 +45,11 @@ public class SimpleGraph extends Graph implements ISimpleGraph
     super (null, aFactory);
   }
 
+  public SimpleGraph (@Nonnull final IGraphObjectFactory aFactory, @Nonnegative final int nExpectedNodeCount)
+  {
+    super (null, aFactory, nExpectedNodeCount);
+  }
+
   @Nonnull
   public IGraphRelation createRelation (@Nonnull final String sFromNodeID, @Nonnull final String sToNodeID)
   {
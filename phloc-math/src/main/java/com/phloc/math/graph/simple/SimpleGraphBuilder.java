@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.simple;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphObjectFactory;
+import com.phloc.math.graph.IGraphRelation;
+
+/**
+ * Builder for creating an undirected {@link SimpleGraph} from bulk node and
+ * relation lists.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class SimpleGraphBuilder extends AbstractSimpleGraphBuilder <IGraphNode, IGraphRelation, SimpleGraph, SimpleGraphBuilder>
+{
+  private final IGraphObjectFactory m_aFactory;
+
+  public SimpleGraphBuilder ()
+  {
+    this (new SimpleGraphObjectFactory ());
+  }
+
+  public SimpleGraphBuilder (@Nonnull final IGraphObjectFactory aFactory)
+  {
+    if (aFactory == null)
+      throw new NullPointerException ("factory");
+    m_aFactory = aFactory;
+  }
+
+  @Override
+  @Nonnull
+  protected SimpleGraph createGraph (@Nonnegative final int nExpectedNodeCount)
+  {
+    return new SimpleGraph (m_aFactory, nExpectedNodeCount);
+  }
+
+  @Override
+  @Nullable
+  protected IGraphNode createNode (@Nonnull final SimpleGraph aGraph, @Nonnull final String sNodeID)
+  {
+    return aGraph.createNode (sNodeID);
+  }
+
+  @Override
+  @Nonnull
+  protected IGraphRelation createRelation (@Nonnull final SimpleGraph aGraph,
+                                           @Nullable final String sRelationID,
+                                           @Nonnull final IGraphNode aFrom,
+                                           @Nonnull final IGraphNode aTo)
+  {
+    return aGraph.createRelation (sRelationID, aFrom, aTo);
+  }
+}
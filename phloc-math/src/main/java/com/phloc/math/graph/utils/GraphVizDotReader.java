@@ -0,0 +1,557 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.annotations.PresentForCodeCoverage;
+import com.phloc.commons.io.streams.NonBlockingBufferedReader;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.math.graph.simple.AbstractSimpleGraphBuilder;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphBuilder;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphBuilder;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * A streaming reader for GraphViz DOT files, as written by
+ * {@link GraphVizUtils}. The input is tokenized while reading, so that only
+ * the resulting graph is held in memory. The following subset of the DOT
+ * language is supported:
+ * <ul>
+ * <li>Plain, quoted and HTML IDs, numerals and all comment styles</li>
+ * <li>Node statements with attributes. A node may be declared several times,
+ * in which case the attributes are merged.</li>
+ * <li>Edge statements with attributes, including chains like
+ * <code>a -&gt; b -&gt; c</code>. Nodes that are only referenced by edges are
+ * created implicitly.</li>
+ * <li>Graph attribute assignments and <code>graph</code>, <code>node</code>
+ * and <code>edge</code> default attribute statements are skipped.</li>
+ * </ul>
+ * Subgraphs and ports are not supported. All attributes are stored as String
+ * attributes under their DOT names, except for <code>label</code> which can be
+ * mapped to a custom attribute name. HTML labels are unmasked.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class GraphVizDotReader
+{
+  private static final String DOT_LABEL = "label";
+
+  private static enum ETokenType
+  {
+    ID,
+    // Quoted IDs are never keywords
+    QUOTED_ID,
+    HTML_ID,
+    EDGE_OP,
+    SYMBOL,
+    EOF;
+  }
+
+  /**
+   * The parser state for a single DOT input.
+   */
+  @NotThreadSafe
+  private static final class DotParser
+  {
+    private final Reader m_aReader;
+    private final String m_sNodeLabelAttr;
+    private final String m_sRelationLabelAttr;
+    private int m_nPeekChar = -2;
+    private int m_nLine = 1;
+    // Current token
+    private ETokenType m_eType;
+    private String m_sToken;
+    // Nodes in order of appearance
+    private final Map <String, Map <String, Object>> m_aNodes = new LinkedHashMap <String, Map <String, Object>> ();
+    private boolean m_bDirected;
+
+    DotParser (@Nonnull final Reader aReader,
+               @Nullable final String sNodeLabelAttr,
+               @Nullable final String sRelationLabelAttr)
+    {
+      m_aReader = new NonBlockingBufferedReader (aReader);
+      m_sNodeLabelAttr = StringHelper.hasText (sNodeLabelAttr) ? sNodeLabelAttr : DOT_LABEL;
+      m_sRelationLabelAttr = StringHelper.hasText (sRelationLabelAttr) ? sRelationLabelAttr : DOT_LABEL;
+    }
+
+    @Nonnull
+    private IllegalArgumentException _error (@Nonnull final String sMsg)
+    {
+      return new IllegalArgumentException ("DOT line " + m_nLine + ": " + sMsg);
+    }
+
+    private int _peek () throws IOException
+    {
+      if (m_nPeekChar == -2)
+        m_nPeekChar = m_aReader.read ();
+      return m_nPeekChar;
+    }
+
+    private int _read () throws IOException
+    {
+      final int ret = _peek ();
+      m_nPeekChar = -2;
+      if (ret == '\n')
+        m_nLine++;
+      return ret;
+    }
+
+    private static boolean _isIDChar (final int c)
+    {
+      return c == '_' || c == '.' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c >= 0x80;
+    }
+
+    private void _skipWhitespaceAndComments () throws IOException
+    {
+      while (true)
+      {
+        final int c = _peek ();
+        if (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f')
+          _read ();
+        else
+          if (c == '#')
+          {
+            // Preprocessor output line
+            while (_peek () >= 0 && _peek () != '\n')
+              _read ();
+          }
+          else
+            if (c == '/')
+            {
+              _read ();
+              final int c2 = _read ();
+              if (c2 == '/')
+              {
+                while (_peek () >= 0 && _peek () != '\n')
+                  _read ();
+              }
+              else
+                if (c2 == '*')
+                {
+                  int nPrev = 0;
+                  int nCur;
+                  while ((nCur = _read ()) >= 0 && !(nPrev == '*' && nCur == '/'))
+                    nPrev = nCur;
+                  if (nCur < 0)
+                    throw _error ("Unterminated comment");
+                }
+                else
+                  throw _error ("Unexpected character '/'");
+            }
+            else
+              return;
+      }
+    }
+
+    private void _nextToken () throws IOException
+    {
+      _skipWhitespaceAndComments ();
+      final int c = _read ();
+      if (c < 0)
+      {
+        m_eType = ETokenType.EOF;
+        m_sToken = null;
+        return;
+      }
+
+      final StringBuilder aSB = new StringBuilder ();
+      if (c == '"')
+      {
+        // Quoted string
+        int c2;
+        while ((c2 = _read ()) != '"')
+        {
+          if (c2 < 0)
+            throw _error ("Unterminated string");
+          if (c2 == '\\')
+          {
+            final int c3 = _read ();
+            if (c3 == '"')
+              aSB.append ('"');
+            else
+              if (c3 == '\n')
+              {
+                // Line continuation
+              }
+              else
+                if (c3 == '\r' && _peek () == '\n')
+                  _read ();
+                else
+                {
+                  if (c3 < 0)
+                    throw _error ("Unterminated string");
+                  aSB.append ('\\').append ((char) c3);
+                }
+          }
+          else
+            aSB.append ((char) c2);
+        }
+        m_eType = ETokenType.QUOTED_ID;
+      }
+      else
+        if (c == '<')
+        {
+          // HTML string with balanced angle brackets
+          int nDepth = 1;
+          while (true)
+          {
+            final int c2 = _read ();
+            if (c2 < 0)
+              throw _error ("Unterminated HTML string");
+            if (c2 == '<')
+              nDepth++;
+            else
+              if (c2 == '>' && --nDepth == 0)
+                break;
+            aSB.append ((char) c2);
+          }
+          m_eType = ETokenType.HTML_ID;
+        }
+        else
+          if (c == '-' && (_peek () == '-' || _peek () == '>'))
+          {
+            aSB.append ('-').append ((char) _read ());
+            m_eType = ETokenType.EDGE_OP;
+          }
+          else
+            if (c == '-' || _isIDChar (c))
+            {
+              aSB.append ((char) c);
+              while (_isIDChar (_peek ()))
+                aSB.append ((char) _read ());
+              m_eType = ETokenType.ID;
+            }
+            else
+            {
+              aSB.append ((char) c);
+              m_eType = ETokenType.SYMBOL;
+            }
+      m_sToken = aSB.toString ();
+    }
+
+    private boolean _isSymbol (final char c)
+    {
+      return m_eType == ETokenType.SYMBOL && m_sToken.charAt (0) == c;
+    }
+
+    private boolean _isID ()
+    {
+      return m_eType == ETokenType.ID || m_eType == ETokenType.QUOTED_ID || m_eType == ETokenType.HTML_ID;
+    }
+
+    private boolean _isKeyword (@Nonnull final String sKeyword)
+    {
+      return m_eType == ETokenType.ID && m_sToken.toLowerCase (Locale.US).equals (sKeyword);
+    }
+
+    private void _expectSymbol (final char c) throws IOException
+    {
+      if (!_isSymbol (c))
+        throw _error ("Expected '" + c + "' but found '" + m_sToken + "'");
+      _nextToken ();
+    }
+
+    @Nonnull
+    private String _getIDValue ()
+    {
+      return m_eType == ETokenType.HTML_ID ? _unmaskHTML (m_sToken) : m_sToken;
+    }
+
+    /**
+     * Read all attribute lists at the current position.
+     * 
+     * @return <code>null</code> if no attributes are present.
+     */
+    @Nullable
+    private Map <String, Object> _readAttrLists (@Nonnull final String sLabelAttr) throws IOException
+    {
+      Map <String, Object> ret = null;
+      while (_isSymbol ('['))
+      {
+        _nextToken ();
+        while (!_isSymbol (']'))
+        {
+          if (!_isID ())
+            throw _error ("Expected attribute name but found '" + m_sToken + "'");
+          final String sName = m_sToken;
+          _nextToken ();
+          String sValue = "true";
+          if (_isSymbol ('='))
+          {
+            _nextToken ();
+            if (!_isID ())
+              throw _error ("Expected attribute value but found '" + m_sToken + "'");
+            sValue = _getIDValue ();
+            _nextToken ();
+          }
+          if (ret == null)
+            ret = new HashMap <String, Object> ();
+          ret.put (DOT_LABEL.equals (sName) ? sLabelAttr : sName, sValue);
+          if (_isSymbol (',') || _isSymbol (';'))
+            _nextToken ();
+        }
+        _nextToken ();
+      }
+      return ret;
+    }
+
+    private void _ensureNode (@Nonnull final String sNodeID, @Nullable final Map <String, Object> aAttrs)
+    {
+      Map <String, Object> aNodeAttrs = m_aNodes.get (sNodeID);
+      if (aNodeAttrs == null)
+      {
+        aNodeAttrs = aAttrs != null ? aAttrs : new HashMap <String, Object> (2);
+        m_aNodes.put (sNodeID, aNodeAttrs);
+      }
+      else
+        if (aAttrs != null)
+          aNodeAttrs.putAll (aAttrs);
+    }
+
+    private void _readStatement (@Nonnull final AbstractSimpleGraphBuilder <?, ?, ?, ?> aBuilder) throws IOException
+    {
+      if (_isKeyword ("subgraph") || _isSymbol ('{'))
+        throw _error ("Subgraphs are not supported");
+      if (_isKeyword ("graph") || _isKeyword ("node") || _isKeyword ("edge"))
+      {
+        // Default attributes are ignored
+        _nextToken ();
+        _readAttrLists (DOT_LABEL);
+        return;
+      }
+      if (!_isID ())
+        throw _error ("Unexpected '" + m_sToken + "'");
+
+      final String sFirstID = _getIDValue ();
+      _nextToken ();
+      if (_isSymbol ('='))
+      {
+        // Graph attribute assignment is ignored
+        _nextToken ();
+        if (!_isID ())
+          throw _error ("Expected attribute value but found '" + m_sToken + "'");
+        _nextToken ();
+        return;
+      }
+      if (_isSymbol (':'))
+        throw _error ("Ports are not supported");
+
+      if (m_eType != ETokenType.EDGE_OP)
+      {
+        // Node statement
+        _ensureNode (sFirstID, _readAttrLists (m_sNodeLabelAttr));
+        return;
+      }
+
+      // Edge statement
+      final List <String> aNodeIDs = new ArrayList <String> ();
+      aNodeIDs.add (sFirstID);
+      while (m_eType == ETokenType.EDGE_OP)
+      {
+        if (m_sToken.equals ("->") != m_bDirected)
+          throw _error ("Edge operator '" + m_sToken + "' does not match the graph type");
+        _nextToken ();
+        if (_isKeyword ("subgraph") || _isSymbol ('{'))
+          throw _error ("Subgraphs are not supported");
+        if (!_isID ())
+          throw _error ("Expected node ID but found '" + m_sToken + "'");
+        aNodeIDs.add (_getIDValue ());
+        _nextToken ();
+      }
+      final Map <String, Object> aAttrs = _readAttrLists (m_sRelationLabelAttr);
+      for (final String sNodeID : aNodeIDs)
+        _ensureNode (sNodeID, null);
+      for (int i = 1; i < aNodeIDs.size (); ++i)
+        aBuilder.addRelation (null,
+                              aNodeIDs.get (i - 1),
+                              aNodeIDs.get (i),
+                              Double.NaN,
+                              aAttrs == null ? null : new HashMap <String, Object> (aAttrs));
+    }
+
+    void read (@Nonnull final AbstractSimpleGraphBuilder <?, ?, ?, ?> aBuilder, final boolean bDirected) throws IOException
+    {
+      m_bDirected = bDirected;
+      _nextToken ();
+      if (_isKeyword ("strict"))
+        _nextToken ();
+      if (bDirected ? !_isKeyword ("digraph") : !_isKeyword ("graph"))
+        throw _error ("Expected '" + (bDirected ? "digraph" : "graph") + "' but found '" + m_sToken + "'");
+      _nextToken ();
+      // Optional graph ID
+      if (_isID ())
+        _nextToken ();
+      _expectSymbol ('{');
+      while (!_isSymbol ('}'))
+      {
+        if (m_eType == ETokenType.EOF)
+          throw _error ("Unexpected end of input");
+        _readStatement (aBuilder);
+        if (_isSymbol (';'))
+          _nextToken ();
+      }
+      _nextToken ();
+      if (m_eType != ETokenType.EOF)
+        throw _error ("Unexpected content after the graph: '" + m_sToken + "'");
+
+      for (final Map.Entry <String, Map <String, Object>> aEntry : m_aNodes.entrySet ())
+        aBuilder.addNode (aEntry.getKey (), aEntry.getValue ());
+    }
+  }
+
+  @SuppressWarnings ("unused")
+  @PresentForCodeCoverage
+  private static final GraphVizDotReader s_aInstance = new GraphVizDotReader ();
+
+  private GraphVizDotReader ()
+  {}
+
+  /**
+   * Unmask the XML entities as created by {@link GraphVizUtils} for HTML
+   * labels.
+   */
+  @Nonnull
+  private static String _unmaskHTML (@Nonnull final String s)
+  {
+    if (s.indexOf ('&') < 0)
+      return s;
+    final StringBuilder aSB = new StringBuilder (s.length ());
+    int i = 0;
+    while (i < s.length ())
+    {
+      final char c = s.charAt (i);
+      final int nEnd = c == '&' ? s.indexOf (';', i) : -1;
+      if (nEnd < 0)
+      {
+        aSB.append (c);
+        ++i;
+        continue;
+      }
+      final String sEntity = s.substring (i + 1, nEnd);
+      if (sEntity.equals ("lt"))
+        aSB.append ('<');
+      else
+        if (sEntity.equals ("gt"))
+          aSB.append ('>');
+        else
+          if (sEntity.equals ("amp"))
+            aSB.append ('&');
+          else
+            if (sEntity.equals ("quot"))
+              aSB.append ('"');
+            else
+              if (sEntity.equals ("apos"))
+                aSB.append ('\'');
+              else
+                if (sEntity.startsWith ("#x") || sEntity.startsWith ("#X"))
+                  aSB.appendCodePoint (Integer.parseInt (sEntity.substring (2), 16));
+                else
+                  if (sEntity.startsWith ("#"))
+                    aSB.appendCodePoint (Integer.parseInt (sEntity.substring (1)));
+                  else
+                  {
+                    // Unknown entity - keep as is
+                    aSB.append (c);
+                    ++i;
+                    continue;
+                  }
+      i = nEnd + 1;
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * Read an undirected graph (<code>graph</code>) from the passed reader.
+   * 
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>. The reader is
+   *        not closed.
+   * @param sNodeLabelAttr
+   *        The name of the node attribute to store the DOT label in. May be
+   *        <code>null</code> to use <code>label</code>.
+   * @param sRelationLabelAttr
+   *        The name of the relation attribute to store the DOT label in. May be
+   *        <code>null</code> to use <code>label</code>.
+   * @return The new graph. Never <code>null</code>.
+   * @throws IOException
+   *         If reading fails
+   * @throws IllegalArgumentException
+   *         If the input is not a valid or not a supported DOT graph
+   */
+  @Nonnull
+  public static SimpleGraph readGraph (@Nonnull final Reader aReader,
+                                       @Nullable final String sNodeLabelAttr,
+                                       @Nullable final String sRelationLabelAttr) throws IOException
+  {
+    if (aReader == null)
+      throw new NullPointerException ("reader");
+
+    final SimpleGraphBuilder aBuilder = new SimpleGraphBuilder (new SimpleGraphObjectFastFactory ());
+    new DotParser (aReader, sNodeLabelAttr, sRelationLabelAttr).read (aBuilder, false);
+    return aBuilder.build ();
+  }
+
+  /**
+   * Read a directed graph (<code>digraph</code>) from the passed reader.
+   * 
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>. The reader is
+   *        not closed.
+   * @param sNodeLabelAttr
+   *        The name of the node attribute to store the DOT label in. May be
+   *        <code>null</code> to use <code>label</code>.
+   * @param sRelationLabelAttr
+   *        The name of the relation attribute to store the DOT label in. May be
+   *        <code>null</code> to use <code>label</code>.
+   * @return The new graph. Never <code>null</code>.
+   * @throws IOException
+   *         If reading fails
+   * @throws IllegalArgumentException
+   *         If the input is not a valid or not a supported DOT graph, or if it
+   *         contains the same edge more than once
+   */
+  @Nonnull
+  public static SimpleDirectedGraph readDirectedGraph (@Nonnull final Reader aReader,
+                                                       @Nullable final String sNodeLabelAttr,
+                                                       @Nullable final String sRelationLabelAttr) throws IOException
+  {
+    if (aReader == null)
+      throw new NullPointerException ("reader");
+
+    final SimpleDirectedGraphBuilder aBuilder = new SimpleDirectedGraphBuilder (new SimpleDirectedGraphObjectFastFactory ());
+    new DotParser (aReader, sNodeLabelAttr, sRelationLabelAttr).read (aBuilder, true);
+    return aBuilder.build ();
+  }
+}
@@ -17,17 +17,26 @@
  */
 package com.phloc.math.graph.utils;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.Iterator;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Set;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.charset.CCharset;
-import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.io.streams.NonBlockingByteArrayOutputStream;
+import com.phloc.commons.io.streams.NonBlockingStringWriter;
 import com.phloc.commons.io.streams.StreamUtils;
 import com.phloc.commons.string.StringHelper;
 import com.phloc.commons.xml.EXMLCharMode;
@@ -42,34 +51,197 @@ import com.phloc.math.graph.IReadonlyDirectedGraph;
 import com.phloc.math.graph.IReadonlyGraph;
 
 /**
- * Utility class to export a graph to something else
+ * Utility class to export a graph to something else. The DOT output is written
+ * directly to a {@link Writer} without building it in memory first, and the
+ * relations are visited without copying them, so that large graphs can be
+ * exported. Use {@link GraphVizDotReader} to read DOT files.
  * 
  * @author Philip Helger
  */
 @Immutable
 public final class GraphVizUtils
 {
+  /**
+   * Callback that writes a DOT representation.
+   */
+  private static interface IDotWriter
+  {
+    void writeDot (@Nonnull Writer aWriter) throws IOException;
+  }
+
+  /**
+   * Relation callback that writes each relation and remembers the first
+   * exception, as the callback interface cannot throw checked exceptions.
+   */
+  private abstract static class AbstractRelationWriter <R> implements INonThrowingRunnableWithParameter <R>
+  {
+    protected final Writer m_aWriter;
+    private IOException m_aException;
+
+    protected AbstractRelationWriter (@Nonnull final Writer aWriter)
+    {
+      m_aWriter = aWriter;
+    }
+
+    protected abstract void writeRelation (@Nonnull R aRelation) throws IOException;
+
+    public final void run (final R aRelation)
+    {
+      if (m_aException == null)
+        try
+        {
+          writeRelation (aRelation);
+        }
+        catch (final IOException ex)
+        {
+          m_aException = ex;
+        }
+    }
+
+    public final void checkException () throws IOException
+    {
+      if (m_aException != null)
+        throw m_aException;
+    }
+  }
+
+  /** The DOT keywords that may not be used as unquoted IDs */
+  private static final Set <String> KEYWORDS = ContainerHelper.newUnmodifiableSet ("node",
+                                                                                  "edge",
+                                                                                  "graph",
+                                                                                  "digraph",
+                                                                                  "subgraph",
+                                                                                  "strict");
+
+  /** The maximum number of bytes of neato error output to be reported */
+  private static final int MAX_NEATO_ERROR_OUTPUT = 64 * 1024;
+
   private GraphVizUtils ()
   {}
 
+  private static boolean _isAlphaChar (final char c)
+  {
+    return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c >= 0x80;
+  }
+
+  private static boolean _isDigit (final char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Check if the passed ID can be written without quotes, because it is either
+   * an alphanumeric string not starting with a digit or a numeral.
+   */
+  private static boolean _isPlainID (@Nonnull final String sID)
+  {
+    if (sID.length () == 0 || KEYWORDS.contains (sID.toLowerCase (Locale.US)))
+      return false;
+
+    if (_isAlphaChar (sID.charAt (0)))
+    {
+      for (final char c : sID.toCharArray ())
+        if (!_isAlphaChar (c) && !_isDigit (c))
+          return false;
+      return true;
+    }
+
+    // Numeral: [-]?(.[0-9]+ | [0-9]+(.[0-9]*)?)
+    int nIndex = sID.charAt (0) == '-' ? 1 : 0;
+    boolean bDot = false;
+    boolean bDigit = false;
+    for (; nIndex < sID.length (); ++nIndex)
+    {
+      final char c = sID.charAt (nIndex);
+      if (_isDigit (c))
+        bDigit = true;
+      else
+        if (c == '.' && !bDot)
+          bDot = true;
+        else
+          return false;
+    }
+    return bDigit;
+  }
+
+  /**
+   * Write the passed ID, quoted if necessary.
+   * 
+   * @throws IllegalArgumentException
+   *         If the ID contains a backslash that cannot be represented in a
+   *         quoted DOT string
+   */
+  private static void _writeID (@Nonnull final Writer aWriter, @Nonnull final String sID) throws IOException
+  {
+    if (_isPlainID (sID))
+    {
+      aWriter.write (sID);
+      return;
+    }
+
+    aWriter.write ('"');
+    final int nLength = sID.length ();
+    for (int i = 0; i < nLength; ++i)
+    {
+      final char c = sID.charAt (i);
+      if (c == '"')
+        aWriter.write ("\\\"");
+      else
+      {
+        // In DOT a backslash is only an escape character before a quote or a
+        // line break, so it cannot be followed by one of them
+        if (c == '\\')
+        {
+          final char cNext = i == nLength - 1 ? '"' : sID.charAt (i + 1);
+          if (cNext == '"' || cNext == '\n' || cNext == '\r')
+            throw new IllegalArgumentException ("The ID '" + sID + "' cannot be represented in DOT");
+        }
+        aWriter.write (c);
+      }
+    }
+    aWriter.write ('"');
+  }
+
+  /**
+   * Get a DOT attribute with an HTML string value. The value is masked the
+   * same way as the labels written by the writeGraphVizDot methods.
+   * 
+   * @param sName
+   *        The attribute name. May neither be <code>null</code> nor empty.
+   * @param sValue
+   *        The attribute value. May not be <code>null</code>.
+   * @return <code>name=&lt;masked value&gt;</code>
+   */
   @Nonnull
   @Nonempty
   public static String getAttribute (@Nonnull @Nonempty final String sName, @Nonnull final String sValue)
   {
     return new StringBuilder (sName).append ("=<")
                                     .append (XMLMaskHelper.getMaskedXMLText (EXMLSerializeVersion.XML_10,
-                                                                             EXMLCharMode.ELEMENT_NAME,
+                                                                             EXMLCharMode.TEXT,
                                                                              EXMLIncorrectCharacterHandling.DEFAULT,
                                                                              sValue))
                                     .append ('>')
                                     .toString ();
   }
 
+  private static void _writeLabel (@Nonnull final Writer aWriter, @Nullable final String sLabel) throws IOException
+  {
+    aWriter.write ("[label=<");
+    // Text mode masks '<' and '>' which would otherwise end the HTML label
+    if (sLabel != null)
+      XMLMaskHelper.maskXMLTextTo (EXMLSerializeVersion.XML_10,
+                                   EXMLCharMode.TEXT,
+                                   EXMLIncorrectCharacterHandling.DEFAULT,
+                                   sLabel,
+                                   aWriter);
+    aWriter.write (">]");
+  }
+
   /**
-   * Get the graph in a simple DOT notation suitable for GraphViz
-   * (http://www.graphviz.org). The DOT specs can be found at
-   * http://www.graphviz.org/content/dot-language<br>
-   * The default file encoding for GraphViz 2.28 is UTF-8!
+   * Write the graph in a simple DOT notation suitable for GraphViz
+   * (http://www.graphviz.org) to the passed writer. The DOT specs can be found
+   * at http://www.graphviz.org/content/dot-language
    * 
    * @param aGraph
    *        The graph to be converted. May not be <code>null</code>.
@@ -79,52 +251,157 @@ public final class GraphVizUtils
    * @param sRelationLabelAttr
    *        The name of the attribute to be used for relation labels. May be
    *        <code>null</code> to use no relation label.
-   * @return The string representation to be used as input for DOT.
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>. The writer is
+   *        neither flushed nor closed.
+   * @throws IOException
+   *         If writing fails
+   * @throws IllegalArgumentException
+   *         If an ID contains a backslash directly before a quote, a line
+   *         break or at the end, as this cannot be represented in DOT
    */
-  @Nonnull
-  public static String getAsGraphVizDot (@Nonnull final IReadonlyGraph aGraph,
-                                         @Nullable final String sNodeLabelAttr,
-                                         @Nullable final String sRelationLabelAttr)
+  public static void writeGraphVizDot (@Nonnull final IReadonlyGraph aGraph,
+                                       @Nullable final String sNodeLabelAttr,
+                                       @Nullable final String sRelationLabelAttr,
+                                       @Nonnull final Writer aWriter) throws IOException
   {
     if (aGraph == null)
       throw new NullPointerException ("graph");
+    if (aWriter == null)
+      throw new NullPointerException ("writer");
 
-    final StringBuilder aSB = new StringBuilder ();
-    // It's a directed graph
-    aSB.append ("graph ").append (aGraph.getID ()).append ("{\n");
-    aSB.append ("node[shape=box];");
-    for (final IGraphNode aGraphNode : aGraph.getAllNodes ().values ())
+    aWriter.write ("graph ");
+    _writeID (aWriter, aGraph.getID ());
+    aWriter.write ("{\nnode[shape=box];");
+    for (final IGraphNode aGraphNode : aGraph.getNodesView ())
     {
-      aSB.append (aGraphNode.getID ());
+      _writeID (aWriter, aGraphNode.getID ());
       if (StringHelper.hasText (sNodeLabelAttr))
+        _writeLabel (aWriter, aGraphNode.getAttributeAsString (sNodeLabelAttr));
+      aWriter.write (';');
+    }
+    aWriter.write ('\n');
+    final AbstractRelationWriter <IGraphRelation> aRelationWriter = new AbstractRelationWriter <IGraphRelation> (aWriter)
+    {
+      @Override
+      protected void writeRelation (@Nonnull final IGraphRelation aGraphRelation) throws IOException
       {
-        final String sLabel = aGraphNode.getAttributeAsString (sNodeLabelAttr);
-        aSB.append ("[").append (getAttribute ("label", sLabel)).append ("]");
+        _writeID (m_aWriter, aGraphRelation.getNode1ID ());
+        m_aWriter.write ("--");
+        _writeID (m_aWriter, aGraphRelation.getNode2ID ());
+        if (StringHelper.hasText (sRelationLabelAttr))
+          _writeLabel (m_aWriter, aGraphRelation.getAttributeAsString (sRelationLabelAttr));
+        m_aWriter.write (";\n");
       }
-      aSB.append (';');
+    };
+    aGraph.forEachRelation (aRelationWriter);
+    aRelationWriter.checkException ();
+    aWriter.write ("overlap=false;\n}");
+  }
+
+  /**
+   * Write the graph in a simple DOT notation suitable for GraphViz
+   * (http://www.graphviz.org) to the passed writer. The DOT specs can be found
+   * at http://www.graphviz.org/content/dot-language
+   * 
+   * @param aGraph
+   *        The graph to be converted. May not be <code>null</code>.
+   * @param sNodeLabelAttr
+   *        The name of the attribute to be used for node labels. May be
+   *        <code>null</code> to use the node ID as the label.
+   * @param sRelationLabelAttr
+   *        The name of the attribute to be used for relation labels. May be
+   *        <code>null</code> to use no relation label.
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>. The writer is
+   *        neither flushed nor closed.
+   * @throws IOException
+   *         If writing fails
+   * @throws IllegalArgumentException
+   *         If an ID contains a backslash directly before a quote, a line
+   *         break or at the end, as this cannot be represented in DOT
+   */
+  public static void writeGraphVizDot (@Nonnull final IReadonlyDirectedGraph aGraph,
+                                       @Nullable final String sNodeLabelAttr,
+                                       @Nullable final String sRelationLabelAttr,
+                                       @Nonnull final Writer aWriter) throws IOException
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+    if (aWriter == null)
+      throw new NullPointerException ("writer");
+
+    aWriter.write ("digraph ");
+    _writeID (aWriter, aGraph.getID ());
+    aWriter.write ("{\nnode[shape=box];");
+    for (final IDirectedGraphNode aGraphNode : aGraph.getNodesView ())
+    {
+      _writeID (aWriter, aGraphNode.getID ());
+      if (StringHelper.hasText (sNodeLabelAttr))
+        _writeLabel (aWriter, aGraphNode.getAttributeAsString (sNodeLabelAttr));
+      aWriter.write (';');
     }
-    aSB.append ('\n');
-    for (final IGraphRelation aGraphRelation : aGraph.getAllRelations ().values ())
+    aWriter.write ('\n');
+    final AbstractRelationWriter <IDirectedGraphRelation> aRelationWriter = new AbstractRelationWriter <IDirectedGraphRelation> (aWriter)
     {
-      final Iterator <IGraphNode> it = aGraphRelation.getAllConnectedNodes ().iterator ();
-      aSB.append (it.next ().getID ()).append ("--").append (it.next ().getID ());
-      if (StringHelper.hasText (sRelationLabelAttr))
+      @Override
+      protected void writeRelation (@Nonnull final IDirectedGraphRelation aGraphRelation) throws IOException
       {
-        final String sLabel = aGraphRelation.getAttributeAsString (sRelationLabelAttr);
-        aSB.append ("[").append (getAttribute ("label", sLabel)).append ("]");
+        _writeID (m_aWriter, aGraphRelation.getFromID ());
+        m_aWriter.write ("->");
+        _writeID (m_aWriter, aGraphRelation.getToID ());
+        if (StringHelper.hasText (sRelationLabelAttr))
+          _writeLabel (m_aWriter, aGraphRelation.getAttributeAsString (sRelationLabelAttr));
+        m_aWriter.write (";\n");
       }
-      aSB.append (";\n");
+    };
+    aGraph.forEachRelation (aRelationWriter);
+    aRelationWriter.checkException ();
+    aWriter.write ("overlap=false;\n}");
+  }
+
+  /**
+   * Get the graph in a simple DOT notation suitable for GraphViz
+   * (http://www.graphviz.org). The DOT specs can be found at
+   * http://www.graphviz.org/content/dot-language<br>
+   * The default file encoding for GraphViz 2.28 is UTF-8!<br>
+   * For large graphs, prefer
+   * {@link #writeGraphVizDot(IReadonlyGraph, String, String, Writer)}.
+   * 
+   * @param aGraph
+   *        The graph to be converted. May not be <code>null</code>.
+   * @param sNodeLabelAttr
+   *        The name of the attribute to be used for node labels. May be
+   *        <code>null</code> to use the node ID as the label.
+   * @param sRelationLabelAttr
+   *        The name of the attribute to be used for relation labels. May be
+   *        <code>null</code> to use no relation label.
+   * @return The string representation to be used as input for DOT.
+   */
+  @Nonnull
+  public static String getAsGraphVizDot (@Nonnull final IReadonlyGraph aGraph,
+                                         @Nullable final String sNodeLabelAttr,
+                                         @Nullable final String sRelationLabelAttr)
+  {
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try
+    {
+      writeGraphVizDot (aGraph, sNodeLabelAttr, sRelationLabelAttr, aSW);
+    }
+    catch (final IOException ex)
+    {
+      throw new IllegalStateException ("Failed to write to a StringWriter", ex);
     }
-    aSB.append ("overlap=false;\n");
-    aSB.append ('}');
-    return aSB.toString ();
+    return aSW.getAsString ();
   }
 
   /**
    * Get the graph in a simple DOT notation suitable for GraphViz
    * (http://www.graphviz.org). The DOT specs can be found at
    * http://www.graphviz.org/content/dot-language<br>
-   * The default file encoding for GraphViz 2.28 is UTF-8!
+   * The default file encoding for GraphViz 2.28 is UTF-8!<br>
+   * For large graphs, prefer
+   * {@link #writeGraphVizDot(IReadonlyDirectedGraph, String, String, Writer)}.
    * 
    * @param aGraph
    *        The graph to be converted. May not be <code>null</code>.
@@ -141,47 +418,149 @@ public final class GraphVizUtils
                                          @Nullable final String sNodeLabelAttr,
                                          @Nullable final String sRelationLabelAttr)
   {
-    if (aGraph == null)
-      throw new NullPointerException ("graph");
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try
+    {
+      writeGraphVizDot (aGraph, sNodeLabelAttr, sRelationLabelAttr, aSW);
+    }
+    catch (final IOException ex)
+    {
+      throw new IllegalStateException ("Failed to write to a StringWriter", ex);
+    }
+    return aSW.getAsString ();
+  }
 
-    final StringBuilder aSB = new StringBuilder ();
-    // It's a directed graph
-    aSB.append ("digraph ").append (aGraph.getID ()).append ("{\n");
-    aSB.append ("node[shape=box];");
-    for (final IDirectedGraphNode aGraphNode : aGraph.getAllNodes ().values ())
+  /**
+   * Thread that copies a process output stream to another stream, so that the
+   * process never blocks on a full pipe. At most the passed number of bytes is
+   * copied, the rest is read and discarded.
+   */
+  private static final class StreamDrainer extends Thread
+  {
+    private final InputStream m_aIS;
+    private final OutputStream m_aOS;
+    private long m_nRemaining;
+    private IOException m_aException;
+
+    StreamDrainer (@Nonnull final String sName,
+                   @Nonnull final InputStream aIS,
+                   @Nonnull final OutputStream aOS,
+                   @Nonnegative final long nMaxBytes)
     {
-      aSB.append (aGraphNode.getID ());
-      if (StringHelper.hasText (sNodeLabelAttr))
+      super (sName);
+      m_aIS = aIS;
+      m_aOS = aOS;
+      m_nRemaining = nMaxBytes;
+    }
+
+    @Override
+    public void run ()
+    {
+      try
+      {
+        final byte [] aBuffer = new byte [16 * 1024];
+        int nRead;
+        while ((nRead = m_aIS.read (aBuffer)) >= 0)
+          if (m_nRemaining > 0)
+          {
+            final int nWrite = (int) Math.min (nRead, m_nRemaining);
+            m_aOS.write (aBuffer, 0, nWrite);
+            m_nRemaining -= nWrite;
+          }
+      }
+      catch (final IOException ex)
+      {
+        m_aException = ex;
+      }
+      finally
+      {
+        StreamUtils.close (m_aIS);
+      }
+    }
+
+    public void checkException () throws IOException
+    {
+      if (m_aException != null)
+        throw m_aException;
+    }
+  }
+
+  /**
+   * Run neato and write the DOT to its stdin, while its stdout is copied to
+   * the passed output stream and its stderr is collected, each in a separate
+   * thread. Otherwise neato may block on a full pipe while we are still
+   * writing the input.
+   */
+  private static void _runNeato (@Nonnull @Nonempty final String sFileType,
+                                 @Nonnull final IDotWriter aDotWriter,
+                                 @Nonnull final OutputStream aOS) throws IOException, InterruptedException
+  {
+    if (StringHelper.hasNoText (sFileType))
+      throw new IllegalArgumentException ("Empty file type!");
+    if (aOS == null)
+      throw new NullPointerException ("outputStream");
+
+    final Process p = new ProcessBuilder ("neato", "-T" + sFileType).start ();
+    final StreamDrainer aStdOut = new StreamDrainer ("neato-stdout", p.getInputStream (), aOS, Long.MAX_VALUE);
+    final NonBlockingByteArrayOutputStream aErrorOutput = new NonBlockingByteArrayOutputStream ();
+    final StreamDrainer aStdErr = new StreamDrainer ("neato-stderr",
+                                                     p.getErrorStream (),
+                                                     aErrorOutput,
+                                                     MAX_NEATO_ERROR_OUTPUT);
+    aStdOut.start ();
+    aStdErr.start ();
+
+    IOException aWriteException = null;
+    int nExitCode;
+    boolean bFinished = false;
+    try
+    {
+      // Set neato stdin
+      final Writer aWriter = new BufferedWriter (new OutputStreamWriter (p.getOutputStream (),
+                                                                         CCharset.CHARSET_UTF_8_OBJ));
+      try
       {
-        final String sLabel = aGraphNode.getAttributeAsString (sNodeLabelAttr);
-        aSB.append ("[label=<")
-           .append (XMLMaskHelper.getMaskedXMLText (EXMLSerializeVersion.XML_10,
-                                                    EXMLCharMode.ELEMENT_NAME,
-                                                    EXMLIncorrectCharacterHandling.DEFAULT,
-                                                    sLabel))
-           .append (">]");
+        try
+        {
+          aDotWriter.writeDot (aWriter);
+        }
+        finally
+        {
+          // Signals EOF to neato
+          aWriter.close ();
+        }
       }
-      aSB.append (';');
+      catch (final IOException ex)
+      {
+        // E.g. a broken pipe because neato terminated early - report its
+        // error output instead, if present. The process may not be destroyed
+        // here, as this would close its error stream before it was read.
+        aWriteException = ex;
+      }
+      aStdOut.join ();
+      aStdErr.join ();
+      nExitCode = p.waitFor ();
+      bFinished = true;
     }
-    aSB.append ('\n');
-    for (final IDirectedGraphRelation aGraphRelation : aGraph.getAllRelations ().values ())
+    finally
     {
-      aSB.append (aGraphRelation.getFromID ()).append ("->").append (aGraphRelation.getToID ());
-      if (StringHelper.hasText (sRelationLabelAttr))
+      if (!bFinished)
       {
-        final String sLabel = aGraphRelation.getAttributeAsString (sRelationLabelAttr);
-        aSB.append ("[label=<")
-           .append (XMLMaskHelper.getMaskedXMLText (EXMLSerializeVersion.XML_10,
-                                                    EXMLCharMode.ELEMENT_NAME,
-                                                    EXMLIncorrectCharacterHandling.DEFAULT,
-                                                    sLabel))
-           .append (">]");
+        // Stop the process so that the drainers terminate
+        p.destroy ();
+        aStdOut.join ();
+        aStdErr.join ();
       }
-      aSB.append (";\n");
     }
-    aSB.append ("overlap=false;\n");
-    aSB.append ('}');
-    return aSB.toString ();
+
+    final String sErrorOutput = aErrorOutput.getAsString (CCharset.CHARSET_UTF_8_OBJ).trim ();
+    if (nExitCode != 0 && (aWriteException == null || sErrorOutput.length () > 0))
+      throw new IOException ("neato failed with exit code " +
+                             nExitCode +
+                             (sErrorOutput.length () > 0 ? ": " + sErrorOutput : ""), aWriteException);
+    if (aWriteException != null)
+      throw aWriteException;
+    aStdOut.checkException ();
   }
 
   /**
@@ -197,7 +576,8 @@ public final class GraphVizUtils
    * @return The byte buffer that keeps the converted image. Never
    *         <code>null</code>.
    * @throws IOException
-   *         In case some IO error occurs
+   *         In case some IO error occurs or neato exits with an error. The
+   *         message contains the error output of neato.
    * @throws InterruptedException
    *         If the sub-process did not terminate correctly!
    */
@@ -206,20 +586,105 @@ public final class GraphVizUtils
                                                                                    @Nonnull final String sDOT) throws IOException,
                                                                                                               InterruptedException
   {
-    if (StringHelper.hasNoText (sFileType))
-      throw new IllegalArgumentException ("Empty file type!");
     if (StringHelper.hasNoText (sDOT))
       throw new IllegalArgumentException ("Empty DOT!");
 
-    final ProcessBuilder aPB = new ProcessBuilder ("neato", "-T" + sFileType).redirectErrorStream (false);
-    final Process p = aPB.start ();
-    // Set neato stdin
-    p.getOutputStream ().write (CharsetManager.getAsBytes (sDOT, CCharset.CHARSET_UTF_8_OBJ));
-    p.getOutputStream ().close ();
-    // Read neato stdout
     final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
-    StreamUtils.copyInputStreamToOutputStream (p.getInputStream (), aBAOS);
-    p.waitFor ();
+    _runNeato (sFileType, new IDotWriter ()
+    {
+      public void writeDot (@Nonnull final Writer aWriter) throws IOException
+      {
+        aWriter.write (sDOT);
+      }
+    }, aBAOS);
     return aBAOS;
   }
+
+  /**
+   * Invoked the external process "neato" from the GraphViz package and stream
+   * the DOT representation of the passed graph directly into it. Attention:
+   * this spans a sub-process!
+   * 
+   * @param sFileType
+   *        The file type to be generated. E.g. "png" - see neato help for
+   *        details. May neither be <code>null</code> nor empty.
+   * @param aGraph
+   *        The graph to be converted. May not be <code>null</code>.
+   * @param sNodeLabelAttr
+   *        The name of the attribute to be used for node labels. May be
+   *        <code>null</code>.
+   * @param sRelationLabelAttr
+   *        The name of the attribute to be used for relation labels. May be
+   *        <code>null</code>.
+   * @param aOS
+   *        The output stream the generated image is written to. May not be
+   *        <code>null</code>. The stream is not closed.
+   * @throws IOException
+   *         In case some IO error occurs or neato exits with an error. The
+   *         message contains the error output of neato.
+   * @throws InterruptedException
+   *         If the sub-process did not terminate correctly!
+   */
+  public static void writeGraphAsImageWithGraphVizNeato (@Nonnull @Nonempty final String sFileType,
+                                                         @Nonnull final IReadonlyGraph aGraph,
+                                                         @Nullable final String sNodeLabelAttr,
+                                                         @Nullable final String sRelationLabelAttr,
+                                                         @Nonnull final OutputStream aOS) throws IOException,
+                                                                                         InterruptedException
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+
+    _runNeato (sFileType, new IDotWriter ()
+    {
+      public void writeDot (@Nonnull final Writer aWriter) throws IOException
+      {
+        writeGraphVizDot (aGraph, sNodeLabelAttr, sRelationLabelAttr, aWriter);
+      }
+    }, aOS);
+  }
+
+  /**
+   * Invoked the external process "neato" from the GraphViz package and stream
+   * the DOT representation of the passed graph directly into it. Attention:
+   * this spans a sub-process!
+   * 
+   * @param sFileType
+   *        The file type to be generated. E.g. "png" - see neato help for
+   *        details. May neither be <code>null</code> nor empty.
+   * @param aGraph
+   *        The graph to be converted. May not be <code>null</code>.
+   * @param sNodeLabelAttr
+   *        The name of the attribute to be used for node labels. May be
+   *        <code>null</code>.
+   * @param sRelationLabelAttr
+   *        The name of the attribute to be used for relation labels. May be
+   *        <code>null</code>.
+   * @param aOS
+   *        The output stream the generated image is written to. May not be
+   *        <code>null</code>. The stream is not closed.
+   * @throws IOException
+   *         In case some IO error occurs or neato exits with an error. The
+   *         message contains the error output of neato.
+   * @throws InterruptedException
+   *         If the sub-process did not terminate correctly!
+   */
+  public static void writeGraphAsImageWithGraphVizNeato (@Nonnull @Nonempty final String sFileType,
+                                                         @Nonnull final IReadonlyDirectedGraph aGraph,
+                                                         @Nullable final String sNodeLabelAttr,
+                                                         @Nullable final String sRelationLabelAttr,
+                                                         @Nonnull final OutputStream aOS) throws IOException,
+                                                                                         InterruptedException
+  {
+    if (aGraph == null)
+      throw new NullPointerException ("graph");
+
+    _runNeato (sFileType, new IDotWriter ()
+    {
+      public void writeDot (@Nonnull final Writer aWriter) throws IOException
+      {
+        writeGraphVizDot (aGraph, sNodeLabelAttr, sRelationLabelAttr, aWriter);
+      }
+    }, aOS);
+  }
 }
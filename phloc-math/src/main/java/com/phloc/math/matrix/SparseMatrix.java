@@ -0,0 +1,325 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * An immutable sparse matrix in compressed sparse row (CSR) format. Only the
+ * non-zero entries are stored: the entries of row <code>r</code> are located
+ * at the offsets <code>[getRowStartOffset(r), getRowEndOffset(r))</code>,
+ * ordered by column index. Memory usage is linear in the number of rows plus
+ * the number of stored entries, so that large graphs can be exported and
+ * analyzed using matrix-vector products. Use {@link SparseMatrixBuilder} to
+ * create a new sparse matrix from coordinate (COO) entries.
+ * 
+ * @author Philip Helger
+ */
+@Immutable
+public final class SparseMatrix implements Serializable
+{
+  private final int m_nRows;
+  private final int m_nCols;
+  private final int [] m_aRowOffsets;
+  private final int [] m_aColumnIndices;
+  private final double [] m_aValues;
+
+  /**
+   * Constructor. The arrays are not copied.
+   * 
+   * @param nRows
+   *        Number of rows. Must be &ge; 0.
+   * @param nCols
+   *        Number of columns. Must be &ge; 0.
+   * @param aRowOffsets
+   *        The row offsets with <code>nRows + 1</code> elements.
+   * @param aColumnIndices
+   *        The column index of each entry, ordered within each row.
+   * @param aValues
+   *        The value of each entry.
+   */
+  SparseMatrix (@Nonnegative final int nRows,
+                @Nonnegative final int nCols,
+                @Nonnull final int [] aRowOffsets,
+                @Nonnull final int [] aColumnIndices,
+                @Nonnull final double [] aValues)
+  {
+    if (nRows < 0)
+      throw new IllegalArgumentException ("rows may not be negative!");
+    if (nCols < 0)
+      throw new IllegalArgumentException ("cols may not be negative!");
+    if (aRowOffsets.length != nRows + 1 || aColumnIndices.length != aValues.length)
+      throw new IllegalArgumentException ("Inconsistent CSR arrays");
+    m_nRows = nRows;
+    m_nCols = nCols;
+    m_aRowOffsets = aRowOffsets;
+    m_aColumnIndices = aColumnIndices;
+    m_aValues = aValues;
+  }
+
+  /**
+   * @return Number of rows.
+   */
+  @Nonnegative
+  public int getRowDimension ()
+  {
+    return m_nRows;
+  }
+
+  /**
+   * @return Number of columns.
+   */
+  @Nonnegative
+  public int getColumnDimension ()
+  {
+    return m_nCols;
+  }
+
+  /**
+   * @return The number of stored entries.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_aValues.length;
+  }
+
+  /**
+   * @param nRow
+   *        Row index.
+   * @return The first offset of the passed row (inclusive).
+   */
+  @Nonnegative
+  public int getRowStartOffset (@Nonnegative final int nRow)
+  {
+    return m_aRowOffsets[nRow];
+  }
+
+  /**
+   * @param nRow
+   *        Row index.
+   * @return The last offset of the passed row (exclusive).
+   */
+  @Nonnegative
+  public int getRowEndOffset (@Nonnegative final int nRow)
+  {
+    return m_aRowOffsets[nRow + 1];
+  }
+
+  /**
+   * @param nOffset
+   *        The entry offset.
+   * @return The column index of the entry at the passed offset.
+   */
+  @Nonnegative
+  public int getColumnIndex (@Nonnegative final int nOffset)
+  {
+    return m_aColumnIndices[nOffset];
+  }
+
+  /**
+   * @param nOffset
+   *        The entry offset.
+   * @return The value of the entry at the passed offset.
+   */
+  public double getValue (@Nonnegative final int nOffset)
+  {
+    return m_aValues[nOffset];
+  }
+
+  /**
+   * Get a single element.
+   * 
+   * @param nRow
+   *        Row index.
+   * @param nCol
+   *        Column index.
+   * @return The element or 0 if no entry is stored.
+   * @throws ArrayIndexOutOfBoundsException
+   *         if the row or column index is out of range
+   */
+  public double get (@Nonnegative final int nRow, @Nonnegative final int nCol)
+  {
+    if (nCol < 0 || nCol >= m_nCols)
+      throw new ArrayIndexOutOfBoundsException (nCol);
+    final int nOffset = Arrays.binarySearch (m_aColumnIndices, m_aRowOffsets[nRow], m_aRowOffsets[nRow + 1], nCol);
+    return nOffset < 0 ? 0 : m_aValues[nOffset];
+  }
+
+  /**
+   * Sparse matrix-vector product <code>y = A * x</code>.
+   * 
+   * @param aVector
+   *        The vector <code>x</code> with {@link #getColumnDimension()}
+   *        elements.
+   * @return The new vector <code>y</code> with {@link #getRowDimension()}
+   *         elements.
+   * @throws IllegalArgumentException
+   *         If the vector length does not match
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] times (@Nonnull final double [] aVector)
+  {
+    if (aVector.length != m_nCols)
+      throw new IllegalArgumentException ("Vector length must match the column dimension.");
+    final double [] ret = new double [m_nRows];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      double dSum = 0;
+      for (int i = m_aRowOffsets[nRow]; i < m_aRowOffsets[nRow + 1]; ++i)
+        dSum += m_aValues[i] * aVector[m_aColumnIndices[i]];
+      ret[nRow] = dSum;
+    }
+    return ret;
+  }
+
+  /**
+   * Sparse transposed matrix-vector product <code>y = A' * x</code>, without
+   * creating the transposed matrix.
+   * 
+   * @param aVector
+   *        The vector <code>x</code> with {@link #getRowDimension()} elements.
+   * @return The new vector <code>y</code> with {@link #getColumnDimension()}
+   *         elements.
+   * @throws IllegalArgumentException
+   *         If the vector length does not match
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] transposeTimes (@Nonnull final double [] aVector)
+  {
+    if (aVector.length != m_nRows)
+      throw new IllegalArgumentException ("Vector length must match the row dimension.");
+    final double [] ret = new double [m_nCols];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final double dFactor = aVector[nRow];
+      if (dFactor != 0)
+        for (int i = m_aRowOffsets[nRow]; i < m_aRowOffsets[nRow + 1]; ++i)
+          ret[m_aColumnIndices[i]] += m_aValues[i] * dFactor;
+    }
+    return ret;
+  }
+
+  /**
+   * @return A new array with the sum of each row.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] getRowSums ()
+  {
+    final double [] ret = new double [m_nRows];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+      for (int i = m_aRowOffsets[nRow]; i < m_aRowOffsets[nRow + 1]; ++i)
+        ret[nRow] += m_aValues[i];
+    return ret;
+  }
+
+  /**
+   * Matrix transpose, using a counting sort over the column indices.
+   * 
+   * @return The new sparse matrix A'
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public SparseMatrix transpose ()
+  {
+    final int nEntries = m_aValues.length;
+    final int [] aOffsets = new int [m_nCols + 1];
+    for (int i = 0; i < nEntries; ++i)
+      aOffsets[m_aColumnIndices[i] + 1]++;
+    for (int nCol = 0; nCol < m_nCols; ++nCol)
+      aOffsets[nCol + 1] += aOffsets[nCol];
+    final int [] aInsertPos = Arrays.copyOf (aOffsets, m_nCols);
+    final int [] aColumnIndices = new int [nEntries];
+    final double [] aValues = new double [nEntries];
+    // Iterating the rows in ascending order keeps the new rows sorted
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+      for (int i = m_aRowOffsets[nRow]; i < m_aRowOffsets[nRow + 1]; ++i)
+      {
+        final int nPos = aInsertPos[m_aColumnIndices[i]]++;
+        aColumnIndices[nPos] = nRow;
+        aValues[nPos] = m_aValues[i];
+      }
+    return new SparseMatrix (m_nCols, m_nRows, aOffsets, aColumnIndices, aValues);
+  }
+
+  /**
+   * Convert this matrix to a dense matrix. Only use this for small matrices!
+   * 
+   * @return The new dense matrix.
+   * @throws IllegalArgumentException
+   *         If this matrix has no row or no column
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix getAsMatrix ()
+  {
+    final Matrix ret = new Matrix (m_nRows, m_nCols, 0);
+    final double [][] aData = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+      for (int i = m_aRowOffsets[nRow]; i < m_aRowOffsets[nRow + 1]; ++i)
+        aData[nRow][m_aColumnIndices[i]] = m_aValues[i];
+    return ret;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!(o instanceof SparseMatrix))
+      return false;
+    final SparseMatrix rhs = (SparseMatrix) o;
+    return m_nRows == rhs.m_nRows &&
+           m_nCols == rhs.m_nCols &&
+           Arrays.equals (m_aRowOffsets, rhs.m_aRowOffsets) &&
+           Arrays.equals (m_aColumnIndices, rhs.m_aColumnIndices) &&
+           Arrays.equals (m_aValues, rhs.m_aValues);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nRows)
+                                       .append (m_nCols)
+                                       .append (m_aRowOffsets)
+                                       .append (m_aColumnIndices)
+                                       .append (m_aValues)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("rows", m_nRows)
+                                       .append ("cols", m_nCols)
+                                       .append ("entries", m_aValues.length)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.matrix;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.BitSet;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * Builder for {@link SparseMatrix} objects based on coordinate (COO) entries.
+ * Entries can be added in any order. Entries with the same row and column are
+ * combined in the order they were added: {@link #add(int, int, double)} sums
+ * up the values, whereas {@link #set(int, int, double)} replaces all previous
+ * values.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public final class SparseMatrixBuilder
+{
+  private final int m_nRows;
+  private final int m_nCols;
+  private final TIntArrayList m_aRowIndices = new TIntArrayList ();
+  private final TIntArrayList m_aColumnIndices = new TIntArrayList ();
+  private final TDoubleArrayList m_aValues = new TDoubleArrayList ();
+  // Entries that replace previous entries of the same position
+  private final BitSet m_aReplacing = new BitSet ();
+
+  /**
+   * Constructor
+   * 
+   * @param nRows
+   *        Number of rows. Must be &ge; 0.
+   * @param nCols
+   *        Number of columns. Must be &ge; 0.
+   */
+  public SparseMatrixBuilder (@Nonnegative final int nRows, @Nonnegative final int nCols)
+  {
+    if (nRows < 0)
+      throw new IllegalArgumentException ("rows may not be negative!");
+    if (nCols < 0)
+      throw new IllegalArgumentException ("cols may not be negative!");
+    m_nRows = nRows;
+    m_nCols = nCols;
+  }
+
+  /**
+   * @return The number of entries added so far, including duplicates.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_aValues.size ();
+  }
+
+  /**
+   * Add a single entry. If an entry for the same position is already present,
+   * the values are summed up.
+   * 
+   * @param nRow
+   *        Row index.
+   * @param nCol
+   *        Column index.
+   * @param dValue
+   *        The value to add.
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException
+   *         if the row or column index is out of range
+   */
+  @Nonnull
+  public SparseMatrixBuilder add (@Nonnegative final int nRow, @Nonnegative final int nCol, final double dValue)
+  {
+    return _addEntry (nRow, nCol, dValue, false);
+  }
+
+  /**
+   * Set a single entry, replacing all values previously added for the same
+   * position.
+   * 
+   * @param nRow
+   *        Row index.
+   * @param nCol
+   *        Column index.
+   * @param dValue
+   *        The value to set.
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException
+   *         if the row or column index is out of range
+   */
+  @Nonnull
+  public SparseMatrixBuilder set (@Nonnegative final int nRow, @Nonnegative final int nCol, final double dValue)
+  {
+    return _addEntry (nRow, nCol, dValue, true);
+  }
+
+  @Nonnull
+  private SparseMatrixBuilder _addEntry (final int nRow, final int nCol, final double dValue, final boolean bReplace)
+  {
+    if (nRow < 0 || nRow >= m_nRows)
+      throw new ArrayIndexOutOfBoundsException (nRow);
+    if (nCol < 0 || nCol >= m_nCols)
+      throw new ArrayIndexOutOfBoundsException (nCol);
+    m_aRowIndices.add (nRow);
+    m_aColumnIndices.add (nCol);
+    if (bReplace)
+      m_aReplacing.set (m_aValues.size ());
+    m_aValues.add (dValue);
+    return this;
+  }
+
+  /**
+   * Create the CSR matrix. The entries are ordered by two stable counting
+   * sorts (first by column, then by row), so building is linear in the number
+   * of entries.
+   * 
+   * @return The new sparse matrix and never <code>null</code>.
+   */
+  @Nonnull
+  public SparseMatrix build ()
+  {
+    final int nEntries = m_aValues.size ();
+
+    // Sort by column
+    final int [] aColumnOffsets = new int [m_nCols + 1];
+    for (int i = 0; i < nEntries; ++i)
+      aColumnOffsets[m_aColumnIndices.getQuick (i) + 1]++;
+    for (int nCol = 0; nCol < m_nCols; ++nCol)
+      aColumnOffsets[nCol + 1] += aColumnOffsets[nCol];
+    final int [] aByColumn = new int [nEntries];
+    for (int i = 0; i < nEntries; ++i)
+      aByColumn[aColumnOffsets[m_aColumnIndices.getQuick (i)]++] = i;
+
+    // Stable sort by row
+    final int [] aRowOffsets = new int [m_nRows + 1];
+    for (int i = 0; i < nEntries; ++i)
+      aRowOffsets[m_aRowIndices.getQuick (i) + 1]++;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+      aRowOffsets[nRow + 1] += aRowOffsets[nRow];
+    final int [] aInsertPos = new int [m_nRows];
+    System.arraycopy (aRowOffsets, 0, aInsertPos, 0, m_nRows);
+    final int [] aSorted = new int [nEntries];
+    for (final int nEntry : aByColumn)
+      aSorted[aInsertPos[m_aRowIndices.getQuick (nEntry)]++] = nEntry;
+
+    // Merge duplicates - the stable sorts keep the order of addition
+    final int [] aResultOffsets = new int [m_nRows + 1];
+    final int [] aResultColumns = new int [nEntries];
+    final double [] aResultValues = new double [nEntries];
+    int nCount = 0;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nRowStart = nCount;
+      for (int i = aRowOffsets[nRow]; i < aRowOffsets[nRow + 1]; ++i)
+      {
+        final int nEntry = aSorted[i];
+        final int nCol = m_aColumnIndices.getQuick (nEntry);
+        if (nCount > nRowStart && aResultColumns[nCount - 1] == nCol)
+        {
+          if (m_aReplacing.get (nEntry))
+            aResultValues[nCount - 1] = m_aValues.getQuick (nEntry);
+          else
+            aResultValues[nCount - 1] += m_aValues.getQuick (nEntry);
+        }
+        else
+        {
+          aResultColumns[nCount] = nCol;
+          aResultValues[nCount] = m_aValues.getQuick (nEntry);
+          ++nCount;
+        }
+      }
+      aResultOffsets[nRow + 1] = nCount;
+    }
+
+    if (nCount < nEntries)
+    {
+      final int [] aColumns = new int [nCount];
+      System.arraycopy (aResultColumns, 0, aColumns, 0, nCount);
+      final double [] aValues = new double [nCount];
+      System.arraycopy (aResultValues, 0, aValues, 0, nCount);
+      return new SparseMatrix (m_nRows, m_nCols, aResultOffsets, aColumns, aValues);
+    }
+    return new SparseMatrix (m_nRows, m_nCols, aResultOffsets, aResultColumns, aResultValues);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("rows", m_nRows)
+                                       .append ("cols", m_nCols)
+                                       .append ("entries", m_aValues.size ())
+                                       .toString ();
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+
+/**
+ * A {@link IGraphChangeListener} that records all events as strings, e.g.
+ * <code>+N:id</code> for an added node or <code>A:id:name</code> for a changed
+ * attribute.
+ * 
+ * @author Philip Helger
+ */
+public final class MockGraphChangeListener <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> implements IGraphChangeListener <N, R>
+{
+  private final List <String> m_aEvents = new ArrayList <String> ();
+
+  public void onNodeAdded (@Nonnull final N aNode)
+  {
+    m_aEvents.add ("+N:" + aNode.getID ());
+  }
+
+  public void onNodeRemoved (@Nonnull final N aNode)
+  {
+    m_aEvents.add ("-N:" + aNode.getID ());
+  }
+
+  public void onRelationAdded (@Nonnull final R aRelation)
+  {
+    m_aEvents.add ("+R:" + aRelation.getID ());
+  }
+
+  public void onRelationRemoved (@Nonnull final R aRelation)
+  {
+    m_aEvents.add ("-R:" + aRelation.getID ());
+  }
+
+  public void onAttributeChanged (@Nonnull final IBaseGraphObject aObject, @Nonnull final String sAttrName)
+  {
+    m_aEvents.add ("A:" + aObject.getID () + ":" + sAttrName);
+  }
+
+  /**
+   * @return All events recorded since the last call. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public List <String> getAndClearEvents ()
+  {
+    final List <String> ret = new ArrayList <String> (m_aEvents);
+    m_aEvents.clear ();
+    return ret;
+  }
+}
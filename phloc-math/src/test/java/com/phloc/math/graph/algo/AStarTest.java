@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link AStar}.
+ * 
+ * @author Philip Helger
+ */
+public final class AStarTest
+{
+  private static final String ATTR_WEIGHT = "weight";
+  private static final String ATTR_X = "x";
+  private static final String ATTR_Y = "y";
+
+  /**
+   * Counts the evaluated nodes of the wrapped heuristic.
+   */
+  private static final class CountingHeuristic implements IAStarHeuristic <IGraphNode>
+  {
+    private final IAStarHeuristic <IGraphNode> m_aHeuristic;
+    private int m_nCount = 0;
+
+    CountingHeuristic (final IAStarHeuristic <IGraphNode> aHeuristic)
+    {
+      m_aHeuristic = aHeuristic;
+    }
+
+    public double getEstimatedDistance (final IGraphNode aNode, final IGraphNode aTargetNode)
+    {
+      ++m_nCount;
+      return m_aHeuristic.getEstimatedDistance (aNode, aTargetNode);
+    }
+  }
+
+  /**
+   * Create a grid with coordinates, where each relation costs at least the
+   * euclidean distance of its nodes.
+   */
+  private static SimpleGraph _createGrid (final int nSize)
+  {
+    final Random aRandom = new Random (4711);
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final IGraphNode aNode = g.createNode (x + "/" + y);
+        aNode.setAttribute (ATTR_X, x);
+        aNode.setAttribute (ATTR_Y, y);
+        if (x > 0)
+          g.createRelation ((x - 1) + "/" + y, aNode.getID ()).setAttribute (ATTR_WEIGHT, 1 + aRandom.nextInt (3));
+        if (y > 0)
+          g.createRelation (x + "/" + (y - 1), aNode.getID ()).setAttribute (ATTR_WEIGHT, 1 + aRandom.nextInt (3));
+      }
+    return g;
+  }
+
+  @Test
+  public void testGrid ()
+  {
+    final int nSize = 60;
+    final SimpleGraph g = _createGrid (nSize);
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (g);
+    final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+
+    final String sFromID = "5/5";
+    final String sToID = "50/40";
+    final Dijkstra.Result <IGraphNode> aExpected = Dijkstra.applyDijkstra (g, sFromID, sToID, ATTR_WEIGHT);
+
+    final CountingHeuristic aEuclidean = new CountingHeuristic (new EuclideanHeuristic <IGraphNode> (ATTR_X, ATTR_Y));
+    final Dijkstra.Result <IGraphNode> r = AStar.applyAStar (aIndex, aCosts, sFromID, sToID, aEuclidean);
+    assertEquals (aExpected.getResultDistance (), r.getResultDistance ());
+    assertEquals (sFromID, r.getAllResultNodes ().get (0).getID ());
+    assertEquals (sToID, r.getAllResultNodes ().get (r.getResultNodeCount () - 1).getID ());
+
+    // Without estimation all nodes closer than the target are evaluated
+    final CountingHeuristic aZero = new CountingHeuristic (new IAStarHeuristic <IGraphNode> ()
+    {
+      public double getEstimatedDistance (final IGraphNode aNode, final IGraphNode aTargetNode)
+      {
+        return 0;
+      }
+    });
+    assertEquals (aExpected.getResultDistance (),
+                  AStar.applyAStar (aIndex, aCosts, sFromID, sToID, aZero).getResultDistance ());
+    assertTrue (aEuclidean.m_nCount < aZero.m_nCount);
+
+    // The Manhattan distance is admissible as all costs are >= 1
+    final Dijkstra.Result <IGraphNode> r2 = AStar.applyAStar (g, sFromID, sToID, ATTR_WEIGHT, new IAStarHeuristic <IGraphNode> ()
+    {
+      public double getEstimatedDistance (final IGraphNode aNode, final IGraphNode aTargetNode)
+      {
+        return Math.abs (aNode.getAttributeAsInt (ATTR_X) - aTargetNode.getAttributeAsInt (ATTR_X)) +
+               Math.abs (aNode.getAttributeAsInt (ATTR_Y) - aTargetNode.getAttributeAsInt (ATTR_Y));
+      }
+    });
+    assertEquals (aExpected.getResultDistance (), r2.getResultDistance ());
+  }
+
+  @Test
+  public void testInconsistentHeuristic ()
+  {
+    // a-b-d is shortest (2), a-c-d costs 3
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createNode ("c");
+    g.createNode ("d");
+    g.createNode ("e");
+    g.createRelation ("a", "b").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("a", "c").setAttribute (ATTR_WEIGHT, 2);
+    g.createRelation ("b", "c").setAttribute (ATTR_WEIGHT, 0);
+    g.createRelation ("c", "d").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("d", "e").setAttribute (ATTR_WEIGHT, 5);
+    // Admissible but not consistent: "b" is overestimated relative to "c"
+    final Dijkstra.Result <IGraphNode> r = AStar.applyAStar (g, "a", "e", ATTR_WEIGHT, new IAStarHeuristic <IGraphNode> ()
+    {
+      public double getEstimatedDistance (final IGraphNode aNode, final IGraphNode aTargetNode)
+      {
+        return aNode.getID ().equals ("b") ? 6 : 0;
+      }
+    });
+    assertEquals ("Distance 7.0 for route {'a','b','c','d','e'}", r.getAsString ());
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final SimpleGraph g = _createGrid (3);
+    g.createNode ("isolated");
+    final EuclideanHeuristic <IGraphNode> aHeuristic = new EuclideanHeuristic <IGraphNode> (ATTR_X, ATTR_Y);
+    try
+    {
+      AStar.applyAStar (g, "0/0", "isolated", ATTR_WEIGHT, aHeuristic);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // No path
+    }
+    try
+    {
+      AStar.applyAStar (g, "0/0", "any", ATTR_WEIGHT, aHeuristic);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      AStar.applyAStar (g, "0/0", "2/2", ATTR_WEIGHT, null);
+      fail ();
+    }
+    catch (final NullPointerException ex)
+    {}
+    try
+    {
+      AStar.applyAStar (g, "0/0", "2/2", ATTR_WEIGHT, new IAStarHeuristic <IGraphNode> ()
+      {
+        public double getEstimatedDistance (final IGraphNode aNode, final IGraphNode aTargetNode)
+        {
+          return -1;
+        }
+      });
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      new EuclideanHeuristic <IGraphNode> (ATTR_X, ATTR_Y, -1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+import com.phloc.math.matrix.Matrix;
+
+/**
+ * Test class for class {@link AllPairsShortestPaths}.
+ * 
+ * @author Philip Helger
+ */
+public final class AllPairsShortestPathsTest
+{
+  private static final String ATTR_WEIGHT = "weight";
+
+  @Test
+  public void testSmall ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createNode ("c");
+    g.createNode ("d");
+    g.createRelation ("a", "b").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("b", "c").setAttribute (ATTR_WEIGHT, 2);
+    g.createRelation ("a", "c").setAttribute (ATTR_WEIGHT, 5);
+
+    final DistanceMatrix <IGraphNode> aDM = AllPairsShortestPaths.applyAllPairs (g, ATTR_WEIGHT);
+    assertEquals (4, aDM.getNodeCount ());
+    assertTrue (aDM.hasPredecessors ());
+    assertEquals (0, aDM.getDistance ("a", "a"), 0);
+    assertEquals (3, aDM.getDistance ("a", "c"), 0);
+    assertEquals (3, aDM.getDistance ("c", "a"), 0);
+    assertTrue (aDM.isReachable ("b", "a"));
+    assertFalse (aDM.isReachable ("a", "d"));
+    assertFalse (aDM.isReachable ("a", "any"));
+    assertEquals (Double.POSITIVE_INFINITY, aDM.getDistance ("d", "a"), 0);
+    assertEquals ("Distance 3.0 for route {'c','b','a'}", aDM.getResult ("c", "a").getAsString ());
+    assertEquals ("Distance 0.0 for route {'d'}", aDM.getResult ("d", "d").getAsString ());
+    assertNull (aDM.getResult ("a", "d"));
+
+    final IndexedGraph <IGraphNode, ?> aIndex = aDM.getIndex ();
+    final int nA = aIndex.getNodeIndex ("a");
+    final int nC = aIndex.getNodeIndex ("c");
+    assertEquals (aIndex.getNodeIndex ("b"), aDM.getPredecessorOfIndex (nA, nC));
+    assertEquals (CGlobal.ILLEGAL_UINT, aDM.getPredecessorOfIndex (nA, nA));
+
+    final Matrix aMatrix = aDM.getAsMatrix ();
+    assertEquals (4, aMatrix.getRowDimension ());
+    assertEquals (4, aMatrix.getColumnDimension ());
+    for (int i = 0; i < 4; ++i)
+      for (int j = 0; j < 4; ++j)
+        assertEquals (aDM.getDistanceOfIndex (i, j), aMatrix.get (i, j), 0);
+  }
+
+  @Test
+  public void testWithoutPredecessors ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createRelation ("a", "b").setAttribute (ATTR_WEIGHT, 1);
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (g);
+    final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+    for (final DistanceMatrix <IGraphNode> aDM : new DistanceMatrix [] { AllPairsShortestPaths.applyFloydWarshall (aIndex,
+                                                                                                                   aCosts,
+                                                                                                                   false,
+                                                                                                                   null),
+                                                                         AllPairsShortestPaths.applyDijkstra (aIndex,
+                                                                                                              aCosts,
+                                                                                                              false,
+                                                                                                              null) })
+    {
+      assertFalse (aDM.hasPredecessors ());
+      assertEquals (1, aDM.getDistance ("b", "a"), 0);
+      try
+      {
+        aDM.getResult ("a", "b");
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {}
+    }
+  }
+
+  @Test
+  public void testRandomDirected ()
+  {
+    // More nodes than a single Floyd-Warshall block
+    final int nNodeCount = AllPairsShortestPaths.BLOCK_SIZE * 2 + 17;
+    final Random aRandom = new Random (4711);
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nNodeCount; ++i)
+      g.createNode (Integer.toString (i));
+    final Set <String> aRelations = new HashSet <String> ();
+    for (int i = 0; i < 3 * nNodeCount; ++i)
+    {
+      final String sFromID = Integer.toString (aRandom.nextInt (nNodeCount));
+      final String sToID = Integer.toString (aRandom.nextInt (nNodeCount));
+      if (aRelations.add (sFromID + "-" + sToID))
+        g.createRelation (sFromID, sToID).setAttribute (ATTR_WEIGHT, aRandom.nextInt (50));
+    }
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (g);
+    final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+    final ForkJoinPool aPool = new ForkJoinPool (4);
+    try
+    {
+      final DistanceMatrix <IDirectedGraphNode> aFW = AllPairsShortestPaths.applyFloydWarshall (aIndex,
+                                                                                                aCosts,
+                                                                                                true,
+                                                                                                aPool);
+      final DistanceMatrix <IDirectedGraphNode> aDJ = AllPairsShortestPaths.applyDijkstra (aIndex,
+                                                                                           aCosts,
+                                                                                           true,
+                                                                                           aPool);
+      for (int i = 0; i < nNodeCount; ++i)
+      {
+        final String sFromID = Integer.toString (i);
+        final Dijkstra.ResultTree <IDirectedGraphNode> aTree = Dijkstra.applyDijkstraAll (aIndex, aCosts, sFromID);
+        for (int j = 0; j < nNodeCount; ++j)
+        {
+          final String sToID = Integer.toString (j);
+          final double dExpected = aTree.getDistanceAsDouble (sToID);
+          assertEquals (dExpected, aFW.getDistance (sFromID, sToID), 0);
+          assertEquals (dExpected, aDJ.getDistance (sFromID, sToID), 0);
+          if (aTree.isReached (sToID))
+            for (final DistanceMatrix <IDirectedGraphNode> aDM : new DistanceMatrix [] { aFW, aDJ })
+            {
+              // The reconstructed path must consist of existing relations
+              final Dijkstra.Result <IDirectedGraphNode> r = aDM.getResult (sFromID, sToID);
+              assertEquals (dExpected, r.getResultDistanceAsDouble (), 0);
+              final List <IDirectedGraphNode> aNodes = r.getAllResultNodes ();
+              assertEquals (sFromID, aNodes.get (0).getID ());
+              assertEquals (sToID, aNodes.get (aNodes.size () - 1).getID ());
+              double dSum = 0;
+              for (int k = 1; k < aNodes.size (); ++k)
+                dSum += aNodes.get (k - 1)
+                              .getOutgoingRelationTo (aNodes.get (k))
+                              .getAttributeAsDouble (ATTR_WEIGHT);
+              assertEquals (dExpected, dSum, 0);
+            }
+        }
+      }
+    }
+    finally
+    {
+      aPool.shutdown ();
+    }
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createRelation ("a", "b").setAttribute (ATTR_WEIGHT, -1);
+    try
+    {
+      AllPairsShortestPaths.applyAllPairs (g, ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      AllPairsShortestPaths.applyAllPairs (g, "any");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
@@ -18,12 +18,28 @@
 package com.phloc.math.graph.algo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
 import com.phloc.math.graph.simple.SimpleDirectedGraph;
 import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
 import com.phloc.math.graph.simple.SimpleGraph;
@@ -182,4 +198,243 @@ public final class DijkstraTest
     s_aLogger.info (r.getAsString ());
     assertEquals (864, r.getResultDistance ());
   }
+
+  @Test
+  public void testResultTree ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 7; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").setAttribute (ATTR_WEIGHT, 3);
+    g.createRelation ("1", "3").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("2", "5").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "6").setAttribute (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "5").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("4", "6").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").setAttribute (ATTR_WEIGHT, 2);
+    // Node 7 is not reachable
+
+    final Dijkstra.ResultTree <?> aTree = Dijkstra.applyDijkstraAll (g, "1", ATTR_WEIGHT);
+    assertNotNull (aTree);
+    s_aLogger.info (aTree.getAsString ());
+    assertEquals ("1", aTree.getStartNode ().getID ());
+    assertEquals (6, aTree.getReachedNodeCount ());
+    assertEquals (0, aTree.getDistance ("1"));
+    assertEquals (3, aTree.getDistance ("2"));
+    assertEquals (1, aTree.getDistance ("3"));
+    assertEquals (2, aTree.getDistance ("4"));
+    assertEquals (4, aTree.getDistance ("5"));
+    assertEquals (5, aTree.getDistance ("6"));
+    assertFalse (aTree.isReached ("7"));
+    assertEquals (CGlobal.ILLEGAL_UINT, aTree.getDistance ("7"));
+    assertNull (aTree.getResult ("7"));
+    assertNull (aTree.getPredecessor ("1"));
+    assertEquals ("2", aTree.getPredecessor ("5").getID ());
+    assertEquals (Arrays.asList ("1", "3", "4", "2", "5", "6"), ContainerHelper.newList (aTree.getAllReachedNodeIDs ()));
+
+    final Dijkstra.Result <?> r = aTree.getResult ("6");
+    assertNotNull (r);
+    assertEquals (5, r.getResultDistance ());
+    assertEquals (r.getResultDistance (), Dijkstra.applyDijkstra (g, "1", "6", ATTR_WEIGHT).getResultDistance ());
+
+    // Multiple targets - stops as soon as both are reached
+    final Dijkstra.ResultTree <?> aPartialTree = Dijkstra.applyDijkstra (g, "1", Arrays.asList ("4", "3"), ATTR_WEIGHT);
+    assertEquals (3, aPartialTree.getReachedNodeCount ());
+    assertTrue (aPartialTree.isReached ("4"));
+    assertFalse (aPartialTree.isReached ("6"));
+
+    // Unreachable end node
+    try
+    {
+      Dijkstra.applyDijkstra (g, "1", "7", ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    // Unknown node
+    try
+    {
+      Dijkstra.applyDijkstra (g, "1", "8", ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    // Negative costs are not allowed
+    g.createRelation ("6", "7").setAttribute (ATTR_WEIGHT, -1);
+    try
+    {
+      Dijkstra.applyDijkstraAll (g, "1", ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testDoubleCosts ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 4; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").setAttribute (ATTR_WEIGHT, 0.5);
+    g.createRelation ("2", "4").setAttribute (ATTR_WEIGHT, 0.75);
+    g.createRelation ("1", "3").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").setAttribute (ATTR_WEIGHT, 0.125);
+    // Sum would overflow int
+    g.createRelation ("4", "1").setAttribute (ATTR_WEIGHT, Integer.MAX_VALUE);
+
+    // Resolve the costs only once for multiple searches
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (g);
+    final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+    Dijkstra.ResultTree <IDirectedGraphNode> aTree = Dijkstra.applyDijkstraAll (aIndex, aCosts, "1");
+    assertEquals (1.125, aTree.getDistanceAsDouble ("4"), 0);
+    assertEquals ("3", aTree.getPredecessor ("4").getID ());
+    assertEquals (1.125, aTree.getResult ("4").getResultDistanceAsDouble (), 0);
+    try
+    {
+      // Not an int
+      aTree.getDistance ("4");
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {}
+
+    aTree = Dijkstra.applyDijkstraAll (aIndex, aCosts, "2");
+    assertEquals (Integer.MAX_VALUE + 0.75, aTree.getDistanceAsDouble ("1"), 0);
+    assertEquals (Integer.MAX_VALUE + 1.75, aTree.getDistanceAsDouble ("3"), 0);
+    assertEquals (Double.POSITIVE_INFINITY, aTree.getDistanceAsDouble ("5"), 0);
+
+    // Costs of a different graph
+    try
+    {
+      Dijkstra.applyDijkstraAll (aIndex, new RelationWeights (new double [] { 1 }), "1");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testLargeGrid ()
+  {
+    // Undirected grid where each relation has cost 1 - the distance from the
+    // upper left corner is the Manhattan distance
+    final int nSize = 200;
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final IGraphNode aNode = g.createNode (x + "/" + y);
+        if (x > 0)
+          g.createRelation ((x - 1) + "/" + y, aNode.getID ()).setAttribute (ATTR_WEIGHT, 1);
+        if (y > 0)
+          g.createRelation (x + "/" + (y - 1), aNode.getID ()).setAttribute (ATTR_WEIGHT, 1);
+      }
+
+    final Dijkstra.Result <?> r = Dijkstra.applyDijkstra (g, "0/0", (nSize - 1) + "/" + (nSize - 1), ATTR_WEIGHT);
+    assertEquals (2 * (nSize - 1), r.getResultDistance ());
+    assertEquals (2 * nSize - 1, r.getResultNodeCount ());
+
+    final Dijkstra.ResultTree <?> aTree = Dijkstra.applyDijkstraAll (g, "0/0", ATTR_WEIGHT);
+    assertEquals (nSize * nSize, aTree.getReachedNodeCount ());
+    for (int y = 0; y < nSize; y += 7)
+      for (int x = 0; x < nSize; x += 11)
+        assertEquals (x + y, aTree.getDistance (x + "/" + y));
+  }
+
+  @Test
+  public void testBidirectional ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("Barcelona");
+    g.createNode ("Narbonne");
+    g.createNode ("Geneve");
+    g.createNode ("Lausanne");
+    g.createNode ("Toulouse");
+    g.createRelation ("Barcelona", "Narbonne").setAttribute (ATTR_WEIGHT, 250);
+    g.createRelation ("Narbonne", "Toulouse").setAttribute (ATTR_WEIGHT, 150);
+    g.createRelation ("Narbonne", "Geneve").setAttribute (ATTR_WEIGHT, 550);
+    g.createRelation ("Toulouse", "Geneve").setAttribute (ATTR_WEIGHT, 700);
+    g.createRelation ("Geneve", "Lausanne").setAttribute (ATTR_WEIGHT, 64);
+    Dijkstra.Result <IGraphNode> r = Dijkstra.applyBidirectionalDijkstra (g, "Barcelona", "Lausanne", ATTR_WEIGHT);
+    assertEquals (864, r.getResultDistance ());
+    assertEquals ("Distance 864.0 for route {'Barcelona','Narbonne','Geneve','Lausanne'}", r.getAsString ());
+    r = Dijkstra.applyBidirectionalDijkstra (g, "Lausanne", "Barcelona", ATTR_WEIGHT);
+    assertEquals ("Distance 864.0 for route {'Lausanne','Geneve','Narbonne','Barcelona'}", r.getAsString ());
+    r = Dijkstra.applyBidirectionalDijkstra (g, "Geneve", "Geneve", ATTR_WEIGHT);
+    assertEquals (0, r.getResultDistance ());
+    assertEquals (1, r.getResultNodeCount ());
+
+    // Directed: the backward search must follow the incoming relations
+    final SimpleDirectedGraph dg = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    dg.createNode ("a");
+    dg.createNode ("b");
+    dg.createNode ("c");
+    dg.createNode ("d");
+    dg.createRelation ("a", "b").setAttribute (ATTR_WEIGHT, 1);
+    dg.createRelation ("b", "c").setAttribute (ATTR_WEIGHT, 1);
+    dg.createRelation ("a", "c").setAttribute (ATTR_WEIGHT, 3);
+    dg.createRelation ("d", "a").setAttribute (ATTR_WEIGHT, 1);
+    final Dijkstra.Result <IDirectedGraphNode> dr = Dijkstra.applyBidirectionalDijkstra (dg, "a", "c", ATTR_WEIGHT);
+    assertEquals ("Distance 2.0 for route {'a','b','c'}", dr.getAsString ());
+    try
+    {
+      // Only reachable against the relation direction
+      Dijkstra.applyBidirectionalDijkstra (dg, "a", "d", ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      Dijkstra.applyBidirectionalDijkstra (dg, "a", "any", ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testBidirectionalRandom ()
+  {
+    final Random aRandom = new Random (4711);
+    final int nNodeCount = 500;
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nNodeCount; ++i)
+      g.createNode (Integer.toString (i));
+    final Set <String> aRelations = new HashSet <String> ();
+    for (int i = 0; i < 4 * nNodeCount; ++i)
+    {
+      final String sFromID = Integer.toString (aRandom.nextInt (nNodeCount));
+      final String sToID = Integer.toString (aRandom.nextInt (nNodeCount));
+      // Multiple relations between the same nodes are not allowed
+      if (aRelations.add (sFromID + "-" + sToID))
+        g.createRelation (sFromID, sToID).setAttribute (ATTR_WEIGHT, aRandom.nextInt (100));
+    }
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (g);
+    final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+    for (int i = 0; i < 20; ++i)
+    {
+      final String sFromID = Integer.toString (aRandom.nextInt (nNodeCount));
+      final Dijkstra.ResultTree <IDirectedGraphNode> aTree = Dijkstra.applyDijkstraAll (aIndex, aCosts, sFromID);
+      for (int j = 0; j < 20; ++j)
+      {
+        final String sToID = Integer.toString (aRandom.nextInt (nNodeCount));
+        if (aTree.isReached (sToID))
+        {
+          final Dijkstra.Result <IDirectedGraphNode> r = Dijkstra.applyBidirectionalDijkstra (aIndex,
+                                                                                              aCosts,
+                                                                                              sFromID,
+                                                                                              sToID);
+          assertEquals (aTree.getDistance (sToID), r.getResultDistance ());
+          assertEquals (sFromID, r.getAllResultNodes ().get (0).getID ());
+          assertEquals (sToID, r.getAllResultNodes ().get (r.getResultNodeCount () - 1).getID ());
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link DisjointSet}.
+ * 
+ * @author Philip Helger
+ */
+public final class DisjointSetTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final DisjointSet aDS = new DisjointSet (5);
+    assertEquals (5, aDS.getElementCount ());
+    assertEquals (5, aDS.getSetCount ());
+    for (int i = 0; i < 5; ++i)
+      assertEquals (i, aDS.find (i));
+
+    assertTrue (aDS.union (0, 1));
+    assertTrue (aDS.union (3, 4));
+    assertFalse (aDS.union (1, 0));
+    assertEquals (3, aDS.getSetCount ());
+    assertTrue (aDS.isSameSet (0, 1));
+    assertFalse (aDS.isSameSet (1, 3));
+
+    assertTrue (aDS.union (1, 4));
+    assertEquals (2, aDS.getSetCount ());
+    assertTrue (aDS.isSameSet (0, 3));
+    assertFalse (aDS.isSameSet (2, 3));
+
+    try
+    {
+      aDS.find (5);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      aDS.find (-1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    aDS.reset ();
+    assertEquals (5, aDS.getSetCount ());
+    assertFalse (aDS.isSameSet (0, 1));
+  }
+
+  @Test
+  public void testGrowing ()
+  {
+    final DisjointSet aDS = new DisjointSet ();
+    assertEquals (0, aDS.getElementCount ());
+    for (int i = 0; i < 1000; ++i)
+    {
+      assertEquals (i, aDS.addElement ());
+      if (i > 0)
+        assertTrue (aDS.union (i - 1, i));
+    }
+    assertEquals (1000, aDS.getElementCount ());
+    assertEquals (1, aDS.getSetCount ());
+    assertTrue (aDS.isSameSet (0, 999));
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link EMinimumSpanningTreeAlgorithm}.
+ * 
+ * @author Philip Helger
+ */
+public final class EMinimumSpanningTreeAlgorithmTest
+{
+  private static final String ATTR_WEIGHT = "weight";
+
+  @Nonnull
+  private static SimpleGraph _createRandomGraph (final int nNodeCount, final int nRelationCount, final long nSeed)
+  {
+    final Random aRandom = new Random (nSeed);
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int i = 0; i < nNodeCount; ++i)
+      g.createNode (Integer.toString (i));
+    final Set <String> aRelations = new HashSet <String> ();
+    for (int i = 0; i < nRelationCount; ++i)
+    {
+      final int n1 = aRandom.nextInt (nNodeCount);
+      final int n2 = aRandom.nextInt (nNodeCount);
+      if (n1 != n2 && aRelations.add (Math.min (n1, n2) + "-" + Math.max (n1, n2)))
+        g.createRelation (Integer.toString (n1), Integer.toString (n2)).setAttribute (ATTR_WEIGHT,
+                                                                                     aRandom.nextInt (20) - 5);
+    }
+    return g;
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final SimpleGraph g = new SimpleGraph ();
+    for (int i = 1; i <= 6; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").setAttribute (ATTR_WEIGHT, 4);
+    g.createRelation ("1", "3").setAttribute (ATTR_WEIGHT, 2);
+    g.createRelation ("1", "4").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("2", "5").setAttribute (ATTR_WEIGHT, 3);
+    g.createRelation ("2", "3").setAttribute (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "3").setAttribute (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "6").setAttribute (ATTR_WEIGHT, 6);
+    g.createRelation ("3", "5").setAttribute (ATTR_WEIGHT, 3);
+    g.createRelation ("3", "6").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").setAttribute (ATTR_WEIGHT, 4);
+
+    for (final EMinimumSpanningTreeAlgorithm eAlgo : EMinimumSpanningTreeAlgorithm.values ())
+    {
+      final Kruskal.Result r = eAlgo.apply (g, ATTR_WEIGHT);
+      assertEquals (eAlgo.name (), 16, r.getTotalWeight ());
+      assertEquals (6, r.getGraph ().getNodeCount ());
+      assertEquals (5, r.getGraph ().getRelationCount ());
+    }
+    assertEquals (16, Prim.applyPrim (g, ATTR_WEIGHT).getTotalWeight ());
+    assertEquals (16, Boruvka.applyBoruvka (g, ATTR_WEIGHT).getTotalWeight ());
+    assertEquals (16, EMinimumSpanningTreeAlgorithm.applyMinimumSpanningTree (g, ATTR_WEIGHT).getTotalWeight ());
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    for (final int nRelationCount : new int [] { 300, 3000, 20000 })
+    {
+      // 300 relations on 400 nodes result in a forest
+      final SimpleGraph g = _createRandomGraph (400, nRelationCount, nRelationCount);
+      final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (g);
+      final RelationWeights aCosts = RelationWeights.createFromAttribute (aIndex, ATTR_WEIGHT);
+      final Kruskal.RelationsResult aExpected = Kruskal.applyKruskalRelations (aIndex, aCosts);
+      for (final EMinimumSpanningTreeAlgorithm eAlgo : EMinimumSpanningTreeAlgorithm.values ())
+      {
+        final Kruskal.RelationsResult r = eAlgo.applyRelations (aIndex, aCosts);
+        assertEquals (eAlgo.name (), aExpected.getTotalWeight (), r.getTotalWeight ());
+        assertEquals (eAlgo.name (), aExpected.getRelationCount (), r.getRelationCount ());
+        // The result must not contain cycles
+        final DisjointSet aComponents = new DisjointSet (aIndex.getNodeCount ());
+        for (final IGraphRelation aRelation : r.getAllRelations ())
+          assertTrue (aComponents.union (aIndex.getNodeIndex (aRelation.getNode1ID ()),
+                                         aIndex.getNodeIndex (aRelation.getNode2ID ())));
+      }
+    }
+  }
+
+  @Test
+  public void testSuitableAlgorithm ()
+  {
+    IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (_createRandomGraph (100,
+                                                                                                                       2000,
+                                                                                                                       1));
+    assertSame (EMinimumSpanningTreeAlgorithm.PRIM, EMinimumSpanningTreeAlgorithm.getSuitableAlgorithm (aIndex));
+    aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (_createRandomGraph (1000, 3000, 1));
+    assertSame (EMinimumSpanningTreeAlgorithm.KRUSKAL, EMinimumSpanningTreeAlgorithm.getSuitableAlgorithm (aIndex));
+    aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (new SimpleGraph ());
+    assertSame (EMinimumSpanningTreeAlgorithm.KRUSKAL, EMinimumSpanningTreeAlgorithm.getSuitableAlgorithm (aIndex));
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (_createRandomGraph (10,
+                                                                                                                             20,
+                                                                                                                             1));
+    for (final EMinimumSpanningTreeAlgorithm eAlgo : EMinimumSpanningTreeAlgorithm.values ())
+      try
+      {
+        eAlgo.applyRelations (aIndex, new RelationWeights (new double [1]));
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {}
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link EigenvectorCentrality}.
+ * 
+ * @author Philip Helger
+ */
+public final class EigenvectorCentralityTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testStar ()
+  {
+    final SimpleGraph aGraph = new SimpleGraph ();
+    aGraph.createNode ("c");
+    for (int i = 0; i < 4; ++i)
+    {
+      aGraph.createNode ("l" + i);
+      aGraph.createRelation ("c", "l" + i);
+    }
+    final CentralityResult <IGraphNode> r = EigenvectorCentrality.applyEigenvectorCentrality (aGraph);
+    assertTrue (r.isConverged ());
+    assertEquals ("c", r.getHighestScoringNode ().getID ());
+    assertEquals (1 / Math.sqrt (2), r.getScore ("c"), 1e-6);
+    for (int i = 0; i < 4; ++i)
+      assertEquals (1 / Math.sqrt (8), r.getScore ("l" + i), 1e-6);
+  }
+
+  @Test
+  public void testDirectedCycle ()
+  {
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph ();
+    aGraph.createNode ("a");
+    aGraph.createNode ("b");
+    aGraph.createNode ("c");
+    aGraph.createRelation ("a", "b");
+    aGraph.createRelation ("b", "c");
+    aGraph.createRelation ("c", "a");
+    final CentralityResult <IDirectedGraphNode> r = EigenvectorCentrality.applyEigenvectorCentrality (aGraph);
+    assertTrue (r.isConverged ());
+    for (final double d : r.getAllScores ())
+      assertEquals (1 / Math.sqrt (3), d, 1e-6);
+
+    r.setAsAttribute ("ec");
+    assertEquals (r.getScore ("a"), aGraph.getNodeOfID ("a").getAttributeAsDouble ("ec"), 0);
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (_buildGraph ());
+    try
+    {
+      EigenvectorCentrality.applyEigenvectorCentrality (aIndex, null, -1, 10, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      EigenvectorCentrality.applyEigenvectorCentrality (aIndex, null, 1e-9, 10, 0, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testParallelGrid ()
+  {
+    final int nSize = 60;
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final IGraphNode aNode = aGraph.createNode (x + "/" + y);
+        if (x > 0)
+          aGraph.createRelation ((x - 1) + "/" + y, aNode.getID ());
+        if (y > 0)
+          aGraph.createRelation (x + "/" + (y - 1), aNode.getID ());
+      }
+
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    final CentralityResult <IGraphNode> aSequential = EigenvectorCentrality.applyEigenvectorCentrality (aIndex,
+                                                                                                        null,
+                                                                                                        1e-12,
+                                                                                                        10000,
+                                                                                                        Integer.MAX_VALUE,
+                                                                                                        null);
+    assertTrue (aSequential.isConverged ());
+    assertTrue (aSequential.getScore ("30/30") > aSequential.getScore ("0/0"));
+
+    final ForkJoinPool aPool = new ForkJoinPool (4);
+    try
+    {
+      final CentralityResult <IGraphNode> aParallel = EigenvectorCentrality.applyEigenvectorCentrality (aIndex,
+                                                                                                        null,
+                                                                                                        1e-12,
+                                                                                                        10000,
+                                                                                                        1,
+                                                                                                        aPool);
+      for (int i = 0; i < aIndex.getNodeCount (); ++i)
+        assertEquals (aSequential.getScoreOfIndex (i), aParallel.getScoreOfIndex (i), 1e-9);
+    }
+    finally
+    {
+      aPool.shutdown ();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link IndexedMinHeap}.
+ * 
+ * @author Philip Helger
+ */
+public final class IndexedMinHeapTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final IndexedMinHeap aHeap = new IndexedMinHeap (5);
+    assertTrue (aHeap.isEmpty ());
+    assertEquals (0, aHeap.size ());
+    try
+    {
+      aHeap.remove ();
+      fail ();
+    }
+    catch (final NoSuchElementException ex)
+    {}
+
+    aHeap.add (3, 30);
+    aHeap.add (1, 10);
+    aHeap.add (4, 10);
+    aHeap.add (0, 50);
+    assertEquals (4, aHeap.size ());
+    assertTrue (aHeap.contains (0));
+    assertFalse (aHeap.contains (2));
+    assertEquals (30, aHeap.getPriority (3), 0);
+    try
+    {
+      aHeap.add (3, 5);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      aHeap.decreasePriority (3, 40);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    aHeap.decreasePriority (0, 5);
+    assertEquals (0, aHeap.peek ());
+    assertEquals (0, aHeap.remove ());
+    // Same priority - lower element first
+    assertEquals (1, aHeap.remove ());
+    assertEquals (4, aHeap.remove ());
+    assertEquals (3, aHeap.remove ());
+    assertTrue (aHeap.isEmpty ());
+    assertFalse (aHeap.contains (3));
+
+    // Elements can be re-added after removal
+    aHeap.add (3, 1);
+    assertEquals (3, aHeap.remove ());
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    final int nCount = 1000;
+    final Random aRandom = new Random (4711);
+    final IndexedMinHeap aHeap = new IndexedMinHeap (nCount);
+    final long [] aPriorities = new long [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      aPriorities[i] = aRandom.nextInt (100000);
+      aHeap.add (i, aPriorities[i]);
+    }
+    for (int i = 0; i < nCount; i += 3)
+    {
+      aPriorities[i] /= 2;
+      aHeap.decreasePriority (i, aPriorities[i]);
+    }
+
+    long nLast = Long.MIN_VALUE;
+    while (!aHeap.isEmpty ())
+    {
+      final int nElement = aHeap.remove ();
+      assertTrue (aPriorities[nElement] >= nLast);
+      nLast = aPriorities[nElement];
+    }
+  }
+}
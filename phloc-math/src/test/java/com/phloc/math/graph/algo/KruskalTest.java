@@ -18,12 +18,16 @@
 package com.phloc.math.graph.algo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.phloc.math.graph.IGraphRelation;
 import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
 
 public final class KruskalTest
 {
@@ -112,4 +116,93 @@ public final class KruskalTest
     s_aLogger.info (r.getAsString ());
     assertEquals (38, r.getTotalWeight ());
   }
+
+  @Test
+  public void testRelationsResult ()
+  {
+    final SimpleGraph g = new SimpleGraph ();
+    for (int i = 1; i <= 6; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").setAttribute (ATTR_WEIGHT, 3);
+    g.createRelation ("1", "3").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("2", "5").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").setAttribute (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "6").setAttribute (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "5").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("4", "6").setAttribute (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").setAttribute (ATTR_WEIGHT, 2);
+    // Self-loops are never part of the spanning tree
+    g.createRelation ("6", "6").setAttribute (ATTR_WEIGHT, 0);
+
+    final Kruskal.RelationsResult r = Kruskal.applyKruskalRelations (g, ATTR_WEIGHT);
+    s_aLogger.info (r.getAsString ());
+    assertEquals (8, r.getTotalWeight ());
+    assertEquals (5, r.getRelationCount ());
+    for (final IGraphRelation aRelation : r.getAllRelations ())
+      assertEquals (aRelation, g.getAllRelations ().get (aRelation.getID ()));
+
+    final SimpleGraph aTree = r.createGraph ();
+    assertEquals (6, aTree.getNodeCount ());
+    assertEquals (5, aTree.getAllRelationIDs ().size ());
+    assertFalse (aTree.containsCycles ());
+  }
+
+  @Test
+  public void testDoubleWeights ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("1");
+    g.createNode ("2");
+    g.createNode ("3");
+    g.createRelation ("1", "2").setAttribute (ATTR_WEIGHT, 0.5);
+    g.createRelation ("2", "3").setAttribute (ATTR_WEIGHT, 0.25);
+    g.createRelation ("1", "3").setAttribute (ATTR_WEIGHT, 0.75);
+
+    final Kruskal.RelationsResult r = Kruskal.applyKruskalRelations (g, ATTR_WEIGHT);
+    s_aLogger.info (r.getAsString ());
+    assertEquals (2, r.getRelationCount ());
+    assertEquals (0.75, r.getTotalWeightAsDouble (), 0);
+    try
+    {
+      // Not an int
+      r.getTotalWeight ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {}
+
+    // Missing weight
+    g.createRelation ("1", "2");
+    try
+    {
+      Kruskal.applyKruskalRelations (g, ATTR_WEIGHT);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testLargeGrid ()
+  {
+    // Grid with 2 * 100 * 99 relations, where all horizontal relations are
+    // cheaper than the vertical ones
+    final int nSize = 100;
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final String sID = x + "/" + y;
+        g.createNode (sID);
+        if (x > 0)
+          g.createRelation ((x - 1) + "/" + y, sID).setAttribute (ATTR_WEIGHT, 1);
+        if (y > 0)
+          g.createRelation (x + "/" + (y - 1), sID).setAttribute (ATTR_WEIGHT, 2);
+      }
+
+    final Kruskal.RelationsResult r = Kruskal.applyKruskalRelations (g, ATTR_WEIGHT);
+    assertEquals (nSize * nSize - 1, r.getRelationCount ());
+    // All horizontal relations plus one vertical relation per row
+    assertEquals (nSize * (nSize - 1) + 2 * (nSize - 1), r.getTotalWeight ());
+  }
 }
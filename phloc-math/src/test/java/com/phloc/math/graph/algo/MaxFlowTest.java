@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link MaxFlow}.
+ * 
+ * @author Philip Helger
+ */
+public final class MaxFlowTest
+{
+  private static final String ATTR_CAPACITY = "capacity";
+
+  /**
+   * Check the capacity constraints, the flow conservation and that the
+   * minimum cut capacity equals the maximum flow.
+   */
+  private static void _checkFlow (final MaxFlow.Result <?> r,
+                                  final IndexedGraph <?, ?> aIndex,
+                                  final RelationWeights aCapacities)
+  {
+    final int nSource = aIndex.getNodeIndex (r.getSourceNode ().getID ());
+    final int nSink = aIndex.getNodeIndex (r.getSinkNode ().getID ());
+    final double [] aBalance = new double [aIndex.getNodeCount ()];
+    double dCut = 0;
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+    {
+      final double dFlow = r.getFlowOfIndex (i);
+      assertTrue (Math.abs (dFlow) <= aCapacities.getWeight (i));
+      if (aIndex.isDirected ())
+        assertTrue (dFlow >= 0);
+      aBalance[aIndex.getRelationFromIndex (i)] -= dFlow;
+      aBalance[aIndex.getRelationToIndex (i)] += dFlow;
+      if (r.getAllCutRelationIDs ().contains (aIndex.getRelationOfIndex (i).getID ()))
+        dCut += aCapacities.getWeight (i);
+    }
+    for (int i = 0; i < aBalance.length; ++i)
+      if (i != nSource && i != nSink)
+        assertEquals (0, aBalance[i], 1e-9);
+    assertEquals (r.getMaxFlow (), -aBalance[nSource], 1e-9);
+    assertEquals (r.getMaxFlow (), aBalance[nSink], 1e-9);
+    assertEquals (r.getMaxFlow (), dCut, 1e-9);
+  }
+
+  @Test
+  public void testDirected ()
+  {
+    // Classical example with a max flow of 23
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (final String sID : new String [] { "s", "v1", "v2", "v3", "v4", "t" })
+      g.createNode (sID);
+    g.createRelation ("s", "v1").setAttribute (ATTR_CAPACITY, 16);
+    g.createRelation ("s", "v2").setAttribute (ATTR_CAPACITY, 13);
+    g.createRelation ("v1", "v3").setAttribute (ATTR_CAPACITY, 12);
+    g.createRelation ("v2", "v1").setAttribute (ATTR_CAPACITY, 4);
+    g.createRelation ("v2", "v4").setAttribute (ATTR_CAPACITY, 14);
+    g.createRelation ("v3", "v2").setAttribute (ATTR_CAPACITY, 9);
+    g.createRelation ("v3", "t").setAttribute (ATTR_CAPACITY, 20);
+    g.createRelation ("v4", "v3").setAttribute (ATTR_CAPACITY, 7);
+    g.createRelation ("v4", "t").setAttribute (ATTR_CAPACITY, 4);
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (g);
+    final RelationWeights aCapacities = RelationWeights.createFromAttribute (aIndex, ATTR_CAPACITY);
+    final MaxFlow.Result <IDirectedGraphNode> r = MaxFlow.applyMaxFlow (aIndex, aCapacities, "s", "t");
+    assertEquals (23, r.getMaxFlow (), 0);
+    assertEquals ("Max flow 23.0 from 's' to 't'", r.getAsString ());
+    assertEquals (ContainerHelper.newSet ("s", "v1", "v2", "v4"), r.getAllSourceSideNodeIDs ());
+    assertEquals (ContainerHelper.newSet ("v3", "t"), r.getAllSinkSideNodeIDs ());
+    assertTrue (r.isOnSourceSide ("v4"));
+    assertFalse (r.isOnSourceSide ("t"));
+    assertFalse (r.isOnSourceSide ("any"));
+    assertEquals (3, r.getAllCutRelationIDs ().size ());
+    _checkFlow (r, aIndex, aCapacities);
+
+    // The source graph is not modified, unless requested
+    r.setFlowAsAttribute ("flow");
+    final IDirectedGraphRelation aRel = g.getNodeOfID ("v4").getOutgoingRelationTo (g.getNodeOfID ("t"));
+    assertEquals (4, aRel.getAttributeAsDouble ("flow"), 0);
+    assertEquals (4, aRel.getAttributeAsDouble (ATTR_CAPACITY), 0);
+
+    // Nothing flows against the relation direction
+    assertEquals (0, MaxFlow.applyMaxFlow (g, "t", "s", ATTR_CAPACITY).getMaxFlow (), 0);
+  }
+
+  @Test
+  public void testUndirected ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (final String sID : new String [] { "a", "b", "c", "d" })
+      g.createNode (sID);
+    g.createRelation ("a", "b").setAttribute (ATTR_CAPACITY, 3);
+    g.createRelation ("c", "a").setAttribute (ATTR_CAPACITY, 2);
+    g.createRelation ("b", "d").setAttribute (ATTR_CAPACITY, 1);
+    g.createRelation ("d", "c").setAttribute (ATTR_CAPACITY, 5);
+    g.createRelation ("b", "c").setAttribute (ATTR_CAPACITY, 1);
+
+    final MaxFlow.Result <IGraphNode> r = MaxFlow.applyMaxFlow (g, "a", "d", ATTR_CAPACITY);
+    assertEquals (4, r.getMaxFlow (), 0);
+    _checkFlow (r, r.getIndex (), RelationWeights.createFromAttribute (r.getIndex (), ATTR_CAPACITY));
+    // Relation "c"-"a" is used against its stored direction
+    for (int i = 0; i < r.getIndex ().getRelationCount (); ++i)
+      if (r.getIndex ().getNodeOfIndex (r.getIndex ().getRelationFromIndex (i)).getID ().equals ("c") &&
+          r.getIndex ().getNodeOfIndex (r.getIndex ().getRelationToIndex (i)).getID ().equals ("a"))
+        assertEquals (-2, r.getFlowOfIndex (i), 0);
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    final Random aRandom = new Random (4711);
+    final int nNodeCount = 300;
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nNodeCount; ++i)
+      g.createNode (Integer.toString (i));
+    final Set <String> aRelations = new HashSet <String> ();
+    for (int i = 0; i < 5 * nNodeCount; ++i)
+    {
+      final String sFromID = Integer.toString (aRandom.nextInt (nNodeCount));
+      final String sToID = Integer.toString (aRandom.nextInt (nNodeCount));
+      if (aRelations.add (sFromID + "-" + sToID))
+        g.createRelation (sFromID, sToID).setAttribute (ATTR_CAPACITY, aRandom.nextDouble () * 10);
+    }
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (g);
+    final RelationWeights aCapacities = RelationWeights.createFromAttribute (aIndex, ATTR_CAPACITY);
+    for (int i = 0; i < 10; ++i)
+    {
+      final int nSource = aRandom.nextInt (nNodeCount);
+      final int nSink = (nSource + 1 + aRandom.nextInt (nNodeCount - 1)) % nNodeCount;
+      final MaxFlow.Result <IDirectedGraphNode> r = MaxFlow.applyMaxFlow (aIndex,
+                                                                          aCapacities,
+                                                                          Integer.toString (nSource),
+                                                                          Integer.toString (nSink));
+      assertTrue (r.getMaxFlow () > 0);
+      _checkFlow (r, aIndex, aCapacities);
+    }
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createRelation ("a", "b").setAttribute (ATTR_CAPACITY, Double.POSITIVE_INFINITY);
+    try
+    {
+      MaxFlow.applyMaxFlow (g, "a", "b", ATTR_CAPACITY);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    g.getNodeOfID ("a").getOutgoingRelationTo (g.getNodeOfID ("b")).setAttribute (ATTR_CAPACITY, 1);
+    assertEquals (1, MaxFlow.applyMaxFlow (g, "a", "b", ATTR_CAPACITY).getMaxFlow (), 0);
+    try
+    {
+      MaxFlow.applyMaxFlow (g, "a", "a", ATTR_CAPACITY);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      MaxFlow.applyMaxFlow (g, "a", "any", ATTR_CAPACITY);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.compact.RelationWeights;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link PageRank}.
+ * 
+ * @author Philip Helger
+ */
+public final class PageRankTest extends AbstractGraphTestCase
+{
+  private static double _sum (final double [] aValues)
+  {
+    double dSum = 0;
+    for (final double d : aValues)
+      dSum += d;
+    return dSum;
+  }
+
+  @Test
+  public void testCycle ()
+  {
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph ();
+    aGraph.createNode ("a");
+    aGraph.createNode ("b");
+    aGraph.createNode ("c");
+    aGraph.createRelation ("a", "b");
+    aGraph.createRelation ("b", "c");
+    aGraph.createRelation ("c", "a");
+    final CentralityResult <IDirectedGraphNode> r = PageRank.applyPageRank (aGraph);
+    assertTrue (r.isConverged ());
+    assertEquals (1.0 / 3, r.getScore ("a"), 1e-9);
+    assertEquals (1.0 / 3, r.getScore ("b"), 1e-9);
+    assertEquals (1.0 / 3, r.getScore ("c"), 1e-9);
+    assertTrue (Double.isNaN (r.getScore ("any")));
+  }
+
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final CentralityResult <IDirectedGraphNode> r = PageRank.applyPageRank (aGraph);
+    assertTrue (r.isConverged ());
+    assertEquals (1, _sum (r.getAllScores ()), 1e-9);
+    // "4" is only reachable via "3", which collects most relations
+    assertEquals ("4", r.getHighestScoringNode ().getID ());
+    assertTrue (r.getScore ("3") > r.getScore ("5"));
+    assertTrue (r.getScore ("5") > r.getScore ("0"));
+    // "1" and "5" have the same single predecessor
+    assertEquals (r.getScore ("1"), r.getScore ("5"), 1e-12);
+
+    r.setAsAttribute ("rank");
+    assertEquals (r.getScore ("3"), aGraph.getNodeOfID ("3").getAttributeAsDouble ("rank"), 0);
+
+    // Without damping only the dangling rank is redistributed
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    final CentralityResult <IDirectedGraphNode> r0 = PageRank.applyPageRank (aIndex,
+                                                                             null,
+                                                                             0,
+                                                                             1e-9,
+                                                                             10,
+                                                                             1,
+                                                                             null);
+    assertEquals (1, r0.getIterationCount ());
+    for (final double d : r0.getAllScores ())
+      assertEquals (1.0 / 7, d, 1e-12);
+
+    // Weights shift the rank
+    final double [] aWeights = new double [aIndex.getRelationCount ()];
+    for (int i = 0; i < aWeights.length; ++i)
+      aWeights[i] = aIndex.getRelationToIndex (i) == aIndex.getNodeIndex ("1") ? 10 : 1;
+    final CentralityResult <IDirectedGraphNode> rw = PageRank.applyPageRank (aIndex,
+                                                                             new RelationWeights (aWeights),
+                                                                             PageRank.DEFAULT_DAMPING,
+                                                                             PageRank.DEFAULT_TOLERANCE,
+                                                                             PageRank.DEFAULT_MAX_ITERATIONS,
+                                                                             Integer.MAX_VALUE,
+                                                                             null);
+    assertEquals (1, _sum (rw.getAllScores ()), 1e-9);
+    assertTrue (rw.getScore ("1") > rw.getScore ("5"));
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (_buildDirectedGraph ());
+    try
+    {
+      PageRank.applyPageRank (aIndex, null, 1, 1e-9, 10, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      PageRank.applyPageRank (aIndex, null, 0.85, 0, 10, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      PageRank.applyPageRank (aIndex, null, 0.85, 1e-9, 0, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      PageRank.applyPageRank (aIndex, new RelationWeights (new double [1]), 0.85, 1e-9, 10, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      final double [] aWeights = new double [aIndex.getRelationCount ()];
+      aWeights[0] = -1;
+      PageRank.applyPageRank (aIndex, new RelationWeights (aWeights), 0.85, 1e-9, 10, 1, null);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      PageRank.applyPageRank (null, null, 0.85, 1e-9, 10, 1, null);
+      fail ();
+    }
+    catch (final NullPointerException ex)
+    {}
+  }
+
+  @Test
+  public void testParallelGrid ()
+  {
+    final int nSize = 100;
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final IGraphNode aNode = aGraph.createNode (x + "/" + y);
+        if (x > 0)
+          aGraph.createRelation ((x - 1) + "/" + y, aNode.getID ());
+        if (y > 0)
+          aGraph.createRelation (x + "/" + (y - 1), aNode.getID ());
+      }
+
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    final CentralityResult <IGraphNode> aSequential = PageRank.applyPageRank (aIndex,
+                                                                              null,
+                                                                              PageRank.DEFAULT_DAMPING,
+                                                                              PageRank.DEFAULT_TOLERANCE,
+                                                                              PageRank.DEFAULT_MAX_ITERATIONS,
+                                                                              Integer.MAX_VALUE,
+                                                                              null);
+    assertTrue (aSequential.isConverged ());
+    assertEquals (1, _sum (aSequential.getAllScores ()), 1e-9);
+    // Inner nodes have more neighbours than corner nodes
+    assertTrue (aSequential.getScore ("50/50") > aSequential.getScore ("0/0"));
+    assertEquals (aSequential.getScore ("0/0"), aSequential.getScore ("99/99"), 1e-12);
+
+    final ForkJoinPool aPool = new ForkJoinPool (4);
+    try
+    {
+      final CentralityResult <IGraphNode> aParallel = PageRank.applyPageRank (aIndex,
+                                                                              null,
+                                                                              PageRank.DEFAULT_DAMPING,
+                                                                              PageRank.DEFAULT_TOLERANCE,
+                                                                              PageRank.DEFAULT_MAX_ITERATIONS,
+                                                                              1,
+                                                                              aPool);
+      assertEquals (aSequential.getIterationCount (), aParallel.getIterationCount ());
+      for (int i = 0; i < aIndex.getNodeCount (); ++i)
+        assertEquals (aSequential.getScoreOfIndex (i), aParallel.getScoreOfIndex (i), 1e-12);
+    }
+    finally
+    {
+      aPool.shutdown ();
+    }
+  }
+}
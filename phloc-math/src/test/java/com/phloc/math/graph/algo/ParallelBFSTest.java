@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link ParallelBFS}.
+ * 
+ * @author Philip Helger
+ */
+public final class ParallelBFSTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final ParallelBFS.Result <IDirectedGraphNode> r = ParallelBFS.applyBFS (aGraph, "0");
+    assertEquals ("0", r.getStartNode ().getID ());
+    assertEquals (7, r.getReachedNodeCount ());
+    assertEquals (3, r.getMaxDistance ());
+    assertEquals (0, r.getDistance ("0"));
+    assertEquals (1, r.getDistance ("1"));
+    assertEquals (1, r.getDistance ("5"));
+    assertEquals (2, r.getDistance ("2"));
+    assertEquals (2, r.getDistance ("3"));
+    assertEquals (2, r.getDistance ("6"));
+    assertEquals (3, r.getDistance ("4"));
+    assertEquals ("5", r.getParent ("3").getID ());
+    assertNull (r.getParent ("0"));
+    assertEquals (CGlobal.ILLEGAL_UINT, r.getDistance ("any"));
+
+    // Only follows outgoing relations
+    final ParallelBFS.Result <IDirectedGraphNode> r2 = ParallelBFS.applyBFS (aGraph, "3");
+    assertEquals (2, r2.getReachedNodeCount ());
+    assertTrue (r2.isReached ("4"));
+    assertFalse (r2.isReached ("0"));
+    assertNull (r2.getParent ("0"));
+
+    try
+    {
+      ParallelBFS.applyBFS (aGraph, "any");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testParallelGrid ()
+  {
+    final int nSize = 150;
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final IGraphNode aNode = aGraph.createNode (x + "/" + y);
+        if (x > 0)
+          aGraph.createRelation ((x - 1) + "/" + y, aNode.getID ());
+        if (y > 0)
+          aGraph.createRelation (x + "/" + (y - 1), aNode.getID ());
+      }
+    aGraph.createNode ("unreachable");
+
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    final ForkJoinPool aPool = new ForkJoinPool (4);
+    try
+    {
+      // Threshold 1 forces all levels to be expanded in parallel
+      for (final int nThreshold : new int [] { 1, 100, Integer.MAX_VALUE })
+      {
+        final ParallelBFS.Result <IGraphNode> r = ParallelBFS.applyBFS (aIndex, "0/0", nThreshold, aPool);
+        assertEquals (nSize * nSize, r.getReachedNodeCount ());
+        assertEquals (2 * (nSize - 1), r.getMaxDistance ());
+        assertFalse (r.isReached ("unreachable"));
+        for (int y = 0; y < nSize; ++y)
+          for (int x = 0; x < nSize; ++x)
+          {
+            final String sID = x + "/" + y;
+            assertEquals (x + y, r.getDistance (sID));
+            final IGraphNode aParent = r.getParent (sID);
+            if (x + y == 0)
+              assertNull (aParent);
+            else
+            {
+              assertEquals (x + y - 1, r.getDistance (aParent.getID ()));
+              assertTrue (aParent.isConnectedWith (aGraph.getNodeOfID (sID)));
+            }
+          }
+      }
+    }
+    finally
+    {
+      aPool.shutdown ();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link StronglyConnectedComponents}.
+ * 
+ * @author Philip Helger
+ */
+public final class StronglyConnectedComponentsTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testAcyclic ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final StronglyConnectedComponents.Result r = StronglyConnectedComponents.applySCC (aGraph);
+    assertNotNull (r);
+    assertEquals (7, r.getComponentCount ());
+    assertFalse (r.containsCycles ());
+    assertEquals (CGlobal.ILLEGAL_UINT, r.getComponentOfNodeID ("any"));
+    // Components are topologically sorted
+    for (final IDirectedGraphRelation aRelation : aGraph.getAllRelations ().values ())
+      assertTrue (r.getComponentOfNodeID (aRelation.getFromID ()) < r.getComponentOfNodeID (aRelation.getToID ()));
+
+    final SimpleDirectedGraph aCondensation = r.createCondensationGraph ();
+    assertEquals (7, aCondensation.getNodeCount ());
+    assertEquals (aGraph.getRelationCount (), aCondensation.getRelationCount ());
+    assertFalse (aCondensation.containsCycles ());
+
+    // Empty graph
+    assertEquals (0, StronglyConnectedComponents.applySCC (new SimpleDirectedGraph ()).getComponentCount ());
+  }
+
+  @Test
+  public void testCycles ()
+  {
+    // 0 -> 1 -> 2 -> 0, 2 -> 3 -> 4 -> 3, 4 -> 5, 5 -> 5, 0 -> 5
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i <= 6; ++i)
+      aGraph.createNode (Integer.toString (i));
+    aGraph.createRelation ("0", "1");
+    aGraph.createRelation ("1", "2");
+    aGraph.createRelation ("2", "0");
+    aGraph.createRelation ("2", "3");
+    aGraph.createRelation ("3", "4");
+    aGraph.createRelation ("4", "3");
+    aGraph.createRelation ("4", "5");
+    aGraph.createRelation ("5", "5");
+    aGraph.createRelation ("0", "5");
+    aGraph.createRelation ("1", "5");
+
+    final StronglyConnectedComponents.Result r = StronglyConnectedComponents.applySCC (aGraph);
+    assertEquals (4, r.getComponentCount ());
+    assertTrue (r.containsCycles ());
+    final int nC012 = r.getComponentOfNodeID ("0");
+    final int nC34 = r.getComponentOfNodeID ("3");
+    final int nC5 = r.getComponentOfNodeID ("5");
+    final int nC6 = r.getComponentOfNodeID ("6");
+    assertEquals (nC012, r.getComponentOfNodeID ("1"));
+    assertEquals (nC012, r.getComponentOfNodeID ("2"));
+    assertEquals (nC34, r.getComponentOfNodeID ("4"));
+    assertTrue (nC012 < nC34);
+    assertTrue (nC34 < nC5);
+    assertEquals (3, r.getComponentSize (nC012));
+    assertEquals (1, r.getComponentSize (nC5));
+    assertTrue (r.isCyclicComponent (nC012));
+    assertTrue (r.isCyclicComponent (nC34));
+    assertTrue (r.isCyclicComponent (nC5));
+    assertFalse (r.isCyclicComponent (nC6));
+    assertEquals (7, r.getAllComponentIndices ().length);
+
+    final List <List <IDirectedGraphNode>> aComponents = r.getAllComponents ();
+    assertEquals (4, aComponents.size ());
+    assertEquals (2, aComponents.get (nC34).size ());
+
+    // Relations 0->5 and 1->5 are merged, 5->5 is dropped
+    final SimpleDirectedGraph aCondensation = r.createCondensationGraph ();
+    assertEquals (4, aCondensation.getNodeCount ());
+    assertEquals (3, aCondensation.getRelationCount ());
+    assertFalse (aCondensation.containsCycles ());
+    final IDirectedGraphNode aNode = aCondensation.getNodeOfID (Integer.toString (nC012));
+    assertEquals (3, ((List <?>) aNode.getAttributeObject (StronglyConnectedComponents.ATTR_MEMBER_NODE_IDS)).size ());
+    assertTrue (aNode.isToNode (aCondensation.getNodeOfID (Integer.toString (nC5))));
+  }
+
+  @Test
+  public void testLongChain ()
+  {
+    // A deep ring would overflow the stack of a recursive implementation
+    final int nCount = 100000;
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nCount; ++i)
+      aGraph.createNode (Integer.toString (i));
+    for (int i = 1; i < nCount; ++i)
+      aGraph.createRelation (Integer.toString (i - 1), Integer.toString (i));
+
+    StronglyConnectedComponents.Result r = StronglyConnectedComponents.applySCC (aGraph);
+    assertEquals (nCount, r.getComponentCount ());
+    assertFalse (r.containsCycles ());
+
+    aGraph.createRelation (Integer.toString (nCount - 1), "0");
+    r = StronglyConnectedComponents.applySCC (aGraph);
+    assertEquals (1, r.getComponentCount ());
+    assertEquals (nCount, r.getComponentSize (0));
+    assertTrue (r.containsCycles ());
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link TopologicalSort}.
+ * 
+ * @author Philip Helger
+ */
+public final class TopologicalSortTest extends AbstractGraphTestCase
+{
+  private static void _assertSorted (@Nonnull final IReadonlyDirectedGraph aGraph,
+                                     @Nonnull final List <IDirectedGraphNode> aSorted)
+  {
+    assertEquals (aGraph.getNodeCount (), aSorted.size ());
+    final Map <String, Integer> aPositions = new HashMap <String, Integer> ();
+    for (int i = 0; i < aSorted.size (); ++i)
+      aPositions.put (aSorted.get (i).getID (), Integer.valueOf (i));
+    for (final IDirectedGraphRelation aRelation : aGraph.getAllRelations ().values ())
+      assertTrue (aPositions.get (aRelation.getFromID ()).intValue () < aPositions.get (aRelation.getToID ())
+                                                                                   .intValue ());
+  }
+
+  private static void _assertCycle (@Nonnull final List <IDirectedGraphNode> aCycle)
+  {
+    assertFalse (aCycle.isEmpty ());
+    for (int i = 0; i < aCycle.size (); ++i)
+      assertTrue (aCycle.get (i).isToNode (aCycle.get ((i + 1) % aCycle.size ())));
+  }
+
+  @Test
+  public void testSort ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final TopologicalSort.Result r = TopologicalSort.sort (aGraph);
+    assertNotNull (r);
+    assertFalse (r.hasCycle ());
+    assertTrue (r.getAllCycleNodes ().isEmpty ());
+    _assertSorted (aGraph, r.getAllSortedNodes ());
+    assertEquals ("0", r.getAllSortedNodes ().get (0).getID ());
+    assertEquals ("4", r.getAllSortedNodes ().get (6).getID ());
+
+    // Empty graph
+    assertTrue (TopologicalSort.sort (new SimpleDirectedGraph ()).getAllSortedNodes ().isEmpty ());
+  }
+
+  @Test
+  public void testCycles ()
+  {
+    TopologicalSort.Result r = TopologicalSort.sort (_buildSimpleDirectedGraphCycle ());
+    assertTrue (r.hasCycle ());
+    assertTrue (r.getAllSortedNodes ().isEmpty ());
+    _assertCycle (r.getAllCycleNodes ());
+
+    r = TopologicalSort.sort (_buildSimpleDirectedGraphCycle2 ());
+    assertTrue (r.hasCycle ());
+    _assertCycle (r.getAllCycleNodes ());
+
+    // Self-loop
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    aGraph.createRelation ("6", "6");
+    r = TopologicalSort.sort (aGraph);
+    assertTrue (r.hasCycle ());
+    assertEquals (1, r.getAllCycleNodes ().size ());
+    assertEquals ("6", r.getAllCycleNodes ().get (0).getID ());
+
+    // Cycle behind the start node
+    aGraph.removeRelation (aGraph.getNodeOfID ("6").getOutgoingRelationTo (aGraph.getNodeOfID ("6")));
+    aGraph.createRelation ("4", "1");
+    r = TopologicalSort.sort (aGraph);
+    assertTrue (r.hasCycle ());
+    assertEquals (4, r.getAllCycleNodes ().size ());
+    _assertCycle (r.getAllCycleNodes ());
+  }
+
+  @Test
+  public void testLarge ()
+  {
+    // Chain in reverse creation order, plus shortcuts
+    final int nCount = 20000;
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nCount; ++i)
+      aGraph.createNode (Integer.toString (i));
+    for (int i = nCount - 1; i > 0; --i)
+    {
+      aGraph.createRelation (Integer.toString (i), Integer.toString (i - 1));
+      if (i % 10 == 0)
+        aGraph.createRelation (Integer.toString (i), Integer.toString (i / 2));
+    }
+    final TopologicalSort.Result r = TopologicalSort.sort (aGraph);
+    assertFalse (r.hasCycle ());
+    _assertSorted (aGraph, r.getAllSortedNodes ());
+    assertFalse (aGraph.containsCycles ());
+
+    aGraph.createRelation ("0", Integer.toString (nCount - 1));
+    assertTrue (aGraph.containsCycles ());
+    _assertCycle (TopologicalSort.sort (aGraph).getAllCycleNodes ());
+  }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.iterate.DirectedGraphIteratorForward;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+
+/**
+ * Test class for class {@link CompactDirectedGraph}.
+ * 
+ * @author Philip Helger
+ */
+public final class CompactDirectedGraphTest extends AbstractGraphTestCase
+{
+  @Nonnull
+  private static List <String> _getIteratedIDs (@Nonnull final IDirectedGraphNode aStart)
+  {
+    final List <String> ret = new ArrayList <String> ();
+    final DirectedGraphIteratorForward it = new DirectedGraphIteratorForward (aStart);
+    while (it.hasNext ())
+      ret.add (it.next ().getID ());
+    return ret;
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final CompactDirectedGraph aCompact = aGraph.toCompactSnapshot ();
+    assertEquals (aGraph.getID (), aCompact.getID ());
+    assertTrue (aCompact.isDirected ());
+    assertTrue (aCompact.isSelfContained ());
+    assertEquals (0, aCompact.getModificationStamp ());
+    assertEquals (aGraph.getNodeCount (), aCompact.getNodeCount ());
+    assertEquals (aGraph.getAllRelationIDs ().size (), aCompact.getRelationCount ());
+    assertEquals (aGraph.getAllNodeIDs (), aCompact.getAllNodeIDs ());
+    assertEquals (aGraph.getAllRelationIDs (), aCompact.getAllRelationIDs ());
+    assertEquals (aGraph.getSingleStartNode ().getID (), aCompact.getSingleStartNode ().getID ());
+    assertEquals (aGraph.getSingleEndNode ().getID (), aCompact.getSingleEndNode ().getID ());
+    assertFalse (aCompact.containsCycles ());
+    assertEquals (aGraph.createIncidenceMatrix (), aCompact.createIncidenceMatrix ());
+    assertEquals (_getIteratedIDs (aGraph.getSingleStartNode ()), _getIteratedIDs (aCompact.getSingleStartNode ()));
+
+    // Attributes are copied
+    for (final IDirectedGraphNode aNode : aGraph.getAllNodes ().values ())
+    {
+      final IDirectedGraphNode aCompactNode = aCompact.getNodeOfID (aNode.getID ());
+      assertNotNull (aCompactNode);
+      assertEquals (_getNodeValue (aNode), _getNodeValue (aCompactNode));
+      assertEquals (aNode.getIncomingRelationCount (), aCompactNode.getIncomingRelationCount ());
+      assertEquals (aNode.getOutgoingRelationCount (), aCompactNode.getOutgoingRelationCount ());
+      assertEquals (aNode.getAllRelationIDs (), aCompactNode.getAllRelationIDs ());
+      assertEquals (aCompactNode.getAllIncomingRelations (), aCompactNode.getIncomingRelationsView ());
+      assertEquals (aCompactNode.getAllOutgoingRelations (), aCompactNode.getOutgoingRelationsView ());
+    }
+    assertEquals (aCompact.getNodeCount (), aCompact.getNodesView ().size ());
+
+    // Index based access
+    assertNull (aCompact.getNodeOfID ("any"));
+    assertEquals (CGlobal.ILLEGAL_UINT, aCompact.getNodeIndex ("any"));
+    for (int i = 0; i < aCompact.getNodeCount (); ++i)
+    {
+      final CompactDirectedGraphNode aNode = aCompact.getNodeOfIndex (i);
+      assertEquals (i, aNode.getIndex ());
+      assertEquals (i, aCompact.getNodeIndex (aNode.getID ()));
+      for (int nOfs = aCompact.getOutgoingStartOffset (i); nOfs < aCompact.getOutgoingEndOffset (i); ++nOfs)
+      {
+        final int nRel = aCompact.getOutgoingRelationIndex (nOfs);
+        assertEquals (i, aCompact.getRelationFromIndex (nRel));
+        assertEquals (aCompact.getOutgoingNodeIndex (nOfs), aCompact.getRelationToIndex (nRel));
+        assertSame (aNode, aCompact.getRelationOfIndex (nRel).getFrom ());
+      }
+      for (int nOfs = aCompact.getIncomingStartOffset (i); nOfs < aCompact.getIncomingEndOffset (i); ++nOfs)
+      {
+        final int nRel = aCompact.getIncomingRelationIndex (nOfs);
+        assertEquals (i, aCompact.getRelationToIndex (nRel));
+        assertEquals (aCompact.getIncomingNodeIndex (nOfs), aCompact.getRelationFromIndex (nRel));
+        assertSame (aNode, aCompact.getRelationOfIndex (nRel).getTo ());
+      }
+    }
+
+    // The snapshot is not affected by modifications of the source graph
+    aGraph.createRelation ("4", "0");
+    assertTrue (aGraph.containsCycles ());
+    assertFalse (aCompact.containsCycles ());
+    assertEquals (aGraph.getAllRelationIDs ().size () - 1, aCompact.getRelationCount ());
+    assertTrue (aGraph.toCompactSnapshot ().containsCycles ());
+  }
+
+  @Test
+  public void testCreateFromIndices ()
+  {
+    final Map <String, Object> aAttrs = new HashMap <String, Object> ();
+    aAttrs.put ("weight", Integer.valueOf (5));
+    // a->b, a->c and c->b
+    final CompactDirectedGraph aCompact = new CompactDirectedGraph ("g",
+                                                                    null,
+                                                                    Arrays.asList ("a", "b", "c"),
+                                                                    Arrays.asList (null, aAttrs, null),
+                                                                    new int [] { 0, 2, 2, 3 },
+                                                                    new int [] { 1, 2, 1 },
+                                                                    Arrays.asList ("ab", "ac", "cb"),
+                                                                    Arrays.asList (aAttrs, null, null));
+    assertEquals ("g", aCompact.getID ());
+    assertTrue (aCompact.containsNoAttribute ());
+    assertEquals (3, aCompact.getNodeCount ());
+    assertEquals (3, aCompact.getRelationCount ());
+    assertEquals (5, aCompact.getNodeOfID ("b").getAttributeAsInt ("weight"));
+    assertTrue (aCompact.getNodeOfID ("c").containsNoAttribute ());
+    assertEquals (5, aCompact.getRelationOfIndex (0).getAttributeAsInt ("weight"));
+    assertEquals ("a", aCompact.getSingleStartNode ().getID ());
+    assertEquals ("b", aCompact.getSingleEndNode ().getID ());
+    assertEquals (2, aCompact.getNodeOfID ("b").getIncomingRelationCount ());
+    assertEquals ("c", aCompact.getRelationOfIndex (2).getFromID ());
+    assertFalse (aCompact.containsCycles ());
+
+    try
+    {
+      // Offsets don't match the relation count
+      new CompactDirectedGraph ("g",
+                                null,
+                                Arrays.asList ("a", "b"),
+                                Arrays.asList (null, aAttrs),
+                                new int [] { 0, 1, 1 },
+                                new int [] { 1, 0 },
+                                Arrays.asList ("ab", "ba"),
+                                Arrays.asList (aAttrs, aAttrs));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testCycles ()
+  {
+    IReadonlyDirectedGraph aGraph = _buildSimpleDirectedGraphCycle ();
+    assertEquals (aGraph.containsCycles (), new CompactDirectedGraph (aGraph).containsCycles ());
+    aGraph = _buildSimpleDirectedGraphCycle2 ();
+    assertEquals (aGraph.containsCycles (), new CompactDirectedGraph (aGraph).containsCycles ());
+  }
+
+  @Test
+  public void testReadOnly ()
+  {
+    final CompactDirectedGraph aCompact = _buildDirectedGraph ().toCompactSnapshot ();
+    try
+    {
+      aCompact.setAttribute ("any", "value");
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+
+    final CompactDirectedGraphNode aNode = aCompact.getNodeOfIndex (0);
+    try
+    {
+      aNode.setAttribute ("any", "value");
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+    try
+    {
+      aNode.addOutgoingRelation (aCompact.getRelationOfIndex (0));
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+    try
+    {
+      aNode.removeAllRelations ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+  }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraph;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+
+/**
+ * Test class for class {@link CompactGraphFile}.
+ * 
+ * @author Philip Helger
+ */
+public final class CompactGraphFileTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testDirectedRoundTrip () throws IOException
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    aGraph.setAttribute ("name", "test graph");
+    aGraph.getNodeOfID ("3").setAttribute ("flag", true);
+    aGraph.getNodeOfID ("4").setAttribute ("big", Long.MAX_VALUE);
+    aGraph.forEachRelation (new INonThrowingRunnableWithParameter <IDirectedGraphRelation> ()
+    {
+      public void run (final IDirectedGraphRelation aRelation)
+      {
+        aRelation.setAttribute ("weight", aRelation.getFromID ().length () + 0.5);
+      }
+    });
+
+    final File aFile = File.createTempFile ("phloc-math", ".graph");
+    try
+    {
+      CompactGraphFile.writeDirectedGraph (aGraph, aFile);
+      final CompactDirectedGraph aMapped = CompactGraphFile.mapDirectedGraph (aFile);
+      final CompactDirectedGraph aCompact = aGraph.toCompactSnapshot ();
+      assertEquals (aCompact, aMapped);
+      assertEquals (aGraph.getID (), aMapped.getID ());
+      assertEquals ("test graph", aMapped.getAttributeAsString ("name"));
+      assertEquals (aGraph.getAllNodeIDs (), aMapped.getAllNodeIDs ());
+      assertEquals (aGraph.getAllRelationIDs (), aMapped.getAllRelationIDs ());
+      assertEquals (aCompact.getNodeCount (), aMapped.getNodesView ().size ());
+      assertFalse (aMapped.containsCycles ());
+      assertEquals (aGraph.createIncidenceMatrix (), aMapped.createIncidenceMatrix ());
+
+      for (final IDirectedGraphNode aNode : aGraph.getAllNodes ().values ())
+      {
+        final IDirectedGraphNode aMappedNode = aMapped.getNodeOfID (aNode.getID ());
+        assertNotNull (aMappedNode);
+        assertEquals (aNode.getAllAttributes (), aMappedNode.getAllAttributes ());
+        assertEquals (aNode.getIncomingRelationCount (), aMappedNode.getIncomingRelationCount ());
+        assertEquals (aNode.getOutgoingRelationCount (), aMappedNode.getOutgoingRelationCount ());
+        assertEquals (aNode.getAllRelationIDs (), aMappedNode.getAllRelationIDs ());
+      }
+      for (final IDirectedGraphRelation aRelation : aGraph.getAllRelations ().values ())
+      {
+        final IDirectedGraphRelation aMappedRelation = aMapped.getAllRelations ().get (aRelation.getID ());
+        assertNotNull (aMappedRelation);
+        assertEquals (aRelation.getFromID (), aMappedRelation.getFromID ());
+        assertEquals (aRelation.getToID (), aMappedRelation.getToID ());
+        assertEquals (aRelation.getAllAttributes (), aMappedRelation.getAllAttributes ());
+      }
+      assertTrue (aMapped.getNodeOfID ("3").getAttributeAsBoolean ("flag"));
+      assertEquals (Long.valueOf (Long.MAX_VALUE), aMapped.getNodeOfID ("4").getAttributeObject ("big"));
+      assertNull (aMapped.getNodeOfID ("4").getAttributeObject ("flag"));
+      assertNull (aMapped.getNodeOfID ("any"));
+      assertNull (aMapped.getNodeOfID (null));
+      assertEquals (CGlobal.ILLEGAL_UINT, aMapped.getNodeIndex ("any"));
+
+      // A mapped graph can be written again
+      final File aFile2 = File.createTempFile ("phloc-math", ".graph");
+      try
+      {
+        CompactGraphFile.writeDirectedGraph (aMapped, aFile2);
+        assertEquals (aCompact, CompactGraphFile.mapDirectedGraph (aFile2));
+        assertEquals (aFile.length (), aFile2.length ());
+      }
+      finally
+      {
+        aFile2.delete ();
+      }
+
+      try
+      {
+        CompactGraphFile.readGraph (aFile);
+        fail ();
+      }
+      catch (final IOException ex)
+      {}
+    }
+    finally
+    {
+      aFile.delete ();
+    }
+  }
+
+  @Test
+  public void testUndirectedRoundTrip () throws IOException
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    aGraph.getNodeOfID ("2").setAttribute ("name", "\u00e4\u00f6\u00fc");
+
+    final File aFile = File.createTempFile ("phloc-math", ".graph");
+    try
+    {
+      CompactGraphFile.writeGraph (aGraph, aFile);
+      final IGraph aRead = CompactGraphFile.readGraph (aFile);
+      assertEquals (aGraph.getID (), aRead.getID ());
+      assertEquals (aGraph.getAllNodeIDs (), aRead.getAllNodeIDs ());
+      assertEquals (aGraph.getAllRelationIDs (), aRead.getAllRelationIDs ());
+      for (final IGraphNode aNode : aGraph.getAllNodes ().values ())
+      {
+        final IGraphNode aReadNode = aRead.getNodeOfID (aNode.getID ());
+        assertEquals (aNode.getAllAttributes (), aReadNode.getAllAttributes ());
+        assertEquals (aNode.getAllRelationIDs (), aReadNode.getAllRelationIDs ());
+      }
+      for (final IGraphRelation aRelation : aGraph.getAllRelations ().values ())
+        assertEquals (aRelation.getAllConnectedNodeIDs (),
+                      aRead.getAllRelations ().get (aRelation.getID ()).getAllConnectedNodeIDs ());
+      assertEquals ("\u00e4\u00f6\u00fc", aRead.getNodeOfID ("2").getAttributeAsString ("name"));
+
+      try
+      {
+        CompactGraphFile.mapDirectedGraph (aFile);
+        fail ();
+      }
+      catch (final IOException ex)
+      {}
+    }
+    finally
+    {
+      aFile.delete ();
+    }
+  }
+
+  @Test
+  public void testInvalid () throws IOException
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    aGraph.getNodeOfID ("0").setAttribute ("date", new Date ());
+    final File aFile = File.createTempFile ("phloc-math", ".graph");
+    try
+    {
+      try
+      {
+        // Unsupported attribute type
+        CompactGraphFile.writeDirectedGraph (aGraph, aFile);
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {}
+
+      aGraph.getNodeOfID ("0").setAttribute ("date", "today");
+      aGraph.getNodeOfID ("1").setAttribute ("date", 17);
+      try
+      {
+        // Mixed attribute types
+        CompactGraphFile.writeDirectedGraph (aGraph, aFile);
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {}
+
+      try
+      {
+        // Empty file
+        CompactGraphFile.mapDirectedGraph (aFile);
+        fail ();
+      }
+      catch (final IOException ex)
+      {}
+    }
+    finally
+    {
+      aFile.delete ();
+    }
+  }
+}
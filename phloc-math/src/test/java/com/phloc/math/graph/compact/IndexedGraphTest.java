@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.matrix.SparseMatrix;
+
+/**
+ * Test class for class {@link IndexedGraph}.
+ * 
+ * @author Philip Helger
+ */
+public final class IndexedGraphTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    assertSame (aGraph, aIndex.getGraph ());
+    assertTrue (aIndex.isDirected ());
+    assertEquals (aGraph.getNodeCount (), aIndex.getNodeCount ());
+    assertEquals (aGraph.getAllRelationIDs ().size (), aIndex.getRelationCount ());
+    assertEquals (CGlobal.ILLEGAL_UINT, aIndex.getNodeIndex ("any"));
+
+    for (int i = 0; i < aIndex.getNodeCount (); ++i)
+    {
+      final IDirectedGraphNode aNode = aIndex.getNodeOfIndex (i);
+      assertEquals (i, aIndex.getNodeIndex (aNode.getID ()));
+      assertEquals (aNode.getOutgoingRelationCount (), aIndex.getOutgoingEndOffset (i) -
+                                                       aIndex.getOutgoingStartOffset (i));
+      assertEquals (aNode.getIncomingRelationCount (), aIndex.getIncomingEndOffset (i) -
+                                                       aIndex.getIncomingStartOffset (i));
+      for (int nOfs = aIndex.getOutgoingStartOffset (i); nOfs < aIndex.getOutgoingEndOffset (i); ++nOfs)
+      {
+        final IDirectedGraphRelation aRelation = aIndex.getRelationOfIndex (aIndex.getOutgoingRelationIndex (nOfs));
+        assertSame (aNode, aRelation.getFrom ());
+        assertSame (aRelation.getTo (), aIndex.getNodeOfIndex (aIndex.getOutgoingNodeIndex (nOfs)));
+      }
+      for (int nOfs = aIndex.getIncomingStartOffset (i); nOfs < aIndex.getIncomingEndOffset (i); ++nOfs)
+      {
+        final IDirectedGraphRelation aRelation = aIndex.getRelationOfIndex (aIndex.getIncomingRelationIndex (nOfs));
+        assertSame (aNode, aRelation.getTo ());
+        assertSame (aRelation.getFrom (), aIndex.getNodeOfIndex (aIndex.getIncomingNodeIndex (nOfs)));
+      }
+    }
+
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+    {
+      final IDirectedGraphRelation aRelation = aIndex.getRelationOfIndex (i);
+      assertEquals (aRelation.getFromID (), aIndex.getNodeOfIndex (aIndex.getRelationFromIndex (i)).getID ());
+      assertEquals (aRelation.getToID (), aIndex.getNodeOfIndex (aIndex.getRelationToIndex (i)).getID ());
+    }
+  }
+
+  @Test
+  public void testUndirected ()
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    // Add a self-loop
+    aGraph.createRelation ("0", "0");
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aGraph);
+    assertFalse (aIndex.isDirected ());
+    assertEquals (aGraph.getNodeCount (), aIndex.getNodeCount ());
+    assertEquals (aGraph.getAllRelationIDs ().size (), aIndex.getRelationCount ());
+
+    for (int i = 0; i < aIndex.getNodeCount (); ++i)
+    {
+      final IGraphNode aNode = aIndex.getNodeOfIndex (i);
+      assertEquals (aIndex.getOutgoingStartOffset (i), aIndex.getIncomingStartOffset (i));
+      assertEquals (aIndex.getOutgoingEndOffset (i), aIndex.getIncomingEndOffset (i));
+
+      final Set <String> aRelationIDs = new HashSet <String> ();
+      for (int nOfs = aIndex.getOutgoingStartOffset (i); nOfs < aIndex.getOutgoingEndOffset (i); ++nOfs)
+      {
+        final IGraphRelation aRelation = aIndex.getRelationOfIndex (aIndex.getOutgoingRelationIndex (nOfs));
+        assertTrue (aRelation.isRelatedTo (aNode));
+        assertTrue (aRelation.isRelatedTo (aIndex.getNodeOfIndex (aIndex.getOutgoingNodeIndex (nOfs))));
+        aRelationIDs.add (aRelation.getID ());
+      }
+      assertEquals (aNode.getAllRelationIDs (), aRelationIDs);
+    }
+  }
+
+  @Test
+  public void testSparseMatrices ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    assertEquals (aGraph.createIncidenceMatrix (), aIndex.createIncidenceMatrix ().getAsMatrix ());
+
+    final SparseMatrix aAdjacency = aIndex.createAdjacencyMatrix (null);
+    assertEquals (aIndex.getRelationCount (), aAdjacency.getEntryCount ());
+    assertEquals (1, aAdjacency.get (aIndex.getNodeIndex ("0"), aIndex.getNodeIndex ("1")), 0);
+    assertEquals (0, aAdjacency.get (aIndex.getNodeIndex ("1"), aIndex.getNodeIndex ("0")), 0);
+    final double [] aWeights = new double [aIndex.getRelationCount ()];
+    Arrays.fill (aWeights, 2);
+    final SparseMatrix aWeighted = aIndex.createAdjacencyMatrix (new RelationWeights (aWeights));
+    assertEquals (2, aWeighted.get (aIndex.getNodeIndex ("0"), aIndex.getNodeIndex ("1")), 0);
+
+    final SimpleGraph aUndirected = _buildGraph ();
+    final IndexedGraph <IGraphNode, IGraphRelation> aUndirectedIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aUndirected);
+    assertEquals (aUndirected.createIncidenceMatrix (), aUndirectedIndex.createIncidenceMatrix ().getAsMatrix ());
+    final SparseMatrix aSymmetric = aUndirectedIndex.createAdjacencyMatrix (null);
+    assertEquals (aSymmetric, aSymmetric.transpose ());
+  }
+
+  @Test
+  public void testOutdated ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    assertEquals (aGraph.getModificationStamp (), aIndex.getModificationStamp ());
+    assertFalse (aIndex.isOutdated ());
+
+    aGraph.getNodeOfID ("0").setAttribute ("any", "value");
+    assertTrue (aIndex.isOutdated ());
+    assertFalse (new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph).isOutdated ());
+
+    // Immutable graphs are never outdated
+    final CompactDirectedGraph aCompact = aGraph.toCompactSnapshot ();
+    assertFalse (new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aCompact).isOutdated ());
+  }
+}
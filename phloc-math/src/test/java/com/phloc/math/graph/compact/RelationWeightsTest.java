@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.compact;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.phloc.commons.mock.PhlocTestUtils;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+
+/**
+ * Test class for class {@link RelationWeights}.
+ * 
+ * @author Philip Helger
+ */
+public final class RelationWeightsTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testBasic ()
+  {
+    final double [] aSrc = new double [] { 3, 1.5, 3, -2 };
+    final RelationWeights aWeights = new RelationWeights (aSrc);
+    aSrc[0] = 7;
+    assertEquals (4, aWeights.getRelationCount ());
+    assertEquals (3, aWeights.getWeight (0), 0);
+    assertEquals (-2, aWeights.getWeight (3), 0);
+    assertFalse (aWeights.isNonNegative ());
+    assertTrue (new RelationWeights (new double [] { 0, 1 }).isNonNegative ());
+    assertArrayEquals (new int [] { 3, 1, 0, 2 }, aWeights.getSortedRelationIndices ());
+    assertEquals (0, new RelationWeights (new double [0]).getSortedRelationIndices ().length);
+    PhlocTestUtils.testDefaultImplementationWithEqualContentObject (aWeights,
+                                                                    new RelationWeights (new double [] { 3, 1.5, 3, -2 }));
+    PhlocTestUtils.testDefaultImplementationWithDifferentContentObject (aWeights, new RelationWeights (aSrc));
+
+    try
+    {
+      new RelationWeights (new double [] { Double.NaN });
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testSortRandom ()
+  {
+    final Random aRandom = new Random (4711);
+    final double [] aSrc = new double [1001];
+    for (int i = 0; i < aSrc.length; ++i)
+      aSrc[i] = aRandom.nextInt (50);
+    final int [] aSorted = new RelationWeights (aSrc).getSortedRelationIndices ();
+    assertEquals (aSrc.length, aSorted.length);
+    for (int i = 1; i < aSorted.length; ++i)
+    {
+      final double dPrev = aSrc[aSorted[i - 1]];
+      final double dCur = aSrc[aSorted[i]];
+      assertTrue (dPrev < dCur || (dPrev == dCur && aSorted[i - 1] < aSorted[i]));
+    }
+    final double [] aCopy = aSrc.clone ();
+    Arrays.sort (aCopy);
+    for (int i = 0; i < aSorted.length; ++i)
+      assertEquals (aCopy[i], aSrc[aSorted[i]], 0);
+  }
+
+  @Test
+  public void testCreateFromAttribute ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    for (final IDirectedGraphRelation aRelation : aGraph.getAllRelations ().values ())
+      aRelation.setAttribute ("weight", _getNodeValue (aRelation.getTo ()) / 2.0);
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aGraph);
+    final RelationWeights aWeights = RelationWeights.createFromAttribute (aIndex, "weight");
+    assertEquals (aIndex.getRelationCount (), aWeights.getRelationCount ());
+    assertTrue (aWeights.isNonNegative ());
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+      assertEquals (_getNodeValue (aIndex.getRelationOfIndex (i).getTo ()) / 2.0, aWeights.getWeight (i), 0);
+
+    try
+    {
+      RelationWeights.createFromAttribute (aIndex, "any");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
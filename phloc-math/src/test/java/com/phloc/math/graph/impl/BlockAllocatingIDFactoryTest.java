@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.phloc.commons.idfactory.IIDFactory;
+
+/**
+ * Test class for class {@link BlockAllocatingIDFactory}.
+ * 
+ * @author Philip Helger
+ */
+public final class BlockAllocatingIDFactoryTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final BlockAllocatingIDFactory aFactory = new BlockAllocatingIDFactory ("x", 2);
+    assertEquals ("x", aFactory.getPrefix ());
+    assertEquals (2, aFactory.getBlockSize ());
+    assertEquals (0, aFactory.getReservedIDCount ());
+    assertEquals ("x0", aFactory.getNewID ());
+    assertEquals ("x1", aFactory.getNewID ());
+    assertEquals (2, aFactory.getReservedIDCount ());
+    assertEquals ("x2", aFactory.getNewID ());
+    assertEquals (4, aFactory.getReservedIDCount ());
+    assertNotNull (aFactory.toString ());
+
+    try
+    {
+      new BlockAllocatingIDFactory ("", 2);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      new BlockAllocatingIDFactory ("x", 0);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testConcurrent () throws Exception
+  {
+    final int nThreads = 8;
+    final int nIDsPerThread = 10000;
+    final BlockAllocatingIDFactory aFactory = new BlockAllocatingIDFactory ();
+    final Set <String> aIDs = Collections.synchronizedSet (new HashSet <String> ());
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    try
+    {
+      final List <Future <?>> aFutures = new ArrayList <Future <?>> ();
+      for (int i = 0; i < nThreads; ++i)
+        aFutures.add (aES.submit (new Runnable ()
+        {
+          public void run ()
+          {
+            for (int j = 0; j < nIDsPerThread; ++j)
+              aIDs.add (aFactory.getNewID ());
+          }
+        }));
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+    assertEquals (nThreads * nIDsPerThread, aIDs.size ());
+  }
+
+  @Test
+  public void testWithGraphObjectIDFactory ()
+  {
+    final IIDFactory <String> aOld = GraphObjectIDFactory.getIDFactory ();
+    try
+    {
+      GraphObjectIDFactory.setIDFactory (new BlockAllocatingIDFactory ());
+      final String sID = new GraphNode ().getID ();
+      assertTrue (sID.startsWith (BlockAllocatingIDFactory.DEFAULT_PREFIX));
+    }
+    finally
+    {
+      GraphObjectIDFactory.setIDFactory (aOld);
+    }
+  }
+}
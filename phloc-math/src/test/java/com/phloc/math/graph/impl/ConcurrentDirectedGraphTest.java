@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.math.graph.IDirectedGraph;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.MockGraphChangeListener;
+import com.phloc.math.graph.algo.Dijkstra;
+import com.phloc.math.graph.compact.CompactDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFactory;
+
+/**
+ * Test class for class {@link ConcurrentDirectedGraph}.
+ * 
+ * @author Philip Helger
+ */
+public final class ConcurrentDirectedGraphTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ConcurrentDirectedGraph aGraph = new ConcurrentDirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    assertEquals ("g", aGraph.getID ());
+    assertTrue (aGraph.isDirected ());
+    assertEquals (0, aGraph.getNodeCount ());
+
+    final IDirectedGraphNode a = aGraph.createNode ("a");
+    final IDirectedGraphNode b = aGraph.createNode ("b");
+    assertNull (aGraph.createNode ("a"));
+    final IDirectedGraphRelation ab = aGraph.createRelation ("ab", a, b);
+    assertNotNull (ab);
+    assertTrue (aGraph.setAttribute ("name", "graph").isChanged ());
+    assertEquals ("graph", aGraph.getAttributeAsString ("name"));
+
+    final CompactDirectedGraph aSnapshot = aGraph.getSnapshot ();
+    assertSame (aSnapshot, aGraph.getSnapshot ());
+    assertEquals (2, aGraph.getNodeCount ());
+    assertEquals (1, aGraph.getRelationCount ());
+    assertEquals ("a", aGraph.getSingleStartNode ().getID ());
+    assertEquals ("b", aGraph.getSingleEndNode ().getID ());
+    assertFalse (aGraph.containsCycles ());
+
+    // Snapshot nodes can be used for modifications
+    final IDirectedGraphNode c = aGraph.createNode ("c");
+    aGraph.createRelation ("bc", aGraph.getNodeOfID ("b"), c);
+    aGraph.createRelation ("ca", c, aGraph.getNodeOfID ("a"));
+    assertTrue (aGraph.containsCycles ());
+    assertEquals (3, aGraph.getRelationCount ());
+
+    // The old snapshot is unchanged
+    assertEquals (2, aSnapshot.getNodeCount ());
+    assertEquals (1, aSnapshot.getRelationCount ());
+    assertFalse (aSnapshot.containsCycles ());
+
+    // Attributes of nodes can only be modified inside modify
+    aGraph.modify (new INonThrowingRunnableWithParameter <IDirectedGraph> ()
+    {
+      public void run (final IDirectedGraph aInternalGraph)
+      {
+        aInternalGraph.getNodeOfID ("a").setAttribute ("value", 5);
+      }
+    });
+    assertEquals (5, aGraph.getNodeOfID ("a").getAttributeAsInt ("value"));
+
+    final IDirectedGraphRelation ca = aGraph.getAllRelations ().get ("ca");
+    assertTrue (aGraph.removeRelation (ca).isChanged ());
+    assertFalse (aGraph.removeRelation (ca).isChanged ());
+    assertFalse (aGraph.containsCycles ());
+    assertTrue (aGraph.removeNodeAndAllRelations (aGraph.getNodeOfID ("c")).isChanged ());
+    assertEquals (2, aGraph.getNodeCount ());
+    assertEquals (1, aGraph.getRelationCount ());
+
+    try
+    {
+      // Node is not part of the graph
+      aGraph.createRelation (aGraph.getNodeOfID ("a"), new DirectedGraphNode ("x"));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      // Snapshot nodes cannot be added
+      aGraph.addNode (aSnapshot.getNodeOfID ("a"));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    assertTrue (aGraph.clear ().isChanged ());
+    assertEquals (0, aGraph.getNodeCount ());
+    assertNotNull (aGraph.toString ());
+  }
+
+  @Test
+  public void testIncrementalSnapshot ()
+  {
+    final ConcurrentDirectedGraph aGraph = new ConcurrentDirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    final IDirectedGraphNode a = aGraph.createNode ("a");
+    final IDirectedGraphNode b = aGraph.createNode ("b");
+    final IDirectedGraphNode c = aGraph.createNode ("c");
+    aGraph.createRelation ("ab", a, b);
+    final CompactDirectedGraph aSnapshot = aGraph.getSnapshot ();
+    final IDirectedGraphNode aSnapshotC = aSnapshot.getNodeOfID ("c");
+
+    // Counts and unchanged nodes don't need a new snapshot
+    aGraph.createRelation ("bc", b, c);
+    aGraph.createNode ("d");
+    assertEquals (4, aGraph.getNodeCount ());
+    assertEquals (2, aGraph.getRelationCount ());
+    assertSame (aSnapshot.getNodeOfID ("a"), aGraph.getNodeOfID ("a"));
+    assertNull (aGraph.getNodeOfID ("x"));
+
+    // Changed and new nodes are taken from a new snapshot
+    assertEquals (1, aGraph.getNodeOfID ("c").getIncomingRelationCount ());
+    assertEquals (0, aSnapshotC.getIncomingRelationCount ());
+    assertNotNull (aGraph.getNodeOfID ("d"));
+    final CompactDirectedGraph aSnapshot2 = aGraph.getSnapshot ();
+    assertNotSame (aSnapshot, aSnapshot2);
+    assertEquals (Arrays.asList ("a", "b", "c", "d"), new ArrayList <String> (aSnapshot2.getAllNodeIDs ()));
+    assertEquals (2, aSnapshot2.getRelationCount ());
+
+    // Attribute changes within modify are tracked as well
+    aGraph.modify (new INonThrowingRunnableWithParameter <IDirectedGraph> ()
+    {
+      public void run (final IDirectedGraph aInternalGraph)
+      {
+        aInternalGraph.getNodeOfID ("c").getIncomingRelationsView ().iterator ().next ().setAttribute ("weight", 3);
+      }
+    });
+    assertSame (aSnapshot2.getNodeOfID ("a"), aGraph.getNodeOfID ("a"));
+    assertEquals (3, aGraph.getNodeOfID ("b").getOutgoingRelationTo (aGraph.getNodeOfID ("c")).getAttributeAsInt ("weight"));
+
+    // A modification without changes keeps the snapshot
+    final CompactDirectedGraph aSnapshot3 = aGraph.getSnapshot ();
+    aGraph.modify (new INonThrowingRunnableWithParameter <IDirectedGraph> ()
+    {
+      public void run (final IDirectedGraph aInternalGraph)
+      {}
+    });
+    assertSame (aSnapshot3, aGraph.getSnapshot ());
+
+    // Removing nodes
+    assertTrue (aGraph.removeNodeAndAllRelations (aGraph.getNodeOfID ("b")).isChanged ());
+    assertEquals (3, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertNull (aGraph.getNodeOfID ("b"));
+    assertEquals (Arrays.asList ("a", "c", "d"), new ArrayList <String> (aGraph.getAllNodeIDs ()));
+
+    // Re-added nodes are appended, like in the internal graph
+    aGraph.createRelation ("ca", aGraph.getNodeOfID ("c"), aGraph.getNodeOfID ("a"));
+    aGraph.createNode ("b");
+    assertEquals (Arrays.asList ("a", "c", "d", "b"), new ArrayList <String> (aGraph.getAllNodeIDs ()));
+    assertEquals (aGraph.getSnapshot ().getRelationCount (), aGraph.getRelationCount ());
+
+    // Removing a node with relations leaves dangling relations that are not
+    // part of the snapshot
+    aGraph.setChangingConnectedObjectsAllowed (true);
+    assertTrue (aGraph.removeNode (aGraph.getNodeOfID ("a")).isChanged ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertEquals (0, aGraph.getSnapshot ().getRelationCount ());
+    assertEquals (0, aGraph.getNodeOfID ("c").getOutgoingRelationCount ());
+
+    assertTrue (aGraph.clear ().isChanged ());
+    assertEquals (0, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertNull (aGraph.getNodeOfID ("c"));
+    assertEquals (0, aGraph.getSnapshot ().getNodeCount ());
+  }
+
+  @Test
+  public void testIncrementalCycleDetection ()
+  {
+    final ConcurrentDirectedGraph aGraph = new ConcurrentDirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    assertFalse (aGraph.isIncrementalCycleDetection ());
+    aGraph.setIncrementalCycleDetection (true);
+    assertTrue (aGraph.isIncrementalCycleDetection ());
+
+    final IDirectedGraphNode a = aGraph.createNode ("a");
+    final IDirectedGraphNode b = aGraph.createNode ("b");
+    aGraph.createRelation ("ab", a, b);
+    assertFalse (aGraph.containsCycles ());
+    final IDirectedGraphRelation ba = aGraph.createRelation ("ba", b, a);
+    assertTrue (aGraph.containsCycles ());
+    assertTrue (aGraph.getSnapshot ().containsCycles ());
+    aGraph.removeRelation (ba);
+    assertFalse (aGraph.containsCycles ());
+
+    aGraph.setIncrementalCycleDetection (false);
+    assertFalse (aGraph.isIncrementalCycleDetection ());
+    aGraph.createRelation ("ba", b, a);
+    assertTrue (aGraph.containsCycles ());
+  }
+
+  @Test
+  public void testConcurrentReadWrite () throws Exception
+  {
+    final int nWriters = 4;
+    final int nNodesPerWriter = 500;
+    final ConcurrentDirectedGraph aGraph = new ConcurrentDirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    final IDirectedGraphNode aRoot = aGraph.createNode ("root");
+    final ExecutorService aES = Executors.newFixedThreadPool (nWriters + 2);
+    try
+    {
+      final List <Future <?>> aFutures = new ArrayList <Future <?>> ();
+      for (int i = 0; i < nWriters; ++i)
+      {
+        final int nWriter = i;
+        aFutures.add (aES.submit (new Runnable ()
+        {
+          public void run ()
+          {
+            // Build a chain per writer, starting at the root
+            for (int j = 0; j < nNodesPerWriter; ++j)
+            {
+              final String sPrevID = j == 0 ? aRoot.getID () : nWriter + "-" + (j - 1);
+              final String sNodeID = nWriter + "-" + j;
+              aGraph.modify (new INonThrowingRunnableWithParameter <IDirectedGraph> ()
+              {
+                public void run (final IDirectedGraph aInternalGraph)
+                {
+                  final IDirectedGraphNode aNode = aInternalGraph.createNode (sNodeID);
+                  aInternalGraph.createRelation (aInternalGraph.getNodeOfID (sPrevID), aNode)
+                                .setAttribute ("weight", 1);
+                }
+              });
+            }
+          }
+        }));
+      }
+      for (int i = 0; i < 2; ++i)
+        aFutures.add (aES.submit (new Runnable ()
+        {
+          public void run ()
+          {
+            for (int j = 0; j < 50; ++j)
+            {
+              // Each snapshot is a consistent tree rooted at "root"
+              final CompactDirectedGraph aSnapshot = aGraph.getSnapshot ();
+              assertEquals (aSnapshot.getNodeCount () - 1, aSnapshot.getRelationCount ());
+              assertEquals ("root", aSnapshot.getSingleStartNode ().getID ());
+              assertFalse (aSnapshot.containsCycles ());
+            }
+          }
+        }));
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+
+    assertEquals (1 + nWriters * nNodesPerWriter, aGraph.getNodeCount ());
+    final Dijkstra.Result <IDirectedGraphNode> aResult = Dijkstra.applyDijkstra (aGraph.getSnapshot (),
+                                                                                 "root",
+                                                                                 (nWriters - 1) +
+                                                                                     "-" +
+                                                                                     (nNodesPerWriter - 1),
+                                                                                 "weight");
+    assertEquals (nNodesPerWriter, aResult.getResultDistance ());
+  }
+
+  @Test
+  public void testModificationStamp ()
+  {
+    final ConcurrentDirectedGraph aGraph = new ConcurrentDirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    final MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> aListener = new MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> ();
+    assertTrue (aGraph.addChangeListener (aListener).isChanged ());
+    assertEquals (0, aGraph.getModificationStamp ());
+
+    aGraph.createNode ("a");
+    aGraph.createNode ("b");
+    final long nStamp = aGraph.getModificationStamp ();
+    assertTrue (nStamp > 0);
+
+    // Attribute changes within modify
+    aGraph.modify (new INonThrowingRunnableWithParameter <IDirectedGraph> ()
+    {
+      public void run (final IDirectedGraph aInternalGraph)
+      {
+        aInternalGraph.getNodeOfID ("a").setAttribute ("x", "y");
+      }
+    });
+    assertTrue (aGraph.getModificationStamp () > nStamp);
+    assertEquals (Arrays.asList ("+N:a", "+N:b", "A:a:x"), aListener.getAndClearEvents ());
+
+    assertTrue (aGraph.removeChangeListener (aListener).isChanged ());
+    aGraph.createNode ("c");
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+  }
+}
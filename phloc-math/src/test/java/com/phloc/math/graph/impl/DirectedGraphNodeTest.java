@@ -20,6 +20,8 @@ package com.phloc.math.graph.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -339,4 +341,48 @@ public final class DirectedGraphNodeTest
     catch (final IllegalArgumentException ex)
     {}
   }
+
+  @Test
+  public void testManyRelations ()
+  {
+    final DirectedGraphNode aHub = new DirectedGraphNode ("hub");
+    final DirectedGraphNode [] aNodes = new DirectedGraphNode [10000];
+    final IDirectedGraphRelation [] aRelations = new IDirectedGraphRelation [aNodes.length];
+    for (int i = 0; i < aNodes.length; ++i)
+    {
+      aNodes[i] = new DirectedGraphNode ("n" + i);
+      aRelations[i] = new DirectedGraphRelation (aHub, aNodes[i]);
+      aHub.addOutgoingRelation (aRelations[i]);
+      aHub.addIncomingRelation (new DirectedGraphRelation (aNodes[i], aHub));
+    }
+    assertEquals (aNodes.length, aHub.getOutgoingRelationCount ());
+    assertEquals (aNodes.length, aHub.getIncomingRelationCount ());
+    for (int i = 0; i < aNodes.length; ++i)
+    {
+      assertSame (aRelations[i], aHub.getOutgoingRelationTo (aNodes[i]));
+      assertTrue (aHub.isToNode (aNodes[i]));
+      assertTrue (aHub.isFromNode (aNodes[i]));
+    }
+    assertFalse (aHub.isToNode (new DirectedGraphNode ("other")));
+
+    // Duplicate to-node
+    try
+    {
+      aHub.addOutgoingRelation (new DirectedGraphRelation (aHub, aNodes[0]));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    // Remove and re-add
+    assertTrue (aHub.removeOutgoingRelation (aRelations[0]).isChanged ());
+    assertNull (aHub.getOutgoingRelationTo (aNodes[0]));
+    assertTrue (aHub.isFromNode (aNodes[0]));
+    aHub.addOutgoingRelation (aRelations[0]);
+    assertSame (aRelations[0], aHub.getOutgoingRelationTo (aNodes[0]));
+
+    assertTrue (aHub.removeAllIncomingRelations ().isChanged ());
+    assertFalse (aHub.isFromNode (aNodes[0]));
+    assertTrue (aHub.isToNode (aNodes[0]));
+  }
 }
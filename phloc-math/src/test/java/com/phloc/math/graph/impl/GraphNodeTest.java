@@ -20,6 +20,8 @@ package com.phloc.math.graph.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -124,4 +126,54 @@ public final class GraphNodeTest
     // relation already contained
     assertFalse (nf.addRelation (r).isChanged ());
   }
+
+  @Test
+  public void testParallelRelations ()
+  {
+    final GraphNode n1 = new GraphNode ("n1");
+    final GraphNode n2 = new GraphNode ("n2");
+    final GraphNode n3 = new GraphNode ("n3");
+    final IGraphRelation r1 = new GraphRelation (n1, n2);
+    final IGraphRelation r2 = new GraphRelation (n2, n1);
+    final IGraphRelation r3 = new GraphRelation (n1, n2);
+    final IGraphRelation r4 = new GraphRelation (n3, n1);
+    n1.addRelation (r1);
+    n1.addRelation (r2);
+    n1.addRelation (r3);
+    n1.addRelation (r4);
+    assertEquals (4, n1.getRelationCount ());
+
+    // The first added relation is returned
+    assertSame (r1, n1.getRelation (n2));
+    assertSame (r4, n1.getRelation (n3));
+    assertTrue (n1.removeRelation (r2).isChanged ());
+    assertSame (r1, n1.getRelation (n2));
+    assertTrue (n1.removeRelation (r1).isChanged ());
+    assertSame (r3, n1.getRelation (n2));
+    assertTrue (n1.removeRelation (r1).isUnchanged ());
+    assertTrue (n1.removeRelation (r3).isChanged ());
+    assertNull (n1.getRelation (n2));
+    assertFalse (n1.isConnectedWith (n2));
+    assertTrue (n1.isConnectedWith (n3));
+
+    // Re-adding works
+    n1.addRelation (r2);
+    assertSame (r2, n1.getRelation (n2));
+  }
+
+  @Test
+  public void testManyRelations ()
+  {
+    final GraphNode aHub = new GraphNode ("hub");
+    final GraphNode [] aNodes = new GraphNode [10000];
+    for (int i = 0; i < aNodes.length; ++i)
+    {
+      aNodes[i] = new GraphNode ("n" + i);
+      aHub.addRelation (new GraphRelation (aHub, aNodes[i]));
+    }
+    assertEquals (aNodes.length, aHub.getRelationCount ());
+    for (final GraphNode aNode : aNodes)
+      assertTrue (aHub.isConnectedWith (aNode));
+    assertFalse (aHub.isConnectedWith (new GraphNode ("other")));
+  }
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.iterate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link GraphIteratorBreadthFirst}.
+ * 
+ * @author Philip Helger
+ */
+public final class GraphIteratorBreadthFirstTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testBasic ()
+  {
+    try
+    {
+      // null node not allowed
+      new GraphIteratorBreadthFirst (null);
+      fail ();
+    }
+    catch (final NullPointerException ex)
+    {}
+
+    final IReadonlyGraph aGraph = _buildGraph ();
+    final GraphIteratorBreadthFirst it = new GraphIteratorBreadthFirst (aGraph.getNodeOfID ("0"));
+    try
+    {
+      it.remove ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+
+    final List <String> aIDs = new ArrayList <String> ();
+    for (final IGraphNode aNode : it)
+      aIDs.add (aNode.getID ());
+    // Distance 0: 0; distance 1: 1, 5; distance 2: 2, 3, 6; distance 3: 4
+    assertEquals (7, aIDs.size ());
+    assertEquals ("0", aIDs.get (0));
+    assertEquals (Arrays.asList ("1", "5"), aIDs.subList (1, 3));
+    assertTrue (aIDs.subList (3, 6).containsAll (Arrays.asList ("2", "3", "6")));
+    assertEquals ("4", aIDs.get (6));
+    assertTrue (it.hasCycles ());
+
+    try
+    {
+      it.next ();
+      fail ();
+    }
+    catch (final NoSuchElementException ex)
+    {}
+  }
+
+  @Test
+  public void testCycles ()
+  {
+    GraphIteratorBreadthFirst it = new GraphIteratorBreadthFirst (_buildSimpleGraphCycle2 ().getNodeOfID ("0"));
+    while (it.hasNext ())
+      it.next ();
+    assertTrue (it.hasCycles ());
+
+    // Self loops are no cycles
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    final IGraphNode a = aGraph.createNode ("a");
+    final IGraphNode b = aGraph.createNode ("b");
+    aGraph.createRelation (a, b);
+    aGraph.createRelation (b, b);
+    it = new GraphIteratorBreadthFirst (b);
+    assertEquals ("b", it.next ().getID ());
+    assertEquals ("a", it.next ().getID ());
+    assertFalse (it.hasNext ());
+    assertFalse (it.hasCycles ());
+
+    // But parallel relations are
+    aGraph.createRelation (b, a);
+    it = new GraphIteratorBreadthFirst (a);
+    while (it.hasNext ())
+      it.next ();
+    assertTrue (it.hasCycles ());
+  }
+}
@@ -30,6 +30,8 @@ import org.junit.Test;
 import com.phloc.math.graph.AbstractGraphTestCase;
 import com.phloc.math.graph.IGraphNode;
 import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+import com.phloc.math.graph.simple.SimpleGraphObjectFastFactory;
 
 /**
  * Test class for class {@link GraphIterator}.
@@ -169,4 +171,49 @@ public final class GraphIteratorTest extends AbstractGraphTestCase
     catch (final NoSuchElementException ex)
     {}
   }
+
+  @Test
+  public void testHasCycles ()
+  {
+    GraphIterator it = new GraphIterator (_buildGraph ().getNodeOfID ("0"));
+    while (it.hasNext ())
+      it.next ();
+    assertTrue (it.hasCycles ());
+
+    it = new GraphIterator (_buildSimpleGraphCycle ().getNodeOfID ("0"));
+    while (it.hasNext ())
+      it.next ();
+    assertTrue (it.hasCycles ());
+
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    aGraph.createRelation (aGraph.createNode ("a"), aGraph.createNode ("b"));
+    aGraph.createRelation (aGraph.getNodeOfID ("b"), aGraph.createNode ("c"));
+    it = new GraphIterator (aGraph.getNodeOfID ("b"));
+    while (it.hasNext ())
+      it.next ();
+    assertFalse (it.hasCycles ());
+  }
+
+  @Test
+  public void testLongChain ()
+  {
+    // Would overflow the stack with a recursive implementation
+    final int nCount = 100000;
+    final SimpleGraph aGraph = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    IGraphNode aPrev = aGraph.createNode ("0");
+    for (int i = 1; i < nCount; ++i)
+    {
+      final IGraphNode aNode = aGraph.createNode (Integer.toString (i));
+      aGraph.createRelation (aPrev, aNode);
+      aPrev = aNode;
+    }
+
+    int nIndex = 0;
+    final GraphIterator it = new GraphIterator (aGraph.getNodeOfID ("0"));
+    for (final IGraphNode aNode : it)
+      assertEquals (Integer.toString (nIndex++), aNode.getID ());
+    assertEquals (nCount, nIndex);
+    assertFalse (it.hasCycles ());
+    assertFalse (aGraph.containsCycles ());
+  }
 }
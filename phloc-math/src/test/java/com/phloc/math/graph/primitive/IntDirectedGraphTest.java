@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.state.EChange;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+
+/**
+ * Test class for class {@link IntDirectedGraph}.
+ * 
+ * @author Philip Helger
+ */
+public final class IntDirectedGraphTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testBasic ()
+  {
+    final IntDirectedGraph aGraph = new IntDirectedGraph ();
+    assertTrue (aGraph.isDirected ());
+    assertEquals (0, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertEquals (EChange.CHANGED, aGraph.addNode (5));
+    assertEquals (EChange.UNCHANGED, aGraph.addNode (5));
+    assertTrue (aGraph.containsNode (5));
+    assertFalse (aGraph.containsNode (6));
+    assertEquals (0, aGraph.getOutgoingRelationCount (5));
+    assertEquals (0, aGraph.getAllIncomingRelationIDs (5).length);
+
+    // Nodes are added implicitly
+    final int nRel1 = aGraph.createRelation (5, 6, 2.5);
+    final int nRel2 = aGraph.createRelation (5, 6);
+    final int nRel3 = aGraph.createRelation (6, 6);
+    assertEquals (0, nRel1);
+    assertEquals (1, nRel2);
+    assertEquals (2, nRel3);
+    assertEquals (2, aGraph.getNodeCount ());
+    assertEquals (3, aGraph.getRelationCount ());
+    assertEquals (5, aGraph.getRelationFromNodeID (nRel1));
+    assertEquals (6, aGraph.getRelationToNodeID (nRel1));
+    assertEquals (2.5, aGraph.getRelationWeight (nRel1), 0);
+    assertEquals (AbstractIntGraph.DEFAULT_WEIGHT, aGraph.getRelationWeight (nRel2), 0);
+    aGraph.setRelationWeight (nRel2, 7);
+    assertEquals (7, aGraph.getRelationWeight (nRel2), 0);
+
+    assertEquals (2, aGraph.getOutgoingRelationCount (5));
+    assertEquals (nRel1, aGraph.getOutgoingRelationID (5, 0));
+    assertEquals (nRel2, aGraph.getOutgoingRelationID (5, 1));
+    assertArrayEquals (new int [] { nRel1, nRel2, nRel3 }, aGraph.getAllIncomingRelationIDs (6));
+    assertArrayEquals (new int [] { nRel3 }, aGraph.getAllOutgoingRelationIDs (6));
+    assertEquals (0, aGraph.getIncomingRelationCount (5));
+    assertEquals (nRel1, aGraph.findRelationID (5, 6));
+    assertEquals (nRel3, aGraph.findRelationID (6, 6));
+    assertEquals (CGlobal.ILLEGAL_UINT, aGraph.findRelationID (6, 5));
+
+    // Remove a relation
+    assertEquals (EChange.CHANGED, aGraph.removeRelation (nRel1));
+    assertEquals (EChange.UNCHANGED, aGraph.removeRelation (nRel1));
+    assertFalse (aGraph.containsRelation (nRel1));
+    assertEquals (2, aGraph.getRelationCount ());
+    assertEquals (3, aGraph.getRelationIDLimit ());
+    assertEquals (nRel2, aGraph.findRelationID (5, 6));
+    assertArrayEquals (new int [] { nRel2, nRel3 }, aGraph.getAllIncomingRelationIDs (6));
+
+    // Relation IDs are not reused
+    assertEquals (3, aGraph.createRelation (6, 5));
+
+    // Remove a node
+    assertEquals (EChange.CHANGED, aGraph.removeNodeAndAllRelations (6));
+    assertEquals (EChange.UNCHANGED, aGraph.removeNodeAndAllRelations (6));
+    assertEquals (1, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertEquals (0, aGraph.getOutgoingRelationCount (5));
+    assertEquals (0, aGraph.getIncomingRelationCount (5));
+    assertNotNull (aGraph.toString ());
+
+    try
+    {
+      aGraph.getRelationWeight (nRel2);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    try
+    {
+      aGraph.getRelationFromNodeID (-1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testConvert ()
+  {
+    final SimpleDirectedGraph aSrc = _buildDirectedGraph ();
+    for (final IDirectedGraphRelation aRelation : aSrc.getAllRelations ().values ())
+      aRelation.setAttribute ("weight", Integer.valueOf (_getNodeValue (aRelation.getFrom ())));
+
+    final IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> aIndex = new IndexedGraph <IDirectedGraphNode, IDirectedGraphRelation> (aSrc);
+    final IntDirectedGraph aGraph = IntGraphConverter.toIntDirectedGraph (aIndex, "weight");
+    assertEquals (aSrc.getNodeCount (), aGraph.getNodeCount ());
+    assertEquals (aSrc.getRelationCount (), aGraph.getRelationCount ());
+    for (int i = 0; i < aIndex.getNodeCount (); ++i)
+    {
+      final IDirectedGraphNode aNode = aIndex.getNodeOfIndex (i);
+      assertEquals (aNode.getOutgoingRelationCount (), aGraph.getOutgoingRelationCount (i));
+      assertEquals (aNode.getIncomingRelationCount (), aGraph.getIncomingRelationCount (i));
+    }
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+    {
+      final IDirectedGraphRelation aRelation = aIndex.getRelationOfIndex (i);
+      assertEquals (aIndex.getNodeIndex (aRelation.getFromID ()), aGraph.getRelationFromNodeID (i));
+      assertEquals (aIndex.getNodeIndex (aRelation.getToID ()), aGraph.getRelationToNodeID (i));
+      assertEquals (_getNodeValue (aRelation.getFrom ()), aGraph.getRelationWeight (i), 0);
+    }
+
+    // And back
+    final SimpleDirectedGraph aDst = IntGraphConverter.toDirectedGraph (aGraph, "weight");
+    assertEquals (aSrc.getNodeCount (), aDst.getNodeCount ());
+    assertEquals (aSrc.getRelationCount (), aDst.getRelationCount ());
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+    {
+      final IDirectedGraphRelation aRelation = aDst.getAllRelations ().get (Integer.toString (i));
+      assertEquals (Integer.toString (aGraph.getRelationFromNodeID (i)), aRelation.getFromID ());
+      assertEquals (Integer.toString (aGraph.getRelationToNodeID (i)), aRelation.getToID ());
+      assertEquals (aGraph.getRelationWeight (i), aRelation.getAttributeAsDouble ("weight"), 0);
+    }
+    assertFalse (aDst.containsCycles ());
+
+    // Missing weight attribute
+    try
+    {
+      IntGraphConverter.toIntDirectedGraph (aSrc, "any");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    // No weight attribute
+    final IntDirectedGraph aUnweighted = IntGraphConverter.toIntDirectedGraph (aSrc, null);
+    for (int i = 0; i < aUnweighted.getRelationCount (); ++i)
+      assertEquals (AbstractIntGraph.DEFAULT_WEIGHT, aUnweighted.getRelationWeight (i), 0);
+  }
+
+  @Test
+  public void testManyRelations ()
+  {
+    final int nCount = 10000;
+    final IntDirectedGraph aGraph = new IntDirectedGraph ();
+    for (int i = 0; i < nCount; ++i)
+      aGraph.createRelation (0, i + 1, i);
+    aGraph.trimToSize ();
+    assertEquals (nCount + 1, aGraph.getNodeCount ());
+    assertEquals (nCount, aGraph.getRelationCount ());
+    assertEquals (nCount, aGraph.getOutgoingRelationCount (0));
+    for (int i = 0; i < nCount; ++i)
+    {
+      assertEquals (i, aGraph.findRelationID (0, i + 1));
+      assertEquals (i, aGraph.getRelationWeight (aGraph.getIncomingRelationID (i + 1, 0)), 0);
+    }
+    assertEquals (EChange.CHANGED, aGraph.removeNodeAndAllRelations (0));
+    assertEquals (nCount, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+  }
+
+  @Test
+  public void testConvertParallelRelations ()
+  {
+    final IntDirectedGraph aGraph = new IntDirectedGraph ();
+    final int nRel1 = aGraph.createRelation (1, 2, 3);
+    aGraph.createRelation (1, 2, 1.5);
+    aGraph.createRelation (1, 2, 4);
+    final int nRel4 = aGraph.createRelation (2, 1, 5);
+    final int nRel5 = aGraph.createRelation (2, 2, 6);
+    aGraph.createRelation (2, 2, 7);
+    assertEquals (6, aGraph.getRelationCount ());
+
+    // Parallel relations are merged
+    final SimpleDirectedGraph aDst = IntGraphConverter.toDirectedGraph (aGraph, "weight");
+    assertEquals (2, aDst.getNodeCount ());
+    assertEquals (3, aDst.getRelationCount ());
+    final IDirectedGraphRelation aRel12 = aDst.getNodeOfID ("1").getOutgoingRelationTo (aDst.getNodeOfID ("2"));
+    assertEquals (Integer.toString (nRel1), aRel12.getID ());
+    assertEquals (1.5, aRel12.getAttributeAsDouble ("weight"), 0);
+    // Opposite direction is not parallel
+    final IDirectedGraphRelation aRel21 = aDst.getNodeOfID ("2").getOutgoingRelationTo (aDst.getNodeOfID ("1"));
+    assertEquals (Integer.toString (nRel4), aRel21.getID ());
+    assertEquals (5, aRel21.getAttributeAsDouble ("weight"), 0);
+    final IDirectedGraphRelation aRel22 = aDst.getNodeOfID ("2").getOutgoingRelationTo (aDst.getNodeOfID ("2"));
+    assertEquals (Integer.toString (nRel5), aRel22.getID ());
+    assertEquals (6, aRel22.getAttributeAsDouble ("weight"), 0);
+
+    // Without weights
+    assertEquals (3, IntGraphConverter.toDirectedGraph (aGraph, null).getRelationCount ());
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.state.EChange;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.compact.IndexedGraph;
+import com.phloc.math.graph.simple.SimpleGraph;
+
+/**
+ * Test class for class {@link IntGraph}.
+ * 
+ * @author Philip Helger
+ */
+public final class IntGraphTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testBasic ()
+  {
+    final IntGraph aGraph = new IntGraph ();
+    assertFalse (aGraph.isDirected ());
+    assertEquals (EChange.CHANGED, aGraph.addNode (1));
+    assertEquals (EChange.UNCHANGED, aGraph.addNode (1));
+    assertEquals (0, aGraph.getRelationCount (1));
+
+    final int nRel1 = aGraph.createRelation (1, 2, 3);
+    final int nRel2 = aGraph.createRelation (2, 1);
+    final int nRel3 = aGraph.createRelation (2, 2);
+    assertEquals (2, aGraph.getNodeCount ());
+    assertEquals (3, aGraph.getRelationCount ());
+    assertEquals (3, aGraph.getRelationWeight (nRel1), 0);
+    assertEquals (1, aGraph.getRelationNode1ID (nRel1));
+    assertEquals (2, aGraph.getRelationNode2ID (nRel1));
+    assertEquals (2, aGraph.getRelationPeerNodeID (nRel1, 1));
+    assertEquals (1, aGraph.getRelationPeerNodeID (nRel1, 2));
+    assertEquals (2, aGraph.getRelationPeerNodeID (nRel3, 2));
+
+    // Self loops are listed only once
+    assertArrayEquals (new int [] { nRel1, nRel2 }, aGraph.getAllRelationIDs (1));
+    assertArrayEquals (new int [] { nRel1, nRel2, nRel3 }, aGraph.getAllRelationIDs (2));
+    assertEquals (3, aGraph.getRelationCount (2));
+    assertEquals (nRel3, aGraph.getRelationID (2, 2));
+    assertEquals (nRel1, aGraph.findRelationID (1, 2));
+    assertEquals (nRel1, aGraph.findRelationID (2, 1));
+    assertEquals (nRel3, aGraph.findRelationID (2, 2));
+    assertEquals (CGlobal.ILLEGAL_UINT, aGraph.findRelationID (1, 1));
+
+    assertEquals (EChange.CHANGED, aGraph.removeRelation (nRel1));
+    assertEquals (EChange.UNCHANGED, aGraph.removeRelation (nRel1));
+    assertEquals (nRel2, aGraph.findRelationID (1, 2));
+    assertArrayEquals (new int [] { nRel2 }, aGraph.getAllRelationIDs (1));
+
+    assertEquals (EChange.CHANGED, aGraph.removeNodeAndAllRelations (2));
+    assertEquals (1, aGraph.getNodeCount ());
+    assertEquals (0, aGraph.getRelationCount ());
+    assertEquals (0, aGraph.getRelationCount (1));
+
+    try
+    {
+      aGraph.getRelationPeerNodeID (aGraph.createRelation (1, 3), 4);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testConvert ()
+  {
+    final SimpleGraph aSrc = _buildGraph ();
+    final IndexedGraph <IGraphNode, IGraphRelation> aIndex = new IndexedGraph <IGraphNode, IGraphRelation> (aSrc);
+    final IntGraph aGraph = IntGraphConverter.toIntGraph (aIndex, null);
+    assertEquals (aSrc.getNodeCount (), aGraph.getNodeCount ());
+    assertEquals (aSrc.getRelationCount (), aGraph.getRelationCount ());
+    for (int i = 0; i < aIndex.getNodeCount (); ++i)
+      assertEquals (aIndex.getNodeOfIndex (i).getRelationCount (), aGraph.getRelationCount (i));
+    for (int i = 0; i < aIndex.getRelationCount (); ++i)
+    {
+      final IGraphRelation aRelation = aIndex.getRelationOfIndex (i);
+      assertEquals (aIndex.getNodeIndex (aRelation.getNode1ID ()), aGraph.getRelationNode1ID (i));
+      assertEquals (aIndex.getNodeIndex (aRelation.getNode2ID ()), aGraph.getRelationNode2ID (i));
+    }
+
+    // And back
+    final SimpleGraph aDst = IntGraphConverter.toGraph (aGraph, null);
+    assertEquals (aSrc.getNodeCount (), aDst.getNodeCount ());
+    assertEquals (aSrc.getRelationCount (), aDst.getRelationCount ());
+    assertEquals (Boolean.valueOf (aSrc.containsCycles ()), Boolean.valueOf (aDst.containsCycles ()));
+    for (final IGraphRelation aRelation : aDst.getAllRelations ().values ())
+      assertTrue (aRelation.getAllAttributes ().isEmpty ());
+  }
+
+  @Test
+  public void testConvertParallelRelations ()
+  {
+    final IntGraph aGraph = new IntGraph ();
+    final int nRel1 = aGraph.createRelation (1, 2, 3);
+    final int nRel2 = aGraph.createRelation (2, 1, 1.5);
+    final int nRel3 = aGraph.createRelation (1, 1, 4);
+    aGraph.createRelation (1, 1, 5);
+
+    // Parallel relations are kept
+    final SimpleGraph aDst = IntGraphConverter.toGraph (aGraph, "weight");
+    assertEquals (2, aDst.getNodeCount ());
+    assertEquals (4, aDst.getRelationCount ());
+    assertEquals (3, aDst.getAllRelations ().get (Integer.toString (nRel1)).getAttributeAsDouble ("weight"), 0);
+    assertEquals (1.5, aDst.getAllRelations ().get (Integer.toString (nRel2)).getAttributeAsDouble ("weight"), 0);
+    assertEquals (4, aDst.getAllRelations ().get (Integer.toString (nRel3)).getAttributeAsDouble ("weight"), 0);
+    assertEquals (2, aDst.getNodeOfID ("2").getRelationCount ());
+  }
+}
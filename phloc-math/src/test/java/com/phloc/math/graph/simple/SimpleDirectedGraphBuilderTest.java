@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
+
+/**
+ * Test class for class {@link SimpleDirectedGraphBuilder}.
+ * 
+ * @author Philip Helger
+ */
+public final class SimpleDirectedGraphBuilderTest
+{
+  @Test
+  public void testDirection ()
+  {
+    final SimpleDirectedGraphBuilder aBuilder = new SimpleDirectedGraphBuilder (new SimpleDirectedGraphObjectFastFactory ());
+    aBuilder.addNodes (ContainerHelper.newList ("a", "b", "c"))
+            .addRelation ("ab", "a", "b", 2.5, null)
+            .addRelation ("b", "c");
+    final SimpleDirectedGraph aGraph = aBuilder.build ();
+    final IDirectedGraphNode a = aGraph.getNodeOfID ("a");
+    final IDirectedGraphNode b = aGraph.getNodeOfID ("b");
+    final IDirectedGraphNode c = aGraph.getNodeOfID ("c");
+
+    // a->b is outgoing from a and incoming to b - not the other way round
+    final IDirectedGraphRelation aRelation = aGraph.getAllRelations ().get ("ab");
+    assertNotNull (aRelation);
+    assertSame (a, aRelation.getFrom ());
+    assertSame (b, aRelation.getTo ());
+    assertEquals (2.5, aRelation.getAttributeAsDouble (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR), 0);
+    assertEquals (ContainerHelper.newList (aRelation), a.getAllOutgoingRelations ());
+    assertEquals (0, a.getIncomingRelationCount ());
+    assertEquals (ContainerHelper.newList (aRelation), b.getAllIncomingRelations ());
+    assertTrue (a.isToNode (b));
+    assertFalse (b.isToNode (a));
+    assertTrue (b.isFromNode (a));
+    assertNull (b.getOutgoingRelationTo (a));
+
+    // b->c
+    assertTrue (b.isToNode (c));
+    assertFalse (c.isToNode (b));
+    assertEquals (0, c.getOutgoingRelationCount ());
+
+    assertSame (a, aGraph.getSingleStartNode ());
+    assertSame (c, aGraph.getSingleEndNode ());
+    assertFalse (aGraph.containsCycles ());
+  }
+
+  @Test
+  public void testOppositeAndParallelRelations ()
+  {
+    // Opposite relations are different relations and form a cycle
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraphBuilder ().addNodes (ContainerHelper.newList ("a", "b"))
+                                                                        .addRelation ("a", "b")
+                                                                        .addRelation ("b", "a")
+                                                                        .build ();
+    assertEquals (2, aGraph.getRelationCount ());
+    assertNotNull (aGraph.getNodeOfID ("a").getOutgoingRelationTo (aGraph.getNodeOfID ("b")));
+    assertNotNull (aGraph.getNodeOfID ("b").getOutgoingRelationTo (aGraph.getNodeOfID ("a")));
+    assertTrue (aGraph.containsCycles ());
+
+    // Parallel relations in the same direction are not supported and are
+    // rejected before the graph is created
+    final SimpleDirectedGraphBuilder aBuilder = new SimpleDirectedGraphBuilder ()
+    {
+      @Override
+      protected SimpleDirectedGraph createGraph (final int nExpectedNodeCount)
+      {
+        fail ();
+        return null;
+      }
+    };
+    aBuilder.addNodes (ContainerHelper.newList ("a", "b")).addRelation ("a", "b").addRelation ("a", "b");
+    try
+    {
+      aBuilder.build ();
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testMissingNodes ()
+  {
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraphBuilder ().addRelation ("a", "b")
+                                                                        .addRelation ("c", "b")
+                                                                        .setCreateMissingNodes (true)
+                                                                        .build ();
+    assertEquals (3, aGraph.getNodeCount ());
+    final IDirectedGraphNode b = aGraph.getNodeOfID ("b");
+    assertEquals (2, b.getIncomingRelationCount ());
+    assertEquals (0, b.getOutgoingRelationCount ());
+    assertEquals (2, aGraph.getAllStartNodes ().size ());
+    assertTrue (aGraph.getAllStartNodes ().contains (aGraph.getNodeOfID ("a")));
+    assertTrue (aGraph.getAllStartNodes ().contains (aGraph.getNodeOfID ("c")));
+    assertSame (b, aGraph.getSingleEndNode ());
+  }
+
+  @Test
+  public void testAddRelations ()
+  {
+    // A weighted edge list forming a directed chain
+    final int nCount = 1000;
+    final String [] aFrom = new String [nCount - 1];
+    final String [] aTo = new String [nCount - 1];
+    final double [] aWeights = new double [nCount - 1];
+    for (int i = 1; i < nCount; ++i)
+    {
+      aFrom[i - 1] = Integer.toString (i - 1);
+      aTo[i - 1] = Integer.toString (i);
+      aWeights[i - 1] = i;
+    }
+    final SimpleDirectedGraphBuilder aBuilder = new SimpleDirectedGraphBuilder (new SimpleDirectedGraphObjectFastFactory ());
+    aBuilder.addRelations (aFrom, aTo, aWeights).setCreateMissingNodes (true);
+    assertEquals (nCount - 1, aBuilder.getRelationCount ());
+    final SimpleDirectedGraph aGraph = aBuilder.build ();
+    assertEquals (nCount, aGraph.getNodeCount ());
+    assertEquals (nCount - 1, aGraph.getRelationCount ());
+    assertEquals ("0", aGraph.getSingleStartNode ().getID ());
+    assertEquals (Integer.toString (nCount - 1), aGraph.getSingleEndNode ().getID ());
+    for (int i = 1; i < nCount; ++i)
+    {
+      final IDirectedGraphNode aPrev = aGraph.getNodeOfID (Integer.toString (i - 1));
+      final IDirectedGraphNode aNode = aGraph.getNodeOfID (Integer.toString (i));
+      final IDirectedGraphRelation aRelation = aPrev.getOutgoingRelationTo (aNode);
+      assertNotNull (aRelation);
+      assertEquals (i, aRelation.getAttributeAsDouble (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR), 0);
+      assertNull (aNode.getOutgoingRelationTo (aPrev));
+    }
+  }
+}
@@ -24,12 +24,22 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.Test;
 
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
+import com.phloc.commons.collections.ContainerHelper;
 import com.phloc.commons.mock.PhlocTestUtils;
 import com.phloc.math.graph.AbstractGraphTestCase;
 import com.phloc.math.graph.IDirectedGraphNode;
+import com.phloc.math.graph.IDirectedGraphRelation;
 import com.phloc.math.graph.IReadonlyDirectedGraph;
+import com.phloc.math.graph.MockGraphChangeListener;
 import com.phloc.math.graph.impl.DirectedGraphNode;
 
 /**
@@ -268,4 +278,195 @@ public final class SimpleDirectedGraphTest extends AbstractGraphTestCase
     sg.createRelation (n1, n2);
     assertFalse (sg.isSelfContained ());
   }
+
+  @Test
+  public void testIncrementalCycleDetection ()
+  {
+    final SimpleDirectedGraph aIncremental = new SimpleDirectedGraph ();
+    assertFalse (aIncremental.isIncrementalCycleDetection ());
+    aIncremental.setIncrementalCycleDetection (true);
+    assertTrue (aIncremental.isIncrementalCycleDetection ());
+    final SimpleDirectedGraph aReference = new SimpleDirectedGraph ();
+
+    final int nNodes = 50;
+    for (int i = 0; i < nNodes; ++i)
+    {
+      aIncremental.createNode (Integer.toString (i));
+      aReference.createNode (Integer.toString (i));
+    }
+    assertFalse (aIncremental.containsCycles ());
+
+    // Add random relations and reject all relations introducing a cycle
+    final Random aRandom = new Random (12345);
+    int nRejected = 0;
+    for (int i = 0; i < 500; ++i)
+    {
+      final String sFrom = Integer.toString (aRandom.nextInt (nNodes));
+      final String sTo = Integer.toString (aRandom.nextInt (nNodes));
+      if (aReference.getNodeOfID (sFrom).isToNode (aReference.getNodeOfID (sTo)))
+      {
+        // Parallel relations are not allowed
+        continue;
+      }
+      final IDirectedGraphRelation aRel1 = aIncremental.createRelation (sFrom, sTo);
+      final IDirectedGraphRelation aRel2 = aReference.createRelation (sFrom, sTo);
+      final boolean bCycles = aReference.containsCycles ();
+      assertEquals (bCycles, aIncremental.containsCycles ());
+      if (bCycles)
+      {
+        aIncremental.removeRelation (aRel1);
+        aReference.removeRelation (aRel2);
+        assertFalse (aIncremental.containsCycles ());
+        ++nRejected;
+      }
+    }
+    assertTrue (nRejected > 0);
+    assertEquals (aReference.getAllRelationIDs ().size (), aIncremental.getAllRelationIDs ().size ());
+
+    // Switching the mode keeps the result
+    aIncremental.setIncrementalCycleDetection (false);
+    assertFalse (aIncremental.containsCycles ());
+  }
+
+  @Test
+  public void testViews ()
+  {
+    final SimpleDirectedGraph sg = _buildDirectedGraph ();
+    // Self-loop and relations from and to nodes outside of the graph
+    sg.createRelation (sg.getNodeOfID ("2"), sg.getNodeOfID ("2"));
+    sg.createRelation (sg.getNodeOfID ("4"), new DirectedGraphNode ("outside1"));
+    sg.createRelation (new DirectedGraphNode ("outside2"), sg.getNodeOfID ("4"));
+    assertEquals (sg.getAllRelations ().size (), sg.getRelationCount ());
+    assertEquals (11, sg.getRelationCount ());
+
+    final Set <String> aRelationIDs = new HashSet <String> ();
+    sg.forEachRelation (new INonThrowingRunnableWithParameter <IDirectedGraphRelation> ()
+    {
+      public void run (final IDirectedGraphRelation aRelation)
+      {
+        assertTrue (aRelationIDs.add (aRelation.getID ()));
+      }
+    });
+    assertEquals (sg.getAllRelationIDs (), aRelationIDs);
+    assertEquals (sg.getNodeCount (), sg.getNodesView ().size ());
+
+    for (final IDirectedGraphNode aNode : sg.getNodesView ())
+    {
+      assertEquals (aNode.getAllIncomingRelations (), ContainerHelper.newList (aNode.getIncomingRelationsView ()));
+      assertEquals (aNode.getAllOutgoingRelations (), ContainerHelper.newList (aNode.getOutgoingRelationsView ()));
+
+      // Each relation of the node exactly once
+      final Set <String> aNodeRelationIDs = new HashSet <String> ();
+      aNode.forEachRelation (new INonThrowingRunnableWithParameter <IDirectedGraphRelation> ()
+      {
+        public void run (final IDirectedGraphRelation aRelation)
+        {
+          assertTrue (aNodeRelationIDs.add (aRelation.getID ()));
+        }
+      });
+      assertEquals (aNode.getAllRelationIDs (), aNodeRelationIDs);
+    }
+
+    // Views are read-only
+    try
+    {
+      sg.getNodeOfID ("0").getOutgoingRelationsView ().clear ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+  }
+
+  @Test
+  public void testChangeListener ()
+  {
+    final SimpleDirectedGraph sg = new SimpleDirectedGraph ();
+    final MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> aListener = new MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> ();
+    assertTrue (sg.addChangeListener (aListener).isChanged ());
+    assertFalse (sg.addChangeListener (aListener).isChanged ());
+    assertEquals (0, sg.getModificationStamp ());
+
+    final IDirectedGraphNode n1 = sg.createNode ("1");
+    final IDirectedGraphNode n2 = sg.createNode ("2");
+    final IDirectedGraphRelation r1 = sg.createRelation (n1, n2);
+    final IDirectedGraphRelation r2 = sg.createRelation (n2, n2);
+    assertEquals (Arrays.asList ("+N:1", "+N:2", "+R:" + r1.getID (), "+R:" + r2.getID ()),
+                  aListener.getAndClearEvents ());
+    long nStamp = sg.getModificationStamp ();
+    assertTrue (nStamp > 0);
+
+    // Attribute changes of the graph, its nodes and its relations
+    n1.setAttribute ("a", "x");
+    r1.setAttribute ("w", 1);
+    sg.setAttribute ("g", "y");
+    n1.removeAttribute ("a");
+    assertEquals (Arrays.asList ("A:1:a", "A:" + r1.getID () + ":w", "A:" + sg.getID () + ":g", "A:1:a"),
+                  aListener.getAndClearEvents ());
+    assertTrue (sg.getModificationStamp () > nStamp);
+
+    // No change - no event
+    nStamp = sg.getModificationStamp ();
+    r1.setAttribute ("w", 1);
+    n1.removeAttribute ("a");
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+    assertEquals (nStamp, sg.getModificationStamp ());
+
+    // Each relation is reported exactly once - outgoing relations first
+    assertTrue (sg.removeNodeAndAllRelations (n2).isChanged ());
+    assertEquals (Arrays.asList ("-R:" + r2.getID (), "-R:" + r1.getID (), "-N:2"), aListener.getAndClearEvents ());
+
+    // Removed objects no longer affect the graph
+    nStamp = sg.getModificationStamp ();
+    n2.setAttribute ("a", "x");
+    r1.setAttribute ("w", 2);
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+    assertEquals (nStamp, sg.getModificationStamp ());
+
+    // A node contained in two graphs
+    final SimpleDirectedGraph sg2 = new SimpleDirectedGraph ();
+    sg2.addNode (n1);
+    final long nStamp2 = sg2.getModificationStamp ();
+    n1.setAttribute ("b", "z");
+    assertEquals (Arrays.asList ("A:1:b"), aListener.getAndClearEvents ());
+    assertTrue (sg2.getModificationStamp () > nStamp2);
+
+    assertTrue (sg.clear ().isChanged ());
+    assertEquals (Arrays.asList ("-N:1"), aListener.getAndClearEvents ());
+    n1.setAttribute ("b", "zz");
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+
+    assertTrue (sg.removeChangeListener (aListener).isChanged ());
+    assertFalse (sg.removeChangeListener (aListener).isChanged ());
+    nStamp = sg.getModificationStamp ();
+    sg.createNode ("3");
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+    assertTrue (sg.getModificationStamp () > nStamp);
+  }
+
+  @Test
+  public void testChangeListenerClear ()
+  {
+    final SimpleDirectedGraph sg = new SimpleDirectedGraph ();
+    final IDirectedGraphNode n1 = sg.createNode ("1");
+    final IDirectedGraphNode n2 = sg.createNode ("2");
+    final IDirectedGraphRelation r1 = sg.createRelation (n1, n2);
+    final IDirectedGraphRelation r2 = sg.createRelation (n2, n1);
+    final IDirectedGraphRelation r3 = sg.createRelation (n2, n2);
+    final MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> aListener = new MockGraphChangeListener <IDirectedGraphNode, IDirectedGraphRelation> ();
+    sg.addChangeListener (aListener);
+
+    // Each relation is reported exactly once before the nodes
+    assertTrue (sg.clear ().isChanged ());
+    final List <String> aEvents = aListener.getAndClearEvents ();
+    assertEquals (5, aEvents.size ());
+    assertEquals (ContainerHelper.newSet ("-R:" + r1.getID (), "-R:" + r2.getID (), "-R:" + r3.getID ()),
+                  ContainerHelper.newSet (aEvents.subList (0, 3)));
+    assertEquals (Arrays.asList ("-N:1", "-N:2"), aEvents.subList (3, 5));
+
+    // Relations are no longer tracked
+    final long nStamp = sg.getModificationStamp ();
+    r1.setAttribute ("w", 1);
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+    assertEquals (nStamp, sg.getModificationStamp ());
+  }
 }
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
+
+/**
+ * Test class for class {@link SimpleGraphBuilder}.
+ * 
+ * @author Philip Helger
+ */
+public final class SimpleGraphBuilderTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final Map <String, Object> aAttrs = new HashMap <String, Object> ();
+    aAttrs.put ("label", "x");
+    final SimpleGraphBuilder aBuilder = new SimpleGraphBuilder (new SimpleGraphObjectFastFactory ());
+    aBuilder.addNodes (ContainerHelper.newList ("a", "b"))
+            .addNode ("c", aAttrs)
+            .addRelation ("a", "b")
+            .addRelation ("b", "c", 2.5)
+            .addRelation ("r", "a", "c", Double.NaN, aAttrs);
+    assertEquals (3, aBuilder.getNodeCount ());
+    assertEquals (3, aBuilder.getRelationCount ());
+    assertNotNull (aBuilder.toString ());
+
+    final SimpleGraph aGraph = aBuilder.build ();
+    assertEquals (3, aGraph.getNodeCount ());
+    assertEquals (3, aGraph.getRelationCount ());
+    assertEquals ("x", aGraph.getNodeOfID ("c").getAttributeAsString ("label"));
+    final IGraphRelation aRelation = aGraph.getAllRelations ().get ("r");
+    assertNotNull (aRelation);
+    assertEquals ("x", aRelation.getAttributeAsString ("label"));
+    assertTrue (aRelation.containsAttribute ("label"));
+    boolean bFoundWeight = false;
+    for (final IGraphRelation aRel : aGraph.getAllRelations ().values ())
+      if (aRel.containsAttribute (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR))
+      {
+        assertEquals (2.5, aRel.getAttributeAsDouble (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR), 0);
+        bFoundWeight = true;
+      }
+    assertTrue (bFoundWeight);
+
+    // The builder can be reused
+    final SimpleGraph aGraph2 = aBuilder.build ();
+    assertNotSame (aGraph, aGraph2);
+    assertEquals (3, aGraph2.getRelationCount ());
+  }
+
+  @Test
+  public void testMissingNodes ()
+  {
+    final SimpleGraphBuilder aBuilder = new SimpleGraphBuilder ().addRelation ("a", "b").addRelation ("b", "c");
+    try
+    {
+      aBuilder.build ();
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    final SimpleGraph aGraph = aBuilder.setCreateMissingNodes (true).build ();
+    assertEquals (3, aGraph.getNodeCount ());
+    assertEquals (2, aGraph.getRelationCount ());
+    final IGraphNode aNode = aGraph.getNodeOfID ("b");
+    assertNotNull (aNode);
+  }
+
+  @Test
+  public void testDuplicates ()
+  {
+    try
+    {
+      new SimpleGraphBuilder ().addNode ("a").addNode ("a").build ();
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    try
+    {
+      new SimpleGraphBuilder ().addNode ("a")
+                         .addNode ("b")
+                         .addRelation ("r", "a", "b", 1, null)
+                         .addRelation ("r", "b", "a", 1, null)
+                         .build ();
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    try
+    {
+      new SimpleGraphBuilder ().addNode ("");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testLarge ()
+  {
+    final int nCount = 100000;
+    final SimpleGraphBuilder aBuilder = new SimpleGraphBuilder (new SimpleGraphObjectFastFactory ());
+    for (int i = 0; i < nCount; ++i)
+      aBuilder.addNode (Integer.toString (i));
+    for (int i = 1; i < nCount; ++i)
+      aBuilder.addRelation (Integer.toString (i - 1), Integer.toString (i), i);
+    final SimpleGraph aGraph = aBuilder.build ();
+    assertEquals (nCount, aGraph.getNodeCount ());
+    assertEquals (nCount - 1, aGraph.getRelationCount ());
+  }
+
+  @Test
+  public void testAddRelations ()
+  {
+    final SimpleGraphBuilder aBuilder = new SimpleGraphBuilder ();
+    aBuilder.addNodes (ContainerHelper.newList ("a", "b", "c"))
+            .addRelations (new String [] { "a", "b" }, new String [] { "b", "c" })
+            .addRelations (new String [] { "c" }, new String [] { "a" }, new double [] { 3 });
+    assertEquals (3, aBuilder.getRelationCount ());
+    final SimpleGraph aGraph = aBuilder.build ();
+    assertEquals (3, aGraph.getRelationCount ());
+    assertTrue (aGraph.getNodeOfID ("a").isConnectedWith (aGraph.getNodeOfID ("b")));
+    assertTrue (aGraph.getNodeOfID ("b").isConnectedWith (aGraph.getNodeOfID ("c")));
+    final IGraphRelation aRelation = aGraph.getNodeOfID ("a").getRelation (aGraph.getNodeOfID ("c"));
+    assertEquals (3, aRelation.getAttributeAsDouble (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR), 0);
+    assertFalse (aGraph.getNodeOfID ("a")
+                       .getRelation (aGraph.getNodeOfID ("b"))
+                       .containsAttribute (AbstractSimpleGraphBuilder.DEFAULT_WEIGHT_ATTR));
+
+    try
+    {
+      // Different lengths
+      aBuilder.addRelations (new String [] { "a" }, new String [0]);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    try
+    {
+      aBuilder.addRelations (new String [] { "a" }, new String [] { "b" }, new double [2]);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+
+    try
+    {
+      aBuilder.addRelations (new String [] { "a", "b" }, new String [] { "b", "c" }, new double [] { 1, Double.NaN });
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    assertEquals (3, aBuilder.getRelationCount ());
+  }
+}
@@ -24,12 +24,20 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.Test;
 
+import com.phloc.commons.callback.INonThrowingRunnableWithParameter;
 import com.phloc.commons.mock.PhlocTestUtils;
 import com.phloc.math.graph.AbstractGraphTestCase;
 import com.phloc.math.graph.IGraphNode;
+import com.phloc.math.graph.IGraphRelation;
 import com.phloc.math.graph.IReadonlyGraph;
+import com.phloc.math.graph.MockGraphChangeListener;
 import com.phloc.math.graph.impl.GraphNode;
 import com.phloc.math.matrix.Matrix;
 
@@ -196,4 +204,169 @@ public final class SimpleGraphTest extends AbstractGraphTestCase
     sg.createRelation (n1, n2);
     assertFalse (sg.isSelfContained ());
   }
+
+  @Test
+  public void testIncrementalCycleDetection ()
+  {
+    final SimpleGraph aIncremental = new SimpleGraph ();
+    assertFalse (aIncremental.isIncrementalCycleDetection ());
+    aIncremental.setIncrementalCycleDetection (true);
+    assertTrue (aIncremental.isIncrementalCycleDetection ());
+    final SimpleGraph aReference = new SimpleGraph ();
+
+    final int nNodes = 50;
+    for (int i = 0; i < nNodes; ++i)
+    {
+      aIncremental.createNode (Integer.toString (i));
+      aReference.createNode (Integer.toString (i));
+    }
+    assertFalse (aIncremental.containsCycles ());
+
+    // Add random relations and reject all relations introducing a cycle
+    final Random aRandom = new Random (12345);
+    int nRejected = 0;
+    for (int i = 0; i < 500; ++i)
+    {
+      final String sFrom = Integer.toString (aRandom.nextInt (nNodes));
+      final String sTo = Integer.toString (aRandom.nextInt (nNodes));
+      final IGraphRelation aRel1 = aIncremental.createRelation (sFrom, sTo);
+      final IGraphRelation aRel2 = aReference.createRelation (sFrom, sTo);
+      final boolean bCycles = aReference.containsCycles ();
+      assertEquals (bCycles, aIncremental.containsCycles ());
+      if (bCycles)
+      {
+        aIncremental.removeRelation (aRel1);
+        aReference.removeRelation (aRel2);
+        assertFalse (aIncremental.containsCycles ());
+        ++nRejected;
+      }
+    }
+    assertTrue (nRejected > 0);
+    assertEquals (aReference.getAllRelationIDs ().size (), aIncremental.getAllRelationIDs ().size ());
+
+    // Switching the mode keeps the result
+    aIncremental.setIncrementalCycleDetection (false);
+    assertFalse (aIncremental.containsCycles ());
+  }
+
+  @Test
+  public void testViews ()
+  {
+    final SimpleGraph sg = _buildGraph ();
+    // Self-loop and relation to a node outside of the graph
+    sg.createRelation (sg.getNodeOfID ("2"), sg.getNodeOfID ("2"));
+    sg.createRelation (sg.getNodeOfID ("4"), new GraphNode ("outside"));
+    assertEquals (sg.getAllRelations ().size (), sg.getRelationCount ());
+    assertEquals (10, sg.getRelationCount ());
+
+    final Set <String> aRelationIDs = new HashSet <String> ();
+    sg.forEachRelation (new INonThrowingRunnableWithParameter <IGraphRelation> ()
+    {
+      public void run (final IGraphRelation aRelation)
+      {
+        assertTrue (aRelationIDs.add (aRelation.getID ()));
+      }
+    });
+    assertEquals (sg.getAllRelationIDs (), aRelationIDs);
+
+    final Set <String> aNodeIDs = new HashSet <String> ();
+    sg.forEachNode (new INonThrowingRunnableWithParameter <IGraphNode> ()
+    {
+      public void run (final IGraphNode aNode)
+      {
+        assertTrue (aNodeIDs.add (aNode.getID ()));
+      }
+    });
+    assertEquals (sg.getAllNodeIDs (), aNodeIDs);
+    assertEquals (sg.getNodeCount (), sg.getNodesView ().size ());
+
+    // Node views
+    for (final IGraphNode aNode : sg.getNodesView ())
+    {
+      assertEquals (aNode.getAllRelations ().size (), aNode.getRelationsView ().size ());
+      assertTrue (aNode.getAllRelations ().containsAll (aNode.getRelationsView ()));
+    }
+
+    // Views are read-only
+    try
+    {
+      sg.getNodesView ().clear ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+    try
+    {
+      sg.getNodeOfID ("0").getRelationsView ().clear ();
+      fail ();
+    }
+    catch (final UnsupportedOperationException ex)
+    {}
+
+    // The node view reflects later changes
+    final int nNodeCount = sg.getNodesView ().size ();
+    sg.createNode ("new");
+    assertEquals (nNodeCount + 1, sg.getNodesView ().size ());
+  }
+
+  @Test
+  public void testChangeListener ()
+  {
+    final SimpleGraph sg = new SimpleGraph ();
+    final MockGraphChangeListener <IGraphNode, IGraphRelation> aListener = new MockGraphChangeListener <IGraphNode, IGraphRelation> ();
+    sg.addChangeListener (aListener);
+
+    final IGraphNode n1 = sg.createNode ("1");
+    final IGraphNode n2 = sg.createNode ("2");
+    final IGraphNode n3 = sg.createNode ("3");
+    final IGraphRelation r1 = sg.createRelation (n1, n2);
+    final IGraphRelation r2 = sg.createRelation (n2, n3);
+    assertEquals (Arrays.asList ("+N:1", "+N:2", "+N:3", "+R:" + r1.getID (), "+R:" + r2.getID ()),
+                  aListener.getAndClearEvents ());
+
+    long nStamp = sg.getModificationStamp ();
+    r2.setAttribute ("w", 1);
+    assertEquals (Arrays.asList ("A:" + r2.getID () + ":w"), aListener.getAndClearEvents ());
+    assertTrue (sg.getModificationStamp () > nStamp);
+
+    assertTrue (sg.removeRelation (r1).isChanged ());
+    assertFalse (sg.removeRelation (r1).isChanged ());
+    assertEquals (Arrays.asList ("-R:" + r1.getID ()), aListener.getAndClearEvents ());
+
+    assertTrue (sg.removeNodeAndAllRelations (n3).isChanged ());
+    assertEquals (Arrays.asList ("-R:" + r2.getID (), "-N:3"), aListener.getAndClearEvents ());
+
+    nStamp = sg.getModificationStamp ();
+    r1.setAttribute ("w", 1);
+    r2.setAttribute ("w", 2);
+    n3.setAttribute ("a", "x");
+    assertTrue (aListener.getAndClearEvents ().isEmpty ());
+    assertEquals (nStamp, sg.getModificationStamp ());
+
+    // The relations of an added node are tracked as well
+    final SimpleGraph sg2 = new SimpleGraph ();
+    final IGraphRelation r3 = sg.createRelation (n1, n2);
+    sg2.addNode (n1);
+    final long nStamp2 = sg2.getModificationStamp ();
+    r3.setAttribute ("w", 3);
+    assertTrue (sg2.getModificationStamp () > nStamp2);
+  }
+
+  @Test
+  public void testChangeListenerClear ()
+  {
+    final SimpleGraph sg = new SimpleGraph ();
+    final IGraphNode n1 = sg.createNode ("1");
+    final IGraphNode n2 = sg.createNode ("2");
+    final IGraphNode n3 = sg.createNode ("3");
+    final IGraphRelation r1 = sg.createRelation (n1, n2);
+    final IGraphRelation r2 = sg.createRelation (n2, n3);
+    final MockGraphChangeListener <IGraphNode, IGraphRelation> aListener = new MockGraphChangeListener <IGraphNode, IGraphRelation> ();
+    sg.addChangeListener (aListener);
+
+    // Each relation is reported exactly once before the nodes
+    assertTrue (sg.clear ().isChanged ());
+    assertEquals (Arrays.asList ("-R:" + r1.getID (), "-R:" + r2.getID (), "-N:1", "-N:2", "-N:3"),
+                  aListener.getAndClearEvents ());
+  }
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.graph.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.NonBlockingStringWriter;
+import com.phloc.math.graph.AbstractGraphTestCase;
+import com.phloc.math.graph.IDirectedGraphRelation;
+import com.phloc.math.graph.IGraphRelation;
+import com.phloc.math.graph.impl.DirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraph;
+import com.phloc.math.graph.simple.SimpleDirectedGraphObjectFactory;
+import com.phloc.math.graph.simple.SimpleGraph;
+
+/**
+ * Test class for class {@link GraphVizDotReader}.
+ * 
+ * @author Philip Helger
+ */
+public final class GraphVizDotReaderTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testRoundTripDirected () throws IOException
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    aGraph.getNodeOfID ("2").setAttribute (ATTR_VALUE, "a<b & \"c\"");
+    for (final IDirectedGraphRelation aRelation : aGraph.getAllRelations ().values ())
+      aRelation.setAttribute ("name", aRelation.getFromID () + "->" + aRelation.getToID ());
+
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    GraphVizUtils.writeGraphVizDot (aGraph, ATTR_VALUE, "name", aSW);
+    assertEquals (GraphVizUtils.getAsGraphVizDot (aGraph, ATTR_VALUE, "name"), aSW.getAsString ());
+
+    final SimpleDirectedGraph aRead = GraphVizDotReader.readDirectedGraph (new NonBlockingStringReader (aSW.getAsString ()),
+                                                                           ATTR_VALUE,
+                                                                           "name");
+    assertEquals (aGraph.getNodeCount (), aRead.getNodeCount ());
+    assertEquals (aGraph.getRelationCount (), aRead.getRelationCount ());
+    assertEquals ("a<b & \"c\"", aRead.getNodeOfID ("2").getAttributeAsString (ATTR_VALUE));
+    assertEquals ("1", aRead.getNodeOfID ("0").getAttributeAsString (ATTR_VALUE));
+    for (final IDirectedGraphRelation aRelation : aRead.getAllRelations ().values ())
+    {
+      assertTrue (aGraph.getNodeOfID (aRelation.getFromID ()).isToNode (aGraph.getNodeOfID (aRelation.getToID ())));
+      assertEquals (aRelation.getFromID () + "->" + aRelation.getToID (), aRelation.getAttributeAsString ("name"));
+    }
+  }
+
+  @Test
+  public void testRoundTripUndirected () throws IOException
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    GraphVizUtils.writeGraphVizDot (aGraph, null, null, aSW);
+
+    final SimpleGraph aRead = GraphVizDotReader.readGraph (new NonBlockingStringReader (aSW.getAsString ()),
+                                                           null,
+                                                           null);
+    assertEquals (aGraph.getNodeCount (), aRead.getNodeCount ());
+    assertEquals (aGraph.getRelationCount (), aRead.getRelationCount ());
+    for (final IGraphRelation aRelation : aRead.getAllRelations ().values ())
+      assertTrue (aGraph.getNodeOfID (aRelation.getNode1ID ()).isConnectedWith (aGraph.getNodeOfID (aRelation.getNode2ID ())));
+  }
+
+  @Test
+  public void testRoundTripIDs () throws IOException
+  {
+    final String [] aIDs = new String [] { "c d", "a-b", "1x", "-1.5", ".5", "node", "Graph", "say \"hi\"", "a\\b", "ä" };
+    final DirectedGraph aGraph = new DirectedGraph ("my graph", new SimpleDirectedGraphObjectFactory ());
+    for (final String sID : aIDs)
+      aGraph.createNode (sID);
+    for (int i = 1; i < aIDs.length; ++i)
+      aGraph.createRelation (aGraph.getNodeOfID (aIDs[i - 1]), aGraph.getNodeOfID (aIDs[i]));
+
+    final String sDOT = GraphVizUtils.getAsGraphVizDot (aGraph, null, null);
+    assertTrue (sDOT.startsWith ("digraph \"my graph\"{"));
+    final SimpleDirectedGraph aRead = GraphVizDotReader.readDirectedGraph (new NonBlockingStringReader (sDOT), null, null);
+    assertEquals (aGraph.getAllNodeIDs (), aRead.getAllNodeIDs ());
+    assertEquals (aGraph.getRelationCount (), aRead.getRelationCount ());
+    for (int i = 1; i < aIDs.length; ++i)
+      assertTrue (aRead.getNodeOfID (aIDs[i - 1]).isToNode (aRead.getNodeOfID (aIDs[i])));
+
+    // Undirected
+    final SimpleGraph aUndirected = new SimpleGraph ();
+    for (final String sID : aIDs)
+      aUndirected.createNode (sID);
+    for (int i = 1; i < aIDs.length; ++i)
+      aUndirected.createRelation (aIDs[i - 1], aIDs[i]);
+    final SimpleGraph aReadUndirected = GraphVizDotReader.readGraph (new NonBlockingStringReader (GraphVizUtils.getAsGraphVizDot (aUndirected,
+                                                                                                                              null,
+                                                                                                                              null)),
+                                                                     null,
+                                                                     null);
+    assertEquals (aUndirected.getAllNodeIDs (), aReadUndirected.getAllNodeIDs ());
+    assertEquals (aUndirected.getRelationCount (), aReadUndirected.getRelationCount ());
+
+    // Plain IDs are not quoted
+    final DirectedGraph aPlain = new DirectedGraph ("g", new SimpleDirectedGraphObjectFactory ());
+    aPlain.createRelation (aPlain.createNode ("_a1"), aPlain.createNode ("-2.5"));
+    assertTrue (GraphVizUtils.getAsGraphVizDot (aPlain, null, null).startsWith ("digraph g{"));
+    assertTrue (GraphVizUtils.getAsGraphVizDot (aPlain, null, null).contains ("_a1->-2.5;"));
+
+    // Not representable
+    final SimpleDirectedGraph aInvalid = new SimpleDirectedGraph ();
+    aInvalid.createNode ("a\\");
+    try
+    {
+      GraphVizUtils.writeGraphVizDot (aInvalid, null, null, new NonBlockingStringWriter ());
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testGetAttribute () throws IOException
+  {
+    // Masked like the labels of the writer
+    final String sValue = "a<b & \"c\" >";
+    final String sDOT = "digraph{x[" + GraphVizUtils.getAttribute (ATTR_VALUE, sValue) + "];}";
+    final SimpleDirectedGraph aRead = GraphVizDotReader.readDirectedGraph (new NonBlockingStringReader (sDOT),
+                                                                           ATTR_VALUE,
+                                                                           null);
+    assertEquals (sValue, aRead.getNodeOfID ("x").getAttributeAsString (ATTR_VALUE));
+
+    final SimpleDirectedGraph aGraph = new SimpleDirectedGraph ();
+    aGraph.createNode ("x").setAttribute (ATTR_VALUE, sValue);
+    assertTrue (GraphVizUtils.getAsGraphVizDot (aGraph, ATTR_VALUE, null)
+                             .contains ("[" + GraphVizUtils.getAttribute ("label", sValue) + "]"));
+  }
+
+  @Test
+  public void testSyntax () throws IOException
+  {
+    final String sDOT = "/* comment */ strict digraph \"my graph\" {\n" +
+                        "  # preprocessor line\n" +
+                        "  graph [rankdir=LR]; node [shape=box]\n" +
+                        "  edge [color=red]\n" +
+                        "  overlap = false\n" +
+                        "  a [label=\"Node \\\"A\\\"\", color=blue] // line comment\n" +
+                        "  a -> b -> \"c d\" [label=<x &amp; y>];\n" +
+                        "  b [label=B]\n" +
+                        "  -1.5 -> a\n" +
+                        "}\n";
+    final SimpleDirectedGraph aGraph = GraphVizDotReader.readDirectedGraph (new NonBlockingStringReader (sDOT), null, null);
+    assertEquals (4, aGraph.getNodeCount ());
+    assertEquals (3, aGraph.getRelationCount ());
+    assertEquals ("Node \"A\"", aGraph.getNodeOfID ("a").getAttributeAsString ("label"));
+    assertEquals ("blue", aGraph.getNodeOfID ("a").getAttributeAsString ("color"));
+    assertEquals ("B", aGraph.getNodeOfID ("b").getAttributeAsString ("label"));
+    assertNotNull (aGraph.getNodeOfID ("c d"));
+    assertNotNull (aGraph.getNodeOfID ("-1.5"));
+    assertTrue (aGraph.getNodeOfID ("-1.5").isToNode (aGraph.getNodeOfID ("a")));
+    final IDirectedGraphRelation aRelation = aGraph.getNodeOfID ("b").getOutgoingRelationTo (aGraph.getNodeOfID ("c d"));
+    assertEquals ("x & y", aRelation.getAttributeAsString ("label"));
+  }
+
+  @Test
+  public void testErrors () throws IOException
+  {
+    final String [] aInvalid = new String [] { "graph {}",
+                                               "digraph { a -- b }",
+                                               "digraph { a -> b",
+                                               "digraph { subgraph x { a } }",
+                                               "digraph { a:n -> b }",
+                                               "digraph { a [label=\"x] }",
+                                               "digraph { a -> b; a -> b }",
+                                               "digraph { } x" };
+    for (final String sDOT : aInvalid)
+      try
+      {
+        GraphVizDotReader.readDirectedGraph (new NonBlockingStringReader (sDOT), null, null);
+        fail (sDOT);
+      }
+      catch (final IllegalArgumentException ex)
+      {}
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2006-2014 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.math.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link SparseMatrix}.
+ * 
+ * @author Philip Helger
+ */
+public final class SparseMatrixTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final SparseMatrix aMatrix = new SparseMatrixBuilder (3, 4).add (2, 1, 5)
+                                                                .add (0, 3, 1)
+                                                                .add (0, 0, 2)
+                                                                .add (2, 1, 1)
+                                                                .set (1, 2, 7)
+                                                                .add (1, 2, 1)
+                                                                .set (1, 2, 3)
+                                                                .build ();
+    assertEquals (3, aMatrix.getRowDimension ());
+    assertEquals (4, aMatrix.getColumnDimension ());
+    assertEquals (4, aMatrix.getEntryCount ());
+    assertEquals (2, aMatrix.get (0, 0), 0);
+    assertEquals (1, aMatrix.get (0, 3), 0);
+    assertEquals (3, aMatrix.get (1, 2), 0);
+    assertEquals (6, aMatrix.get (2, 1), 0);
+    assertEquals (0, aMatrix.get (2, 2), 0);
+    assertEquals (0, aMatrix.getRowStartOffset (0));
+    assertEquals (2, aMatrix.getRowEndOffset (0));
+    assertEquals (0, aMatrix.getColumnIndex (0));
+    assertEquals (3, aMatrix.getColumnIndex (1));
+    assertArrayEquals (new double [] { 3, 3, 6 }, aMatrix.getRowSums (), 0);
+    assertArrayEquals (new double [] { 3, 9, 12 }, aMatrix.times (new double [] { 1, 2, 3, 1 }), 0);
+    assertNotNull (aMatrix.toString ());
+
+    final SparseMatrix aTransposed = aMatrix.transpose ();
+    assertEquals (aMatrix.getAsMatrix ().transpose (), aTransposed.getAsMatrix ());
+    assertEquals (aMatrix, aTransposed.transpose ());
+    assertArrayEquals (aTransposed.times (new double [] { 1, 2, 3 }),
+                       aMatrix.transposeTimes (new double [] { 1, 2, 3 }),
+                       0);
+
+    // Empty matrix
+    final SparseMatrix aEmpty = new SparseMatrixBuilder (0, 0).build ();
+    assertEquals (0, aEmpty.getEntryCount ());
+    assertEquals (0, aEmpty.times (new double [0]).length);
+
+    try
+    {
+      aMatrix.times (new double [3]);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      new SparseMatrixBuilder (2, 2).add (2, 0, 1);
+      fail ();
+    }
+    catch (final ArrayIndexOutOfBoundsException ex)
+    {}
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    final Random aRandom = new Random (4711);
+    final int nRows = 30;
+    final int nCols = 20;
+    final Matrix aDense = new Matrix (nRows, nCols, 0);
+    final SparseMatrixBuilder aBuilder = new SparseMatrixBuilder (nRows, nCols);
+    for (int i = 0; i < 200; ++i)
+    {
+      final int nRow = aRandom.nextInt (nRows);
+      final int nCol = aRandom.nextInt (nCols);
+      final double dValue = aRandom.nextInt (10);
+      aDense.set (nRow, nCol, aDense.get (nRow, nCol) + dValue);
+      aBuilder.add (nRow, nCol, dValue);
+    }
+    final SparseMatrix aSparse = aBuilder.build ();
+    assertEquals (aDense, aSparse.getAsMatrix ());
+
+    final double [] aVector = new double [nCols];
+    for (int i = 0; i < nCols; ++i)
+      aVector[i] = aRandom.nextInt (5);
+    final Matrix aExpected = aDense.times (new Matrix (aVector, nCols));
+    assertArrayEquals (aExpected.getColumnPackedCopy (), aSparse.times (aVector), 0);
+  }
+}